@@ -0,0 +1,33 @@
+package ai;
+
+import model.Game;
+import model.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Игрок-программа для игры без участия человека
+ */
+public interface Bot {
+    /**
+     * Выбор хода для текущего игрока.
+     * Игра не должна быть окончена.
+     *
+     * @param game   текущая игра (не изменяется)
+     * @param random источник случайности; при одинаковом зерне
+     *               бот должен выбирать одинаковые ходы
+     * @return ход в пустую клетку
+     */
+    Move nextMove(Game game, SplittableRandom random);
+
+    /**
+     * Выбор хода с жёстким ограничением времени.
+     * Боты, которые думают долго, должны вернуть лучший найденный
+     * ход к моменту deadlineNanos; по умолчанию ограничение не учитывается
+     *
+     * @param deadlineNanos момент по {@link System#nanoTime()}
+     */
+    default Move nextMove(Game game, SplittableRandom random, long deadlineNanos) {
+        return nextMove(game, random);
+    }
+}
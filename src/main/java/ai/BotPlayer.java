@@ -0,0 +1,48 @@
+package ai;
+
+import model.Game;
+import model.Move;
+import model.Player;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Бот в роли игрока: ход ищется на копии игры в executor
+ * с жёстким ограничением времени
+ */
+public class BotPlayer implements Player {
+    /**
+     * Запас времени на передачу хода контроллеру
+     */
+    static final long SAFETY_MARGIN_NANOS = 2_000_000;
+
+    private final Bot bot;
+    private final SplittableRandom random;
+    private final Executor executor;
+
+    /**
+     * @param bot      бот
+     * @param seed     зерно для случайных ходов
+     * @param executor где искать ход
+     */
+    public BotPlayer(Bot bot, long seed, Executor executor) {
+        this.bot = bot;
+        this.random = new SplittableRandom(seed);
+        this.executor = executor;
+    }
+
+    public Bot getBot() {
+        return bot;
+    }
+
+    @Override
+    public CompletableFuture<Move> requestMove(Game game, long deadlineNanos) {
+        Game position = game.copy();
+        SplittableRandom moveRandom = random.split();
+        return CompletableFuture.supplyAsync(
+                () -> bot.nextMove(position, moveRandom, deadlineNanos - SAFETY_MARGIN_NANOS),
+                executor);
+    }
+}
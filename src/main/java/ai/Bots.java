@@ -0,0 +1,39 @@
+package ai;
+
+/**
+ * Создание ботов по имени (для командной строки)
+ */
+public final class Bots {
+    /**
+     * Глубина перебора бота "search"
+     */
+    public static final int SEARCH_DEPTH = 6;
+
+    private Bots() {
+    }
+
+    /**
+     * @param name имя бота: random, greedy, search или search:глубина
+     * @return новый бот
+     * @throws IllegalArgumentException если бот неизвестен
+     */
+    public static Bot byName(String name) {
+        if (name.startsWith("search:")) {
+            try {
+                return new SearchBot(Integer.parseInt(name.substring("search:".length())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Неверная глубина бота: " + name, e);
+            }
+        }
+        switch (name) {
+            case "random":
+                return new RandomBot();
+            case "greedy":
+                return new GreedyBot();
+            case "search":
+                return new SearchBot(SEARCH_DEPTH);
+            default:
+                throw new IllegalArgumentException("Неизвестный бот: " + name);
+        }
+    }
+}
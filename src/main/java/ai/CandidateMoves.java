@@ -0,0 +1,152 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * Ходы-кандидаты для перебора на больших полях: пустые клетки
+ * на расстоянии не больше radius (по Чебышёву) от занятых.
+ * Множество без повторов хранится как битовая маска плюс список
+ * (для удаления за O(1) - с переносом последнего элемента на место
+ * удаляемого) и обновляется при каждом ходе и отмене хода
+ * по окрестности клетки, а не по всему полю. Ветвление перебора
+ * падает с size² до нескольких десятков.
+ * <p>
+ * Подсказка для порядка ходов - сумма по соседним символам
+ * (radius + 1 - расстояние): клетки в гуще игры идут раньше.
+ */
+final class CandidateMoves {
+    private final int size;
+    private final int radius;
+    private final byte[] board;
+    /**
+     * Количество символов в окрестности клетки
+     */
+    private final int[] near;
+    private final int[] hints;
+    private final long[] bits;
+    private final int[] list;
+    /**
+     * Позиция клетки в list
+     */
+    private final int[] index;
+    private int count;
+    /**
+     * Счётчики кандидатов по подсказке для {@link #fill}
+     */
+    private final int[] byHint;
+
+    /**
+     * @param size   размер поля
+     * @param radius радиус окрестности
+     * @param board  поле позиции (0 - пусто), меняется снаружи
+     */
+    CandidateMoves(int size, int radius, byte[] board) {
+        this.size = size;
+        this.radius = radius;
+        this.board = board;
+        int cells = size * size;
+        near = new int[cells];
+        hints = new int[cells];
+        bits = new long[(cells + 63) >>> 6];
+        list = new int[cells];
+        index = new int[cells];
+        // Наибольшая подсказка - все клетки окрестности заняты
+        int maxHint = 0;
+        for (int d = 1; d <= radius; d++)
+            maxHint += 8 * d * (radius + 1 - d);
+        byHint = new int[maxHint + 1];
+    }
+
+    int size() {
+        return count;
+    }
+
+    int get(int i) {
+        return list[i];
+    }
+
+    boolean contains(int cell) {
+        return (bits[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    int hint(int cell) {
+        return hints[cell];
+    }
+
+    private void add(int cell) {
+        bits[cell >>> 6] |= 1L << cell;
+        index[cell] = count;
+        list[count++] = cell;
+    }
+
+    private void drop(int cell) {
+        bits[cell >>> 6] &= ~(1L << cell);
+        int last = list[--count];
+        list[index[cell]] = last;
+        index[last] = index[cell];
+    }
+
+    /**
+     * Символ поставлен в клетку (поле уже изменено)
+     */
+    void put(int cell) {
+        if (contains(cell))
+            drop(cell);
+        update(cell, 1);
+    }
+
+    /**
+     * Символ убран из клетки (поле уже изменено)
+     */
+    void remove(int cell) {
+        update(cell, -1);
+        if (near[cell] > 0)
+            add(cell);
+    }
+
+    private void update(int cell, int sign) {
+        int cx = cell % size, cy = cell / size;
+        for (int y = Math.max(0, cy - radius); y <= Math.min(size - 1, cy + radius); y++) {
+            for (int x = Math.max(0, cx - radius); x <= Math.min(size - 1, cx + radius); x++) {
+                int n = y * size + x;
+                near[n] += sign;
+                hints[n] += sign * (radius + 1 - Math.max(Math.abs(x - cx), Math.abs(y - cy)));
+                if (n == cell || board[n] != SearchPosition.EMPTY)
+                    continue;
+                if (near[n] == 0)
+                    drop(n);
+                else if (sign > 0 && near[n] == 1)
+                    add(n);
+            }
+        }
+    }
+
+    /**
+     * Кандидаты в порядке убывания подсказки
+     *
+     * @param moves куда записать
+     * @param from  с какого элемента
+     * @param skip  клетка, которую не нужно записывать, или -1
+     * @return номер элемента после последнего записанного
+     */
+    int fill(int[] moves, int from, int skip) {
+        // Сортировка подсчётом: подсказок немного, а кандидатов на большом
+        // поле - сотни. При равных подсказках сохраняется порядок списка
+        Arrays.fill(byHint, 0);
+        for (int i = 0; i < count; i++)
+            if (list[i] != skip)
+                byHint[hints[list[i]]]++;
+        int n = from;
+        for (int h = byHint.length - 1; h >= 0; h--) {
+            int k = byHint[h];
+            byHint[h] = n;
+            n += k;
+        }
+        for (int i = 0; i < count; i++) {
+            int cell = list[i];
+            if (cell != skip)
+                moves[byHint[hints[cell]]++] = cell;
+        }
+        return n;
+    }
+}
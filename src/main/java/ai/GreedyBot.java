@@ -0,0 +1,44 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Выигрывает одним ходом, если может,
+ * иначе мешает выиграть сопернику,
+ * иначе ходит случайно
+ */
+public class GreedyBot implements Bot {
+
+    @Override
+    public Move nextMove(Game game, SplittableRandom random) {
+        Cell player = game.getCurrentPlayer();
+        Cell opponent = player == Cell.X ? Cell.O : Cell.X;
+        Move win = findWinningMove(game, player);
+        if (win != null)
+            return win;
+        Move block = findWinningMove(game, opponent);
+        if (block != null)
+            return block;
+        return RandomBot.randomMove(game, random);
+    }
+
+    /**
+     * Поиск хода, сразу дающего выигрыш
+     *
+     * @return ход или null, если такого нет
+     */
+    static Move findWinningMove(Game game, Cell player) {
+        int size = game.getSize();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (game.getCell(x, y) == Cell.EMPTY && game.isWinningMove(x, y, player))
+                    return new Move(x, y);
+            }
+        }
+        return null;
+    }
+}
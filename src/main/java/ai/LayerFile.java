@@ -0,0 +1,76 @@
+package ai;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Файл слоя {@link RetrogradeSolver}: по 2 бита на позицию,
+ * отображён в память кусками по 1 Гб (больше одно отображение не вмещает).
+ * Страницы файла читает и вытесняет операционная система,
+ * поэтому слой может быть больше оперативной памяти.
+ * <p>
+ * Разные потоки могут писать одновременно, если их позиции
+ * не делят байт (номера кратны 4).
+ */
+final class LayerFile {
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * @param write true - создать файл заново (заполнен нулями),
+     *              false - открыть готовый только для чтения
+     */
+    LayerFile(Path file, long positions, boolean write) throws IOException {
+        long bytes = bytes(positions);
+        try (FileChannel channel = write
+                ? FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            if (write)
+                channel.write(ByteBuffer.allocate(1), bytes - 1);
+            else if (channel.size() != bytes)
+                throw new IOException("Размер " + file + " - " + channel.size() + " байт, ожидалось " + bytes);
+            FileChannel.MapMode mode = write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+            chunks = new MappedByteBuffer[(int) ((bytes + CHUNK_MASK) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                chunks[i] = channel.map(mode, start, Math.min(CHUNK_MASK + 1, bytes - start));
+            }
+        }
+    }
+
+    /**
+     * Размер файла для количества позиций
+     */
+    static long bytes(long positions) {
+        return (positions + 3) >>> 2;
+    }
+
+    int get(long index) {
+        long offset = index >>> 2;
+        int b = chunks[(int) (offset >>> CHUNK_BITS)].get((int) (offset & CHUNK_MASK));
+        return b >>> ((int) (index & 3) << 1) & 3;
+    }
+
+    void set(long index, int value) {
+        long offset = index >>> 2;
+        MappedByteBuffer chunk = chunks[(int) (offset >>> CHUNK_BITS)];
+        int i = (int) (offset & CHUNK_MASK);
+        int shift = (int) (index & 3) << 1;
+        chunk.put(i, (byte) (chunk.get(i) & ~(3 << shift) | value << shift));
+    }
+
+    /**
+     * Запись изменений на диск
+     */
+    void force() {
+        for (MappedByteBuffer chunk : chunks)
+            chunk.force();
+    }
+}
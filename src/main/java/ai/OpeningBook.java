@@ -0,0 +1,365 @@
+package ai;
+
+import model.Game;
+import model.Move;
+import model.UserException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Дебютная книга: ходы для первых позиций игры, найденные заранее
+ * (по записанным партиям или партиям ботов друг с другом, см. {@link Builder}).
+ * <p>
+ * Позиция хранится по хэшу Зобриста, наименьшему среди 8 симметрий поля
+ * (повороты и отражения), поэтому симметричные позиции занимают одну
+ * запись, а ход переводится обратно в координаты игры. Файл - отсортированные
+ * записи (хэш, ход, доля очков) по 16 байт, отображённые в память; позиция ищется
+ * интерполяционным поиском, чередующимся с делением пополам, так что
+ * ход из книги стоит микросекунды, а не перебор.
+ */
+public class OpeningBook {
+    private static final int MAGIC = 0x54544F42;
+    private static final int HEADER_BYTES = 24, ENTRY_BYTES = 16;
+
+    private final int size;
+    private final int winLength;
+    private final ByteBuffer entries;
+    private final int count;
+    private final long[] keys;
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+    private OpeningBook(int size, int winLength, ByteBuffer entries, int count) {
+        this.size = size;
+        this.winLength = winLength;
+        this.entries = entries;
+        this.count = count;
+        this.keys = keys(size, winLength);
+    }
+
+    /**
+     * Открытие файла книги
+     *
+     * @throws IOException файл не читается или не является книгой
+     */
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("Книга " + file + " больше 2 Гб");
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC)
+                throw new IOException(file + " - не дебютная книга");
+            long count = buffer.getLong(16);
+            if (HEADER_BYTES + count * ENTRY_BYTES != buffer.capacity())
+                throw new IOException("Книга " + file + " повреждена");
+            return new OpeningBook(buffer.getInt(4), buffer.getInt(8), buffer, (int) count);
+        }
+    }
+
+    /**
+     * Ключи Зобриста книги: клетка * 2 + (игрок - 1). Зависят только
+     * от размеров, поэтому хэши в файле не меняются между запусками
+     */
+    private static long[] keys(int size, int winLength) {
+        SplittableRandom random = new SplittableRandom(0x0B00CL * 64 + size * 64L + winLength);
+        long[] keys = new long[size * size * 2];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = random.nextLong();
+        return keys;
+    }
+
+    /**
+     * Клетка после симметрии t: бит 2 - транспонирование,
+     * бит 0 - отражение по x, бит 1 - по y
+     */
+    static int transform(int t, int cell, int size) {
+        int x = cell % size, y = cell / size;
+        if ((t & 4) != 0) {
+            int swap = x;
+            x = y;
+            y = swap;
+        }
+        if ((t & 1) != 0)
+            x = size - 1 - x;
+        if ((t & 2) != 0)
+            y = size - 1 - y;
+        return y * size + x;
+    }
+
+    /**
+     * Обратное преобразование к {@link #transform}
+     */
+    static int inverse(int t, int cell, int size) {
+        int x = cell % size, y = cell / size;
+        if ((t & 2) != 0)
+            y = size - 1 - y;
+        if ((t & 1) != 0)
+            x = size - 1 - x;
+        if ((t & 4) != 0) {
+            int swap = x;
+            x = y;
+            y = swap;
+        }
+        return y * size + x;
+    }
+
+    /**
+     * Наименьший хэш среди симметрий позиции
+     *
+     * @return хэш и номер симметрии, которая его даёт
+     */
+    private static long[] canonical(byte[] board, int size, long[] keys) {
+        long best = 0;
+        int bestTransform = -1;
+        for (int t = 0; t < 8; t++) {
+            long hash = 0;
+            for (int cell = 0; cell < board.length; cell++)
+                if (board[cell] != SearchPosition.EMPTY)
+                    hash ^= keys[transform(t, cell, size) * 2 + board[cell] - 1];
+            if (bestTransform < 0 || hash < best) {
+                best = hash;
+                bestTransform = t;
+            }
+        }
+        return new long[]{best, bestTransform};
+    }
+
+    long key(int index) {
+        return entries.getLong(HEADER_BYTES + index * ENTRY_BYTES);
+    }
+
+    private int move(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 8);
+    }
+
+    /**
+     * Доля очков хода в тысячных
+     */
+    int score(int index) {
+        return entries.getInt(HEADER_BYTES + index * ENTRY_BYTES + 12);
+    }
+
+    /**
+     * Первая запись с ключом или -1
+     */
+    int find(long key) {
+        int lo = 0, hi = count - 1;
+        boolean interpolate = true;
+        while (lo <= hi) {
+            long loKey = key(lo), hiKey = key(hi);
+            if (key < loKey || key > hiKey)
+                return -1;
+            int probe;
+            if (interpolate && hiKey != loKey)
+                probe = lo + (int) ((hi - lo) * (((double) key - loKey) / ((double) hiKey - loKey)));
+            else
+                probe = (lo + hi) >>> 1;
+            // Интерполяция быстра для равномерных хэшей, деление пополам - гарантия log n
+            interpolate = !interpolate;
+            probe = Math.max(lo, Math.min(hi, probe));
+            long probeKey = key(probe);
+            if (probeKey < key) {
+                lo = probe + 1;
+            } else if (probeKey > key) {
+                hi = probe - 1;
+            } else {
+                while (probe > 0 && key(probe - 1) == key)
+                    probe--;
+                return probe;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ход с наибольшей долей очков для позиции
+     *
+     * @return клетка или -1, если позиции нет в книге
+     */
+    int lookup(SearchPosition position) {
+        if (position.size != size || position.winLength != winLength) {
+            misses.increment();
+            return -1;
+        }
+        long[] canonical = canonical(position.board, size, keys);
+        int index = find(canonical[0]);
+        if (index >= 0) {
+            int cell = inverse((int) canonical[1], move(index), size);
+            if (cell < position.cells && position.board[cell] == SearchPosition.EMPTY) {
+                hits.increment();
+                return cell;
+            }
+        }
+        misses.increment();
+        return -1;
+    }
+
+    /**
+     * Ход из книги для текущего игрока
+     *
+     * @return ход или null, если позиции нет в книге
+     */
+    public Move lookup(Game game) {
+        int cell = lookup(new SearchPosition(game));
+        return cell < 0 ? null : new Move(cell % size, cell / size);
+    }
+
+    /**
+     * Количество записей (пар позиция - ход)
+     */
+    public int size() {
+        return count;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Сбор книги по сыгранным партиям. Для хода в позиции считаются партии,
+     * где его сделали, и очки сделавшего его игрока: 2 - выигрыш, 1 - ничья,
+     * 0 - проигрыш. Лучший ход - с наибольшей долей очков, а не самый частый
+     */
+    public static class Builder {
+        private final int size;
+        private final int winLength;
+        private final int maxPlies;
+        private final long[] keys;
+        /**
+         * Хэш позиции -> ход в координатах симметрии -> {партии, очки}
+         */
+        private final Map<Long, Map<Integer, int[]>> stats = new HashMap<>();
+        private long games;
+
+        /**
+         * @param maxPlies сколько первых ходов партии попадает в книгу
+         */
+        public Builder(int size, int winLength, int maxPlies) {
+            this.size = size;
+            this.winLength = winLength;
+            this.maxPlies = maxPlies;
+            this.keys = keys(size, winLength);
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public int getPositions() {
+            return stats.size();
+        }
+
+        /**
+         * Учёт партии
+         *
+         * @param moves ходы партии с первого
+         * @return false, если партия не окончена (исход неизвестен)
+         * @throws UserException недопустимый ход
+         */
+        public boolean add(List<Move> moves) throws UserException {
+            return add(moves, 0);
+        }
+
+        /**
+         * Учёт партии без первых firstPly ходов (например, случайных)
+         */
+        boolean add(List<Move> moves, int firstPly) throws UserException {
+            Game game = new Game(size, winLength);
+            for (Move move : moves)
+                game.move(move);
+            if (!game.isOver())
+                return false;
+            SearchPosition position = new SearchPosition(size, winLength);
+            for (int ply = 0; ply < moves.size() && ply < maxPlies; ply++) {
+                Move move = moves.get(ply);
+                int cell = move.y * size + move.x;
+                if (ply >= firstPly) {
+                    boolean xMoves = ply % 2 == 0;
+                    int points = game.getState() == Game.State.DRAW ? 1
+                            : (game.getState() == Game.State.X_WINS) == xMoves ? 2 : 0;
+                    long[] canonical = canonical(position.board, size, keys);
+                    int[] stat = stats.computeIfAbsent(canonical[0], k -> new HashMap<>())
+                            .computeIfAbsent(transform((int) canonical[1], cell, size), k -> new int[2]);
+                    stat[0]++;
+                    stat[1] += points;
+                }
+                position.play(cell);
+            }
+            games++;
+            return true;
+        }
+
+        /**
+         * Партии ботов друг с другом; первые randomPlies ходов случайны,
+         * чтобы партии не повторялись, и в книгу не попадают
+         */
+        public void selfPlay(Bot x, Bot o, int count, int randomPlies, long seed) {
+            RandomBot randomBot = new RandomBot();
+            for (int i = 0; i < count; i++) {
+                SplittableRandom random = new SplittableRandom(seed + i * 0x9E3779B97F4A7C15L);
+                Game game = new Game(size, winLength);
+                List<Move> moves = new ArrayList<>();
+                try {
+                    while (!game.isOver()) {
+                        Bot bot = moves.size() < randomPlies ? randomBot
+                                : game.getState() == Game.State.X_MOVE ? x : o;
+                        Move move = bot.nextMove(game, random);
+                        game.move(move);
+                        moves.add(move);
+                    }
+                    add(moves, randomPlies);
+                } catch (UserException e) {
+                    throw new IllegalStateException("Бот сделал недопустимый ход", e);
+                }
+            }
+        }
+
+        /**
+         * Запись книги: для каждой позиции - ходы, сыгранные хотя бы
+         * в minGames партиях и набравшие хоть одно очко
+         *
+         * @return количество записей
+         */
+        public int write(Path file, int minGames) throws IOException {
+            // {хэш, ход, доля очков в тысячных, партии}
+            List<long[]> entries = new ArrayList<>();
+            for (Map.Entry<Long, Map<Integer, int[]>> position : stats.entrySet())
+                for (Map.Entry<Integer, int[]> move : position.getValue().entrySet()) {
+                    int games = move.getValue()[0], points = move.getValue()[1];
+                    if (games >= minGames && points > 0)
+                        entries.add(new long[]{position.getKey(), move.getKey(), points * 500L / games, games});
+                }
+            // По хэшу, затем лучшие ходы первыми; при равной доле - более проверенные
+            entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                    : a[2] != b[2] ? Long.compare(b[2], a[2])
+                    : a[3] != b[3] ? Long.compare(b[3], a[3]) : Long.compare(a[1], b[1]));
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + entries.size() * ENTRY_BYTES);
+            buffer.putInt(MAGIC).putInt(size).putInt(winLength).putInt(0).putLong(entries.size());
+            for (long[] entry : entries)
+                buffer.putLong(entry[0]).putInt((int) entry[1]).putInt((int) entry[2]);
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining())
+                    channel.write(buffer);
+            }
+            return entries.size();
+        }
+    }
+}
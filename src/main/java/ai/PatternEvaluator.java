@@ -0,0 +1,127 @@
+package ai;
+
+/**
+ * Инкрементальная оценка позиции по отрезкам длины winLength.
+ * Для каждого отрезка хранится количество символов каждого игрока,
+ * для каждого игрока - сколько у него "открытых" отрезков с k символами
+ * (в отрезке нет символов соперника: открытые двойки, тройки, четвёрки),
+ * и сумма весов этих отрезков. При ходе и отмене хода пересчитываются
+ * только отрезки через клетку хода - O(k) на ход, оценка читается за O(1).
+ */
+final class PatternEvaluator {
+    private final int winLength;
+    private final int[] cellWindowStart;
+    private final int[] cellWindows;
+    /**
+     * Количество символов X и O в каждом отрезке
+     */
+    private final byte[] xCounts;
+    private final byte[] oCounts;
+    /**
+     * Открытые отрезки: patterns[(игрок - 1) * (winLength + 1) + k]
+     */
+    private final int[] patterns;
+    /**
+     * Вес открытого отрезка с k символами
+     */
+    private final int[] weights;
+    /**
+     * Сумма весов открытых отрезков X минус O
+     */
+    private int score;
+
+    /**
+     * @param winLength       длина отрезка
+     * @param windowCount     количество отрезков
+     * @param cellWindowStart отрезки через клетку c - элементы cellWindows
+     *                        в [cellWindowStart[c], cellWindowStart[c + 1])
+     * @param cellWindows     номера отрезков
+     */
+    PatternEvaluator(int winLength, int windowCount, int[] cellWindowStart, int[] cellWindows) {
+        this.winLength = winLength;
+        this.cellWindowStart = cellWindowStart;
+        this.cellWindows = cellWindows;
+        this.xCounts = new byte[windowCount];
+        this.oCounts = new byte[windowCount];
+        this.patterns = new int[2 * (winLength + 1)];
+        patterns[0] = patterns[winLength + 1] = windowCount;
+        weights = new int[winLength + 1];
+        for (int k = 1; k <= winLength; k++)
+            weights[k] = 1 << Math.min(2 * (k - 1), 20);
+    }
+
+    /**
+     * Символ игрока поставлен в клетку
+     */
+    void put(int cell, byte player) {
+        for (int i = cellWindowStart[cell]; i < cellWindowStart[cell + 1]; i++) {
+            int w = cellWindows[i];
+            remove(w);
+            if (player == SearchPosition.X)
+                xCounts[w]++;
+            else
+                oCounts[w]++;
+            add(w);
+        }
+    }
+
+    /**
+     * Символ игрока убран из клетки
+     */
+    void remove(int cell, byte player) {
+        for (int i = cellWindowStart[cell]; i < cellWindowStart[cell + 1]; i++) {
+            int w = cellWindows[i];
+            remove(w);
+            if (player == SearchPosition.X)
+                xCounts[w]--;
+            else
+                oCounts[w]--;
+            add(w);
+        }
+    }
+
+    /**
+     * Вклад отрезка в счётчики и оценку: со знаком sign
+     */
+    private void contribute(int window, int sign) {
+        int xs = xCounts[window], os = oCounts[window];
+        if (os == 0) {
+            patterns[xs] += sign;
+            score += sign * weights[xs];
+        }
+        if (xs == 0) {
+            patterns[winLength + 1 + os] += sign;
+            score -= sign * weights[os];
+        }
+    }
+
+    private void add(int window) {
+        contribute(window, 1);
+    }
+
+    private void remove(int window) {
+        contribute(window, -1);
+    }
+
+    /**
+     * Количество символов игрока в отрезке
+     */
+    int count(int window, byte player) {
+        return player == SearchPosition.X ? xCounts[window] : oCounts[window];
+    }
+
+    /**
+     * Количество отрезков, где у игрока k символов, а у соперника ни одного
+     */
+    int patterns(byte player, int k) {
+        return patterns[(player - 1) * (winLength + 1) + k];
+    }
+
+    /**
+     * Оценка для игрока: сумма весов его открытых отрезков
+     * минус сумма весов открытых отрезков соперника
+     */
+    int score(byte player) {
+        return player == SearchPosition.X ? score : -score;
+    }
+}
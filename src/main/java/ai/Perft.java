@@ -0,0 +1,284 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.UserException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Подсчёт листьев дерева игры до заданной глубины (perft, как в шахматных
+ * движках): проверка генерации ходов и определения победы и замер скорости.
+ * Лист - позиция на глубине depth или оконченная раньше игра; листья
+ * считаются по исходам. Для поля 3x3 на полную глубину известный ответ -
+ * {@link #GAMES_3X3} партий.
+ * <p>
+ * Два движка: {@link SearchPosition} (ход и отмена хода, как в переборе)
+ * и {@link Game} (копия игры на каждый ход). Совпадение их результатов
+ * проверяет один движок другим. Первые {@link #SPLIT_PLIES} хода
+ * делятся между потоками через ForkJoinPool.
+ */
+public class Perft {
+    /**
+     * Количество различных партий 3x3: выигрышей X, O и ничьих
+     */
+    public static final long GAMES_3X3 = 255_168, X_WINS_3X3 = 131_184, O_WINS_3X3 = 77_904, DRAWS_3X3 = 46_080;
+    /**
+     * Сколько первых ходов порождают отдельные задачи
+     */
+    static final int SPLIT_PLIES = 2;
+
+    private final int threads;
+
+    public Perft(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Итоги подсчёта
+     */
+    public static class Result {
+        /**
+         * Все просмотренные позиции, включая начальную
+         */
+        public long nodes;
+        public long xWins, oWins, draws;
+        /**
+         * Неоконченные игры на глубине depth
+         */
+        public long unfinished;
+        public long elapsedNanos;
+
+        public long getLeaves() {
+            return xWins + oWins + draws + unfinished;
+        }
+
+        public double getNodesPerSecond() {
+            return nodes * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        void add(Result other) {
+            nodes += other.nodes;
+            xWins += other.xWins;
+            oWins += other.oWins;
+            draws += other.draws;
+            unfinished += other.unfinished;
+        }
+
+        /**
+         * Одинаковые ли счётчики (время не сравнивается)
+         */
+        public boolean sameCounts(Result other) {
+            return nodes == other.nodes && xWins == other.xWins && oWins == other.oWins
+                    && draws == other.draws && unfinished == other.unfinished;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Листьев: %d, X: %d, O: %d, ничьих: %d, неоконченных: %d%n" +
+                            "Позиций: %d, %.3f с, позиций/с: %.0f",
+                    getLeaves(), xWins, oWins, draws, unfinished,
+                    nodes, elapsedNanos / 1e9, getNodesPerSecond());
+        }
+    }
+
+    /**
+     * Подсчёт на {@link SearchPosition}
+     *
+     * @param game  начальная позиция (не изменяется)
+     * @param depth глубина в полуходах
+     */
+    public Result run(Game game, int depth) {
+        // Исход оконченной игры знает только Game: это один лист
+        if (game.isOver())
+            return runModel(game, depth);
+        return invoke(new PositionTask(new SearchPosition(game), -1, depth, 0));
+    }
+
+    /**
+     * Подсчёт на {@link Game}
+     */
+    public Result runModel(Game game, int depth) {
+        return invoke(new GameTask(game.copy(), depth, 0));
+    }
+
+    private Result invoke(RecursiveTask<Result> task) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            Result result = pool.invoke(task);
+            result.elapsedNanos = System.nanoTime() - start;
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Копия позиции для отдельной задачи
+     */
+    private static SearchPosition copy(SearchPosition position) {
+        SearchPosition copy = new SearchPosition(position.size, position.winLength);
+        for (int cell = 0; cell < position.cells; cell++)
+            if (position.board[cell] != SearchPosition.EMPTY)
+                copy.put(cell, position.board[cell]);
+        copy.toMove = position.toMove;
+        return copy;
+    }
+
+    /**
+     * Поддерево {@link SearchPosition}
+     */
+    @SuppressWarnings("serial") // задача fork/join не сериализуется
+    private static class PositionTask extends RecursiveTask<Result> {
+        private final SearchPosition position;
+        /**
+         * Последний ход (-1 в начале) - для проверки окончания игры
+         */
+        private final int last;
+        private final int depth;
+        private final int ply;
+
+        PositionTask(SearchPosition position, int last, int depth, int ply) {
+            this.position = position;
+            this.last = last;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Result compute() {
+            Result result = new Result();
+            if (ply >= SPLIT_PLIES || depth == 0) {
+                count(position, last, depth, result);
+                return result;
+            }
+            if (!isOver(position, last, result)) {
+                result.nodes++;
+                List<PositionTask> children = new ArrayList<>();
+                for (int cell = 0; cell < position.cells; cell++) {
+                    if (position.board[cell] != SearchPosition.EMPTY)
+                        continue;
+                    SearchPosition child = copy(position);
+                    child.play(cell);
+                    children.add(new PositionTask(child, cell, depth - 1, ply + 1));
+                }
+                for (PositionTask child : invokeAll(children))
+                    result.add(child.join());
+            }
+            return result;
+        }
+
+        /**
+         * Если игра окончена, лист учитывается в result
+         */
+        private static boolean isOver(SearchPosition p, int last, Result result) {
+            if (last >= 0 && p.isWin(last)) {
+                result.nodes++;
+                if (p.board[last] == SearchPosition.X)
+                    result.xWins++;
+                else
+                    result.oWins++;
+                return true;
+            }
+            if (p.isFull()) {
+                result.nodes++;
+                result.draws++;
+                return true;
+            }
+            return false;
+        }
+
+        private static void count(SearchPosition p, int last, int depth, Result result) {
+            if (isOver(p, last, result))
+                return;
+            result.nodes++;
+            if (depth == 0) {
+                result.unfinished++;
+                return;
+            }
+            for (int cell = 0; cell < p.cells; cell++) {
+                if (p.board[cell] != SearchPosition.EMPTY)
+                    continue;
+                p.play(cell);
+                count(p, cell, depth - 1, result);
+                p.undo(cell);
+            }
+        }
+    }
+
+    /**
+     * Поддерево {@link Game}
+     */
+    @SuppressWarnings("serial") // задача fork/join не сериализуется
+    private static class GameTask extends RecursiveTask<Result> {
+        private final Game game;
+        private final int depth;
+        private final int ply;
+
+        GameTask(Game game, int depth, int ply) {
+            this.game = game;
+            this.depth = depth;
+            this.ply = ply;
+        }
+
+        @Override
+        protected Result compute() {
+            Result result = new Result();
+            if (ply < SPLIT_PLIES && depth > 0 && !game.isOver()) {
+                result.nodes++;
+                List<GameTask> children = new ArrayList<>();
+                for (Game child : children(game))
+                    children.add(new GameTask(child, depth - 1, ply + 1));
+                for (GameTask child : invokeAll(children))
+                    result.add(child.join());
+                return result;
+            }
+            count(game, depth, result);
+            return result;
+        }
+
+        private static void count(Game game, int depth, Result result) {
+            result.nodes++;
+            switch (game.getState()) {
+                case X_WINS:
+                    result.xWins++;
+                    return;
+                case O_WINS:
+                    result.oWins++;
+                    return;
+                case DRAW:
+                    result.draws++;
+                    return;
+                default:
+            }
+            if (depth == 0) {
+                result.unfinished++;
+                return;
+            }
+            for (Game child : children(game))
+                count(child, depth - 1, result);
+        }
+
+        private static List<Game> children(Game game) {
+            List<Game> children = new ArrayList<>();
+            for (int y = 0; y < game.size; y++) {
+                for (int x = 0; x < game.size; x++) {
+                    if (game.getCell(x, y) != Cell.EMPTY)
+                        continue;
+                    Game child = game.copy();
+                    try {
+                        child.move(x, y);
+                    } catch (UserException e) {
+                        throw new IllegalStateException("Ход в пустую клетку (" + x + "; " + y + ") отклонён", e);
+                    }
+                    children.add(child);
+                }
+            }
+            return children;
+        }
+    }
+}
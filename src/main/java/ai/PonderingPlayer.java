@@ -0,0 +1,158 @@
+package ai;
+
+import model.Game;
+import model.Move;
+import model.Player;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Бот с размышлением во время хода соперника.
+ * После своего хода он в фоне перебирает вероятные ответы соперника
+ * (сначала лучший по мнению бота, затем соседние с занятыми клетки) и сохраняет
+ * результаты в общей таблице транспозиций бота. Когда приходит запрос
+ * следующего хода, размышление останавливается (флаг проверяется
+ * при обходе позиций), и если соперник сыграл обдуманный ответ,
+ * ход берётся из таблицы почти мгновенно; иначе перебор всё равно
+ * ускоряется найденными в таблице позициями.
+ */
+public class PonderingPlayer implements Player {
+    private final SearchBot bot;
+    private final Executor executor;
+    /**
+     * Текущее размышление или null
+     */
+    private volatile Ponder ponder;
+    private final LongAdder ponderHits = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * @param bot      бот, его таблица используется и для размышления
+     * @param executor где искать ход и размышлять
+     */
+    public PonderingPlayer(SearchBot bot, Executor executor) {
+        this.bot = bot;
+        this.executor = executor;
+    }
+
+    public SearchBot getBot() {
+        return bot;
+    }
+
+    /**
+     * Количество ходов, взятых из результатов размышления без перебора
+     */
+    public long getPonderHits() {
+        return ponderHits.sum();
+    }
+
+    /**
+     * Количество запросов хода
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    @Override
+    public CompletableFuture<Move> requestMove(Game game, long deadlineNanos) {
+        stopPondering();
+        requests.increment();
+        SearchPosition position = new SearchPosition(game);
+        return CompletableFuture.supplyAsync(() -> {
+            SearchBot.Search search = bot.new Search(position);
+            search.deadline(deadlineNanos - BotPlayer.SAFETY_MARGIN_NANOS);
+            Move move = search.run();
+            if (search.fromTable)
+                ponderHits.increment();
+            startPondering(position, move.y * position.size + move.x);
+            return move;
+        }, executor);
+    }
+
+    /**
+     * Остановка размышления, если оно идёт
+     */
+    public void stopPondering() {
+        Ponder current = ponder;
+        if (current != null)
+            current.cancel();
+    }
+
+    private void startPondering(SearchPosition position, int move) {
+        position.play(move);
+        if (position.isWin(move) || position.isFull())
+            return;
+        Ponder next = new Ponder(position);
+        ponder = next;
+        executor.execute(next);
+    }
+
+    /**
+     * Перебор ответов соперника в позиции после своего хода
+     */
+    private class Ponder implements Runnable {
+        private final SearchPosition position;
+        private volatile boolean cancelled;
+        private volatile SearchBot.Search current;
+
+        Ponder(SearchPosition position) {
+            this.position = position;
+        }
+
+        void cancel() {
+            cancelled = true;
+            SearchBot.Search search = current;
+            if (search != null)
+                search.cancel();
+        }
+
+        /**
+         * Поиск, который можно остановить через {@link #cancel()}
+         */
+        private SearchBot.Search search() {
+            SearchBot.Search search = bot.new Search(position);
+            current = search;
+            if (cancelled)
+                search.cancel();
+            return search;
+        }
+
+        @Override
+        public void run() {
+            // Вероятный ответ соперника - лучший ход за него
+            SearchBot.Search prediction = search();
+            Move predicted = prediction.run();
+            if (prediction.isStopped())
+                return;
+            int first = predicted.y * position.size + predicted.x;
+            if (!ponderReply(first))
+                return;
+            // Ответы перебора меняют порядок кандидатов - берём копию
+            int[] replies = new int[position.cells];
+            int count = position.candidates.fill(replies, 0, first);
+            for (int i = 0; i < count; i++)
+                if (!ponderReply(replies[i]))
+                    return;
+        }
+
+        /**
+         * Поиск своего хода на ответ соперника
+         *
+         * @return false если размышление остановлено
+         */
+        private boolean ponderReply(int reply) {
+            position.play(reply);
+            try {
+                if (position.isWin(reply) || position.isFull())
+                    return !cancelled;
+                SearchBot.Search search = search();
+                search.run();
+                return !search.isStopped();
+            } finally {
+                position.undo(reply);
+            }
+        }
+    }
+}
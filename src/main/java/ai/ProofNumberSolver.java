@@ -0,0 +1,273 @@
+package ai;
+
+import model.Game;
+
+/**
+ * Точное решение позиции поиском по доказательным числам (df-pn):
+ * выигрыш, ничья или проигрыш текущего игрока.
+ * <p>
+ * df-pn доказывает или опровергает одну цель, поэтому решение
+ * идёт в два прохода: "текущий игрок выигрывает" и, если нет,
+ * "текущий игрок не проигрывает". Перебираются все пустые клетки,
+ * ходы из перспективных (с малыми доказательными числами) поддеревьев
+ * раскрываются первыми, и решённые позиции находятся намного быстрее
+ * полного минимакса.
+ * <p>
+ * Память ограничена размером {@link ProofTable}: при заполнении
+ * удаляются записи с наименьшей работой. Ход решения можно читать
+ * из другого потока: {@link #getNodes()}, {@link #getNodesPerSecond()},
+ * {@link #getTableSize()}.
+ */
+public class ProofNumberSolver {
+    /**
+     * Результат для текущего игрока
+     */
+    public enum Result {
+        WIN, DRAW, LOSS,
+        /**
+         * Не хватило ограничения на количество позиций
+         */
+        UNKNOWN
+    }
+
+    /**
+     * Бесконечность для доказательных чисел
+     */
+    static final int INF = Integer.MAX_VALUE / 2;
+    /**
+     * Обновление показателей для других потоков раз в столько позиций
+     */
+    private static final int PROGRESS_MASK = 4095;
+    /**
+     * phi = delta = 1 для ещё не раскрытой позиции
+     */
+    private static final long UNKNOWN_CHILD = 1L << 32 | 1;
+
+    private final ProofTable table;
+    private final long maxNodes;
+
+    private SearchPosition position;
+    private byte attacker;
+    /**
+     * Ничья считается выполнением цели
+     */
+    private boolean drawIsGoal;
+    private long nodes;
+    private boolean stopped;
+    /**
+     * Числа phi и delta последней вызванной позиции
+     */
+    private int lastPhi, lastDelta;
+    /**
+     * Пустые клетки и последние известные phi и delta ходов по глубине
+     */
+    private int[][] moveBuffers;
+    private long[][] valueBuffers;
+
+    private volatile long progressNodes;
+    private volatile long startNanos;
+    private volatile long elapsedNanos;
+    private volatile int tableSize;
+
+    /**
+     * @param tableEntries размер таблицы (ограничивает память)
+     * @param maxNodes     ограничение количества позиций на один вызов
+     */
+    public ProofNumberSolver(int tableEntries, long maxNodes) {
+        this.table = new ProofTable(tableEntries);
+        this.maxNodes = maxNodes;
+    }
+
+    /**
+     * Решение позиции
+     *
+     * @param game неоконченная игра (не изменяется)
+     * @return результат для игрока, чей ход
+     */
+    public Result solve(Game game) {
+        if (game.isOver())
+            throw new IllegalArgumentException("Игра окончена: " + game.getState());
+        position = new SearchPosition(game);
+        attacker = position.toMove;
+        moveBuffers = new int[position.cells + 1][];
+        valueBuffers = new long[position.cells + 1][];
+        nodes = 0;
+        stopped = false;
+        startNanos = System.nanoTime();
+        try {
+            Boolean win = prove(false);
+            if (win == null)
+                return Result.UNKNOWN;
+            if (win)
+                return Result.WIN;
+            Boolean notLose = prove(true);
+            if (notLose == null)
+                return Result.UNKNOWN;
+            return notLose ? Result.DRAW : Result.LOSS;
+        } finally {
+            updateProgress();
+        }
+    }
+
+    /**
+     * Доказательство одной цели из корня
+     *
+     * @return true - доказана, false - опровергнута, null - не хватило позиций
+     */
+    private Boolean prove(boolean drawIsGoal) {
+        this.drawIsGoal = drawIsGoal;
+        table.clear();
+        mid(INF - 1, INF - 1);
+        if (stopped)
+            return null;
+        // В корне ходит нападающий: phi - доказательное число
+        return lastPhi == 0;
+    }
+
+    /**
+     * Раскрытие текущей позиции, пока phi и delta не достигнут порогов
+     */
+    private void mid(int thPhi, int thDelta) {
+        if ((++nodes & PROGRESS_MASK) == 0)
+            updateProgress();
+        if (nodes > maxNodes)
+            stopped = true;
+        SearchPosition p = position;
+        int[] moves = moveBuffers[p.moves];
+        long[] values = valueBuffers[p.moves];
+        if (moves == null) {
+            moves = moveBuffers[p.moves] = new int[p.cells];
+            values = valueBuffers[p.moves] = new long[p.cells];
+        }
+        int count = 0;
+        for (int cell = 0; cell < p.cells; cell++) {
+            if (p.board[cell] == SearchPosition.EMPTY) {
+                values[count] = UNKNOWN_CHILD;
+                moves[count++] = cell;
+            }
+        }
+        long startNodes = nodes;
+        while (true) {
+            int phi = INF, secondDelta = INF, best = -1, bestPhi = 0;
+            long delta = 0;
+            for (int i = 0; i < count; i++) {
+                // Вытесненная из таблицы запись заменяется последним известным
+                // значением, иначе два хода могут бесконечно вытеснять друг друга
+                long child = values[i] = child(moves[i], values[i]);
+                int childPhi = (int) (child >> 32), childDelta = (int) child;
+                delta = Math.min(INF, delta + childPhi);
+                if (childDelta < phi) {
+                    secondDelta = phi;
+                    phi = childDelta;
+                    best = i;
+                    bestPhi = childPhi;
+                } else if (childDelta < secondDelta) {
+                    secondDelta = childDelta;
+                }
+            }
+            if (phi >= thPhi || delta >= thDelta || stopped) {
+                store(phi, (int) delta, nodes - startNodes + 1);
+                lastPhi = phi;
+                lastDelta = (int) delta;
+                return;
+            }
+            int childThPhi = (int) Math.min(INF, (long) thDelta - delta + bestPhi);
+            int childThDelta = Math.min(thPhi, secondDelta + 1);
+            p.play(moves[best]);
+            mid(childThPhi, childThDelta);
+            p.undo(moves[best]);
+            values[best] = (long) lastPhi << 32 | lastDelta;
+        }
+    }
+
+    /**
+     * Числа phi и delta позиции после хода (с точки зрения того,
+     * кто ходит в ней)
+     *
+     * @param known значение, если позиции нет в таблице
+     * @return phi в старших 32 битах, delta в младших
+     */
+    private long child(int cell, long known) {
+        SearchPosition p = position;
+        byte mover = p.toMove;
+        // Ход не делается: счётчики отрезков и кандидаты здесь не нужны
+        int pn, dn;
+        boolean terminal = true;
+        boolean goal = false;
+        if (p.isWin(cell, mover))
+            goal = mover == attacker;
+        else if (p.moves + 1 == p.cells)
+            goal = drawIsGoal;
+        else
+            terminal = false;
+        if (terminal) {
+            pn = goal ? 0 : INF;
+            dn = goal ? INF : 0;
+        } else {
+            int entry = table.find(p.hashAfter(cell));
+            if (entry < 0)
+                return known;
+            pn = table.pn(entry);
+            dn = table.dn(entry);
+        }
+        // После хода ходит соперник того, кто ходил
+        return mover != attacker ? (long) pn << 32 | dn : (long) dn << 32 | pn;
+    }
+
+    /**
+     * Запись текущей позиции: phi и delta переводятся
+     * в доказательное и опровергающее числа цели
+     */
+    private void store(int phi, int delta, long work) {
+        SearchPosition p = position;
+        if (p.toMove == attacker)
+            table.store(p.hash, phi, delta, work);
+        else
+            table.store(p.hash, delta, phi, work);
+    }
+
+    private void updateProgress() {
+        progressNodes = nodes;
+        elapsedNanos = System.nanoTime() - startNanos;
+        tableSize = table.size();
+    }
+
+    /**
+     * Количество раскрытых позиций в текущем или последнем решении
+     */
+    public long getNodes() {
+        return progressNodes;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getNodesPerSecond() {
+        return progressNodes * 1e9 / Math.max(1, elapsedNanos);
+    }
+
+    /**
+     * Количество записей в таблице
+     */
+    public int getTableSize() {
+        return tableSize;
+    }
+
+    public int getTableCapacity() {
+        return table.getCapacity();
+    }
+
+    /**
+     * Количество сборок мусора в таблице
+     */
+    public long getCollections() {
+        return table.getCollections();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Позиций: %d, позиций/с: %.0f, таблица: %d из %d, сборок: %d",
+                getNodes(), getNodesPerSecond(), getTableSize(), getTableCapacity(), getCollections());
+    }
+}
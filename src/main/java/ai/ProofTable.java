@@ -0,0 +1,148 @@
+package ai;
+
+import java.util.Arrays;
+
+/**
+ * Таблица доказательных чисел для {@link ProofNumberSolver}
+ * с ограниченным объёмом памяти.
+ * <p>
+ * Записи лежат в примитивных массивах корзинами по {@link #WAYS}:
+ * позиция ищется только в своей корзине. Если корзина заполнена,
+ * вытесняется запись с наименьшей работой (количеством позиций,
+ * просмотренных под ней) - её дешевле всего пересчитать.
+ * Когда таблица заполнена на {@link #GC_LOAD}, сборка мусора удаляет
+ * записи с наименьшей работой, пока не освободится половина.
+ */
+final class ProofTable {
+    static final int WAYS = 4;
+    /**
+     * Доля заполнения, при которой запускается сборка мусора
+     */
+    static final double GC_LOAD = 0.9;
+
+    private final long[] keys;
+    private final int[] pns;
+    private final int[] dns;
+    private final long[] work;
+    private final int mask;
+    private int size;
+    private long collections;
+    private long evictions;
+
+    /**
+     * @param entries количество записей (округляется вверх до степени двойки,
+     *                не меньше {@link #WAYS})
+     */
+    ProofTable(int entries) {
+        int capacity = Math.max(WAYS, Integer.highestOneBit(Math.max(1, entries - 1)) << 1);
+        keys = new long[capacity];
+        pns = new int[capacity];
+        dns = new int[capacity];
+        work = new long[capacity];
+        mask = capacity / WAYS - 1;
+    }
+
+    int getCapacity() {
+        return keys.length;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getCollections() {
+        return collections;
+    }
+
+    long getEvictions() {
+        return evictions;
+    }
+
+    /**
+     * 0 - признак пустой записи, поэтому хэш 0 хранится как 1
+     */
+    private static long key(long hash) {
+        return hash == 0 ? 1 : hash;
+    }
+
+    /**
+     * @return номер записи или -1
+     */
+    int find(long hash) {
+        long key = key(hash);
+        int base = ((int) hash & mask) * WAYS;
+        for (int i = base; i < base + WAYS; i++)
+            if (keys[i] == key)
+                return i;
+        return -1;
+    }
+
+    int pn(int entry) {
+        return pns[entry];
+    }
+
+    int dn(int entry) {
+        return dns[entry];
+    }
+
+    /**
+     * Запись или обновление результата
+     *
+     * @param work количество позиций, просмотренных под этой позицией
+     */
+    void store(long hash, int pn, int dn, long work) {
+        long key = key(hash);
+        int base = ((int) hash & mask) * WAYS;
+        int slot = -1;
+        for (int i = base; i < base + WAYS; i++) {
+            if (keys[i] == key) {
+                slot = i;
+                work += this.work[i];
+                break;
+            }
+            if (keys[i] == 0 && slot < 0)
+                slot = i;
+        }
+        if (slot < 0) {
+            slot = base;
+            for (int i = base + 1; i < base + WAYS; i++)
+                if (this.work[i] < this.work[slot])
+                    slot = i;
+            evictions++;
+        } else if (keys[slot] == 0) {
+            size++;
+        }
+        keys[slot] = key;
+        pns[slot] = pn;
+        dns[slot] = dn;
+        this.work[slot] = work;
+        if (size >= keys.length * GC_LOAD)
+            collect();
+    }
+
+    /**
+     * Сборка мусора: удаляются записи с наименьшей работой
+     * (по двоичному порядку величины), пока не освободится половина таблицы
+     */
+    void collect() {
+        collections++;
+        int[] histogram = new int[65];
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != 0)
+                histogram[64 - Long.numberOfLeadingZeros(work[i])]++;
+        int removed = 0, threshold = 0;
+        while (threshold < 64 && removed < size / 2)
+            removed += histogram[threshold++];
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0 && 64 - Long.numberOfLeadingZeros(work[i]) < threshold) {
+                keys[i] = 0;
+                size--;
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0L);
+        size = 0;
+    }
+}
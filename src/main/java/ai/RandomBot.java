@@ -0,0 +1,37 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.Move;
+
+import java.util.SplittableRandom;
+
+/**
+ * Случайный ход в любую пустую клетку
+ */
+public class RandomBot implements Bot {
+
+    @Override
+    public Move nextMove(Game game, SplittableRandom random) {
+        return randomMove(game, random);
+    }
+
+    /**
+     * Случайная пустая клетка (равновероятно)
+     *
+     * @param game   текущая игра, на поле есть пустые клетки
+     * @param random источник случайности
+     * @return ход в пустую клетку
+     */
+    static Move randomMove(Game game, SplittableRandom random) {
+        int size = game.getSize();
+        int skip = random.nextInt(size * size - game.getMoveCount());
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (game.getCell(x, y) == Cell.EMPTY && skip-- == 0)
+                    return new Move(x, y);
+            }
+        }
+        throw new IllegalStateException("Нет пустых клеток");
+    }
+}
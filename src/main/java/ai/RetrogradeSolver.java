@@ -0,0 +1,348 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ретроградный анализ k в ряд: точные значения всех позиций поля
+ * (таблица эндшпилей), по 2 бита на позицию в файлах на диске.
+ * <p>
+ * Позиции разбиты на слои по количеству символов. Ход всегда добавляет
+ * символ, поэтому слой n вычисляется только по слою n + 1: слои считаются
+ * от заполненного поля к пустому, и в памяти отображены лишь два соседних
+ * слоя ({@link LayerFile}), а не вся таблица. Внутри слоя позиции делятся
+ * между потоками через ForkJoinPool.
+ * <p>
+ * Готовый слой отмечается файлом {@code .done}, поэтому прерванный расчёт
+ * продолжается с последнего готового слоя.
+ * <p>
+ * Номер позиции в слое: номер множества занятых клеток среди сочетаний
+ * (в порядке colex), умноженный на количество расстановок крестиков,
+ * плюс номер множества крестиков среди занятых клеток.
+ */
+public class RetrogradeSolver {
+    /**
+     * Значения позиций для игрока, чей ход; ILLEGAL - позиция недостижима
+     */
+    static final int ILLEGAL = 0, WIN = 1, DRAW = 2, LOSS = 3;
+    /**
+     * Наибольшее поле: клетки - биты long, номера позиций помещаются в long
+     */
+    static final int MAX_CELLS = 36;
+    /**
+     * Сколько множеств занятых клеток поток обрабатывает без дробления
+     * задачи (кратно 4, чтобы задачи не делили байт файла)
+     */
+    private static final int CHUNK = 256;
+    private static final long[][] BINOMIAL = new long[MAX_CELLS + 2][MAX_CELLS + 2];
+
+    static {
+        for (int n = 0; n < BINOMIAL.length; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++)
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+        }
+    }
+
+    private final int size;
+    private final int winLength;
+    private final int cells;
+    private final Path directory;
+    private final int threads;
+    /**
+     * Все линии и линии через каждую клетку (маски клеток)
+     */
+    private final long[] lines;
+    private final long[][] cellLines;
+
+    private final LongAdder positions = new LongAdder();
+    private volatile int layersComputed;
+    private volatile int layersResumed;
+
+    /**
+     * @param directory каталог файлов слоёв (создаётся при необходимости)
+     * @param threads   количество потоков
+     */
+    public RetrogradeSolver(int size, int winLength, Path directory, int threads) {
+        if (size * size > MAX_CELLS)
+            throw new IllegalArgumentException("Поле " + size + "x" + size + " больше " + MAX_CELLS + " клеток");
+        this.size = size;
+        this.winLength = winLength;
+        this.cells = size * size;
+        this.directory = directory;
+        this.threads = threads;
+        SearchPosition position = new SearchPosition(size, winLength);
+        lines = new long[position.windowCount()];
+        for (int w = 0; w < lines.length; w++)
+            for (int k = 0; k < winLength; k++)
+                lines[w] |= 1L << position.windowCell(w, k);
+        cellLines = new long[cells][];
+        for (int c = 0; c < cells; c++) {
+            int from = position.cellWindowStart[c], to = position.cellWindowStart[c + 1];
+            cellLines[c] = new long[to - from];
+            for (int i = from; i < to; i++)
+                cellLines[c][i - from] = lines[position.cellWindows[i]];
+        }
+    }
+
+    /**
+     * Количество позиций в слое из n символов
+     */
+    long count(int n) {
+        return BINOMIAL[cells][n] * BINOMIAL[n][(n + 1) / 2];
+    }
+
+    Path layerPath(int n) {
+        return directory.resolve(String.format("%dx%d-k%d-%02d.bin", size, size, winLength, n));
+    }
+
+    private Path donePath(int n) {
+        return directory.resolve(String.format("%dx%d-k%d-%02d.done", size, size, winLength, n));
+    }
+
+    /**
+     * Посчитан ли слой (в том числе в прошлом запуске)
+     */
+    public boolean isComplete(int n) {
+        return Files.exists(donePath(n));
+    }
+
+    /**
+     * Расчёт всех ещё не посчитанных слоёв, от заполненного поля к пустому
+     *
+     * @param log куда печатать ход расчёта (по строке на слой)
+     */
+    public void solve(PrintStream log) throws IOException {
+        Files.createDirectories(directory);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            LayerFile next = null;
+            for (int n = cells; n >= 0; n--) {
+                if (isComplete(n)) {
+                    layersResumed++;
+                    next = null;
+                    continue;
+                }
+                if (next == null && n < cells)
+                    next = new LayerFile(layerPath(n + 1), count(n + 1), false);
+                long start = System.nanoTime();
+                Files.deleteIfExists(donePath(n));
+                LayerFile layer = new LayerFile(layerPath(n), count(n), true);
+                pool.invoke(new Positions(n, 0, BINOMIAL[cells][n], layer, next));
+                layer.force();
+                Files.createFile(donePath(n));
+                layersComputed++;
+                next = layer;
+                log.printf("Слой %d: позиций %d, %.3f с%n", n, count(n), (System.nanoTime() - start) / 1e9);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Значение позиции игры по готовой таблице
+     *
+     * @return результат для игрока, чей ход
+     * @throws IllegalStateException слой позиции ещё не посчитан
+     */
+    public ProofNumberSolver.Result lookup(Game game) throws IOException {
+        if (game.size != size || game.winLength != winLength)
+            throw new IllegalArgumentException("Таблица для поля " + size + "x" + size + ", линия " + winLength);
+        long occupied = 0, xs = 0;
+        for (int c = 0; c < cells; c++) {
+            Cell cell = game.getCell(c % size, c / size);
+            if (cell != Cell.EMPTY)
+                occupied |= 1L << c;
+            if (cell == Cell.X)
+                xs |= 1L << c;
+        }
+        int n = Long.bitCount(occupied);
+        if (!isComplete(n))
+            throw new IllegalStateException("Слой " + n + " не посчитан");
+        switch (new LayerFile(layerPath(n), count(n), false).get(index(occupied, xs))) {
+            case WIN:
+                return ProofNumberSolver.Result.WIN;
+            case DRAW:
+                return ProofNumberSolver.Result.DRAW;
+            case LOSS:
+                return ProofNumberSolver.Result.LOSS;
+            default:
+                throw new IllegalStateException("Недостижимая позиция:\n" + game);
+        }
+    }
+
+    /**
+     * Номер позиции в её слое
+     */
+    long index(long occupied, long xs) {
+        int n = Long.bitCount(occupied);
+        long occupiedRank = 0, xRank = 0;
+        int i = 0, t = 0;
+        for (long b = occupied; b != 0; b &= b - 1, i++) {
+            int c = Long.numberOfTrailingZeros(b);
+            occupiedRank += BINOMIAL[c][i + 1];
+            if ((xs >>> c & 1) != 0)
+                xRank += BINOMIAL[i][++t];
+        }
+        return occupiedRank * BINOMIAL[n][(n + 1) / 2] + xRank;
+    }
+
+    /**
+     * Следующее множество той же мощности в порядке colex
+     */
+    private static long nextCombination(long v) {
+        long t = v | (v - 1);
+        return (t + 1) | (((~t & -~t) - 1) >>> (Long.numberOfTrailingZeros(v) + 1));
+    }
+
+    /**
+     * Множество из n клеток с заданным номером в порядке colex
+     */
+    private long combination(long rank, int n) {
+        long mask = 0;
+        int c = cells - 1;
+        for (int i = n; i > 0; i--) {
+            while (BINOMIAL[c][i] > rank)
+                c--;
+            mask |= 1L << c;
+            rank -= BINOMIAL[c][i];
+            c--;
+        }
+        return mask;
+    }
+
+    private boolean hasLine(long stones) {
+        for (long line : lines)
+            if ((stones & line) == line)
+                return true;
+        return false;
+    }
+
+    private boolean wins(long stones, int cell) {
+        stones |= 1L << cell;
+        for (long line : cellLines[cell])
+            if ((stones & line) == line)
+                return true;
+        return false;
+    }
+
+    /**
+     * Позиции слоя n с номерами множеств занятых клеток [from, to)
+     */
+    @SuppressWarnings("serial") // задача fork/join не сериализуется
+    private class Positions extends RecursiveAction {
+        private final int n;
+        private final long from, to;
+        private final LayerFile layer, next;
+
+        Positions(int n, long from, long to, LayerFile layer, LayerFile next) {
+            this.n = n;
+            this.from = from;
+            this.to = to;
+            this.layer = layer;
+            this.next = next;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                long mid = (from + to) >>> 1 & ~3L;
+                invokeAll(new Positions(n, from, mid, layer, next), new Positions(n, mid, to, layer, next));
+                return;
+            }
+            int xCount = (n + 1) / 2;
+            long subsets = BINOMIAL[n][xCount];
+            int[] occupiedCells = new int[n];
+            // Суммы для номера множества после добавления клетки перед i-й занятой
+            long[] below = new long[n + 1], above = new long[n + 1];
+            long occupied = combination(from, n);
+            for (long r = from; r < to; r++) {
+                int i = 0;
+                for (long b = occupied; b != 0; b &= b - 1)
+                    occupiedCells[i++] = Long.numberOfTrailingZeros(b);
+                for (i = 0; i < n; i++)
+                    below[i + 1] = below[i] + BINOMIAL[occupiedCells[i]][i + 1];
+                for (i = n - 1; i >= 0; i--)
+                    above[i] = above[i + 1] + BINOMIAL[occupiedCells[i]][i + 2];
+                long subset = (1L << xCount) - 1;
+                for (long s = 0; s < subsets; s++) {
+                    long xs = 0;
+                    for (long b = subset; b != 0; b &= b - 1)
+                        xs |= 1L << occupiedCells[Long.numberOfTrailingZeros(b)];
+                    layer.set(r * subsets + s, value(occupied, xs, subset, below, above));
+                    if (s + 1 < subsets)
+                        subset = nextCombination(subset);
+                }
+                if (r + 1 < to)
+                    occupied = nextCombination(occupied);
+            }
+            positions.add((to - from) * subsets);
+        }
+
+        /**
+         * @param subset номера занятых клеток с крестиками
+         */
+        private int value(long occupied, long xs, long subset, long[] below, long[] above) {
+            boolean xMoves = n % 2 == 0;
+            long mine = xMoves ? xs : occupied ^ xs;
+            long theirs = occupied ^ mine;
+            if (hasLine(mine))
+                return ILLEGAL;
+            if (hasLine(theirs))
+                return LOSS;
+            if (n == cells)
+                return DRAW;
+            int best = LOSS;
+            long childSubsets = BINOMIAL[n + 1][(n + 2) / 2];
+            for (long empty = ~occupied & (-1L >>> (64 - cells)); empty != 0; empty &= empty - 1) {
+                int c = Long.numberOfTrailingZeros(empty);
+                if (wins(mine, c))
+                    return WIN;
+                // Номер позиции после хода в c: c становится p-й занятой клеткой
+                int p = Long.bitCount(occupied & ((1L << c) - 1));
+                long occupiedRank = below[p] + BINOMIAL[c][p + 1] + above[p];
+                long xRank = 0;
+                int t = 0;
+                for (long b = subset; b != 0; b &= b - 1, t++) {
+                    int j = Long.numberOfTrailingZeros(b);
+                    xRank += j < p ? BINOMIAL[j][t + 1] : BINOMIAL[j + 1][t + 1 + (xMoves ? 1 : 0)];
+                }
+                if (xMoves)
+                    xRank += BINOMIAL[p][Long.bitCount(subset & ((1L << p) - 1)) + 1];
+                int child = next.get(occupiedRank * childSubsets + xRank);
+                if (child == LOSS)
+                    return WIN;
+                if (child == DRAW)
+                    best = DRAW;
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Количество позиций, посчитанных в этом запуске
+     */
+    public long getPositions() {
+        return positions.sum();
+    }
+
+    public int getLayersComputed() {
+        return layersComputed;
+    }
+
+    /**
+     * Количество слоёв, готовых с прошлого запуска
+     */
+    public int getLayersResumed() {
+        return layersResumed;
+    }
+}
@@ -0,0 +1,444 @@
+package ai;
+
+import metrics.SearchEvent;
+import model.Game;
+import model.Move;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Перебор с альфа-бета отсечениями (negamax) с постепенным углублением
+ * до заданной глубины и таблицей транспозиций. С ограничением времени
+ * возвращается лучший ход последней завершённой итерации, поэтому
+ * время хода предсказуемо при любом размере поля. На глубине поиска
+ * позиция оценивается по отрезкам, которые ещё может занять только
+ * один игрок ({@link SearchPosition#evaluate()}).
+ * Перед перебором позиция проверяется на вынужденный выигрыш угрозами
+ * ({@link ThreatSolver}): выигрыш четвёрками (VCF) точный, и перебор
+ * не нужен, а выигрыш через тройки лишь вероятен - его первый ход
+ * перебирается первым. Если выигрыша нет и закрывать четвёрку соперника
+ * не нужно, ход ищется в дебютной книге ({@link OpeningBook}), если она задана.
+ * <p>
+ * Таблицу можно разделить между ботами и потоками
+ * (см. {@link PonderingPlayer}). Если в таблице уже есть точный
+ * результат для позиции на нужную глубину, ход берётся из неё без перебора.
+ */
+public class SearchBot implements Bot {
+    /**
+     * Оценка выигрыша; выигрыш через n полуходов - WIN - n
+     */
+    static final int WIN = 1_000_000_000;
+    /**
+     * Оценки по модулю больше этой - выигрыш или проигрыш
+     */
+    private static final int WIN_BOUND = WIN - 65_536;
+    /**
+     * Проверка остановки раз в столько позиций
+     */
+    private static final int POLL_MASK = 1023;
+    /**
+     * Запас времени до срока хода: такая часть оставшегося времени
+     */
+    private static final int DEADLINE_RESERVE = 10;
+    /**
+     * Полуширина окна вокруг оценки предыдущей итерации
+     */
+    private static final int ASPIRATION_WINDOW = 16;
+    /**
+     * Ограничения поиска угроз перед перебором
+     */
+    private static final int THREAT_NODES = 20_000, THREAT_THREES = 2;
+
+    private final int depth;
+    private final TranspositionTable table;
+    /**
+     * Дебютная книга или null
+     */
+    private final OpeningBook book;
+
+    /**
+     * @param depth глубина перебора в полуходах, 1..255
+     * @param table таблица транспозиций
+     * @param book  дебютная книга или null
+     */
+    public SearchBot(int depth, TranspositionTable table, OpeningBook book) {
+        if (depth < 1 || depth > 255)
+            throw new IllegalArgumentException("Глубина должна быть от 1 до 255: " + depth);
+        this.depth = depth;
+        this.table = table;
+        this.book = book;
+    }
+
+    public SearchBot(int depth, TranspositionTable table) {
+        this(depth, table, null);
+    }
+
+    /**
+     * С собственной таблицей на 2^18 записей
+     */
+    public SearchBot(int depth) {
+        this(depth, new TranspositionTable(1 << 18));
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public OpeningBook getBook() {
+        return book;
+    }
+
+    @Override
+    public Move nextMove(Game game, SplittableRandom random) {
+        return new Search(new SearchPosition(game)).run();
+    }
+
+    @Override
+    public Move nextMove(Game game, SplittableRandom random, long deadlineNanos) {
+        Search search = new Search(new SearchPosition(game));
+        search.deadline(deadlineNanos);
+        return search.run();
+    }
+
+    /**
+     * Один поиск хода: позиция, счётчики и признак остановки.
+     * Поиск в одном потоке, {@link #cancel()} - из любого
+     */
+    class Search {
+        private final SearchPosition position;
+        /**
+         * Буферы ходов по глубине
+         */
+        private final int[][] moveBuffers;
+        private boolean timed;
+        private long startNanos;
+        private long deadlineNanos;
+        private volatile boolean cancelled;
+        private boolean stopped;
+        /**
+         * Ходы корня в порядке перебора и их оценки в последней итерации
+         */
+        private int[] rootMoves;
+        private int[] rootScores;
+        private int rootCount;
+        long nodes;
+        /**
+         * Единицы работы для проверки остановки ({@link #poll})
+         */
+        private long ticks;
+        private long probes, hits;
+        /**
+         * Глубина последней завершённой итерации
+         */
+        int completedDepth;
+        /**
+         * Оценка лучшего хода в последней завершённой итерации
+         */
+        int score;
+        /**
+         * Ход взят из таблицы без перебора
+         */
+        boolean fromTable;
+        /**
+         * Выигрыш доказан поиском угроз (VCF) без перебора
+         */
+        boolean fromThreats;
+        /**
+         * Ход взят из дебютной книги
+         */
+        boolean fromBook;
+
+        Search(SearchPosition position) {
+            this.position = position;
+            this.moveBuffers = new int[Math.min(depth, position.cells - position.moves) + 1][];
+        }
+
+        /**
+         * Ход должен быть готов к моменту deadlineNanos по {@link System#nanoTime()}.
+         * Поиск останавливается раньше на {@link #DEADLINE_RESERVE}-ю часть
+         * оставшегося времени: после остановки ещё идёт работа, которую
+         * не прервать (позиция поиска угроз, упорядочивание ходов корня)
+         */
+        void deadline(long deadlineNanos) {
+            this.timed = true;
+            this.deadlineNanos = deadlineNanos - Math.max(0, deadlineNanos - System.nanoTime()) / DEADLINE_RESERVE;
+        }
+
+        /**
+         * Остановить поиск как можно скорее (из другого потока)
+         */
+        void cancel() {
+            cancelled = true;
+        }
+
+        boolean isStopped() {
+            return stopped;
+        }
+
+        private boolean shouldStop() {
+            return cancelled || timed && System.nanoTime() - deadlineNanos >= 0;
+        }
+
+        /**
+         * Хватит ли времени на следующую итерацию: каждая итерация
+         * дольше всех предыдущих вместе, поэтому после половины
+         * срока новая итерация почти наверняка не закончится
+         */
+        private boolean hasTimeForIteration() {
+            return !timed || System.nanoTime() - startNanos < (deadlineNanos - startNanos) / 2;
+        }
+
+        /**
+         * Поиск хода в неоконченной позиции с постепенным углублением:
+         * итерации на глубину 1, 2, ... до глубины бота. Каждая итерация
+         * начинает с лучших ходов предыдущей (в корне - по оценкам,
+         * в остальных позициях - ход из таблицы) и ищет в узком окне
+         * вокруг её оценки. Если поиск остановлен, возвращается
+         * лучший ход последней завершённой итерации
+         */
+        Move run() {
+            SearchEvent event = new SearchEvent();
+            event.begin();
+            startNanos = System.nanoTime();
+            SearchPosition p = position;
+            int maxDepth = Math.min(depth, p.cells - p.moves);
+            long entry = probe();
+            int cached = entry == 0 ? -1 : TranspositionTable.move(entry);
+            int bestMove;
+            if (entry != 0 && TranspositionTable.flag(entry) == TranspositionTable.EXACT
+                    && TranspositionTable.depth(entry) >= maxDepth
+                    && cached >= 0 && p.board[cached] == SearchPosition.EMPTY) {
+                fromTable = true;
+                completedDepth = TranspositionTable.depth(entry);
+                score = TranspositionTable.score(entry);
+                bestMove = cached;
+            } else {
+                ThreatSolver threats = new ThreatSolver(THREAT_NODES, THREAT_THREES);
+                int threat = threats.solve(p, this::shouldStop);
+                if (threat >= 0 && threats.isExact()) {
+                    fromThreats = true;
+                    score = WIN_BOUND + 1;
+                    bestMove = threat;
+                } else if (threat < 0 && book != null && !p.hasFour(p.opponent())
+                        && (bestMove = book.lookup(p)) >= 0) {
+                    fromBook = true;
+                } else {
+                    bestMove = deepen(maxDepth, threat >= 0 ? threat : cached);
+                }
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.searcher = SearchBot.this.getClass().getSimpleName();
+                event.nodes = nodes;
+                event.depth = completedDepth;
+                event.ttHitRate = probes == 0 ? 0 : (double) hits / probes;
+                event.commit();
+            }
+            return new Move(bestMove % p.size, bestMove / p.size);
+        }
+
+        private int deepen(int maxDepth, int first) {
+            rootCount = orderedMoves(0, first);
+            rootMoves = moveBuffers[0].clone();
+            rootScores = new int[rootCount];
+            int bestMove = rootMoves[0];
+            stopped = shouldStop();
+            for (int d = 1; d <= maxDepth && !stopped; d++) {
+                if (d > 1 && !hasTimeForIteration())
+                    break;
+                int alpha = -WIN, beta = WIN;
+                if (d > 2 && Math.abs(score) < WIN_BOUND) {
+                    alpha = score - ASPIRATION_WINDOW;
+                    beta = score + ASPIRATION_WINDOW;
+                }
+                int result;
+                while (true) {
+                    result = searchRoot(d, alpha, beta);
+                    if (stopped)
+                        break;
+                    // Оценка вне окна - повтор с открытой стороной
+                    if (result <= alpha)
+                        alpha = -WIN;
+                    else if (result >= beta)
+                        beta = WIN;
+                    else
+                        break;
+                }
+                if (stopped)
+                    break;
+                sortRootMoves();
+                bestMove = rootMoves[0];
+                score = result;
+                completedDepth = d;
+                table.store(position.hash, d, TranspositionTable.EXACT, score, bestMove);
+                // Выигрыш или проигрыш найден - глубже искать незачем
+                if (Math.abs(score) > WIN_BOUND)
+                    break;
+            }
+            return bestMove;
+        }
+
+        /**
+         * Перебор ходов корня; оценка каждого хода запоминается
+         * для порядка в следующей итерации
+         */
+        private int searchRoot(int depth, int alpha, int beta) {
+            int best = -WIN;
+            Arrays.fill(rootScores, -WIN);
+            for (int i = 0; i < rootCount; i++) {
+                int score = child(rootMoves[i], depth, Math.max(alpha, best), beta, 0);
+                if (stopped)
+                    return best;
+                rootScores[i] = score;
+                if (score > best) {
+                    best = score;
+                    if (best >= beta)
+                        break;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Сортировка ходов корня по убыванию оценки;
+         * при равных оценках сохраняется прежний порядок
+         */
+        private void sortRootMoves() {
+            for (int i = 1; i < rootCount; i++) {
+                int move = rootMoves[i], score = rootScores[i];
+                int j = i;
+                for (; j > 0 && rootScores[j - 1] < score; j--) {
+                    rootMoves[j] = rootMoves[j - 1];
+                    rootScores[j] = rootScores[j - 1];
+                }
+                rootMoves[j] = move;
+                rootScores[j] = score;
+            }
+        }
+
+        private long probe() {
+            probes++;
+            long entry = table.probe(position.hash);
+            if (entry != 0)
+                hits++;
+            return entry;
+        }
+
+        /**
+         * Ходы в moveBuffers[ply]: сначала ход из таблицы, затем клетки
+         * рядом с занятыми по убыванию подсказки ({@link CandidateMoves});
+         * на пустом поле - только центр
+         *
+         * @return количество ходов
+         */
+        private int orderedMoves(int ply, int first) {
+            SearchPosition p = position;
+            int[] moves = moveBuffers[ply];
+            if (moves == null)
+                moves = moveBuffers[ply] = new int[p.cells];
+            if (p.moves == 0) {
+                moves[0] = p.center;
+                return 1;
+            }
+            int n = 0;
+            if (first >= 0 && p.board[first] == SearchPosition.EMPTY)
+                moves[n++] = first;
+            return p.candidates.fill(moves, n, first);
+        }
+
+        /**
+         * Учёт работы и проверка остановки после каждых {@link #POLL_MASK} + 1
+         * единиц. Единица - позиция или ход-кандидат при их упорядочивании:
+         * на большом поле у позиции сотни кандидатов, и одна позиция
+         * стоит дороже тысячи листьев
+         */
+        private void poll(int work) {
+            long before = ticks;
+            ticks += work;
+            // Изменились старшие биты - пройдена граница очередной проверки
+            if ((before ^ ticks) > POLL_MASK && shouldStop())
+                stopped = true;
+        }
+
+        /**
+         * Оценка хода в клетку с точки зрения сделавшего ход.
+         * После остановки оценка не имеет смысла: вызывающий проверяет {@link #stopped}
+         */
+        private int child(int cell, int depth, int alpha, int beta, int ply) {
+            nodes++;
+            poll(1);
+            SearchPosition p = position;
+            p.play(cell);
+            int score;
+            if (p.isWin(cell))
+                score = WIN - ply - 1;
+            else if (p.isFull())
+                score = 0;
+            else if (depth == 1)
+                score = -p.evaluate();
+            else
+                score = -search(depth - 1, -beta, -alpha, ply + 1);
+            p.undo(cell);
+            return score;
+        }
+
+        private int search(int depth, int alpha, int beta, int ply) {
+            SearchPosition p = position;
+            int alphaOrig = alpha;
+            long entry = probe();
+            int first = -1;
+            if (entry != 0) {
+                first = TranspositionTable.move(entry);
+                if (TranspositionTable.depth(entry) >= depth) {
+                    int score = fromTable(TranspositionTable.score(entry), ply);
+                    int flag = TranspositionTable.flag(entry);
+                    if (flag == TranspositionTable.EXACT
+                            || flag == TranspositionTable.LOWER && score >= beta
+                            || flag == TranspositionTable.UPPER && score <= alpha)
+                        return score;
+                }
+            }
+            int count = orderedMoves(ply, first);
+            poll(count);
+            if (stopped)
+                return 0;
+            int[] moves = moveBuffers[ply];
+            int best = -WIN, bestMove = -1;
+            for (int i = 0; i < count; i++) {
+                int cell = moves[i];
+                int score = child(cell, depth, alpha, beta, ply);
+                if (stopped)
+                    return 0;
+                if (score > best) {
+                    best = score;
+                    bestMove = cell;
+                    if (score > alpha) {
+                        alpha = score;
+                        if (alpha >= beta)
+                            break;
+                    }
+                }
+            }
+            int flag = best <= alphaOrig ? TranspositionTable.UPPER
+                    : best >= beta ? TranspositionTable.LOWER : TranspositionTable.EXACT;
+            table.store(p.hash, depth, flag, toTable(best, ply), bestMove);
+            return best;
+        }
+    }
+
+    /**
+     * Оценки выигрыша в таблице - от текущей позиции, а не от корня поиска
+     */
+    private static int toTable(int score, int ply) {
+        return score > WIN_BOUND ? score + ply : score < -WIN_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score > WIN_BOUND ? score - ply : score < -WIN_BOUND ? score + ply : score;
+    }
+}
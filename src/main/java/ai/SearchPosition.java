@@ -0,0 +1,248 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Позиция для перебора: ход и отмена хода без оповещений
+ * и метрик {@link Game}, хэш Зобриста обновляется при каждом ходе.
+ * Клетка задаётся индексом y * size + x, как в {@link Game}.
+ */
+final class SearchPosition {
+    static final byte EMPTY = 0, X = 1, O = 2;
+    /**
+     * Радиус окрестности для ходов-кандидатов
+     */
+    static final int CANDIDATE_RADIUS = 2;
+
+    final int size;
+    final int winLength;
+    final int cells;
+    final byte[] board;
+    /**
+     * Чей ход: {@link #X} или {@link #O}
+     */
+    byte toMove = X;
+    int moves;
+    /**
+     * Хэш позиции; очередь хода определяется количеством символов
+     */
+    long hash;
+    /**
+     * Ключи Зобриста: клетка * 2 + (игрок - 1)
+     */
+    private final long[] keys;
+    /**
+     * Центральная клетка (для чётного поля - левая верхняя из центральных)
+     */
+    final int center;
+    /**
+     * Клетки всех отрезков длины winLength подряд: отрезок i -
+     * элементы [i * winLength, (i + 1) * winLength)
+     */
+    private final int[] windows;
+    /**
+     * Отрезки через клетку c - элементы cellWindows
+     * в [cellWindowStart[c], cellWindowStart[c + 1])
+     */
+    final int[] cellWindowStart;
+    final int[] cellWindows;
+    /**
+     * Счётчики символов в отрезках и оценка, обновляются при каждом ходе
+     */
+    final PatternEvaluator patterns;
+    /**
+     * Пустые клетки рядом с занятыми
+     */
+    final CandidateMoves candidates;
+
+    SearchPosition(int size, int winLength) {
+        this.size = size;
+        this.winLength = winLength;
+        this.cells = size * size;
+        this.board = new byte[cells];
+        // Одинаковые ключи для всех позиций одного размера:
+        // таблица транспозиций общая для разных поисков
+        SplittableRandom random = new SplittableRandom(size * 64L + winLength);
+        keys = new long[cells * 2];
+        for (int i = 0; i < keys.length; i++)
+            keys[i] = random.nextLong();
+        hash = random.nextLong();
+        center = (size - 1) / 2 * (size + 1);
+        windows = windows(size, winLength);
+        cellWindowStart = new int[cells + 1];
+        for (int cell : windows)
+            cellWindowStart[cell + 1]++;
+        for (int c = 0; c < cells; c++)
+            cellWindowStart[c + 1] += cellWindowStart[c];
+        cellWindows = new int[windows.length];
+        int[] fill = Arrays.copyOf(cellWindowStart, cells);
+        for (int i = 0; i < windows.length; i++)
+            cellWindows[fill[windows[i]]++] = i / winLength;
+        patterns = new PatternEvaluator(winLength, windows.length / winLength,
+                cellWindowStart, cellWindows);
+        candidates = new CandidateMoves(size, CANDIDATE_RADIUS, board);
+    }
+
+    /**
+     * Копия позиции игры
+     */
+    SearchPosition(Game game) {
+        this(game.size, game.winLength);
+        for (int i = 0; i < cells; i++) {
+            Cell cell = game.getCell(i % size, i / size);
+            if (cell != Cell.EMPTY)
+                put(i, cell == Cell.X ? X : O);
+        }
+        toMove = moves % 2 == 0 ? X : O;
+    }
+
+    private static int[] windows(int size, int winLength) {
+        int span = size - winLength + 1;
+        int[] result = new int[(2 * size * span + 2 * span * span) * winLength];
+        int i = 0;
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < span; b++) {
+                for (int k = 0; k < winLength; k++)
+                    result[i++] = a * size + b + k;             // строка a
+                for (int k = 0; k < winLength; k++)
+                    result[i++] = (b + k) * size + a;           // столбец a
+            }
+        }
+        for (int y = 0; y < span; y++) {
+            for (int x = 0; x < span; x++) {
+                for (int k = 0; k < winLength; k++)
+                    result[i++] = (y + k) * size + x + k;                 // прямая диагональ
+                for (int k = 0; k < winLength; k++)
+                    result[i++] = (y + k) * size + size - 1 - x - k;      // обратная диагональ
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Хэш позиции после хода текущего игрока в клетку
+     */
+    long hashAfter(int cell) {
+        return hash ^ keys[cell * 2 + toMove - 1];
+    }
+
+    /**
+     * Символ игрока в пустую клетку без смены очереди хода
+     * (для поиска угроз, где один игрок может ходить дважды)
+     */
+    void put(int cell, byte player) {
+        board[cell] = player;
+        hash ^= keys[cell * 2 + player - 1];
+        moves++;
+        patterns.put(cell, player);
+        candidates.put(cell);
+    }
+
+    /**
+     * Удаление символа из клетки без смены очереди хода
+     */
+    void remove(int cell) {
+        byte player = board[cell];
+        hash ^= keys[cell * 2 + player - 1];
+        board[cell] = EMPTY;
+        moves--;
+        patterns.remove(cell, player);
+        candidates.remove(cell);
+    }
+
+    /**
+     * Ход текущего игрока в пустую клетку
+     */
+    void play(int cell) {
+        put(cell, toMove);
+        toMove = (byte) (X + O - toMove);
+    }
+
+    /**
+     * Отмена последнего хода в клетку
+     */
+    void undo(int cell) {
+        toMove = (byte) (X + O - toMove);
+        remove(cell);
+    }
+
+    /**
+     * Соперник текущего игрока
+     */
+    byte opponent() {
+        return (byte) (X + O - toMove);
+    }
+
+    boolean isFull() {
+        return moves == cells;
+    }
+
+    /**
+     * Образует ли символ в клетке линию из winLength символов
+     */
+    boolean isWin(int cell) {
+        return isWin(cell, board[cell]);
+    }
+
+    /**
+     * Образует ли символ игрока в клетке линию; сама клетка не проверяется,
+     * поэтому можно спросить о пустой клетке, не делая в неё ход
+     */
+    boolean isWin(int cell, byte player) {
+        int x = cell % size, y = cell / size;
+        return 1 + run(player, x, y, 1, 0) + run(player, x, y, -1, 0) >= winLength ||
+                1 + run(player, x, y, 0, 1) + run(player, x, y, 0, -1) >= winLength ||
+                1 + run(player, x, y, 1, 1) + run(player, x, y, -1, -1) >= winLength ||
+                1 + run(player, x, y, 1, -1) + run(player, x, y, -1, 1) >= winLength;
+    }
+
+    /**
+     * Есть ли у игрока отрезок, которому до линии не хватает одного символа
+     * (выигрыш следующим ходом или клетка, которую сопернику надо закрыть)
+     */
+    boolean hasFour(byte player) {
+        byte opponent = (byte) (X + O - player);
+        for (int window = windowCount() - 1; window >= 0; window--)
+            if (count(window, player) == winLength - 1 && count(window, opponent) == 0)
+                return true;
+        return false;
+    }
+
+    private int run(byte player, int x, int y, int dx, int dy) {
+        int count = 0;
+        for (x += dx, y += dy; x >= 0 && x < size && y >= 0 && y < size
+                && board[y * size + x] == player; x += dx, y += dy)
+            count++;
+        return count;
+    }
+
+    /**
+     * Оценка позиции для текущего игрока: сумма весов отрезков,
+     * которые ещё может занять только один из игроков (см. {@link PatternEvaluator})
+     */
+    int evaluate() {
+        return patterns.score(toMove);
+    }
+
+    int windowCount() {
+        return windows.length / winLength;
+    }
+
+    /**
+     * k-я клетка отрезка
+     */
+    int windowCell(int window, int k) {
+        return windows[window * winLength + k];
+    }
+
+    /**
+     * Количество символов игрока в отрезке
+     */
+    int count(int window, byte player) {
+        return patterns.count(window, player);
+    }
+}
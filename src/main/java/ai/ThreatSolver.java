@@ -0,0 +1,359 @@
+package ai;
+
+import model.Game;
+import model.Move;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Поиск выигрыша угрозами (threat-space search) для k в ряд на больших полях.
+ * Перебираются только вынуждающие ходы, поэтому решённые позиции
+ * находятся за миллисекунды там, где обычный перебор безнадёжен.
+ * <ul>
+ * <li>VCF (victory by continuous fours): нападающий ставит "четвёрки" -
+ * отрезки, где до линии не хватает одного символа; у защитника
+ * единственный ответ - закрыть эту клетку. Выигрыш - линия или две
+ * четвёрки сразу. Результат точный.</li>
+ * <li>Тройки: ход, после которого у нападающего есть VCF, если защитник
+ * пропустит ход. Ответы защитника ограничены клетками найденного VCF
+ * и его собственными четвёрками (как в threat-space search), поэтому
+ * выигрыш через тройки - сильная, но не строгая оценка.</li>
+ * </ul>
+ * Новые четвёрки ищутся только в отрезках через последний ход
+ * нападающего, а не по всему полю.
+ */
+public class ThreatSolver {
+    private final int maxNodes;
+    private final int maxThreeDepth;
+
+    private SearchPosition p;
+    private byte attacker, defender;
+    private long nodes;
+    private boolean aborted;
+    private BooleanSupplier stop;
+    /**
+     * Кандидаты VCF по глубине: buffers[ply][0..counts[ply])
+     */
+    private int[][] buffers;
+    private int[] counts;
+    /**
+     * Ходы четвёрок нападающего и защитника в {@link #vcf}
+     */
+    private final int[] reply = new int[2], threat = new int[2];
+    /**
+     * Кандидаты троек и ответы защитника по количеству троек
+     */
+    private int[][] threeBuffers, defenseBuffers;
+    /**
+     * Отметки для исключения повторов клеток
+     */
+    private int[] marks;
+    private int stamp;
+    /**
+     * Текущая линия VCF: ходы нападающего и ответы защитника
+     */
+    private int[] path;
+    private int pathLength;
+    /**
+     * Клетки последнего найденного VCF
+     */
+    private int[] proof;
+    private int proofLength;
+    private int winningMove;
+    /**
+     * Последний найденный выигрыш - VCF
+     */
+    private boolean exact;
+
+    /**
+     * @param maxNodes      ограничение количества позиций на один вызов
+     * @param maxThreeDepth сколько троек подряд допускается (0 - только VCF)
+     */
+    public ThreatSolver(int maxNodes, int maxThreeDepth) {
+        this.maxNodes = maxNodes;
+        this.maxThreeDepth = maxThreeDepth;
+    }
+
+    /**
+     * Количество позиций, просмотренных в последнем вызове
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Найденный в последнем вызове выигрыш точный: VCF без троек
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Поиск вынужденного выигрыша текущего игрока
+     *
+     * @param game неоконченная игра (не изменяется)
+     * @return первый ход выигрыша или null, если выигрыш не найден
+     * (или не хватило ограничения на количество позиций)
+     */
+    public Move solve(Game game) {
+        SearchPosition position = new SearchPosition(game);
+        int cell = solve(position, () -> false);
+        return cell < 0 ? null : new Move(cell % position.size, cell / position.size);
+    }
+
+    /**
+     * @param stop проверяется в каждой позиции: позиция здесь обходит отрезки
+     *             всего поля и на больших полях стоит до долей миллисекунды;
+     *             true - поиск прекращается без выигрыша
+     * @return клетка первого хода выигрыша или -1; позиция восстанавливается
+     */
+    int solve(SearchPosition position, BooleanSupplier stop) {
+        p = position;
+        this.stop = stop;
+        attacker = position.toMove;
+        defender = (byte) (SearchPosition.X + SearchPosition.O - attacker);
+        nodes = 0;
+        aborted = false;
+        if (buffers == null || marks.length != position.cells) {
+            buffers = new int[position.cells + 1][];
+            counts = new int[position.cells + 1];
+            marks = new int[position.cells];
+            path = new int[position.cells];
+            proof = new int[position.cells + 2];
+            threeBuffers = new int[maxThreeDepth + 1][];
+            defenseBuffers = new int[maxThreeDepth + 1][];
+        }
+        winningMove = -1;
+        exact = false;
+        if (vct(0))
+            return winningMove;
+        return -1;
+    }
+
+    /**
+     * Буфер клеток, создаётся при первом обращении и переиспользуется
+     */
+    private int[] buffer(int[][] buffers, int index) {
+        if (buffers[index] == null)
+            buffers[index] = new int[p.cells];
+        return buffers[index];
+    }
+
+    private boolean countNode() {
+        if (++nodes > maxNodes || stop.getAsBoolean())
+            aborted = true;
+        return aborted;
+    }
+
+    /**
+     * Добавление пустых клеток отрезка, если в нём stones символов
+     * игрока и нет символов соперника
+     */
+    private int addCells(int[] cells, int n, int window, byte player, int stones) {
+        byte opponent = (byte) (SearchPosition.X + SearchPosition.O - player);
+        if (p.count(window, player) != stones || p.count(window, opponent) != 0)
+            return n;
+        for (int k = 0; k < p.winLength; k++) {
+            int cell = p.windowCell(window, k);
+            if (p.board[cell] == SearchPosition.EMPTY && marks[cell] != stamp) {
+                marks[cell] = stamp;
+                cells[n++] = cell;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Клетки по всему полю, где игроку не хватает missing символов до линии
+     */
+    private int scan(int[] cells, byte player, int missing) {
+        stamp++;
+        int n = 0;
+        for (int w = 0; w < p.windowCount(); w++)
+            n = addCells(cells, n, w, player, p.winLength - missing);
+        return n;
+    }
+
+    /**
+     * Клетки, где игрок сразу выигрывает, в отрезках через клетку
+     *
+     * @return количество различных клеток (не больше 2), клетки в result
+     */
+    private int completions(int through, byte player, int[] result) {
+        byte opponent = (byte) (SearchPosition.X + SearchPosition.O - player);
+        int n = 0;
+        for (int i = p.cellWindowStart[through]; i < p.cellWindowStart[through + 1]; i++) {
+            int w = p.cellWindows[i];
+            if (p.count(w, player) != p.winLength - 1 || p.count(w, opponent) != 0)
+                continue;
+            for (int k = 0; k < p.winLength; k++) {
+                int cell = p.windowCell(w, k);
+                if (p.board[cell] == SearchPosition.EMPTY && (n == 0 || result[0] != cell)) {
+                    result[n++] = cell;
+                    if (n == 2)
+                        return n;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * VCF из текущей позиции (ход нападающего): сначала проверяются
+     * выигрыш одним ходом и четвёрки защитника по всему полю
+     */
+    private boolean vcfRoot() {
+        pathLength = 0;
+        int[] cells = buffer(buffers, 0);
+        int wins = scan(cells, attacker, 1);
+        if (wins > 0) {
+            proofLength = 0;
+            proof[proofLength++] = cells[0];
+            return true;
+        }
+        int threats = scan(cells, defender, 1);
+        if (threats > 1)
+            return false;
+        int forced = threats == 1 ? cells[0] : -1;
+        return vcf(0, forced, -1);
+    }
+
+    /**
+     * Продолжение VCF: ход нападающего
+     *
+     * @param forced единственный допустимый ход (закрыть четвёрку защитника) или -1
+     * @param last   последний ход нападающего или -1 в начале
+     */
+    private boolean vcf(int ply, int forced, int last) {
+        if (countNode())
+            return false;
+        int[] cells = buffer(buffers, ply);
+        int n;
+        if (last < 0) {
+            n = scan(cells, attacker, 2);
+        } else {
+            // Новые четвёрки - в отрезках через последний ход, остальные - от предыдущего хода
+            stamp++;
+            n = 0;
+            for (int i = p.cellWindowStart[last]; i < p.cellWindowStart[last + 1]; i++)
+                n = addCells(cells, n, p.cellWindows[i], attacker, p.winLength - 2);
+            int[] parent = buffers[ply - 1];
+            for (int i = 0; i < counts[ply - 1]; i++) {
+                int cell = parent[i];
+                if (p.board[cell] == SearchPosition.EMPTY && marks[cell] != stamp) {
+                    marks[cell] = stamp;
+                    cells[n++] = cell;
+                }
+            }
+        }
+        counts[ply] = n;
+        // reply и threat общие для всех глубин: их значения нужны только до рекурсии
+        for (int i = 0; i < n; i++) {
+            int a = cells[i];
+            if (forced >= 0 && a != forced)
+                continue;
+            p.put(a, attacker);
+            path[pathLength++] = a;
+            boolean win = false;
+            int fours = completions(a, attacker, reply);
+            if (fours == 2) {
+                win = true;
+                saveProof(2, reply);
+            } else if (fours == 1) {
+                int b = reply[0];
+                p.put(b, defender);
+                path[pathLength++] = b;
+                // Две четвёрки защитника закрыть нельзя
+                int threats = completions(b, defender, threat);
+                if (threats < 2)
+                    win = vcf(ply + 1, threats == 1 ? threat[0] : -1, a);
+                pathLength--;
+                p.remove(b);
+            }
+            pathLength--;
+            p.remove(a);
+            if (win || aborted)
+                return win;
+        }
+        return false;
+    }
+
+    private void saveProof(int extra, int[] cells) {
+        System.arraycopy(path, 0, proof, 0, pathLength);
+        proofLength = pathLength;
+        for (int i = 0; i < extra; i++)
+            proof[proofLength++] = cells[i];
+    }
+
+    /**
+     * Выигрыш четвёрками или тройками (ход нападающего)
+     *
+     * @param threes сколько уже сделано троек подряд
+     */
+    private boolean vct(int threes) {
+        if (vcfRoot()) {
+            if (threes == 0) {
+                winningMove = proof[0];
+                exact = true;
+            }
+            return true;
+        }
+        if (aborted || threes == maxThreeDepth || countNode())
+            return false;
+        int[] candidates = buffer(threeBuffers, threes);
+        // У защитника четвёрка - на тройку нет времени
+        if (scan(candidates, defender, 1) > 0)
+            return false;
+        int n = scan(candidates, attacker, 3);
+        for (int i = 0; i < n; i++) {
+            int a = candidates[i];
+            p.put(a, attacker);
+            boolean win = isThreat() && defended(threes);
+            p.remove(a);
+            if (win) {
+                if (threes == 0)
+                    winningMove = a;
+                return true;
+            }
+            if (aborted)
+                return false;
+        }
+        return false;
+    }
+
+    /**
+     * Будет ли у нападающего VCF, если защитник пропустит ход.
+     * Клетки найденного VCF остаются в {@link #proof}
+     */
+    private boolean isThreat() {
+        return vcfRoot();
+    }
+
+    /**
+     * Все ответы защитника на тройку проигрывают:
+     * закрытие любой клетки найденного VCF или своя четвёрка
+     */
+    private boolean defended(int threes) {
+        int[] defenses = buffer(defenseBuffers, threes);
+        stamp++;
+        int n = 0;
+        for (int i = 0; i < proofLength; i++) {
+            int cell = proof[i];
+            if (p.board[cell] == SearchPosition.EMPTY && marks[cell] != stamp) {
+                marks[cell] = stamp;
+                defenses[n++] = cell;
+            }
+        }
+        for (int w = 0; w < p.windowCount(); w++)
+            n = addCells(defenses, n, w, defender, p.winLength - 2);
+        for (int i = 0; i < n; i++) {
+            int d = defenses[i];
+            p.put(d, defender);
+            boolean win = !p.isWin(d) && vct(threes + 1);
+            p.remove(d);
+            if (!win)
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,131 @@
+package ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Таблица транспозиций: результаты поиска по хэшу позиции.
+ * Размер ограничен, при совпадении индекса старая запись заменяется.
+ * <p>
+ * Одна таблица может использоваться несколькими потоками без блокировок
+ * (например, поиском хода и размышлением во время хода соперника):
+ * в массиве ключей хранится хэш, сложенный по XOR с данными, поэтому
+ * запись, которую другой поток успел записать лишь наполовину,
+ * при чтении просто не совпадёт с хэшем.
+ */
+public class TranspositionTable {
+    /**
+     * Тип оценки в записи: точная, не меньше, не больше
+     */
+    static final int EXACT = 0, LOWER = 1, UPPER = 2;
+    /**
+     * Ход в записи отсутствует
+     */
+    static final int NO_MOVE = 0xFFFF;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * @param entries количество записей (округляется вверх до степени двойки)
+     */
+    public TranspositionTable(int entries) {
+        int capacity = entries <= 1 ? 1 : Integer.highestOneBit(entries - 1) << 1;
+        keys = new long[capacity];
+        data = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Поиск записи
+     *
+     * @return упакованная запись или 0, если её нет
+     */
+    long probe(long hash) {
+        probes.increment();
+        int i = (int) hash & mask;
+        long entry = data[i];
+        if (entry == 0 || (keys[i] ^ entry) != hash)
+            return 0;
+        hits.increment();
+        return entry;
+    }
+
+    /**
+     * Запись результата; запись для той же позиции
+     * с большей глубиной не заменяется
+     *
+     * @param depth глубина поиска, 0..255
+     * @param flag  {@link #EXACT}, {@link #LOWER} или {@link #UPPER}
+     * @param score оценка
+     * @param move  лучший ход или -1
+     */
+    void store(long hash, int depth, int flag, int score, int move) {
+        int i = (int) hash & mask;
+        long old = data[i];
+        if (old != 0 && (keys[i] ^ old) == hash && depth(old) > depth)
+            return;
+        long entry = (long) score << 32 | (move & 0xFFFFL) << 16 | depth << 8 | flag << 1 | 1;
+        data[i] = entry;
+        keys[i] = hash ^ entry;
+    }
+
+    static int score(long entry) {
+        return (int) (entry >> 32);
+    }
+
+    /**
+     * @return ход или -1
+     */
+    static int move(long entry) {
+        int move = (int) (entry >>> 16) & 0xFFFF;
+        return move == NO_MOVE ? -1 : move;
+    }
+
+    static int depth(long entry) {
+        return (int) (entry >>> 8) & 0xFF;
+    }
+
+    static int flag(long entry) {
+        return (int) (entry >>> 1) & 3;
+    }
+
+    /**
+     * Количество обращений
+     */
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    /**
+     * Количество найденных записей
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Доля найденных записей, от 0 до 1
+     */
+    public double getHitRate() {
+        long total = getProbes();
+        return total == 0 ? 0 : (double) getHits() / total;
+    }
+
+    /**
+     * Удаление всех записей и счётчиков
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        probes.reset();
+        hits.reset();
+    }
+}
@@ -0,0 +1,25 @@
+package controller;
+
+/**
+ * Общее для режимов командной строки ({@link Main}, {@link Simulation},
+ * {@link Tournament}, {@link ShardCoordinator}, {@link ShardWorker})
+ */
+final class CommandLine {
+    /**
+     * Шаг для зёрен отдельных игр (золотое сечение, как в SplittableRandom)
+     */
+    static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private CommandLine() {
+    }
+
+    /**
+     * Значение аргумента вида key=value
+     */
+    static String arg(String[] args, String key, String defaultValue) {
+        for (String s : args)
+            if (s.startsWith(key + "="))
+                return s.substring(key.length() + 1);
+        return defaultValue;
+    }
+}
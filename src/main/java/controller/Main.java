@@ -1,33 +1,492 @@
 package controller;
 
+import ai.Bot;
+import ai.BotPlayer;
+import ai.Bots;
+import ai.GreedyBot;
+import ai.OpeningBook;
+import ai.Perft;
+import ai.PonderingPlayer;
+import ai.RetrogradeSolver;
+import ai.SearchBot;
+import metrics.EngineMetrics;
 import model.Game;
 import model.Move;
+import model.Player;
 import model.UserException;
+import server.GameServer;
+import server.HttpApi;
+import server.LoadGenerator;
 import view.GameView;
 import view.console.ConsoleView;
-import view.swing.SwingView;
+import view.console.MoveReader;
+
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
- * Контроллер
+ * Контроллер.
+ * Интерфейс выбирается по аргументам и создаётся только он:
+ * <ul>
+ * <li>{@code gui} - окно Swing;</li>
+ * <li>по умолчанию - консоль, Swing/AWT не загружаются вовсе;</li>
+ * <li>{@code moves=0,0;1,1;...} - выполнить ходы по сценарию и напечатать итог;</li>
+ * <li>{@code replay=файл} ({@code replay=-} - стандартный ввод) - проиграть
+ * записи партий через консольный интерфейс, см. {@link ConsoleView#replay};</li>
+ * <li>{@code simulate ...} - пакетная игра ботов ({@link Simulation});</li>
+ * <li>{@code tablebase dir=tablebase threads=8} - таблица значений всех позиций
+ * на диске ({@link RetrogradeSolver}), прерванный расчёт продолжается;</li>
+ * <li>{@code shard-solve ...} - решение несколькими процессами ({@link ShardCoordinator}),
+ * {@code shard-worker ...} - исполнитель для него ({@link ShardWorker});</li>
+ * <li>{@code perft depth=9 threads=8 engine=search|model} - подсчёт листьев дерева
+ * игры ({@link Perft}); для 3x3 на полную глубину сверяется с известным ответом;</li>
+ * <li>{@code book out=book.bin games=1000 plies=8 random=2 min=2 from=партии.txt} -
+ * сбор дебютной книги ({@link OpeningBook}) по партиям ботов x и o
+ * и записанным партиям (формат {@code replay}); в книгу попадают ходы,
+ * сыгранные хотя бы в min партиях;</li>
+ * <li>{@code tournament players=random,greedy,search:4 games=10} - круговой турнир
+ * ботов с рейтингами Эло ({@link Tournament});</li>
+ * <li>{@code serve port=8080 host=127.0.0.1} - HTTP API игр ({@link HttpApi});</li>
+ * <li>{@code load rate=1000 clients=16 duration=10 url=http://127.0.0.1:8080 moves=...} -
+ * открытая нагрузка на сервер ({@link LoadGenerator}); без {@code url} - на сервер
+ * в этом процессе, без {@code moves} - случайные ходы.</li>
+ * </ul>
+ * Общие ключи: {@code size=3 win=3}, {@code x=human|random|greedy|search o=...}
+ * (боты), {@code seed=1}, {@code metrics=true} - учёт ходов в метриках движка,
+ * {@code jmx} - регистрация метрик в JMX (учёт ходов включается сам),
+ * {@code time=60 inc=2} - контроль времени в секундах ({@link TimedGame}),
+ * {@code book=book.bin} - дебютная книга для бота search.
  */
 public class Main {
-    public static void main(String[] args) {
-        Game game = new Game();
-        // Если указан ключ "gui" => графический интерфейс
-        boolean gui = false;
+    public static void main(String[] args) throws IOException, InterruptedException {
+        // Учёт ходов в метриках - по запросу, как в Simulation; для JMX он нужен всегда
+        if (Boolean.parseBoolean(CommandLine.arg(args, "metrics", "false")) || hasFlag(args, "jmx"))
+            Game.setProbe(EngineMetrics.GLOBAL);
+        // Ключ "simulate" => пакетная игра ботов без интерфейса
+        if (args.length > 0 && args[0].equals("simulate")) {
+            Simulation.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("shard-solve")) {
+            ShardCoordinator.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("shard-worker")) {
+            ShardWorker.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("perft")) {
+            perft(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("book")) {
+            buildBook(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("load")) {
+            load(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("tournament")) {
+            Tournament.main(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("tablebase")) {
+            tablebase(args);
+            return;
+        }
+        if (hasFlag(args, "jmx"))
+            EngineMetrics.registerMBean();
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        Game game = new Game(size,
+                Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size))));
+
+        String script = CommandLine.arg(args, "moves", null);
+        if (script != null) {
+            playScript(game, script, System.out);
+            return;
+        }
+
+        String replay = CommandLine.arg(args, "replay", null);
+        if (replay != null) {
+            replay(game, replay);
+            return;
+        }
+
+        EngineMetrics.GLOBAL.sessionOpened();
+        String time = CommandLine.arg(args, "time", null);
+        if (time != null) {
+            playTimed(game, args, time);
+        } else if (hasFlag(args, "gui")) {
+            // Если указан ключ "gui" => графический интерфейс
+            awaitGameOver(game, () -> SwingLauncher.show(game));
+        } else {
+            System.setProperty("java.awt.headless", "true");
+            OpeningBook book = book(args);
+            Bot xBot = bot(CommandLine.arg(args, "x", "human"), book);
+            Bot oBot = bot(CommandLine.arg(args, "o", "human"), book);
+            play(game, new ConsoleView(game), xBot, oBot,
+                    new SplittableRandom(Long.parseLong(CommandLine.arg(args, "seed", "1"))));
+        }
+        EngineMetrics.GLOBAL.sessionClosed();
+    }
+
+    /**
+     * Партия с контролем времени в консоли или в окне
+     */
+    private static void playTimed(Game game, String[] args, String time) throws IOException {
+        long initial = secondsToNanos(time);
+        long increment = secondsToNanos(CommandLine.arg(args, "inc", "0"));
+        long seed = Long.parseLong(CommandLine.arg(args, "seed", "1"));
+        Player human;
+        if (hasFlag(args, "gui")) {
+            human = SwingLauncher.show(game);
+        } else {
+            System.setProperty("java.awt.headless", "true");
+            human = new ViewPlayer(new ConsoleView(game));
+        }
+        ExecutorService bots = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "bot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        OpeningBook book = book(args);
+        Player x = player(CommandLine.arg(args, "x", "human"), human, seed, bots, book);
+        Player o = player(CommandLine.arg(args, "o", "human"), human, seed + 1, bots, book);
+        try {
+            TimedGame timed = new TimedGame(game, x, o,
+                    new TimedGame.Clock(initial, increment),
+                    new TimedGame.Clock(initial, increment),
+                    new GreedyBot(), seed);
+            timed.play();
+            System.out.println("Время X: " + timed.getXClock() + ", O: " + timed.getOClock());
+        } finally {
+            stopPondering(x);
+            stopPondering(o);
+            bots.shutdownNow();
+        }
+    }
+
+    /**
+     * HTTP API до завершения процесса
+     */
+    private static void serve(String[] args) throws IOException, InterruptedException {
+        HttpApi api = new HttpApi(new GameServer(), new InetSocketAddress(
+                CommandLine.arg(args, "host", "127.0.0.1"),
+                Integer.parseInt(CommandLine.arg(args, "port", "8080"))));
+        api.start();
+        System.out.println("HTTP API: http://" + CommandLine.arg(args, "host", "127.0.0.1") + ":" + api.getPort() + "/games");
+        Runtime.getRuntime().addShutdownHook(new Thread(api::stop));
+        new CountDownLatch(1).await();
+    }
+
+    /**
+     * Открытая нагрузка на HTTP API по адресу url или на сервер в этом процессе;
+     * клиенты играют по сценарию moves ("x,y;x,y;...") или случайными ходами
+     */
+    private static void load(String[] args) throws InterruptedException {
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        String url = CommandLine.arg(args, "url", null);
+        String moves = CommandLine.arg(args, "moves", null);
+        List<Move> script = null;
+        if (moves != null) {
+            try {
+                script = parseMoves(moves);
+            } catch (UserException e) {
+                System.out.println("moves: " + e.getMessage());
+                return;
+            }
+        }
+        LoadGenerator generator = new LoadGenerator(
+                url == null ? LoadGenerator.inProcess(new GameServer()) : LoadGenerator.http(URI.create(url)),
+                Integer.parseInt(CommandLine.arg(args, "clients", "16")),
+                Double.parseDouble(CommandLine.arg(args, "rate", "1000")), size,
+                Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size))), script,
+                Long.parseLong(CommandLine.arg(args, "seed", "1")));
+        System.out.println(generator.run(secondsToNanos(CommandLine.arg(args, "duration", "10"))));
+    }
+
+    /**
+     * Подсчёт листьев дерева игры и проверка известного ответа для 3x3
+     */
+    private static void perft(String[] args) {
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        int winLength = Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size)));
+        int depth = Integer.parseInt(CommandLine.arg(args, "depth", String.valueOf(size * size)));
+        Perft perft = new Perft(Integer.parseInt(CommandLine.arg(args, "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        Game game = new Game(size, winLength);
+        Perft.Result result = CommandLine.arg(args, "engine", "search").equals("model")
+                ? perft.runModel(game, depth) : perft.run(game, depth);
+        System.out.println(result);
+        if (size == 3 && winLength == 3 && depth >= 9) {
+            boolean ok = result.getLeaves() == Perft.GAMES_3X3 && result.xWins == Perft.X_WINS_3X3
+                    && result.oWins == Perft.O_WINS_3X3 && result.draws == Perft.DRAWS_3X3;
+            System.out.println(ok ? "Совпадает с известным ответом" : "ОШИБКА: ожидалось " + Perft.GAMES_3X3 + " партий");
+        }
+    }
+
+    /**
+     * Расчёт таблицы значений позиций и значение пустого поля
+     */
+    private static void tablebase(String[] args) {
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        int winLength = Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size)));
+        RetrogradeSolver solver = new RetrogradeSolver(size, winLength,
+                Paths.get(CommandLine.arg(args, "dir", "tablebase")),
+                Integer.parseInt(CommandLine.arg(args, "threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        try {
+            solver.solve(System.out);
+            System.out.println("Пустое поле: " + solver.lookup(new Game(size, winLength)));
+        } catch (IOException e) {
+            System.out.println("Ошибка таблицы: " + e.getMessage());
+        }
+    }
+
+    private static void stopPondering(Player player) {
+        if (player instanceof PonderingPlayer)
+            ((PonderingPlayer) player).stopPondering();
+    }
+
+    static long secondsToNanos(String seconds) {
+        return (long) (Double.parseDouble(seconds) * 1e9);
+    }
+
+    /**
+     * @return человек или бот с заданным именем;
+     * переборный бот размышляет во время хода соперника
+     */
+    static Player player(String name, Player human, long seed, Executor executor) {
+        return player(name, human, seed, executor, null);
+    }
+
+    /**
+     * @param book дебютная книга для переборного бота или null
+     */
+    static Player player(String name, Player human, long seed, Executor executor, OpeningBook book) {
+        Bot bot = bot(name, book);
+        if (bot == null)
+            return human;
+        if (bot instanceof SearchBot)
+            return new PonderingPlayer((SearchBot) bot, executor);
+        return new BotPlayer(bot, seed, executor);
+    }
+
+    static boolean hasFlag(String[] args, String flag) {
         for (String s : args)
-            if (s.equals("gui")) {
-                gui = true;
+            if (s.equals(flag))
+                return true;
+        return false;
+    }
+
+    /**
+     * @return бот или null для человека
+     */
+    static Bot bot(String name) {
+        return name.equals("human") ? null : Bots.byName(name);
+    }
+
+    /**
+     * @return бот или null для человека; переборный бот сначала ищет ход в книге
+     */
+    static Bot bot(String name, OpeningBook book) {
+        Bot bot = bot(name);
+        if (book != null && bot instanceof SearchBot) {
+            SearchBot search = (SearchBot) bot;
+            return new SearchBot(search.getDepth(), search.getTable(), book);
+        }
+        return bot;
+    }
+
+    /**
+     * Дебютная книга из ключа book=файл или null
+     */
+    static OpeningBook book(String[] args) throws IOException {
+        String file = CommandLine.arg(args, "book", null);
+        return file == null ? null : OpeningBook.open(Paths.get(file));
+    }
+
+    /**
+     * Сбор дебютной книги по партиям ботов и записанным партиям
+     */
+    private static void buildBook(String[] args) throws IOException {
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        int winLength = Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size)));
+        OpeningBook.Builder builder = new OpeningBook.Builder(size, winLength,
+                Integer.parseInt(CommandLine.arg(args, "plies", "8")));
+        String from = CommandLine.arg(args, "from", null);
+        if (from != null) {
+            try (ReadableByteChannel in = FileChannel.open(Paths.get(from))) {
+                System.out.println("Пропущено записанных партий: " + addRecorded(builder, in));
+            }
+        }
+        int games = Integer.parseInt(CommandLine.arg(args, "games", "1000"));
+        if (games > 0) {
+            builder.selfPlay(Bots.byName(CommandLine.arg(args, "x", "search")),
+                    Bots.byName(CommandLine.arg(args, "o", "search")), games,
+                    Integer.parseInt(CommandLine.arg(args, "random", "2")),
+                    Long.parseLong(CommandLine.arg(args, "seed", "1")));
+        }
+        int entries = builder.write(Paths.get(CommandLine.arg(args, "out", "book.bin")),
+                Integer.parseInt(CommandLine.arg(args, "min", "2")));
+        System.out.println("Партий: " + builder.getGames() + ", позиций: " + builder.getPositions()
+                + ", записей в книге: " + entries);
+    }
+
+    /**
+     * Партии из записи в формате {@link MoveReader#nextLine()}
+     *
+     * @return количество пропущенных партий (неоконченных или с ошибками)
+     */
+    static int addRecorded(OpeningBook.Builder builder, ReadableByteChannel in) {
+        MoveReader reader = new MoveReader(in);
+        List<Move> moves = new ArrayList<>();
+        int skipped = 0;
+        boolean valid = true;
+        while (true) {
+            int result = reader.nextLine();
+            if (result == MoveReader.MOVE) {
+                moves.add(new Move(reader.x, reader.y));
+            } else if (result == MoveReader.ERROR) {
+                valid = false;
+            } else {
+                if (!moves.isEmpty() || !valid) {
+                    try {
+                        if (!valid || !builder.add(moves))
+                            skipped++;
+                    } catch (UserException e) {
+                        skipped++;
+                    }
+                }
+                moves.clear();
+                valid = true;
+                if (result == MoveReader.EOF)
+                    return skipped;
             }
-        GameView gameView = new ConsoleView(game);
-        GameView gameView2 = new SwingView(game);
+        }
+    }
+
+    /**
+     * Игра в консоли: ход человека вводится через view, ход бота выбирает бот.
+     * Если ввод закончился, игра прерывается
+     *
+     * @param xBot бот за крестики или null
+     * @param oBot бот за нолики или null
+     */
+    static void play(Game game, GameView view, Bot xBot, Bot oBot, SplittableRandom random) {
         while (!game.isOver()) {
+            Bot bot = game.state == Game.State.X_MOVE ? xBot : oBot;
             try {
-                Move move = gameView.inputMove();
+                Move move = bot != null ? bot.nextMove(game, random) : view.inputMove();
+                if (move == null)
+                    return;
                 game.move(move);
             } catch (UserException e) {
-                gameView.reportError(e);
+                view.reportError(e);
+            }
+        }
+    }
+
+    /**
+     * Ходы по сценарию "x,y;x,y;...". Ошибочные ходы
+     * печатаются и пропускаются, в конце печатается поле и итог
+     */
+    static void playScript(Game game, String script, PrintStream out) {
+        for (String step : script.split(";")) {
+            try {
+                game.move(parseMove(step));
+            } catch (UserException e) {
+                out.println("Ход " + step + ": " + e.getMessage());
+            }
+        }
+        out.print(game);
+        out.println(game.getState().name());
+    }
+
+    /**
+     * Ход из строки "x,y" (пробелы вокруг чисел допускаются)
+     *
+     * @throws UserException строка - не два целых числа через запятую
+     */
+    static Move parseMove(String step) throws UserException {
+        String[] xy = step.trim().split(",");
+        if (xy.length == 2) {
+            try {
+                return new Move(Integer.parseInt(xy[0].trim()), Integer.parseInt(xy[1].trim()));
+            } catch (NumberFormatException e) {
+                // Сообщение то же, что и при неверном количестве чисел
             }
         }
+        throw new UserException("Ход должен быть в виде x,y: " + step.trim());
+    }
+
+    /**
+     * Ходы из сценария "x,y;x,y;..."
+     *
+     * @throws UserException ошибка в одном из ходов
+     */
+    static List<Move> parseMoves(String script) throws UserException {
+        List<Move> moves = new ArrayList<>();
+        for (String step : script.split(";"))
+            moves.add(parseMove(step));
+        return moves;
+    }
+
+    /**
+     * Проигрывание записей партий из файла или стандартного ввода
+     */
+    static void replay(Game game, String source) {
+        PrintStream out = new PrintStream(
+                new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 64 * 1024), false);
+        try (ReadableByteChannel in = source.equals("-")
+                ? Channels.newChannel(System.in)
+                : FileChannel.open(Paths.get(source))) {
+            new ConsoleView(game).replay(in, out);
+        } catch (IOException e) {
+            out.println("Не удалось прочитать " + source + ": " + e.getMessage());
+        } finally {
+            out.flush();
+        }
+    }
+
+    /**
+     * Ожидание окончания игры, ходы в которой делаются в другом потоке
+     * (например, нажатиями кнопок в Swing)
+     *
+     * @param start запуск интерфейса
+     */
+    static void awaitGameOver(Game game, Runnable start) {
+        CountDownLatch over = new CountDownLatch(1);
+        game.listeners.add(state -> {
+            if (game.isOver())
+                over.countDown();
+        });
+        start.run();
+        try {
+            over.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,261 @@
+package controller;
+
+import ai.ProofNumberSolver;
+import model.Cell;
+import model.Game;
+import model.UserException;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Решение большой игры несколькими процессами: пространство позиций
+ * делится на шарды по дебютам (все позиции после depth ходов), каждый шард
+ * решает {@link ShardWorker} в отдельной JVM со своей кучей. Процессы
+ * договариваются только через общий каталог ({@link ShardFiles}):
+ * исполнители с других машин с тем же каталогом подключаются сами
+ * ({@code workers=0} - только внешние исполнители).
+ * <p>
+ * Умерший исполнитель перезапускается, его аренды освобождаются сразу;
+ * аренды исполнителей других машин перехватываются по истечении срока.
+ * Когда решены все шарды, результаты сводятся минимаксом в таблицу
+ * дебютов {@code table.txt} ("позиция значение" для всех позиций
+ * до depth ходов). Повторный запуск с тем же каталогом продолжает задание.
+ * <p>
+ * Запуск: {@code shard-solve size=4 win=4 depth=2 workers=4 dir=shards table=22 lease=30}
+ */
+public class ShardCoordinator {
+    /**
+     * Сколько раз в среднем можно перезапустить каждого исполнителя
+     */
+    static final int MAX_RESTARTS = 3;
+
+    private final Path directory;
+    private final int size;
+    private final int winLength;
+    private final int depth;
+    private final int workers;
+    private final int tableBits;
+    private final long leaseNanos;
+    private int restarts;
+    private int shards;
+
+    /**
+     * @param depth      длина дебюта, по которому делятся шарды
+     * @param workers    количество исполнителей на этой машине
+     * @param tableBits  двоичный логарифм размера таблицы исполнителя
+     * @param leaseNanos срок аренды без продления
+     */
+    public ShardCoordinator(Path directory, int size, int winLength, int depth,
+                            int workers, int tableBits, long leaseNanos) {
+        this.directory = directory;
+        this.size = size;
+        this.winLength = winLength;
+        this.depth = depth;
+        this.workers = workers;
+        this.tableBits = tableBits;
+        this.leaseNanos = leaseNanos;
+    }
+
+    /**
+     * Решение: подготовка задания, работа исполнителей, сведение результатов
+     *
+     * @return результат для первого игрока
+     */
+    public ProofNumberSolver.Result run() throws IOException, InterruptedException {
+        List<Map<String, Game>> levels = openings();
+        List<String> boards = new ArrayList<>();
+        for (Map.Entry<String, Game> entry : levels.get(depth).entrySet())
+            if (!entry.getValue().isOver())
+                boards.add(entry.getKey());
+        shards = boards.size();
+        ShardFiles files = new ShardFiles(directory);
+        prepare(files, boards);
+
+        Process[] processes = new Process[workers];
+        try {
+            for (int slot = 0; slot < workers; slot++)
+                processes[slot] = startWorker(slot);
+            boolean[] solved = new boolean[shards];
+            int remaining = shards;
+            while (true) {
+                for (int i = 0; i < shards; i++) {
+                    if (!solved[i] && files.readResult(i) != null) {
+                        solved[i] = true;
+                        remaining--;
+                    }
+                }
+                if (remaining == 0)
+                    break;
+                for (int slot = 0; slot < workers; slot++) {
+                    if (processes[slot].isAlive())
+                        continue;
+                    files.releaseAll(ShardFiles.owner(processes[slot].pid()), shards);
+                    if (++restarts > workers * MAX_RESTARTS)
+                        throw new IllegalStateException("Исполнители завершаются с ошибкой, см. worker-*.log в " + directory);
+                    processes[slot] = startWorker(slot);
+                }
+                Thread.sleep(ShardFiles.POLL_MILLIS);
+            }
+        } finally {
+            for (Process process : processes) {
+                if (process != null) {
+                    process.destroy();
+                    process.waitFor();
+                }
+            }
+        }
+        return merge(files, levels, boards);
+    }
+
+    /**
+     * Все позиции до depth ходов без повторов, по количеству ходов
+     */
+    private List<Map<String, Game>> openings() {
+        List<Map<String, Game>> levels = new ArrayList<>();
+        Map<String, Game> level = new LinkedHashMap<>();
+        Game empty = new Game(size, winLength);
+        level.put(ShardFiles.board(empty), empty);
+        levels.add(level);
+        for (int d = 1; d <= depth; d++) {
+            Map<String, Game> next = new LinkedHashMap<>();
+            for (Game game : level.values()) {
+                if (game.isOver())
+                    continue;
+                for (Game child : children(game))
+                    next.putIfAbsent(ShardFiles.board(child), child);
+            }
+            levels.add(next);
+            level = next;
+        }
+        return levels;
+    }
+
+    private List<Game> children(Game game) {
+        List<Game> children = new ArrayList<>();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (game.getCell(x, y) != Cell.EMPTY)
+                    continue;
+                Game child = game.copy();
+                try {
+                    child.move(x, y);
+                } catch (UserException e) {
+                    throw new IllegalStateException(e);
+                }
+                children.add(child);
+            }
+        }
+        return children;
+    }
+
+    /**
+     * Запись задания или проверка, что в каталоге то же задание
+     */
+    private void prepare(ShardFiles files, List<String> boards) throws IOException {
+        Properties job = new Properties();
+        job.setProperty("size", String.valueOf(size));
+        job.setProperty("win", String.valueOf(winLength));
+        job.setProperty("depth", String.valueOf(depth));
+        job.setProperty("shards", String.valueOf(boards.size()));
+        Properties existing = files.readJob();
+        if (existing == null)
+            files.writeJob(job, boards);
+        else if (!existing.equals(job))
+            throw new IllegalStateException("В каталоге " + directory + " другое задание: " + existing);
+    }
+
+    /**
+     * Запуск исполнителя в отдельной JVM, вывод - в worker-N.log
+     */
+    Process startWorker(int slot) throws IOException {
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        return new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                Main.class.getName(), "shard-worker",
+                "dir=" + directory.toAbsolutePath(),
+                "table=" + tableBits,
+                "lease=" + leaseNanos / 1e9)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(directory.resolve("worker-" + slot + ".log").toFile()))
+                .start();
+    }
+
+    /**
+     * Сведение результатов шардов минимаксом к пустому полю и запись table.txt
+     */
+    private ProofNumberSolver.Result merge(ShardFiles files, List<Map<String, Game>> levels,
+                                           List<String> boards) throws IOException {
+        Map<String, ProofNumberSolver.Result> values = new HashMap<>();
+        for (int i = 0; i < boards.size(); i++)
+            values.put(boards.get(i), files.readResult(i));
+        for (int d = depth; d >= 0; d--) {
+            for (Map.Entry<String, Game> entry : levels.get(d).entrySet()) {
+                Game game = entry.getValue();
+                if (game.isOver())
+                    values.put(entry.getKey(), game.getState() == Game.State.DRAW
+                            ? ProofNumberSolver.Result.DRAW : ProofNumberSolver.Result.LOSS);
+                else if (d < depth)
+                    values.put(entry.getKey(), best(game, values));
+            }
+        }
+        try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(
+                directory.resolve("table.txt"), StandardCharsets.UTF_8))) {
+            for (Map<String, Game> level : levels)
+                for (String board : level.keySet())
+                    out.println(board + " " + values.get(board));
+        }
+        return values.get(levels.get(0).keySet().iterator().next());
+    }
+
+    /**
+     * Значение позиции по значениям позиций после каждого хода
+     */
+    private ProofNumberSolver.Result best(Game game, Map<String, ProofNumberSolver.Result> values) {
+        ProofNumberSolver.Result best = ProofNumberSolver.Result.LOSS;
+        for (Game child : children(game)) {
+            ProofNumberSolver.Result value = values.get(ShardFiles.board(child));
+            if (value == ProofNumberSolver.Result.LOSS)
+                return ProofNumberSolver.Result.WIN;
+            if (value == ProofNumberSolver.Result.DRAW)
+                best = ProofNumberSolver.Result.DRAW;
+        }
+        return best;
+    }
+
+    /**
+     * Количество перезапусков умерших исполнителей
+     */
+    public int getRestarts() {
+        return restarts;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        ShardCoordinator coordinator = new ShardCoordinator(
+                Path.of(CommandLine.arg(args, "dir", "shards")), size,
+                Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size))),
+                Integer.parseInt(CommandLine.arg(args, "depth", "2")),
+                Integer.parseInt(CommandLine.arg(args, "workers",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Integer.parseInt(CommandLine.arg(args, "table", "22")),
+                Main.secondsToNanos(CommandLine.arg(args, "lease", "30")));
+        long start = System.nanoTime();
+        ProofNumberSolver.Result result = coordinator.run();
+        System.out.printf("Шардов: %d, перезапусков: %d, %.3f с%nПустое поле: %s%n",
+                coordinator.getShards(), coordinator.getRestarts(),
+                (System.nanoTime() - start) / 1e9, result);
+    }
+}
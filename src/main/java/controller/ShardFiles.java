@@ -0,0 +1,295 @@
+package controller;
+
+import ai.ProofNumberSolver;
+import model.Cell;
+import model.Game;
+import model.UserException;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Общий каталог распределённого решения ({@link ShardCoordinator}, {@link ShardWorker}):
+ * <ul>
+ * <li>{@code job.properties}, {@code shards.txt} - задание и позиции шардов, по одной в строке;</li>
+ * <li>{@code leases/shard-N.lease} - аренда шарда, внутри - владелец {@code pid@host};
+ * владелец продлевает её, обновляя время изменения файла;</li>
+ * <li>{@code results/shard-N.result} - результат шарда.</li>
+ * </ul>
+ * Все изменения - создание нового файла или атомарное переименование,
+ * поэтому каталог может лежать на общей файловой системе нескольких машин.
+ * Аренда считается просроченной, если время её изменения не менялось
+ * дольше срока по часам наблюдателя, так что расхождение часов машин не мешает.
+ */
+class ShardFiles {
+    /**
+     * Пауза между проверками каталога, мс
+     */
+    static final int POLL_MILLIS = 100;
+
+    final Path directory;
+    /**
+     * Последнее увиденное время изменения аренды и когда оно было увидено
+     */
+    private final Map<Integer, long[]> observed = new HashMap<>();
+
+    ShardFiles(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Владелец для аренд текущего процесса
+     */
+    static String currentOwner() {
+        return owner(ProcessHandle.current().pid());
+    }
+
+    /**
+     * Владелец для процесса этой машины
+     */
+    static String owner(long pid) {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = ManagementFactory.getRuntimeMXBean().getName();
+        }
+        return pid + "@" + host;
+    }
+
+    Path lease(int shard) {
+        return directory.resolve("leases").resolve(String.format("shard-%05d.lease", shard));
+    }
+
+    Path result(int shard) {
+        return directory.resolve("results").resolve(String.format("shard-%05d.result", shard));
+    }
+
+    private Path job() {
+        return directory.resolve("job.properties");
+    }
+
+    private Path shards() {
+        return directory.resolve("shards.txt");
+    }
+
+    /**
+     * Запись задания; shards.txt пишется первым, job.properties - последним,
+     * поэтому наличие job.properties означает готовое задание
+     */
+    void writeJob(Properties job, List<String> boards) throws IOException {
+        Files.createDirectories(directory.resolve("leases"));
+        Files.createDirectories(directory.resolve("results"));
+        writeAtomically(shards(), String.join("\n", boards) + "\n");
+        Path temp = Files.createTempFile(directory, "job", ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            job.store(out, null);
+        }
+        Files.move(temp, job(), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * @return задание или null, если его ещё нет
+     */
+    Properties readJob() throws IOException {
+        Properties job = new Properties();
+        try (Reader in = Files.newBufferedReader(job(), StandardCharsets.UTF_8)) {
+            job.load(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return job;
+    }
+
+    List<String> readShards() throws IOException {
+        return Files.readAllLines(shards(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Захват свободного шарда
+     *
+     * @return true, если аренда создана этим вызовом
+     */
+    boolean tryAcquire(int shard, String owner) throws IOException {
+        try {
+            Files.write(lease(shard), owner.getBytes(StandardCharsets.UTF_8),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Продление аренды владельцем
+     *
+     * @return false, если аренда уже не его (перехвачена или освобождена)
+     */
+    boolean renew(int shard, String owner) throws IOException {
+        if (!owner.equals(owner(shard)))
+            return false;
+        try {
+            Files.setLastModifiedTime(lease(shard), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Перехват аренды, которую {@link #isStale} признал просроченной.
+     * Файл аренды атомарно переносится под имя перехватчика, поэтому
+     * из нескольких перехватчиков одной аренды файл достаётся одному.
+     * Если перенесена уже свежая аренда (её успел перехватить другой),
+     * она возвращается на место
+     *
+     * @return true, если аренда теперь у owner
+     */
+    boolean takeOver(int shard, String owner) throws IOException {
+        Path lease = lease(shard);
+        Path taken = lease.resolveSibling(lease.getFileName() + "." + owner + ".taken");
+        try {
+            Files.move(lease, taken, StandardCopyOption.ATOMIC_MOVE);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        long[] seen = observed.remove(shard);
+        if (seen == null || Files.getLastModifiedTime(taken).toMillis() != seen[0]) {
+            try {
+                Files.createLink(lease, taken);
+            } catch (FileAlreadyExistsException e) {
+                // Шард уже занят снова: владелец свежей аренды заметит это при продлении
+            }
+            Files.delete(taken);
+            return false;
+        }
+        Files.delete(taken);
+        return tryAcquire(shard, owner);
+    }
+
+    void release(int shard) throws IOException {
+        Files.deleteIfExists(lease(shard));
+    }
+
+    /**
+     * @return владелец аренды или null, если шард свободен
+     */
+    String owner(int shard) throws IOException {
+        try {
+            return new String(Files.readAllBytes(lease(shard)), StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Не продлевалась ли аренда дольше срока (с первого наблюдения этим объектом)
+     */
+    boolean isStale(int shard, long timeoutNanos) throws IOException {
+        long modified;
+        try {
+            modified = Files.getLastModifiedTime(lease(shard)).toMillis();
+        } catch (NoSuchFileException e) {
+            observed.remove(shard);
+            return false;
+        }
+        long now = System.nanoTime();
+        long[] seen = observed.get(shard);
+        if (seen == null || seen[0] != modified) {
+            observed.put(shard, new long[]{modified, now});
+            return false;
+        }
+        return now - seen[1] >= timeoutNanos;
+    }
+
+    /**
+     * Освобождение шардов владельца (например, завершившегося процесса)
+     *
+     * @return количество освобождённых шардов
+     */
+    int releaseAll(String owner, int shards) throws IOException {
+        int released = 0;
+        for (int i = 0; i < shards; i++) {
+            if (owner.equals(owner(i))) {
+                release(i);
+                released++;
+            }
+        }
+        return released;
+    }
+
+    void writeResult(int shard, ProofNumberSolver.Result result) throws IOException {
+        writeAtomically(result(shard), result.name());
+    }
+
+    /**
+     * @return результат или null, если шард ещё не решён
+     */
+    ProofNumberSolver.Result readResult(int shard) throws IOException {
+        try {
+            return ProofNumberSolver.Result.valueOf(
+                    new String(Files.readAllBytes(result(shard)), StandardCharsets.UTF_8).trim());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private void writeAtomically(Path file, String content) throws IOException {
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        Files.write(temp, content.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Позиция в виде строки клеток по строкам: '.', 'X', 'O'
+     */
+    static String board(Game game) {
+        StringBuilder board = new StringBuilder(game.size * game.size);
+        for (int y = 0; y < game.size; y++) {
+            for (int x = 0; x < game.size; x++) {
+                Cell cell = game.getCell(x, y);
+                board.append(cell == Cell.X ? 'X' : cell == Cell.O ? 'O' : '.');
+            }
+        }
+        return board.toString();
+    }
+
+    /**
+     * Игра с позицией из строки (крестики и нолики ставятся по очереди)
+     */
+    static Game game(String board, int size, int winLength) {
+        Game game = new Game(size, winLength);
+        int x = board.indexOf('X'), o = board.indexOf('O');
+        try {
+            while (x >= 0) {
+                game.move(x % size, x / size);
+                x = board.indexOf('X', x + 1);
+                if (o >= 0) {
+                    game.move(o % size, o / size);
+                    o = board.indexOf('O', o + 1);
+                }
+            }
+        } catch (UserException e) {
+            throw new IllegalArgumentException("Недопустимая позиция " + board, e);
+        }
+        if (o >= 0)
+            throw new IllegalArgumentException("Недопустимая позиция " + board);
+        return game;
+    }
+}
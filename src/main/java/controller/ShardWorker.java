@@ -0,0 +1,136 @@
+package controller;
+
+import ai.ProofNumberSolver;
+import model.Game;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Процесс-исполнитель распределённого решения: берёт в аренду свободные
+ * шарды общего каталога ({@link ShardFiles}), решает их позиции
+ * {@link ProofNumberSolver} и записывает результаты. Пока шард решается,
+ * аренда продлевается из отдельного потока. Просроченная аренда (её владелец
+ * умер) перехватывается. Исполнитель завершается, когда решены все шарды.
+ * <p>
+ * Запускается координатором ({@link ShardCoordinator}) или вручную на другой
+ * машине с тем же каталогом: {@code shard-worker dir=/shared/job table=22 lease=30}.
+ * Перехват аренды атомарен ({@link ShardFiles#takeOver}). Если аренду всё же
+ * перехватили у живого исполнителя (он не продлевал её дольше срока),
+ * он перестаёт её продлевать; результаты одинаковы и записываются атомарно.
+ */
+public class ShardWorker {
+    private final ShardFiles files;
+    private final String owner;
+    private final ProofNumberSolver solver;
+    private final long leaseNanos;
+    private int solved;
+
+    /**
+     * @param owner        имя в арендах ({@code pid@host} для процесса)
+     * @param tableEntries размер таблицы решателя
+     * @param leaseNanos   срок аренды без продления
+     */
+    public ShardWorker(Path directory, String owner, int tableEntries, long leaseNanos) {
+        this(new ShardFiles(directory), owner, tableEntries, leaseNanos);
+    }
+
+    ShardWorker(ShardFiles files, String owner, int tableEntries, long leaseNanos) {
+        this.files = files;
+        this.owner = owner;
+        this.solver = new ProofNumberSolver(tableEntries, Long.MAX_VALUE);
+        this.leaseNanos = leaseNanos;
+    }
+
+    /**
+     * Решение шардов, пока не решены все
+     */
+    public void run() throws IOException, InterruptedException {
+        Properties job;
+        while ((job = files.readJob()) == null)
+            Thread.sleep(ShardFiles.POLL_MILLIS);
+        int size = Integer.parseInt(job.getProperty("size"));
+        int winLength = Integer.parseInt(job.getProperty("win"));
+        List<String> shards = files.readShards();
+        ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (true) {
+                boolean done = true, progress = false;
+                for (int i = 0; i < shards.size(); i++) {
+                    if (files.readResult(i) != null)
+                        continue;
+                    done = false;
+                    if (!acquire(i))
+                        continue;
+                    // Шард могли решить и освободить между проверкой и захватом
+                    if (files.readResult(i) != null) {
+                        files.release(i);
+                        continue;
+                    }
+                    solve(i, ShardFiles.game(shards.get(i), size, winLength), heartbeat);
+                    progress = true;
+                }
+                if (done)
+                    return;
+                if (!progress)
+                    Thread.sleep(ShardFiles.POLL_MILLIS);
+            }
+        } finally {
+            heartbeat.shutdownNow();
+        }
+    }
+
+    private boolean acquire(int shard) throws IOException {
+        if (files.tryAcquire(shard, owner))
+            return true;
+        return files.isStale(shard, leaseNanos) && files.takeOver(shard, owner);
+    }
+
+    private void solve(int shard, Game game, ScheduledExecutorService heartbeat) throws IOException {
+        long period = Math.max(1, leaseNanos / 4);
+        ScheduledFuture<?> renewal = heartbeat.scheduleAtFixedRate(() -> {
+            boolean renewed;
+            try {
+                renewed = files.renew(shard, owner);
+            } catch (IOException e) {
+                // Каталог недоступен: следующее продление повторит попытку
+                return;
+            }
+            // Исключение отменяет дальнейшие продления
+            if (!renewed)
+                throw new IllegalStateException("Аренда шарда " + shard + " перехвачена");
+        }, period, period, TimeUnit.NANOSECONDS);
+        try {
+            ProofNumberSolver.Result result = solver.solve(game);
+            files.writeResult(shard, result);
+            solved++;
+        } finally {
+            renewal.cancel(false);
+            if (owner.equals(files.owner(shard)))
+                files.release(shard);
+        }
+    }
+
+    /**
+     * Количество шардов, решённых этим исполнителем
+     */
+    public int getSolved() {
+        return solved;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        new ShardWorker(Path.of(CommandLine.arg(args, "dir", "shards")), ShardFiles.currentOwner(),
+                1 << Integer.parseInt(CommandLine.arg(args, "table", "22")),
+                Main.secondsToNanos(CommandLine.arg(args, "lease", "30"))).run();
+    }
+}
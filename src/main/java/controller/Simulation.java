@@ -0,0 +1,223 @@
+package controller;
+
+import ai.Bot;
+import ai.Bots;
+import metrics.EngineMetrics;
+import metrics.Histogram;
+import model.Game;
+import model.GamePool;
+import model.Move;
+import model.UserException;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+/**
+ * Пакетная игра бот против бота без интерфейса.
+ * Игры распределяются по ядрам через ForkJoinPool (work stealing),
+ * у каждого потока свои боты, игры и статистика.
+ * Итоговые счёт побед и ничьих зависят только от зерна,
+ * а не от количества потоков.
+ * <p>
+ * Запуск: {@code simulate games=100000 size=3 win=3 x=greedy o=random seed=1 threads=8}
+ * (с {@code metrics=true} в конце печатаются метрики движка)
+ */
+public class Simulation {
+    /**
+     * Сколько игр поток играет без дробления задачи
+     */
+    private static final int CHUNK = 256;
+
+    private final int size;
+    private final int winLength;
+    private final Supplier<Bot> xBot;
+    private final Supplier<Bot> oBot;
+    private final long seed;
+    private final int threads;
+
+    /**
+     * @param size      размер поля
+     * @param winLength количество символов в линии для выигрыша
+     * @param xBot      создание бота за крестики (по одному на поток)
+     * @param oBot      создание бота за нолики (по одному на поток)
+     * @param seed      главное зерно
+     * @param threads   количество потоков
+     */
+    public Simulation(int size, int winLength, Supplier<Bot> xBot, Supplier<Bot> oBot,
+                      long seed, int threads) {
+        this.size = size;
+        this.winLength = winLength;
+        this.xBot = xBot;
+        this.oBot = oBot;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    /**
+     * Статистика одного потока, в конце объединяется в общую
+     */
+    public static class Result {
+        public long xWins, oWins, draws, moves;
+        /**
+         * Время выбора и выполнения хода, нс
+         */
+        public final Histogram moveLatency = new Histogram();
+        /**
+         * Общее время, нс
+         */
+        public long elapsedNanos;
+
+        public long getGames() {
+            return xWins + oWins + draws;
+        }
+
+        void add(Result other) {
+            xWins += other.xWins;
+            oWins += other.oWins;
+            draws += other.draws;
+            moves += other.moves;
+            moveLatency.add(other.moveLatency);
+        }
+
+        public double getGamesPerSecond() {
+            return getGames() * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        public double getMovesPerSecond() {
+            return moves * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            long games = Math.max(1, getGames());
+            return String.format("Игр: %d, X: %d (%.1f%%), O: %d (%.1f%%), ничьих: %d (%.1f%%)%n" +
+                            "Время: %.3f с, игр/с: %.0f, ходов/с: %.0f%n" +
+                            "Задержка хода, нс: %s",
+                    getGames(), xWins, 100.0 * xWins / games, oWins, 100.0 * oWins / games,
+                    draws, 100.0 * draws / games,
+                    elapsedNanos / 1e9, getGamesPerSecond(), getMovesPerSecond(),
+                    moveLatency);
+        }
+    }
+
+    /**
+     * Состояние потока: боты и статистика
+     */
+    private class Worker {
+        final Bot x = xBot.get();
+        final Bot o = oBot.get();
+        final Result result = new Result();
+    }
+
+    /**
+     * Игры с номерами [from, to)
+     */
+    @SuppressWarnings("serial") // задача fork/join не сериализуется
+    private class Games extends RecursiveAction {
+        private final long from, to;
+        private final ThreadLocal<Worker> workers;
+        private final GamePool pool;
+
+        Games(long from, long to, ThreadLocal<Worker> workers, GamePool pool) {
+            this.from = from;
+            this.to = to;
+            this.workers = workers;
+            this.pool = pool;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                long mid = (from + to) >>> 1;
+                invokeAll(new Games(from, mid, workers, pool), new Games(mid, to, workers, pool));
+                return;
+            }
+            Worker worker = workers.get();
+            for (long i = from; i < to; i++) {
+                Game game = pool.acquire(size, winLength);
+                play(game, worker, new SplittableRandom(seed + i * CommandLine.GOLDEN_GAMMA));
+                pool.release(game);
+            }
+        }
+    }
+
+    private void play(Game game, Worker worker, SplittableRandom random) {
+        Result result = worker.result;
+        while (!game.isOver()) {
+            long start = System.nanoTime();
+            Bot bot = game.state == Game.State.X_MOVE ? worker.x : worker.o;
+            Move move = bot.nextMove(game, random);
+            try {
+                game.move(move);
+            } catch (UserException e) {
+                throw new IllegalStateException("Бот сделал недопустимый ход " + move, e);
+            }
+            result.moveLatency.record(System.nanoTime() - start);
+            result.moves++;
+        }
+        switch (game.state) {
+            case X_WINS:
+                result.xWins++;
+                break;
+            case O_WINS:
+                result.oWins++;
+                break;
+            default:
+                result.draws++;
+        }
+    }
+
+    /**
+     * Сыграть games игр
+     *
+     * @param games количество игр
+     * @return общая статистика
+     */
+    public Result run(long games) {
+        List<Worker> all = new CopyOnWriteArrayList<>();
+        ThreadLocal<Worker> workers = ThreadLocal.withInitial(() -> {
+            Worker worker = new Worker();
+            all.add(worker);
+            return worker;
+        });
+        ForkJoinPool executor = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        try {
+            executor.invoke(new Games(0, games, workers, new GamePool(1)));
+        } finally {
+            executor.shutdown();
+        }
+        Result total = new Result();
+        total.elapsedNanos = System.nanoTime() - start;
+        for (Worker worker : all)
+            total.add(worker.result);
+        return total;
+    }
+
+    public static void main(String[] args) {
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        int winLength = Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size)));
+        String x = CommandLine.arg(args, "x", "random");
+        String o = CommandLine.arg(args, "o", "random");
+        Bots.byName(x);
+        Bots.byName(o);
+        Simulation simulation = new Simulation(size, winLength,
+                () -> Bots.byName(x), () -> Bots.byName(o),
+                Long.parseLong(CommandLine.arg(args, "seed", "1")),
+                Integer.parseInt(CommandLine.arg(args, "threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        long games = Long.parseLong(CommandLine.arg(args, "games", "100000"));
+        boolean metrics = Boolean.parseBoolean(CommandLine.arg(args, "metrics", "false"));
+        if (metrics)
+            Game.setProbe(EngineMetrics.GLOBAL);
+        System.out.println("Поле " + size + "x" + size + ", линия " + winLength +
+                ", X: " + x + ", O: " + o);
+        System.out.println(simulation.run(games));
+        if (metrics)
+            System.out.print(EngineMetrics.GLOBAL.getDump());
+    }
+}
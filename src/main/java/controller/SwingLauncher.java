@@ -0,0 +1,22 @@
+package controller;
+
+import model.Game;
+import model.Player;
+import view.swing.SwingView;
+
+/**
+ * Запуск Swing интерфейса.
+ * Вынесен из {@link Main}, чтобы в консольном режиме
+ * классы Swing/AWT не загружались.
+ */
+class SwingLauncher {
+    private SwingLauncher() {
+    }
+
+    /**
+     * @return окно как игрок для {@link TimedGame}
+     */
+    static Player show(Game game) {
+        return new SwingView(game);
+    }
+}
@@ -0,0 +1,160 @@
+package controller;
+
+import ai.Bot;
+import model.Game;
+import model.Move;
+import model.Player;
+import model.UserException;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Партия с контролем времени.
+ * У каждого игрока свои часы (основное время + добавка за ход),
+ * время измеряется по {@link System#nanoTime()}. Если игрок не успел,
+ * сломался или отказался ходить, за него ходит запасной бот,
+ * а его часы обнуляются (добавка за ход всё равно начисляется).
+ */
+public class TimedGame {
+    /**
+     * Шахматные часы одного игрока
+     */
+    public static class Clock {
+        private long remainingNanos;
+        private final long incrementNanos;
+        private int timeouts;
+
+        /**
+         * @param initialNanos   основное время
+         * @param incrementNanos добавка после каждого хода
+         */
+        public Clock(long initialNanos, long incrementNanos) {
+            this.remainingNanos = initialNanos;
+            this.incrementNanos = incrementNanos;
+        }
+
+        public long getRemainingNanos() {
+            return remainingNanos;
+        }
+
+        /**
+         * Сколько раз время вышло
+         */
+        public int getTimeouts() {
+            return timeouts;
+        }
+
+        /**
+         * Учёт хода: списание затраченного времени и добавка
+         */
+        void spend(long elapsedNanos) {
+            remainingNanos -= elapsedNanos;
+            if (remainingNanos <= 0) {
+                remainingNanos = 0;
+                timeouts++;
+            }
+            remainingNanos += incrementNanos;
+        }
+
+        @Override
+        public String toString() {
+            long millis = remainingNanos / 1_000_000;
+            return String.format("%d:%02d.%03d", millis / 60_000, millis / 1000 % 60, millis % 1000);
+        }
+    }
+
+    private final Game game;
+    private final Player xPlayer, oPlayer;
+    private final Clock xClock, oClock;
+    private final Bot fallback;
+    private final SplittableRandom random;
+
+    /**
+     * @param fallback бот для вынужденных ходов; должен ходить мгновенно
+     */
+    public TimedGame(Game game, Player xPlayer, Player oPlayer, Clock xClock, Clock oClock,
+                     Bot fallback, long seed) {
+        this.game = game;
+        this.xPlayer = xPlayer;
+        this.oPlayer = oPlayer;
+        this.xClock = xClock;
+        this.oClock = oClock;
+        this.fallback = fallback;
+        this.random = new SplittableRandom(seed);
+    }
+
+    public Clock getXClock() {
+        return xClock;
+    }
+
+    public Clock getOClock() {
+        return oClock;
+    }
+
+    /**
+     * Игра до конца
+     *
+     * @return итоговое состояние
+     */
+    public Game.State play() {
+        while (!game.isOver()) {
+            boolean xMove = game.state == Game.State.X_MOVE;
+            turn(xMove ? xPlayer : oPlayer, xMove ? xClock : oClock);
+        }
+        return game.state;
+    }
+
+    /**
+     * Один ход: ждём игрока, пока не кончится время.
+     * Отклонённый ход запрашиваем снова за счёт того же времени,
+     * опоздавший ход не принимаем
+     */
+    private void turn(Player player, Clock clock) {
+        long start = System.nanoTime();
+        long deadline = start + clock.remainingNanos;
+        boolean moved = false;
+        while (!moved) {
+            Move move = await(player.requestMove(game, deadline), deadline);
+            if (move == null || System.nanoTime() - deadline >= 0)
+                break;
+            try {
+                game.move(move);
+                moved = true;
+            } catch (UserException e) {
+                player.reportError(e);
+            }
+        }
+        clock.spend(System.nanoTime() - start);
+        if (!moved)
+            forceMove();
+    }
+
+    /**
+     * @return ход или null, если время вышло или игрок не смог сходить
+     */
+    private static Move await(CompletableFuture<Move> future, long deadline) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            future.cancel(true);
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void forceMove() {
+        try {
+            game.move(fallback.nextMove(game, random));
+        } catch (UserException e) {
+            throw new IllegalStateException("Запасной бот сделал недопустимый ход", e);
+        }
+    }
+}
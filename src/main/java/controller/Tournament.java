@@ -0,0 +1,347 @@
+package controller;
+
+import ai.Bot;
+import ai.Bots;
+import model.Game;
+import model.Move;
+import model.UserException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Круговой турнир ботов без интерфейса: каждая пара играет gamesPerColor
+ * партий каждым цветом, партии распределяются по пулу потоков.
+ * Результаты передаются по мере окончания партий, итог - рейтинги Эло
+ * с доверительными интервалами ({@link Standings}).
+ * Зерно каждой партии зависит только от её номера, поэтому итог
+ * не зависит от количества потоков (если боты не ограничены временем).
+ * <p>
+ * Запуск: {@code tournament players=random,greedy,search:4 games=10 size=3 win=3
+ * move=0.1 threads=8 seed=1} ({@code move} - секунд на ход, 0 - без ограничения)
+ */
+public class Tournament {
+    private final List<String> names;
+    private final List<Supplier<Bot>> bots;
+    private final int gamesPerColor;
+    private final int size;
+    private final int winLength;
+    private final long moveNanos;
+    private final long seed;
+    private final int threads;
+
+    /**
+     * @param names         имена участников
+     * @param bots          создание бота участника (новый бот на каждую партию)
+     * @param gamesPerColor партий каждой пары за каждый цвет
+     * @param moveNanos     время на ход, 0 - без ограничения
+     */
+    public Tournament(List<String> names, List<Supplier<Bot>> bots, int gamesPerColor,
+                      int size, int winLength, long moveNanos, long seed, int threads) {
+        if (names.size() != bots.size() || names.size() < 2)
+            throw new IllegalArgumentException("Нужно не меньше двух участников");
+        this.names = names;
+        this.bots = bots;
+        this.gamesPerColor = gamesPerColor;
+        this.size = size;
+        this.winLength = winLength;
+        this.moveNanos = moveNanos;
+        this.seed = seed;
+        this.threads = threads;
+    }
+
+    /**
+     * Итог одной партии
+     */
+    public static class GameResult {
+        /**
+         * Номера участников за крестики и нолики
+         */
+        public final int x, o;
+        public final Game.State state;
+        public final int moves;
+        /**
+         * Участник, сделавший недопустимый ход или упавший (проиграл), или -1
+         */
+        public final int forfeit;
+
+        GameResult(int x, int o, Game.State state, int moves, int forfeit) {
+            this.x = x;
+            this.o = o;
+            this.state = state;
+            this.moves = moves;
+            this.forfeit = forfeit;
+        }
+    }
+
+    /**
+     * Таблица турнира: очки участников и рейтинги Эло.
+     * <p>
+     * Рейтинги - оценка максимального правдоподобия модели Брэдли - Терри
+     * (ничья - пол-очка каждому), итерации Хантера (MM). Чтобы рейтинг
+     * участника без побед или без поражений был конечным, к каждой паре
+     * добавляются две условные партии: победа и поражение. Средний рейтинг - 0.
+     * Интервал - 95% для доли очков участника (нормальное приближение),
+     * пересчитанный в Эло по производной логистической кривой.
+     */
+    public static class Standings {
+        private static final double Z95 = 1.959964;
+        private static final int MAX_ITERATIONS = 10_000;
+        private static final double EPSILON = 1e-10;
+
+        private final List<String> names;
+        private final int[] wins, draws, losses, forfeits;
+        /**
+         * Очки i против j (в половинах очка) и количество партий i с j
+         */
+        private final int[][] halfPoints, played;
+        private int games;
+
+        Standings(List<String> names) {
+            int n = names.size();
+            this.names = names;
+            wins = new int[n];
+            draws = new int[n];
+            losses = new int[n];
+            forfeits = new int[n];
+            halfPoints = new int[n][n];
+            played = new int[n][n];
+        }
+
+        void record(GameResult result) {
+            record(result.x, result.o, result.state);
+            if (result.forfeit >= 0)
+                forfeits[result.forfeit]++;
+        }
+
+        void record(int x, int o, Game.State state) {
+            games++;
+            played[x][o]++;
+            played[o][x]++;
+            switch (state) {
+                case X_WINS:
+                    wins[x]++;
+                    losses[o]++;
+                    halfPoints[x][o] += 2;
+                    break;
+                case O_WINS:
+                    wins[o]++;
+                    losses[x]++;
+                    halfPoints[o][x] += 2;
+                    break;
+                case DRAW:
+                    draws[x]++;
+                    draws[o]++;
+                    halfPoints[x][o]++;
+                    halfPoints[o][x]++;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Партия не окончена: " + state);
+            }
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public List<String> getNames() {
+            return names;
+        }
+
+        public int getWins(int player) {
+            return wins[player];
+        }
+
+        public int getDraws(int player) {
+            return draws[player];
+        }
+
+        public int getLosses(int player) {
+            return losses[player];
+        }
+
+        /**
+         * Проигрыши из-за недопустимого хода или ошибки бота
+         */
+        public int getForfeits(int player) {
+            return forfeits[player];
+        }
+
+        public double getPoints(int player) {
+            return wins[player] + draws[player] / 2.0;
+        }
+
+        /**
+         * Рейтинги Эло участников (среднее - 0)
+         */
+        public double[] elo() {
+            int n = names.size();
+            double[] gamma = new double[n];
+            double[] score = new double[n];
+            Arrays.fill(gamma, 1);
+            for (int i = 0; i < n; i++) {
+                score[i] = n - 1; // условные победы
+                for (int j = 0; j < n; j++)
+                    score[i] += halfPoints[i][j] / 2.0;
+            }
+            for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+                double[] next = new double[n];
+                double logSum = 0;
+                for (int i = 0; i < n; i++) {
+                    double denominator = 0;
+                    for (int j = 0; j < n; j++)
+                        if (j != i)
+                            denominator += (played[i][j] + 2) / (gamma[i] + gamma[j]);
+                    next[i] = score[i] / denominator;
+                    logSum += Math.log(next[i]);
+                }
+                double mean = Math.exp(logSum / n), change = 0;
+                for (int i = 0; i < n; i++) {
+                    next[i] /= mean;
+                    change = Math.max(change, Math.abs(next[i] - gamma[i]) / gamma[i]);
+                }
+                gamma = next;
+                if (change < EPSILON)
+                    break;
+            }
+            double[] elo = new double[n];
+            for (int i = 0; i < n; i++)
+                elo[i] = 400 * Math.log10(gamma[i]);
+            return elo;
+        }
+
+        /**
+         * Половина 95% доверительного интервала рейтинга каждого участника
+         */
+        public double[] errors() {
+            int n = names.size();
+            double[] errors = new double[n];
+            for (int i = 0; i < n; i++) {
+                // С условными партиями: n - 1 побед и n - 1 поражений
+                double count = wins[i] + draws[i] + losses[i] + 2 * (n - 1);
+                double w = (wins[i] + n - 1) / count, d = draws[i] / count;
+                double p = w + d / 2;
+                double variance = w + d / 4 - p * p;
+                double slope = 400 / Math.log(10) / (p * (1 - p));
+                errors[i] = Z95 * Math.sqrt(variance / count) * slope;
+            }
+            return errors;
+        }
+
+        @Override
+        public String toString() {
+            double[] elo = elo(), errors = errors();
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < names.size(); i++)
+                order.add(i);
+            order.sort((a, b) -> Double.compare(elo[b], elo[a]));
+            StringBuilder table = new StringBuilder(String.format("%-12s %6s %6s %6s %6s %8s %11s%n",
+                    "Участник", "Партий", "+", "=", "-", "Очки", "Эло"));
+            for (int i : order)
+                table.append(String.format("%-12s %6d %6d %6d %6d %8.1f %+5.0f ± %3.0f%n",
+                        names.get(i), wins[i] + draws[i] + losses[i], wins[i], draws[i], losses[i],
+                        getPoints(i), elo[i], errors[i]));
+            return table.toString();
+        }
+    }
+
+    /**
+     * Все партии турнира
+     *
+     * @param progress вызывается в этом потоке после каждой партии
+     *                 (в порядке окончания) с текущей таблицей
+     * @return итоговая таблица
+     */
+    public Standings run(BiConsumer<GameResult, Standings> progress)
+            throws InterruptedException {
+        List<int[]> pairings = new ArrayList<>();
+        for (int i = 0; i < names.size(); i++)
+            for (int j = 0; j < names.size(); j++)
+                if (i != j)
+                    for (int k = 0; k < gamesPerColor; k++)
+                        pairings.add(new int[]{i, j});
+        Standings standings = new Standings(names);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            CompletionService<GameResult> results = new ExecutorCompletionService<>(executor);
+            for (int i = 0; i < pairings.size(); i++) {
+                int[] pairing = pairings.get(i);
+                long gameSeed = seed + i * CommandLine.GOLDEN_GAMMA;
+                results.submit(() -> play(pairing[0], pairing[1], new SplittableRandom(gameSeed)));
+            }
+            for (int i = 0; i < pairings.size(); i++) {
+                GameResult result = results.take().get();
+                standings.record(result);
+                progress.accept(result, standings);
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Партия не доиграна", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return standings;
+    }
+
+    private GameResult play(int xIndex, int oIndex, SplittableRandom random) {
+        Bot x = bots.get(xIndex).get(), o = bots.get(oIndex).get();
+        Game game = new Game(size, winLength);
+        int moves = 0;
+        while (!game.isOver()) {
+            boolean xMoves = game.getState() == Game.State.X_MOVE;
+            try {
+                Bot bot = xMoves ? x : o;
+                Move move = moveNanos > 0
+                        ? bot.nextMove(game, random, System.nanoTime() + moveNanos)
+                        : bot.nextMove(game, random);
+                game.move(move);
+                moves++;
+            } catch (UserException | RuntimeException e) {
+                return new GameResult(xIndex, oIndex, xMoves ? Game.State.O_WINS : Game.State.X_WINS,
+                        moves, xMoves ? xIndex : oIndex);
+            }
+        }
+        return new GameResult(xIndex, oIndex, game.getState(), moves, -1);
+    }
+
+    /**
+     * Участники из строки "random,greedy,search:4"
+     */
+    static List<Supplier<Bot>> bots(List<String> names) {
+        List<Supplier<Bot>> bots = new ArrayList<>();
+        for (String name : names) {
+            Bots.byName(name); // неизвестное имя - ошибка до начала турнира
+            bots.add(() -> Bots.byName(name));
+        }
+        return bots;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int size = Integer.parseInt(CommandLine.arg(args, "size", "3"));
+        List<String> names = List.of(CommandLine.arg(args, "players", "random,greedy,search").split(","));
+        int games = Integer.parseInt(CommandLine.arg(args, "games", "10"));
+        Tournament tournament = new Tournament(names, bots(names), games, size,
+                Integer.parseInt(CommandLine.arg(args, "win", String.valueOf(size))),
+                Main.secondsToNanos(CommandLine.arg(args, "move", "0")),
+                Long.parseLong(CommandLine.arg(args, "seed", "1")),
+                Integer.parseInt(CommandLine.arg(args, "threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()))));
+        int total = names.size() * (names.size() - 1) * games;
+        Standings result = tournament.run((game, standings) -> {
+            System.out.println(standings.getGames() + "/" + total + " " + names.get(game.x) + " - "
+                    + names.get(game.o) + ": " + game.state.name()
+                    + (game.forfeit >= 0 ? " (недопустимый ход " + names.get(game.forfeit) + ")" : ""));
+            if (standings.getGames() % 100 == 0)
+                System.out.print(standings);
+        });
+        System.out.print(result);
+    }
+}
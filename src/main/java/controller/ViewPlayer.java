@@ -0,0 +1,40 @@
+package controller;
+
+import model.Game;
+import model.Move;
+import model.Player;
+import model.UserException;
+import view.GameView;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Игрок, вводящий ходы через блокирующий {@link GameView}
+ * (например, консоль). Ввод идёт в отдельном потоке;
+ * если время вышло, начатый ввод не прерывается
+ * и следующий запрос ждёт его окончания.
+ */
+public class ViewPlayer implements Player {
+    private final GameView view;
+    private final ExecutorService input = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "view-input");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ViewPlayer(GameView view) {
+        this.view = view;
+    }
+
+    @Override
+    public CompletableFuture<Move> requestMove(Game game, long deadlineNanos) {
+        return CompletableFuture.supplyAsync(view::inputMove, input);
+    }
+
+    @Override
+    public void reportError(UserException e) {
+        view.reportError(e);
+    }
+}
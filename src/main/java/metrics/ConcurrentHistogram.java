@@ -0,0 +1,90 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Гистограмма с теми же корзинами, что и {@link Histogram},
+ * для записи из многих потоков.
+ * Запись без блокировок и без выделения памяти;
+ * для чтения снимается копия {@link #snapshot()}.
+ * <p>
+ * Счётчики корзин разбиты на полосы по потокам (как ячейки {@link LongAdder}),
+ * сумма и максимум - {@link LongAdder} и {@link LongAccumulator}, поэтому
+ * потоки, пишущие одновременно, не спорят за одну строку кэша.
+ */
+public class ConcurrentHistogram {
+    /**
+     * Наибольшее количество полос: по полосе занимает около 15 КБ
+     */
+    private static final int MAX_STRIPES = 16;
+
+    private final AtomicLongArray[] stripes;
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * По полосе на процессор, но не больше {@link #MAX_STRIPES}
+     */
+    public ConcurrentHistogram() {
+        this(Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES));
+    }
+
+    /**
+     * @param stripes количество полос, округляется вверх до степени двойки
+     */
+    ConcurrentHistogram(int stripes) {
+        int count = Integer.highestOneBit(Math.max(1, stripes * 2 - 1));
+        this.stripes = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++)
+            this.stripes[i] = new AtomicLongArray(Histogram.BUCKETS);
+    }
+
+    /**
+     * Полоса текущего потока
+     */
+    private AtomicLongArray stripe() {
+        long id = Thread.currentThread().getId() * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (id >>> 32) & (stripes.length - 1)];
+    }
+
+    /**
+     * Запись значения. Отрицательные значения считаются нулём
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        stripe().incrementAndGet(Histogram.bucket(value));
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Копия текущих значений. Во время одновременной записи
+     * копия может не включать последние значения
+     */
+    public Histogram snapshot() {
+        Histogram histogram = new Histogram();
+        for (int i = 0; i < Histogram.BUCKETS; i++) {
+            long count = 0;
+            for (AtomicLongArray stripe : stripes)
+                count += stripe.get(i);
+            if (count != 0)
+                histogram.addBucket(i, count);
+        }
+        histogram.setTotals(sum.sum(), max.get());
+        return histogram;
+    }
+
+    /**
+     * Очистка. Значения, записанные во время очистки, могут частично сохраниться
+     */
+    public void clear() {
+        for (AtomicLongArray stripe : stripes)
+            for (int i = 0; i < Histogram.BUCKETS; i++)
+                stripe.set(i, 0);
+        sum.reset();
+        max.reset();
+    }
+}
@@ -0,0 +1,232 @@
+package metrics;
+
+import model.Game;
+import model.GameProbe;
+import model.UserException;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики и гистограммы игрового движка.
+ * Запись без блокировок и без выделения памяти,
+ * поэтому метрики не выключаются и в рабочем режиме.
+ * Игры сообщают о ходах, когда метрики установлены наблюдателем
+ * движка: {@code Game.setProbe(EngineMetrics.GLOBAL)}.
+ */
+public class EngineMetrics implements EngineMetricsMXBean, GameProbe {
+    /**
+     * Имя объекта в JMX
+     */
+    public static final String OBJECT_NAME = "tictactoe:type=EngineMetrics";
+
+    private static final UserException.Reason[] REASONS = UserException.Reason.values();
+
+    /**
+     * Метрики всех игр процесса
+     */
+    public static final EngineMetrics GLOBAL = new EngineMetrics();
+
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder xWins = new LongAdder();
+    private final LongAdder oWins = new LongAdder();
+    private final LongAdder draws = new LongAdder();
+    private final LongAdder[] rejected = new LongAdder[REASONS.length];
+    private final LongAdder activeSessions = new LongAdder();
+    private final ConcurrentHistogram moveLatency = new ConcurrentHistogram();
+    private final ConcurrentHistogram listenerLatency = new ConcurrentHistogram();
+    private final ConcurrentHistogram listenerQueueDepth = new ConcurrentHistogram();
+
+    public EngineMetrics() {
+        for (int i = 0; i < rejected.length; i++)
+            rejected[i] = new LongAdder();
+    }
+
+    /**
+     * Ход выполнен
+     *
+     * @param state        состояние игры после хода
+     * @param elapsedNanos время обработки хода
+     */
+    @Override
+    public void moveCompleted(Game.State state, long elapsedNanos) {
+        moves.increment();
+        switch (state) {
+            case X_WINS:
+                xWins.increment();
+                break;
+            case O_WINS:
+                oWins.increment();
+                break;
+            case DRAW:
+                draws.increment();
+                break;
+            default:
+                break;
+        }
+        moveLatency.record(elapsedNanos);
+    }
+
+    /**
+     * Ход отклонён
+     */
+    @Override
+    public void moveRejected(UserException.Reason reason) {
+        rejected[reason.ordinal()].increment();
+    }
+
+    /**
+     * Наблюдатели игры оповещены
+     */
+    @Override
+    public void listenersNotified(long elapsedNanos) {
+        listenerLatency.record(elapsedNanos);
+    }
+
+    /**
+     * Оповещение поставлено в очередь игры
+     *
+     * @param depth сколько оповещений этой игры уже ждали в очереди
+     */
+    @Override
+    public void listenerQueued(int depth) {
+        listenerQueueDepth.record(depth);
+    }
+
+    public void sessionOpened() {
+        activeSessions.increment();
+    }
+
+    public void sessionClosed() {
+        activeSessions.decrement();
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getXWins() {
+        return xWins.sum();
+    }
+
+    @Override
+    public long getOWins() {
+        return oWins.sum();
+    }
+
+    @Override
+    public long getDraws() {
+        return draws.sum();
+    }
+
+    public long getRejectedMoves(UserException.Reason reason) {
+        return rejected[reason.ordinal()].sum();
+    }
+
+    @Override
+    public Map<String, Long> getRejectedMoves() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (UserException.Reason reason : REASONS)
+            result.put(reason.name(), getRejectedMoves(reason));
+        return result;
+    }
+
+    @Override
+    public long getActiveSessions() {
+        return activeSessions.sum();
+    }
+
+    public Histogram getMoveLatencySnapshot() {
+        return moveLatency.snapshot();
+    }
+
+    public Histogram getListenerLatencySnapshot() {
+        return listenerLatency.snapshot();
+    }
+
+    public Histogram getListenerQueueDepthSnapshot() {
+        return listenerQueueDepth.snapshot();
+    }
+
+    private static Map<String, Long> percentiles(Histogram histogram) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        result.put("count", histogram.getCount());
+        result.put("p50", histogram.getValueAtPercentile(50));
+        result.put("p90", histogram.getValueAtPercentile(90));
+        result.put("p99", histogram.getValueAtPercentile(99));
+        result.put("p99.9", histogram.getValueAtPercentile(99.9));
+        result.put("max", histogram.getMax());
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getMoveLatency() {
+        return percentiles(getMoveLatencySnapshot());
+    }
+
+    @Override
+    public Map<String, Long> getListenerLatency() {
+        return percentiles(getListenerLatencySnapshot());
+    }
+
+    @Override
+    public Map<String, Long> getListenerQueueDepth() {
+        return percentiles(getListenerQueueDepthSnapshot());
+    }
+
+    @Override
+    public String getDump() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("moves ").append(getMoves()).append('\n');
+        sb.append("x_wins ").append(getXWins()).append('\n');
+        sb.append("o_wins ").append(getOWins()).append('\n');
+        sb.append("draws ").append(getDraws()).append('\n');
+        for (UserException.Reason reason : REASONS)
+            sb.append("rejected_moves{reason=").append(reason.name()).append("} ")
+                    .append(getRejectedMoves(reason)).append('\n');
+        sb.append("active_sessions ").append(getActiveSessions()).append('\n');
+        sb.append("move_latency_ns ").append(getMoveLatencySnapshot()).append('\n');
+        sb.append("listener_latency_ns ").append(getListenerLatencySnapshot()).append('\n');
+        sb.append("listener_queue_depth ").append(getListenerQueueDepthSnapshot()).append('\n');
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        moves.reset();
+        xWins.reset();
+        oWins.reset();
+        draws.reset();
+        for (LongAdder adder : rejected)
+            adder.reset();
+        moveLatency.clear();
+        listenerLatency.clear();
+        listenerQueueDepth.clear();
+    }
+
+    /**
+     * Регистрация {@link #GLOBAL} в платформенном MBeanServer.
+     * Повторная регистрация ничего не делает
+     */
+    public static void registerMBean() {
+        registerMBean(ManagementFactory.getPlatformMBeanServer(), OBJECT_NAME);
+    }
+
+    static void registerMBean(MBeanServer server, String name) {
+        try {
+            server.registerMBean(GLOBAL, new ObjectName(name));
+        } catch (InstanceAlreadyExistsException e) {
+            // Уже зарегистрирован
+        } catch (JMException e) {
+            throw new IllegalStateException("Не удалось зарегистрировать " + name, e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package metrics;
+
+import java.util.Map;
+
+/**
+ * Метрики игрового движка в JMX
+ * (объект {@value EngineMetrics#OBJECT_NAME})
+ */
+public interface EngineMetricsMXBean {
+    long getMoves();
+
+    long getXWins();
+
+    long getOWins();
+
+    long getDraws();
+
+    /**
+     * Отклонённые ходы по причинам {@link model.UserException.Reason}
+     */
+    Map<String, Long> getRejectedMoves();
+
+    long getActiveSessions();
+
+    /**
+     * Задержка хода, нс: p50, p90, p99, p99.9, max
+     */
+    Map<String, Long> getMoveLatency();
+
+    /**
+     * Время оповещения наблюдателей игры, нс: p50, p90, p99, p99.9, max
+     */
+    Map<String, Long> getListenerLatency();
+
+    /**
+     * Глубина очереди игры при асинхронном оповещении наблюдателей
+     * ({@link model.ListenerExecutor}): p50, p90, p99, p99.9, max
+     */
+    Map<String, Long> getListenerQueueDepth();
+
+    /**
+     * Все метрики текстом
+     */
+    String getDump();
+
+    /**
+     * Обнуление счётчиков и гистограмм (кроме активных сессий)
+     */
+    void reset();
+}
@@ -0,0 +1,146 @@
+package metrics;
+
+import java.util.Arrays;
+
+/**
+ * Гистограмма значений (например, задержек в наносекундах)
+ * с логарифмически-линейными корзинами, как в HdrHistogram:
+ * значения до 64 хранятся точно, дальше каждая степень двойки
+ * делится на 32 корзины (погрешность не больше 1/32).
+ * <p>
+ * Не потокобезопасна: каждый поток ведёт свою гистограмму,
+ * а в конце они объединяются через {@link #add(Histogram)}.
+ */
+public class Histogram {
+    /**
+     * Значения меньше LINEAR хранятся точно
+     */
+    static final int LINEAR = 64;
+    /**
+     * Количество корзин на степень двойки
+     */
+    static final int SUB_BUCKETS = 32;
+    /**
+     * Всего корзин: хватает для любого неотрицательного long
+     */
+    static final int BUCKETS = LINEAR + (63 - 6) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+    private long total;
+    private long max;
+    private long sum;
+
+    /**
+     * Номер корзины для значения
+     */
+    static int bucket(long value) {
+        if (value < LINEAR)
+            return (int) value;
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        int shift = magnitude - 5;
+        return LINEAR + ((magnitude - 6) << 5) + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Наибольшее значение, попадающее в корзину
+     */
+    static long highestValue(int bucket) {
+        if (bucket < LINEAR)
+            return bucket;
+        int i = bucket - LINEAR;
+        int shift = (i >> 5) + 1;
+        long top = (i & (SUB_BUCKETS - 1)) + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * Запись значения. Отрицательные значения считаются нулём
+     */
+    public void record(long value) {
+        if (value < 0)
+            value = 0;
+        counts[bucket(value)]++;
+        total++;
+        sum += value;
+        if (value > max)
+            max = value;
+    }
+
+    /**
+     * Добавление всех значений другой гистограммы
+     */
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++)
+            counts[i] += other.counts[i];
+        total += other.total;
+        sum += other.sum;
+        if (other.max > max)
+            max = other.max;
+    }
+
+    /**
+     * Добавление count значений в корзину (для снимков {@link ConcurrentHistogram})
+     */
+    void addBucket(int bucket, long count) {
+        counts[bucket] += count;
+        total += count;
+    }
+
+    void setTotals(long sum, long max) {
+        this.sum = sum;
+        this.max = max;
+    }
+
+    /**
+     * Очистка гистограммы
+     */
+    public void clear() {
+        Arrays.fill(counts, 0L);
+        total = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Количество записанных значений
+     */
+    public long getCount() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    /**
+     * Перцентиль
+     *
+     * @param percentile от 0 до 100
+     * @return значение, не меньше которого percentile процентов записей
+     * (с точностью корзины), 0 для пустой гистограммы
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (total == 0)
+            return 0;
+        long rank = Math.min(total, Math.max(1, (long) Math.ceil(percentile / 100.0 * total)));
+        int i = 0;
+        long seen = counts[0];
+        while (seen < rank)
+            seen += counts[++i];
+        return Math.min(highestValue(i), max);
+    }
+
+    /**
+     * Краткая сводка: p50, p90, p99, p99.9, max
+     */
+    @Override
+    public String toString() {
+        return String.format("p50=%d p90=%d p99=%d p99.9=%d max=%d",
+                getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getValueAtPercentile(99.9), max);
+    }
+}
@@ -0,0 +1,32 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: поиск хода ботом завершён.
+ * Длительность события - время поиска.
+ */
+@Name("tictactoe.Search")
+@Label("Search Completed")
+@Category({"TicTacToe", "AI"})
+@Description("Поиск хода завершён")
+public class SearchEvent extends Event {
+    @Label("Searcher")
+    public String searcher;
+
+    @Label("Nodes")
+    @Description("Количество просмотренных позиций")
+    public long nodes;
+
+    @Label("Depth")
+    @Description("Глубина последней завершённой итерации")
+    public int depth;
+
+    @Label("TT Hit Rate")
+    @Description("Доля попаданий в таблицу транспозиций, от 0 до 1")
+    public double ttHitRate;
+}
@@ -0,0 +1,245 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Пакет позиций одного размера для массовой проверки
+ * выигрыша и ничьей (например, при пересчёте архива партий).
+ * <p>
+ * Позиции хранятся как структура массивов: для каждого игрока
+ * битовые доски (бит y * size + x), слово w доски b лежит
+ * в элементе {@code w * capacity + b}. Проверка идёт по заранее
+ * построенным маскам всех линий длины winLength: внешний цикл
+ * по маскам, внутренний - по доскам подряд по плотным массивам,
+ * без обращения к объектам {@link Game}.
+ * <p>
+ * Vector API в Java 17 есть только как incubator-модуль и требует
+ * --add-modules у всех пользователей, поэтому здесь обычный скалярный
+ * код над long: 64 клетки обрабатываются одной операцией,
+ * а плотный внутренний цикл JIT может векторизовать сам.
+ */
+public class BoardBatch {
+    /**
+     * Состояния позиций в {@link #status}.
+     * Во время проверки X_WINS и O_WINS - битовые отметки линий
+     */
+    private static final byte ONGOING = 0, X_WINS = 1, O_WINS = 2, DRAW = 3;
+
+    public final int size;
+    public final int winLength;
+    private final int capacity;
+    /**
+     * Количество 64-битных слов на доску
+     */
+    private final int words;
+    private final long[] xBits;
+    private final long[] oBits;
+    /**
+     * Маски линий: слово w линии i - в элементе i * words + w
+     */
+    private final long[] lineMasks;
+    private final int lineCount;
+    private final byte[] status;
+    private int count;
+
+    /**
+     * @param size      размер поля
+     * @param winLength количество символов в линии для выигрыша
+     * @param capacity  максимальное количество позиций
+     */
+    public BoardBatch(int size, int winLength, int capacity) {
+        if (winLength < 1 || winLength > size)
+            throw new IllegalArgumentException("Длина линии " + winLength +
+                    " должна быть от 1 до размера поля " + size);
+        this.size = size;
+        this.winLength = winLength;
+        this.capacity = capacity;
+        this.words = (size * size + 63) >>> 6;
+        this.xBits = new long[words * capacity];
+        this.oBits = new long[words * capacity];
+        this.status = new byte[capacity];
+
+        int span = size - winLength + 1;
+        lineCount = 2 * size * span + 2 * span * span;
+        lineMasks = new long[lineCount * words];
+        int line = 0;
+        for (int a = 0; a < size; a++) {
+            for (int b = 0; b < span; b++) {
+                addLine(line++, b, a, 1, 0);  // строка a
+                addLine(line++, a, b, 0, 1);  // столбец a
+            }
+        }
+        for (int y = 0; y < span; y++) {
+            for (int x = 0; x < span; x++) {
+                addLine(line++, x, y, 1, 1);                 // прямая диагональ
+                addLine(line++, size - 1 - x, y, -1, 1);     // обратная диагональ
+            }
+        }
+    }
+
+    private void addLine(int line, int x, int y, int dx, int dy) {
+        for (int i = 0; i < winLength; i++, x += dx, y += dy) {
+            int bit = y * size + x;
+            lineMasks[line * words + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Удаление всех позиций
+     */
+    public void clear() {
+        Arrays.fill(xBits, 0L);
+        Arrays.fill(oBits, 0L);
+        Arrays.fill(status, ONGOING);
+        count = 0;
+    }
+
+    /**
+     * Добавление пустой позиции
+     *
+     * @return номер позиции в пакете
+     * @throws IllegalStateException если пакет заполнен
+     */
+    public int addEmpty() {
+        if (count == capacity)
+            throw new IllegalStateException("Пакет заполнен: " + capacity);
+        return count++;
+    }
+
+    /**
+     * Копирование позиции игры в пакет
+     *
+     * @param game игра того же размера
+     * @return номер позиции в пакете
+     */
+    public int add(Game game) {
+        if (game.size != size)
+            throw new IllegalArgumentException("Размер поля " + game.size + " вместо " + size);
+        int board = addEmpty();
+        for (int i = 0; i < size * size; i++) {
+            int code = game.codeAt(i);
+            if (code != Game.EMPTY_CODE)
+                set(board, i, code == 1 ? Cell.X : Cell.O);
+        }
+        return board;
+    }
+
+    /**
+     * Запись в клетку позиции
+     *
+     * @param board номер позиции
+     * @param x     координата по горизонтали
+     * @param y     координата по вертикали
+     * @param cell  новое содержимое
+     */
+    public void set(int board, int x, int y, Cell cell) {
+        set(board, y * size + x, cell);
+    }
+
+    private void set(int board, int bit, Cell cell) {
+        int i = (bit >>> 6) * capacity + board;
+        long mask = 1L << bit;
+        xBits[i] &= ~mask;
+        oBits[i] &= ~mask;
+        if (cell == Cell.X)
+            xBits[i] |= mask;
+        else if (cell == Cell.O)
+            oBits[i] |= mask;
+    }
+
+    /**
+     * Проверка всех позиций пакета.
+     * Сначала для каждой позиции отмечаются линии обоих игроков,
+     * затем отметки превращаются в состояние: если линии есть у обоих
+     * (в настоящей партии так не бывает), выиграл сделавший последний ход
+     */
+    public void evaluate() {
+        Arrays.fill(status, 0, count, ONGOING);
+        if (words == 1)
+            markLinesSingleWord();
+        else
+            markLinesMultiWord();
+        int cells = size * size;
+        for (int b = 0; b < count; b++) {
+            if (status[b] == (X_WINS | O_WINS))
+                status[b] = 2 * xStones(b) > stones(b) ? X_WINS : O_WINS;
+            else if (status[b] == ONGOING && stones(b) == cells)
+                status[b] = DRAW;
+        }
+    }
+
+    /**
+     * Доска помещается в один long (поле до 8x8)
+     */
+    private void markLinesSingleWord() {
+        final long[] xs = xBits, os = oBits;
+        final byte[] st = status;
+        final int n = count;
+        for (int line = 0; line < lineCount; line++) {
+            final long m = lineMasks[line];
+            for (int b = 0; b < n; b++) {
+                st[b] |= (byte) (((xs[b] & m) == m ? X_WINS : 0) | ((os[b] & m) == m ? O_WINS : 0));
+            }
+        }
+    }
+
+    private void markLinesMultiWord() {
+        for (int line = 0; line < lineCount; line++) {
+            int base = line * words;
+            for (int b = 0; b < count; b++) {
+                boolean x = true, o = true;
+                for (int w = 0; w < words; w++) {
+                    long m = lineMasks[base + w];
+                    int i = w * capacity + b;
+                    x &= (xBits[i] & m) == m;
+                    o &= (oBits[i] & m) == m;
+                }
+                status[b] |= (byte) ((x ? X_WINS : 0) | (o ? O_WINS : 0));
+            }
+        }
+    }
+
+    private int stones(int board) {
+        int total = 0;
+        for (int w = 0; w < words; w++) {
+            int i = w * capacity + board;
+            total += Long.bitCount(xBits[i]) + Long.bitCount(oBits[i]);
+        }
+        return total;
+    }
+
+    private int xStones(int board) {
+        int total = 0;
+        for (int w = 0; w < words; w++)
+            total += Long.bitCount(xBits[w * capacity + board]);
+        return total;
+    }
+
+    /**
+     * Состояние позиции после {@link #evaluate()}.
+     * Для неоконченной игры ход определяется по количеству символов
+     *
+     * @param board номер позиции
+     * @return состояние игры
+     */
+    public Game.State getState(int board) {
+        switch (status[board]) {
+            case X_WINS:
+                return Game.State.X_WINS;
+            case O_WINS:
+                return Game.State.O_WINS;
+            case DRAW:
+                return Game.State.DRAW;
+            default:
+                return 2 * xStones(board) > stones(board) ? Game.State.O_MOVE : Game.State.X_MOVE;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package model;
+
+/**
+ * Ячейка поля {@link Game#getField()} - представление поверх
+ * упакованного хранилища игры.
+ * Собственного состояния и списка наблюдателей не имеет.
+ */
+class BoardCellState extends CellState {
+    private final Game game;
+    private final int index;
+
+    BoardCellState(Game game, int index) {
+        super(Cell.EMPTY);
+        this.game = game;
+        this.index = index;
+    }
+
+    @Override
+    public Cell getCell() {
+        return game.cellAt(index);
+    }
+
+    @Override
+    public void setCell(Cell newState) {
+        game.setCellAt(index, newState);
+    }
+
+    @Override
+    public void addListener(CellChangedListener listener) {
+        game.addCellListener(index, listener);
+    }
+}
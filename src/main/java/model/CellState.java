@@ -8,8 +8,10 @@ import java.util.List;
  */
 public class CellState {
     private Cell cell = Cell.EMPTY;
-    private List<CellChangedListener> listeners =
-            new ArrayList<>();
+    /**
+     * Создаётся при добавлении первого наблюдателя
+     */
+    private List<CellChangedListener> listeners;
 
     public CellState(Cell cell) {
         this.cell = cell;
@@ -20,7 +22,7 @@ public class CellState {
     }
 
     public void setCell(Cell newState) {
-        if (this.cell != newState) {
+        if (this.cell != newState && listeners != null) {
             for (CellChangedListener listener : listeners)
                 listener.update(newState);
         }
@@ -28,11 +30,13 @@ public class CellState {
     }
 
     public void addListener(CellChangedListener listener) {
+        if (listeners == null)
+            listeners = new ArrayList<>(1);
         listeners.add(listener);
     }
 
     @Override
     public String toString() {
-        return cell.toString();
+        return getCell().toString();
     }
 }
@@ -1,7 +1,10 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Состояние игры
@@ -13,11 +16,41 @@ public class Game {
     public static final String GAME_TITLE = "Игра Крестики-нолики";
 
     /**
-     * Поле игры
-     * Координаты отсчитываем от
-     * верхнего левого угла
+     * Код пустой клетки в упакованном поле
      */
-    public final CellState[][] field;
+    static final int EMPTY_CODE = 0;
+    /**
+     * Коды клеток в упакованном поле: 2 бита на клетку
+     */
+    private static final Cell[] CELL_BY_CODE = {Cell.EMPTY, Cell.X, Cell.O, null};
+
+    /**
+     * Наблюдатель за работой движка для всех игр процесса
+     */
+    private static volatile GameProbe probe = GameProbe.NONE;
+
+    /**
+     * Поле игры в виде ячеек, создаётся при первом обращении
+     * ({@link #getField()})
+     */
+    private CellState[][] field;
+
+    /**
+     * Упакованное поле: 2 бита на клетку, 32 клетки в long.
+     * Индекс клетки - y * size + x
+     */
+    private final long[] board;
+
+    /**
+     * Количество занятых клеток
+     */
+    private int occupied;
+
+    /**
+     * Наблюдатели за отдельными клетками по индексу клетки.
+     * Создаётся при добавлении первого наблюдателя
+     */
+    private Map<Integer, List<CellChangedListener>> cellListeners;
 
     /**
      * Наблюдатели за состоянием игры
@@ -25,23 +58,49 @@ public class Game {
     public final List<GameUpdateListener> listeners =
             new ArrayList<>();
 
+    /**
+     * Очередь оповещений в другом потоке, null - наблюдатели вызываются сразу
+     */
+    private ListenerExecutor.Queue listenerQueue;
+
+    /**
+     * Игра возвращена в {@link GamePool} и ещё не получена из него снова
+     */
+    boolean released;
+
     /**
      * Размер поля
      */
     public final int size;
+    /**
+     * Количество символов в линии для выигрыша
+     */
+    public final int winLength;
     /**
      * Состояние игры
      */
     public State state = State.X_MOVE;
 
-    public Game(int size) {
+    /**
+     * @param size размер поля
+     * @param winLength количество символов в линии для выигрыша
+     */
+    public Game(int size, int winLength) {
+        if (winLength < 1 || winLength > size)
+            throw new IllegalArgumentException("Длина линии " + winLength +
+                    " должна быть от 1 до размера поля " + size);
         this.size = size;
-        field = new CellState[size][size];
-        for (int y = 0; y < size; y++) {
-            for (int x = 0; x < size; x++) {
-                field[x][y] = new CellState(Cell.EMPTY);
-            }
-        }
+        this.winLength = winLength;
+        board = new long[(size * size + 31) >>> 5];
+    }
+
+    /**
+     * Для выигрыша нужно заполнить линию целиком
+     *
+     * @param size размер поля
+     */
+    public Game(int size) {
+        this(size, size);
     }
 
     public Game() {
@@ -52,6 +111,203 @@ public class Game {
         return size;
     }
 
+    /**
+     * Поле игры (только для совместимости): field[x][y].
+     * Координаты отсчитываем от верхнего левого угла.
+     * Ячейки - представления поверх {@link #board}, собственного
+     * состояния не хранят и создаются при первом обращении:
+     * игрокам, поиску и копиям они не нужны.
+     * Заменяет прежнее публичное поле {@code field}: у поля Java не бывает
+     * ленивой инициализации, а замена его строк или ячеек
+     * ({@code field[0] = ...}) упакованное поле всё равно не меняла бы
+     */
+    public CellState[][] getField() {
+        if (field == null) {
+            CellState[][] cells = new CellState[size][size];
+            for (int y = 0; y < size; y++) {
+                for (int x = 0; x < size; x++) {
+                    cells[x][y] = new BoardCellState(this, index(x, y));
+                }
+            }
+            field = cells;
+        }
+        return field;
+    }
+
+    public int getWinLength() {
+        return winLength;
+    }
+
+    /**
+     * Количество сделанных ходов (занятых клеток)
+     */
+    public int getMoveCount() {
+        return occupied;
+    }
+
+    /**
+     * Чей сейчас ход?
+     *
+     * @return X или O, {@link Cell#EMPTY} если игра окончена
+     */
+    public Cell getCurrentPlayer() {
+        switch (state) {
+            case X_MOVE:
+                return Cell.X;
+            case O_MOVE:
+                return Cell.O;
+            default:
+                return Cell.EMPTY;
+        }
+    }
+
+    /**
+     * Копия позиции без наблюдателей (например, для поиска хода
+     * в другом потоке, пока исходная игра может меняться)
+     */
+    public Game copy() {
+        Game copy = new Game(size, winLength);
+        System.arraycopy(board, 0, copy.board, 0, board.length);
+        copy.occupied = occupied;
+        copy.state = state;
+        return copy;
+    }
+
+    /**
+     * Возврат игры в начальное состояние без выделения памяти.
+     * Наблюдатели сохраняются: наблюдатели непустых клеток
+     * получают {@link Cell#EMPTY}, наблюдатели игры - новое состояние.
+     */
+    public void reset() {
+        if (cellListeners != null) {
+            for (Map.Entry<Integer, List<CellChangedListener>> entry : cellListeners.entrySet())
+                if (codeAt(entry.getKey()) != EMPTY_CODE)
+                    notifyCellListeners(entry.getValue(), Cell.EMPTY);
+        }
+        Arrays.fill(board, 0L);
+        occupied = 0;
+        state = State.X_MOVE;
+        notifyListeners();
+    }
+
+    /**
+     * Удаление всех наблюдателей (игры и клеток)
+     */
+    void clearListeners() {
+        listeners.clear();
+        cellListeners = null;
+        listenerQueue = null;
+    }
+
+    /**
+     * Оповещение наблюдателей игры и клеток в другом потоке.
+     * Наблюдатели получают состояния по порядку ходов, но вызываются
+     * после возврата из хода, поэтому должны брать состояние из
+     * аргумента, а не читать игру, которая уже могла измениться
+     *
+     * @param executor исполнитель оповещений, null - вызывать наблюдателей сразу в ходе
+     */
+    public void setListenerExecutor(ListenerExecutor executor) {
+        listenerQueue = executor == null ? null : executor.queue();
+    }
+
+    /**
+     * Наблюдатель за работой движка (например, метрики) для всех игр процесса
+     *
+     * @param gameProbe наблюдатель, null - не наблюдать
+     */
+    public static void setProbe(GameProbe gameProbe) {
+        probe = gameProbe == null ? GameProbe.NONE : gameProbe;
+    }
+
+    static GameProbe probe() {
+        return probe;
+    }
+
+    /**
+     * Индекс клетки в упакованном поле
+     */
+    private int index(int x, int y) {
+        return y * size + x;
+    }
+
+    private static int code(Cell cell) {
+        switch (cell) {
+            case X:
+                return 1;
+            case O:
+                return 2;
+            default:
+                return EMPTY_CODE;
+        }
+    }
+
+    /**
+     * Код клетки (0 - пусто, 1 - X, 2 - O)
+     */
+    int codeAt(int index) {
+        return (int) (board[index >>> 5] >>> ((index & 31) << 1)) & 3;
+    }
+
+    Cell cellAt(int index) {
+        return CELL_BY_CODE[codeAt(index)];
+    }
+
+    /**
+     * Содержимое клетки
+     *
+     * @param x координата по горизонтали (столбец)
+     * @param y координата по вертикали (строка)
+     * @return символ в клетке
+     */
+    public Cell getCell(int x, int y) {
+        return cellAt(index(x, y));
+    }
+
+    /**
+     * Запись в клетку с оповещением наблюдателей клетки
+     *
+     * @param index индекс клетки
+     * @param newState новое содержимое
+     */
+    void setCellAt(int index, Cell newState) {
+        int oldCode = codeAt(index);
+        int newCode = code(newState);
+        if (oldCode == newCode)
+            return;
+        int shift = (index & 31) << 1;
+        board[index >>> 5] = (board[index >>> 5] & ~(3L << shift)) | ((long) newCode << shift);
+        if (oldCode == EMPTY_CODE)
+            occupied++;
+        else if (newCode == EMPTY_CODE)
+            occupied--;
+        if (cellListeners != null) {
+            List<CellChangedListener> list = cellListeners.get(index);
+            if (list != null)
+                notifyCellListeners(list, newState);
+        }
+    }
+
+    private void notifyCellListeners(List<CellChangedListener> list, Cell newState) {
+        if (listenerQueue == null) {
+            for (CellChangedListener listener : list)
+                listener.update(newState);
+            return;
+        }
+        // Копия: список может измениться до выполнения оповещения
+        CellChangedListener[] targets = list.toArray(new CellChangedListener[0]);
+        listenerQueue.submit(() -> {
+            for (CellChangedListener listener : targets)
+                listener.update(newState);
+        });
+    }
+
+    void addCellListener(int index, CellChangedListener listener) {
+        if (cellListeners == null)
+            cellListeners = new HashMap<>();
+        cellListeners.computeIfAbsent(index, i -> new ArrayList<>(1)).add(listener);
+    }
+
     /**
      * Проверка координаты на допустимость
      *
@@ -61,7 +317,7 @@ public class Game {
      */
     private void validateCoordinate(int coord, String name) throws UserException {
         if (coord < 0 || coord >= size) {
-            throw new UserException(name + " за пределами поля");
+            throw new UserException(UserException.Reason.OUT_OF_BOUNDS, name + " за пределами поля");
         }
     }
 
@@ -75,9 +331,9 @@ public class Game {
      * @throws UserException если ячейка занята
      */
     private void performMove(int x, int y, Cell player, State nextState) throws UserException {
-        field[x][y].setCell(player);
+        setCellAt(index(x, y), player);
         state = nextState;
-        updateGameState(player);
+        updateGameState(player, x, y);
         notifyListeners();
     }
 
@@ -88,11 +344,32 @@ public class Game {
      * @param y координата по вертикали (строка)
      */
     public void move(int x, int y) throws UserException {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            doMove(x, y);
+        } catch (UserException e) {
+            probe.moveRejected(e.getReason());
+            throw e;
+        }
+        probe.moveCompleted(state, System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.size = size;
+            event.ply = occupied;
+            event.state = state.name();
+            event.commit();
+        }
+    }
+
+    private void doMove(int x, int y) throws UserException {
         validateCoordinate(x, "x");
         validateCoordinate(y, "y");
 
-        if (field[x][y].getCell() != Cell.EMPTY) {
-            throw new UserException("Ячейка занята x = " + x + " y = " + y);
+        if (codeAt(index(x, y)) != EMPTY_CODE) {
+            throw new UserException(UserException.Reason.CELL_OCCUPIED,
+                    "Ячейка занята x = " + x + " y = " + y);
         }
 
         switch (state) {
@@ -103,29 +380,109 @@ public class Game {
                 performMove(x, y, Cell.O, State.X_MOVE);
                 break;
             default:
-                throw new UserException("Ход невозможен!");
+                throw new UserException(UserException.Reason.GAME_OVER, "Ход невозможен!");
         }
     }
 
     private void notifyListeners() {
-        for (GameUpdateListener listener : listeners)
-            listener.update(state);
+        if (listeners.isEmpty())
+            return;
+        if (listenerQueue == null) {
+            deliver(listeners, state);
+            return;
+        }
+        List<GameUpdateListener> targets = List.of(listeners.toArray(new GameUpdateListener[0]));
+        State current = state;
+        listenerQueue.submit(() -> deliver(targets, current));
+    }
+
+    private void deliver(List<GameUpdateListener> targets, State current) {
+        ListenerDispatchEvent event = new ListenerDispatchEvent();
+        event.begin();
+        long start = System.nanoTime();
+        for (GameUpdateListener listener : targets)
+            listener.update(current);
+        probe.listenersNotified(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.size = size;
+            event.listeners = targets.size();
+            event.commit();
+        }
     }
 
     /**
-     * Проверка линии на заполненность одним символом
+     * Поиск winLength символов подряд на линии
      *
-     * @param lastMove символ для проверки
-     * @param coordinates массив координат для проверки
-     * @return true если вся линия заполнена lastMove
-     */
-    private boolean checkLine(Cell lastMove, int[][] coordinates) {
-        for (int[] coord : coordinates) {
-            if (field[coord[0]][coord[1]].getCell() != lastMove) {
-                return false;
+     * @param code код символа для проверки
+     * @param x начало линии по горизонтали
+     * @param y начало линии по вертикали
+     * @param dx шаг по горизонтали
+     * @param dy шаг по вертикали
+     * @return true если на линии есть winLength символов подряд
+     */
+    private boolean checkLine(int code, int x, int y, int dx, int dy) {
+        int run = 0;
+        for (; x >= 0 && x < size && y < size; x += dx, y += dy) {
+            if (codeAt(index(x, y)) != code) {
+                run = 0;
+            } else if (++run == winLength) {
+                return true;
             }
         }
-        return true;
+        return false;
+    }
+
+    /**
+     * Количество символов подряд от клетки в одном направлении
+     * (саму клетку не считаем)
+     */
+    private int countRun(int code, int x, int y, int dx, int dy) {
+        int count = 0;
+        for (x += dx, y += dy; x >= 0 && x < size && y >= 0 && y < size
+                && codeAt(index(x, y)) == code; x += dx, y += dy)
+            count++;
+        return count;
+    }
+
+    /**
+     * Проверка линии через клетку в обе стороны
+     */
+    private boolean checkLineThrough(int code, int x, int y, int dx, int dy) {
+        return 1 + countRun(code, x, y, dx, dy) + countRun(code, x, y, -dx, -dy) >= winLength;
+    }
+
+    /**
+     * Выиграет ли игрок, поставив символ в пустую клетку (x, y)?
+     * Поле не изменяется.
+     *
+     * @param x координата по горизонтали
+     * @param y координата по вертикали
+     * @param player символ игрока
+     * @return true если ход образует линию из winLength символов
+     */
+    public boolean isWinningMove(int x, int y, Cell player) {
+        int code = code(player);
+        return checkLineThrough(code, x, y, 1, 0) ||
+                checkLineThrough(code, x, y, 0, 1) ||
+                checkLineThrough(code, x, y, 1, 1) ||
+                checkLineThrough(code, x, y, 1, -1);
+    }
+
+    /**
+     * Проверка на окончание игры после хода в клетку (x, y):
+     * проверяем только линии, проходящие через эту клетку
+     *
+     * @param lastMove чей был последний ход?
+     * @param x координата последнего хода по горизонтали
+     * @param y координата последнего хода по вертикали
+     */
+    private void updateGameState(Cell lastMove, int x, int y) {
+        if (isWinningMove(x, y, lastMove)) {
+            win(lastMove);
+        } else if (isBoardFull()) {
+            state = State.DRAW;
+        }
     }
 
     /**
@@ -134,14 +491,11 @@ public class Game {
      * @param lastMove чей был последний ход?
      */
     public void updateGameState(Cell lastMove) {
+        int code = code(lastMove);
         // Проверяем на выйгрыш
         // Горизонтальные строки
         for (int y = 0; y < size; y++) {
-            int[][] horizontalLine = new int[size][2];
-            for (int x = 0; x < size; x++) {
-                horizontalLine[x] = new int[]{x, y};
-            }
-            if (checkLine(lastMove, horizontalLine)) {
+            if (checkLine(code, 0, y, 1, 0)) {
                 win(lastMove);
                 return;
             }
@@ -149,34 +503,20 @@ public class Game {
 
         // Вертикальные строки
         for (int x = 0; x < size; x++) {
-            int[][] verticalLine = new int[size][2];
-            for (int y = 0; y < size; y++) {
-                verticalLine[y] = new int[]{x, y};
-            }
-            if (checkLine(lastMove, verticalLine)) {
+            if (checkLine(code, x, 0, 0, 1)) {
                 win(lastMove);
                 return;
             }
         }
 
-        // Прямая диагональ
-        int[][] mainDiagonal = new int[size][2];
-        for (int i = 0; i < size; i++) {
-            mainDiagonal[i] = new int[]{i, i};
-        }
-        if (checkLine(lastMove, mainDiagonal)) {
-            win(lastMove);
-            return;
-        }
-
-        // Обратная диагональ
-        int[][] antiDiagonal = new int[size][2];
+        // Прямые диагонали: начинаются в верхней строке и в левом столбце
+        // Обратные диагонали: начинаются в верхней строке и в правом столбце
         for (int i = 0; i < size; i++) {
-            antiDiagonal[i] = new int[]{i, size - i - 1};
-        }
-        if (checkLine(lastMove, antiDiagonal)) {
-            win(lastMove);
-            return;
+            if (checkLine(code, i, 0, 1, 1) || checkLine(code, 0, i, 1, 1) ||
+                    checkLine(code, i, 0, -1, 1) || checkLine(code, size - 1, i, -1, 1)) {
+                win(lastMove);
+                return;
+            }
         }
 
         // Проверка на ничью
@@ -191,14 +531,7 @@ public class Game {
      * @return true если нет пустых ячеек
      */
     private boolean isBoardFull() {
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                if (field[x][y].getCell() == Cell.EMPTY) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return occupied == size * size;
     }
 
     /**
@@ -239,7 +572,7 @@ public class Game {
         StringBuilder sb = new StringBuilder();
         for (int y = 0; y < size; y++) {
             for (int x = 0; x < size; x++) {
-                sb.append(field[x][y]);
+                sb.append(getCell(x, y));
             }
             sb.append("\n");
         }
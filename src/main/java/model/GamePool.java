@@ -0,0 +1,100 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пул игр для многократного использования.
+ * У каждого потока свой набор игр, поэтому синхронизация не нужна.
+ * Игры группируются по (размер поля, длина линии),
+ * в каждой группе хранится не больше capacity игр.
+ */
+public class GamePool {
+    /**
+     * Свободные игры одной конфигурации
+     */
+    private static final class Bucket {
+        final int size, winLength;
+        final Game[] games;
+        int count;
+
+        Bucket(int size, int winLength, int capacity) {
+            this.size = size;
+            this.winLength = winLength;
+            this.games = new Game[capacity];
+        }
+    }
+
+    private final int capacity;
+
+    /**
+     * Групп обычно единицы, поэтому линейный поиск по списку
+     * дешевле и не требует упаковки ключа
+     */
+    private final ThreadLocal<List<Bucket>> buckets =
+            ThreadLocal.withInitial(ArrayList::new);
+
+    /**
+     * @param capacity максимальное число свободных игр одной конфигурации в потоке
+     */
+    public GamePool(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Ёмкость пула должна быть положительной: " + capacity);
+        this.capacity = capacity;
+    }
+
+    private Bucket bucket(int size, int winLength) {
+        List<Bucket> list = buckets.get();
+        for (int i = 0; i < list.size(); i++) {
+            Bucket bucket = list.get(i);
+            if (bucket.size == size && bucket.winLength == winLength)
+                return bucket;
+        }
+        Bucket bucket = new Bucket(size, winLength, capacity);
+        list.add(bucket);
+        return bucket;
+    }
+
+    /**
+     * Получение игры в начальном состоянии
+     *
+     * @param size размер поля
+     * @param winLength количество символов в линии для выигрыша
+     * @return игра из пула или новая игра, если пул пуст
+     */
+    public Game acquire(int size, int winLength) {
+        Bucket bucket = bucket(size, winLength);
+        if (bucket.count == 0)
+            return new Game(size, winLength);
+        Game game = bucket.games[--bucket.count];
+        bucket.games[bucket.count] = null;
+        game.released = false;
+        return game;
+    }
+
+    /**
+     * Возврат игры в пул. Наблюдатели игры удаляются,
+     * поле очищается. Если пул заполнен, игра отбрасывается.
+     *
+     * @param game игра, которая больше не используется
+     * @throws IllegalStateException игра уже возвращена и не получена снова
+     */
+    public void release(Game game) {
+        // Повторный возврат положил бы игру в пул дважды и выдал двум владельцам
+        if (game.released)
+            throw new IllegalStateException("Игра уже возвращена в пул");
+        game.released = true;
+        game.clearListeners();
+        game.reset();
+        Bucket bucket = bucket(game.size, game.winLength);
+        if (bucket.count < capacity)
+            bucket.games[bucket.count++] = game;
+    }
+
+    /**
+     * Количество свободных игр данной конфигурации в текущем потоке
+     */
+    public int available(int size, int winLength) {
+        return bucket(size, winLength).count;
+    }
+}
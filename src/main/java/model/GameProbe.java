@@ -0,0 +1,44 @@
+package model;
+
+/**
+ * Наблюдатель за работой движка (метрики, профилирование).
+ * Модель только сообщает о ходах и оповещениях, а кто их учитывает,
+ * решает приложение: {@link Game#setProbe} действует на все игры процесса.
+ * Методы вызываются в потоке хода и не должны блокироваться.
+ */
+public interface GameProbe {
+    /**
+     * Наблюдатель, который ничего не делает
+     */
+    GameProbe NONE = new GameProbe() {
+    };
+
+    /**
+     * Ход выполнен
+     *
+     * @param state        состояние игры после хода
+     * @param elapsedNanos время обработки хода
+     */
+    default void moveCompleted(Game.State state, long elapsedNanos) {
+    }
+
+    /**
+     * Ход отклонён
+     */
+    default void moveRejected(UserException.Reason reason) {
+    }
+
+    /**
+     * Наблюдатели игры оповещены
+     */
+    default void listenersNotified(long elapsedNanos) {
+    }
+
+    /**
+     * Оповещение поставлено в очередь игры
+     *
+     * @param depth сколько оповещений этой игры уже ждали в очереди
+     */
+    default void listenerQueued(int depth) {
+    }
+}
@@ -0,0 +1,27 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Событие JFR: медленное оповещение наблюдателей игры.
+ * Записывается только если оповещение заняло больше порога
+ * (по умолчанию 1 мс, настраивается в конфигурации записи).
+ */
+@Name("tictactoe.ListenerDispatch")
+@Label("Slow Listener Dispatch")
+@Category({"TicTacToe", "Model"})
+@Description("Оповещение наблюдателей игры дольше порога")
+@Threshold("1 ms")
+public class ListenerDispatchEvent extends Event {
+    @Label("Board Size")
+    public int size;
+
+    @Label("Listeners")
+    @Description("Количество наблюдателей")
+    public int listeners;
+}
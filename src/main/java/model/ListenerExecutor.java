@@ -0,0 +1,126 @@
+package model;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Оповещение наблюдателей игр в другом потоке
+ * (см. {@link Game#setListenerExecutor}): ход только ставит оповещение
+ * в очередь игры, наблюдатели вызываются на executor.
+ * <p>
+ * У каждой игры своя очередь, оповещения одной игры выполняются
+ * строго по порядку и никогда одновременно, разные игры - параллельно.
+ * Если наблюдатели отстают, одна задача executor выполняет подряд
+ * до {@link #MAX_BATCH} накопившихся оповещений, а не по задаче
+ * на оповещение. Глубина очереди при каждом оповещении сообщается
+ * наблюдателю движка ({@link Game#setProbe}).
+ */
+public class ListenerExecutor {
+    /**
+     * Сколько оповещений выполняет одна задача, прежде чем уступить
+     * поток другим играм
+     */
+    public static final int MAX_BATCH = 64;
+
+    private final Executor executor;
+    private final LongAdder pending = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public ListenerExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Новая очередь для одной игры
+     */
+    Queue queue() {
+        return new Queue();
+    }
+
+    /**
+     * Оповещения, ещё не выполненные во всех очередях
+     */
+    public long getPending() {
+        return pending.sum();
+    }
+
+    /**
+     * Выполненные оповещения во всех очередях
+     */
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    /**
+     * Количество задач executor; меньше {@link #getDelivered()},
+     * когда оповещения выполнялись пачками
+     */
+    public long getBatches() {
+        return batches.sum();
+    }
+
+    /**
+     * Последовательная очередь оповещений одной игры
+     */
+    final class Queue implements Runnable {
+        private final ConcurrentLinkedQueue<Runnable> events = new ConcurrentLinkedQueue<>();
+        /**
+         * Невыполненные оповещения; задача запущена, пока больше нуля
+         */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /**
+         * @throws RejectedExecutionException executor не принял задачу;
+         *                                    оповещение отменено, следующее снова запустит задачу
+         */
+        void submit(Runnable event) {
+            events.add(event);
+            pending.increment();
+            int depth = size.getAndIncrement();
+            Game.probe().listenerQueued(depth);
+            if (depth == 0) {
+                try {
+                    executor.execute(this);
+                } catch (RejectedExecutionException e) {
+                    // Иначе size не вернётся к нулю и задача больше не запустится.
+                    // Задачи нет, поэтому очередь не читает никто, кроме нас
+                    events.remove(event);
+                    pending.decrement();
+                    size.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            batches.increment();
+            boolean more = true;
+            try {
+                for (int count = 1; more && count <= MAX_BATCH; count++) {
+                    Runnable event = events.poll();
+                    try {
+                        event.run();
+                    } catch (Throwable e) {
+                        // Ошибка наблюдателя не должна останавливать очередь
+                        Thread thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                    } finally {
+                        pending.decrement();
+                        delivered.increment();
+                        more = size.decrementAndGet() != 0;
+                    }
+                }
+            } finally {
+                // Остальное - в следующей задаче, даже если обработчик ошибки
+                // сам выбросил исключение
+                if (more)
+                    executor.execute(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package model;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Событие JFR: ход выполнен. Длительность события - время
+ * обработки хода вместе с оповещением наблюдателей.
+ * Когда запись JFR не идёт, {@link #shouldCommit()} возвращает false
+ * и событие ничего не стоит.
+ */
+@Name("tictactoe.Move")
+@Label("Move Applied")
+@Category({"TicTacToe", "Model"})
+@Description("Ход выполнен")
+public class MoveEvent extends Event {
+    @Label("Board Size")
+    public int size;
+
+    @Label("Ply")
+    @Description("Номер хода в партии")
+    public int ply;
+
+    @Label("State")
+    @Description("Состояние игры после хода")
+    public String state;
+}
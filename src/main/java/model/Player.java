@@ -0,0 +1,30 @@
+package model;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Игрок (человек или AI).
+ * Ход запрашивается асинхронно, поэтому контроллер одинаково
+ * ждёт консоль, окно, удалённого игрока и бота и может
+ * ограничить время ожидания.
+ */
+public interface Player {
+    /**
+     * Запрос хода для текущего игрока.
+     * Игру нельзя изменять; если ход нужно искать в другом потоке,
+     * следует работать с {@link Game#copy()}.
+     *
+     * @param game          текущая игра
+     * @param deadlineNanos момент по {@link System#nanoTime()}, после которого
+     *                      ход уже не будет принят
+     * @return будущий ход; null в результате - игрок отказался ходить
+     * (например, закончился ввод). Контроллер может отменить его по таймауту
+     */
+    CompletableFuture<Move> requestMove(Game game, long deadlineNanos);
+
+    /**
+     * Ход отклонён, следующий запрос будет для того же игрока
+     */
+    default void reportError(UserException e) {
+    }
+}
@@ -5,7 +5,25 @@ package model;
  */
 public class UserException extends Exception {
 
+    /**
+     * Причина отказа (для статистики)
+     */
+    public enum Reason {
+        OUT_OF_BOUNDS, CELL_OCCUPIED, GAME_OVER, OTHER
+    }
+
+    private final Reason reason;
+
     public UserException(String message) {
+        this(Reason.OTHER, message);
+    }
+
+    public UserException(Reason reason, String message) {
         super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
     }
 }
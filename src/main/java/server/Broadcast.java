@@ -0,0 +1,301 @@
+package server;
+
+import model.Cell;
+import model.Game;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Трансляция одной игры зрителям.
+ * <p>
+ * Каждый ход кодируется один раз (строка JSON в UTF-8) и кладётся в общее
+ * кольцо из capacity кадров; зрители читают кольцо каждый своим курсором,
+ * так что очередь зрителя ограничена capacity кадрами, а ход стоит
+ * O(1) при любом количестве зрителей: игрок не перебирает зрителей
+ * и не будит их сам - это делает отдельный поток.
+ * <p>
+ * Зритель, отставший больше чем на capacity ходов, пропускает их и получает
+ * снимок поля (кадр {@code "board"}), после которого ходы идут снова.
+ * Снимок кодируется раз в capacity / 2 ходов, поэтому ходы после
+ * него ещё есть в кольце. Новый зритель тоже начинает со снимка.
+ * <p>
+ * Ходы узнаются через наблюдателей игры, поэтому трансляция создаётся
+ * в потоке, который ходит в игре, или до первого хода.
+ * С {@link Game#setListenerExecutor} кодирование уходит из хода в поток оповещений.
+ */
+public class Broadcast {
+    /**
+     * Поток, будящий ждущих зрителей, общий для всех трансляций
+     */
+    private static final ExecutorService WAKER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "broadcast-wakeup");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Закодированный кадр
+     */
+    static final class Frame {
+        final long seq;
+        final byte[] bytes;
+
+        Frame(long seq, byte[] bytes) {
+            this.seq = seq;
+            this.bytes = bytes;
+        }
+    }
+
+    private final Game game;
+    /**
+     * Поле по оповещениям клеток: при оповещении в другом потоке
+     * ({@link model.ListenerExecutor}) игра может уже уйти вперёд
+     */
+    private final Cell[] board;
+    private Game.State state;
+    private final int mask;
+    private final int snapshotInterval;
+    private final AtomicReferenceArray<Frame> frames;
+    /**
+     * Номер последнего кадра в кольце
+     */
+    private volatile long published;
+    private volatile Frame snapshot;
+
+    /**
+     * Клетки, изменённые в текущем ходе (до оповещения о состоянии игры)
+     */
+    private int pendingIndex = -1;
+    private Cell pendingCell;
+    private boolean pendingSnapshot;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition arrived = lock.newCondition();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private final AtomicInteger spectators = new AtomicInteger();
+
+    /**
+     * @param capacity сколько последних кадров хранится (степень двойки, не меньше 2)
+     */
+    public Broadcast(Game game, int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Ёмкость должна быть степенью двойки не меньше 2: " + capacity);
+        this.game = game;
+        this.mask = capacity - 1;
+        this.snapshotInterval = capacity / 2;
+        this.frames = new AtomicReferenceArray<>(capacity);
+        this.board = new Cell[game.size * game.size];
+        for (int index = 0; index < board.length; index++)
+            board[index] = game.getCell(index % game.size, index / game.size);
+        this.state = game.getState();
+        this.snapshot = new Frame(0, encodeBoard(0));
+        for (int y = 0; y < game.size; y++) {
+            for (int x = 0; x < game.size; x++) {
+                int index = y * game.size + x;
+                game.getField()[x][y].addListener(cell -> cellChanged(index, cell));
+            }
+        }
+        game.listeners.add(this::publish);
+    }
+
+    private void cellChanged(int index, Cell cell) {
+        // Ход меняет одну клетку, сброс игры - несколько
+        if (pendingIndex >= 0 || cell == Cell.EMPTY)
+            pendingSnapshot = true;
+        board[index] = cell;
+        pendingIndex = index;
+        pendingCell = cell;
+    }
+
+    /**
+     * Кадр текущего хода (или снимок после сброса) - в кольцо
+     */
+    private void publish(Game.State newState) {
+        state = newState;
+        long seq = published + 1;
+        Frame frame;
+        if (pendingSnapshot || pendingIndex < 0) {
+            frame = new Frame(seq, encodeBoard(seq));
+            snapshot = frame;
+        } else {
+            frame = new Frame(seq, encodeMove(seq, pendingIndex, pendingCell));
+        }
+        pendingIndex = -1;
+        pendingSnapshot = false;
+        // Снимок раньше номера: отставший зритель всегда находит снимок не старше кольца
+        if (seq % snapshotInterval == 0 && snapshot.seq != seq)
+            snapshot = new Frame(seq, encodeBoard(seq));
+        frames.set((int) (seq & mask), frame);
+        published = seq;
+        if (waiting.get() > 0 && wakeScheduled.compareAndSet(false, true))
+            WAKER.execute(this::wakeUp);
+    }
+
+    private void wakeUp() {
+        wakeScheduled.set(false);
+        lock.lock();
+        try {
+            arrived.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] encodeMove(long seq, int index, Cell cell) {
+        return new Json(80).begin()
+                .field("seq", seq)
+                .field("x", index % game.size)
+                .field("y", index / game.size)
+                .field("cell", cell.name())
+                .field("state", state.name())
+                .end().newline().toBytes();
+    }
+
+    /**
+     * Снимок: строки поля через '/', пустая клетка - '.'
+     */
+    private byte[] encodeBoard(long seq) {
+        char[] text = new char[game.size * (game.size + 1) - 1];
+        for (int y = 0, i = 0; y < game.size; y++) {
+            if (y > 0)
+                text[i++] = '/';
+            for (int x = 0; x < game.size; x++) {
+                Cell cell = board[y * game.size + x];
+                text[i++] = cell == Cell.EMPTY ? '.' : cell.name().charAt(0);
+            }
+        }
+        return new Json(96 + text.length).begin()
+                .field("seq", seq)
+                .field("size", game.size)
+                .field("win", game.winLength)
+                .field("board", new String(text))
+                .field("state", state.name())
+                .end().newline().toBytes();
+    }
+
+    /**
+     * Новый зритель; первым кадром получит снимок поля
+     */
+    public Spectator subscribe() {
+        return subscribe(-1);
+    }
+
+    /**
+     * Зритель, уже получивший кадры до after включительно
+     * (например, клиент, переспрашивающий о следующем ходе)
+     *
+     * @param after номер последнего известного кадра, -1 - начать со снимка
+     */
+    public Spectator subscribe(long after) {
+        spectators.incrementAndGet();
+        Spectator spectator = new Spectator();
+        spectator.cursor = Math.min(after, published);
+        return spectator;
+    }
+
+    /**
+     * Количество кадров с начала трансляции
+     */
+    public long getPublished() {
+        return published;
+    }
+
+    /**
+     * Количество открытых зрителей
+     */
+    public int getSpectators() {
+        return spectators.get();
+    }
+
+    /**
+     * Зритель трансляции. Читается из одного потока
+     */
+    public class Spectator implements AutoCloseable {
+        /**
+         * Номер последнего полученного кадра, -1 - нужен снимок
+         */
+        private long cursor = -1;
+        private long dropped;
+        private boolean closed;
+
+        /**
+         * Следующий кадр: строка JSON с переводом строки в UTF-8.
+         * Массив общий для всех зрителей и не должен изменяться
+         *
+         * @return кадр или null, если за timeout кадров не было
+         */
+        public byte[] poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (true) {
+                byte[] frame = next();
+                if (frame != null)
+                    return frame;
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0)
+                    return null;
+                waiting.incrementAndGet();
+                lock.lock();
+                try {
+                    while (published <= cursor && nanos > 0)
+                        nanos = arrived.awaitNanos(nanos);
+                } finally {
+                    lock.unlock();
+                    waiting.decrementAndGet();
+                }
+            }
+        }
+
+        /**
+         * Кадр без ожидания или null
+         */
+        public byte[] next() {
+            if (cursor < 0)
+                return fromSnapshot();
+            long seq = cursor + 1;
+            if (seq > published)
+                return null;
+            Frame frame = frames.get((int) (seq & mask));
+            if (frame == null || frame.seq != seq)
+                return fromSnapshot();
+            cursor = seq;
+            return frame.bytes;
+        }
+
+        /**
+         * Отставание: пропуск до последнего снимка.
+         * Снимок всегда новее курсора: новому зрителю подходит любой,
+         * а кадр в кольце затирается только после следующего снимка
+         * (снимок записывается раньше кадра)
+         */
+        private byte[] fromSnapshot() {
+            Frame frame = snapshot;
+            if (cursor >= 0)
+                dropped += frame.seq - cursor - 1;
+            cursor = frame.seq;
+            return frame.bytes;
+        }
+
+        /**
+         * Количество ходов, пропущенных из-за отставания
+         */
+        public long getDropped() {
+            return dropped;
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                spectators.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package server;
+
+import metrics.EngineMetrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Игры сервера по номерам, без привязки к протоколу:
+ * {@link HttpApi} и генератор нагрузки работают через него.
+ * Открытые игры учитываются в {@link EngineMetrics#getActiveSessions()}.
+ */
+public class GameServer {
+    /**
+     * Наибольший размер поля, который можно создать через сервер
+     */
+    public static final int MAX_SIZE = 64;
+
+    private final ConcurrentHashMap<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    /**
+     * Новая игра
+     *
+     * @throws IllegalArgumentException недопустимые размеры
+     */
+    public Session create(int size, int winLength) {
+        if (size < 1 || size > MAX_SIZE)
+            throw new IllegalArgumentException("Размер поля должен быть от 1 до " + MAX_SIZE + ": " + size);
+        Session session = new Session(ids.incrementAndGet(), size, winLength);
+        sessions.put(session.getId(), session);
+        EngineMetrics.GLOBAL.sessionOpened();
+        return session;
+    }
+
+    /**
+     * @return игра или null, если её нет
+     */
+    public Session get(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Удаление игры
+     *
+     * @return false, если игры не было
+     */
+    public boolean remove(long id) {
+        if (sessions.remove(id) == null)
+            return false;
+        EngineMetrics.GLOBAL.sessionClosed();
+        return true;
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+}
@@ -0,0 +1,221 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import model.UserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP API игр сервера на встроенном в JDK {@link HttpServer}, ответы - JSON:
+ * <ul>
+ * <li>{@code POST /games} с телом {@code {"size":3,"win":3}} - новая игра (201);</li>
+ * <li>{@code GET /games/{id}} - состояние игры ({@link Session#state()});</li>
+ * <li>{@code POST /games/{id}/moves} с телом {@code {"x":1,"y":2}} - ход,
+ * ответ - состояние после хода; недопустимый ход - 409 (клетка занята,
+ * игра окончена) или 400 (за пределами поля);</li>
+ * <li>{@code GET /games/{id}/moves?after=seq&timeout=мс} - ожидание хода после
+ * кадра seq (long polling): кадр трансляции ({@link Broadcast}) или 204;</li>
+ * <li>{@code DELETE /games/{id}} - удаление игры (204).</li>
+ * </ul>
+ * Ошибки - {@code {"error":"причина","message":"текст"}}.
+ * Запросы обрабатываются виртуальными потоками, если они есть в JDK,
+ * иначе - пулом потоков без ограничения: ожидающие хода запросы
+ * занимают поток, поэтому ограниченный пул не подходит.
+ */
+public class HttpApi {
+    /**
+     * Наибольшее время ожидания хода, мс
+     */
+    static final long MAX_POLL_MILLIS = 60_000;
+    private static final int MAX_BODY = 4096;
+
+    static {
+        // Без TCP_NODELAY заголовки и тело ответа уходят разными пакетами,
+        // и задержка подтверждения TCP добавляет к ответу около 40 мс.
+        // Читается при первом создании HttpServer в процессе
+        if (System.getProperty("sun.net.httpserver.nodelay") == null)
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final GameServer games;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * @param address адрес; порт 0 - любой свободный
+     */
+    public HttpApi(GameServer games, InetSocketAddress address) throws IOException {
+        this.games = games;
+        this.server = HttpServer.create(address, 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/games", this::handle);
+    }
+
+    /**
+     * Виртуальные потоки (Java 21+) или пул потоков-демонов
+     */
+    static ExecutorService newExecutor() {
+        return newExecutor("newVirtualThreadPerTaskExecutor");
+    }
+
+    /**
+     * Исполнитель из фабричного метода {@link Executors} без параметров
+     * или пул потоков-демонов, если такого метода нет
+     */
+    static ExecutorService newExecutor(String factory) {
+        try {
+            return (ExecutorService) Executors.class.getMethod(factory).invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "http-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Остановка: ожидающие хода запросы прерываются и получают 503
+     */
+    public void stop() {
+        executor.shutdownNow();
+        try {
+            // Прерванные запросы успевают ответить до закрытия соединений
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server.stop(0);
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            route(exchange);
+        } catch (UserException e) {
+            error(exchange, e.getReason() == UserException.Reason.OUT_OF_BOUNDS ? 400 : 409,
+                    e.getReason().name(), e.getMessage());
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, "BAD_REQUEST", String.valueOf(e.getMessage()));
+        } catch (InterruptedException e) {
+            // Ответ до восстановления прерывания: запись в прерванном потоке закрывает канал
+            error(exchange, 503, "SHUTDOWN", "Сервер остановлен");
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException, UserException, InterruptedException {
+        String[] path = exchange.getRequestURI().getPath().split("/");
+        String method = exchange.getRequestMethod();
+        // path: "", "games", id, "moves"
+        if (path.length < 2 || !path[1].equals("games")) {
+            error(exchange, 404, "NOT_FOUND", exchange.getRequestURI().getPath());
+            return;
+        }
+        if (path.length == 2) {
+            if (!method.equals("POST")) {
+                error(exchange, 405, "METHOD_NOT_ALLOWED", method + " /games");
+                return;
+            }
+            String body = body(exchange);
+            int size = Json.intNumber(body, "size", 3);
+            Session session = games.create(size, Json.intNumber(body, "win", size));
+            send(exchange, 201, session.state());
+            return;
+        }
+        Session session = path.length >= 3 ? games.get(parseId(path[2])) : null;
+        if (session == null) {
+            error(exchange, 404, "NOT_FOUND", "Игра не найдена");
+        } else if (path.length == 3 && method.equals("GET")) {
+            send(exchange, 200, session.state());
+        } else if (path.length == 3 && method.equals("DELETE")) {
+            games.remove(session.getId());
+            send(exchange, 204, null);
+        } else if (path.length == 4 && path[3].equals("moves") && method.equals("POST")) {
+            String body = body(exchange);
+            send(exchange, 200, session.move(Json.intNumber(body, "x", -1),
+                    Json.intNumber(body, "y", -1)));
+        } else if (path.length == 4 && path[3].equals("moves") && method.equals("GET")) {
+            String query = exchange.getRequestURI().getRawQuery();
+            long timeout = Math.min(MAX_POLL_MILLIS, query(query, "timeout", 30_000));
+            byte[] frame = session.awaitMove(query(query, "after", -1), timeout, TimeUnit.MILLISECONDS);
+            send(exchange, frame == null ? 204 : 200, frame);
+        } else {
+            error(exchange, 405, "METHOD_NOT_ALLOWED", method + " " + exchange.getRequestURI().getPath());
+        }
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Числовой параметр строки запроса
+     */
+    private static long query(String query, String name, long missing) {
+        if (query == null)
+            return missing;
+        for (String pair : query.split("&")) {
+            if (pair.startsWith(name + "=")) {
+                try {
+                    return Long.parseLong(pair.substring(name.length() + 1));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Параметр " + name + " должен быть целым числом", e);
+                }
+            }
+        }
+        return missing;
+    }
+
+    private static String body(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] bytes = in.readNBytes(MAX_BODY + 1);
+            if (bytes.length > MAX_BODY)
+                throw new IllegalArgumentException("Тело запроса больше " + MAX_BODY + " байт");
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static void error(HttpExchange exchange, int status, String reason, String message) throws IOException {
+        send(exchange, status, new Json(64 + message.length() * 3).begin()
+                .field("error", reason)
+                .field("message", message)
+                .end().toBytes());
+    }
+}
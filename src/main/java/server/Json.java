@@ -0,0 +1,210 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * Запись и чтение простого JSON без библиотек.
+ * Запись идёт сразу в байты UTF-8 и заканчивается одним массивом
+ * точного размера; чтение понимает только плоские объекты с числами,
+ * которых достаточно для запросов API.
+ */
+final class Json {
+    private byte[] bytes;
+    private int length;
+    /**
+     * Нужна ли запятая перед следующим полем
+     */
+    private boolean comma;
+
+    Json(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + extra));
+    }
+
+    private Json ascii(char c) {
+        ensure(1);
+        bytes[length++] = (byte) c;
+        return this;
+    }
+
+    private Json number(long value) {
+        if (value == Long.MIN_VALUE) {
+            for (char c : Long.toString(value).toCharArray())
+                ascii(c);
+            return this;
+        }
+        if (value < 0) {
+            ascii('-');
+            value = -value;
+        }
+        ensure(19);
+        int start = length;
+        do {
+            bytes[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        // Цифры записаны с конца
+        for (int i = start, j = length - 1; i < j; i++, j--) {
+            byte swap = bytes[i];
+            bytes[i] = bytes[j];
+            bytes[j] = swap;
+        }
+        return this;
+    }
+
+    private Json string(CharSequence value) {
+        ascii('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                ascii('\\').ascii(c);
+            } else if (c < 0x20) {
+                ascii('\\').ascii('u').ascii('0').ascii('0')
+                        .ascii(Character.forDigit(c >> 4, 16)).ascii(Character.forDigit(c & 15, 16));
+            } else if (c < 0x80) {
+                ascii(c);
+            } else if (c < 0x800) {
+                ensure(2);
+                bytes[length++] = (byte) (0xC0 | c >> 6);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int code = Character.toCodePoint(c, value.charAt(++i));
+                ensure(4);
+                bytes[length++] = (byte) (0xF0 | code >> 18);
+                bytes[length++] = (byte) (0x80 | code >> 12 & 0x3F);
+                bytes[length++] = (byte) (0x80 | code >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | code & 0x3F);
+            } else if (Character.isSurrogate(c)) {
+                // Одиночная половина суррогатной пары в UTF-8 непредставима
+                ascii('?');
+            } else {
+                ensure(3);
+                bytes[length++] = (byte) (0xE0 | c >> 12);
+                bytes[length++] = (byte) (0x80 | c >> 6 & 0x3F);
+                bytes[length++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        return ascii('"');
+    }
+
+    private Json name(String name) {
+        if (comma)
+            ascii(',');
+        comma = true;
+        string(name);
+        return ascii(':');
+    }
+
+    Json begin() {
+        comma = false;
+        return ascii('{');
+    }
+
+    Json end() {
+        comma = true;
+        return ascii('}');
+    }
+
+    Json field(String name, long value) {
+        return name(name).number(value);
+    }
+
+    Json field(String name, CharSequence value) {
+        return name(name).string(value);
+    }
+
+    /**
+     * Перевод строки после объекта (кадры трансляции - по строке на кадр)
+     */
+    Json newline() {
+        return ascii('\n');
+    }
+
+    byte[] toBytes() {
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+
+    /**
+     * Числовое поле объекта верхнего уровня. Имя ищется только на месте ключа:
+     * совпадения внутри строковых значений и вложенных объектов не учитываются
+     *
+     * @param missing значение, если поля нет
+     * @throws IllegalArgumentException значение поля - не целое число
+     */
+    static long number(String json, String name, long missing) {
+        int i = find(json, name);
+        if (i < 0)
+            return missing;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i)))
+            i++;
+        if (i >= json.length() || json.charAt(i) != ':')
+            throw new IllegalArgumentException("Нет значения поля " + name);
+        i++;
+        while (i < json.length() && Character.isWhitespace(json.charAt(i)))
+            i++;
+        int start = i;
+        if (i < json.length() && json.charAt(i) == '-')
+            i++;
+        while (i < json.length() && json.charAt(i) >= '0' && json.charAt(i) <= '9')
+            i++;
+        // Число должно закончиться: 1.5 или 1e3 - не целые
+        if (i >= json.length() || json.charAt(i) != ',' && json.charAt(i) != '}'
+                && !Character.isWhitespace(json.charAt(i)))
+            throw new IllegalArgumentException("Поле " + name + " должно быть целым числом");
+        try {
+            return Long.parseLong(json.substring(start, i));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Поле " + name + " должно быть целым числом", e);
+        }
+    }
+
+    /**
+     * Числовое поле объекта верхнего уровня в пределах int
+     *
+     * @param missing значение, если поля нет
+     * @throws IllegalArgumentException значение поля - не целое число или не помещается в int
+     */
+    static int intNumber(String json, String name, int missing) {
+        long value = number(json, name, missing);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Поле " + name + " вне диапазона: " + value);
+        return (int) value;
+    }
+
+    /**
+     * Позиция после ключа name объекта верхнего уровня или -1.
+     * Ключ - строка сразу после '{' или ',' на первом уровне вложенности
+     */
+    private static int find(String json, String name) {
+        int depth = 0;
+        boolean key = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                int end = i + 1;
+                while (end < json.length() && json.charAt(end) != '"')
+                    end += json.charAt(end) == '\\' ? 2 : 1;
+                if (key && depth == 1 && end == i + 1 + name.length() && json.startsWith(name, i + 1))
+                    return end + 1;
+                key = false;
+                i = end;
+            } else if (c == '{' || c == '[') {
+                depth++;
+                key = c == '{';
+            } else if (c == '}' || c == ']') {
+                depth--;
+                key = false;
+            } else if (c == ',') {
+                key = true;
+            } else if (!Character.isWhitespace(c)) {
+                key = false;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,434 @@
+package server;
+
+import metrics.Histogram;
+import model.Cell;
+import model.Game;
+import model.Move;
+import model.UserException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Генератор нагрузки на сервер игр: clients клиентов создают игры,
+ * делают в них ходы (случайные или по сценарию) и удаляют оконченные.
+ * <p>
+ * Нагрузка открытая: запросы назначаются с постоянной общей частотой rate
+ * независимо от того, как быстро отвечает сервер. Задержка считается от
+ * назначенного момента запроса, а не от фактической отправки, поэтому
+ * ожидание за медленным ответом тоже попадает в задержку (поправка на
+ * coordinated omission, как в wrk2). Время самой обработки
+ * записывается отдельно. Каждый клиент ведёт свои гистограммы,
+ * в конце они объединяются.
+ */
+public class LoadGenerator {
+    /**
+     * Сервер, на который подаётся нагрузка
+     */
+    public interface Target extends AutoCloseable {
+        /**
+         * @return номер новой игры
+         */
+        long create(int size, int winLength) throws IOException;
+
+        void move(long game, int x, int y) throws IOException, UserException;
+
+        void remove(long game) throws IOException;
+
+        /**
+         * Подключение для одного клиента генератора
+         * (по умолчанию все клиенты работают через этот же объект)
+         */
+        default Target connect() throws IOException {
+            return this;
+        }
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    /**
+     * Сервер в этом же процессе, без сети
+     */
+    public static Target inProcess(GameServer server) {
+        return new Target() {
+            @Override
+            public long create(int size, int winLength) {
+                return server.create(size, winLength).getId();
+            }
+
+            @Override
+            public void move(long game, int x, int y) throws IOException, UserException {
+                Session session = server.get(game);
+                if (session == null)
+                    throw new IOException("Игра " + game + " не найдена");
+                session.move(x, y);
+            }
+
+            @Override
+            public void remove(long game) {
+                server.remove(game);
+            }
+        };
+    }
+
+    /**
+     * Сервер по HTTP ({@link HttpApi}), например {@code http://127.0.0.1:8080}.
+     * Каждый клиент держит своё соединение HTTP/1.1 (keep-alive)
+     */
+    public static Target http(URI base) {
+        return new HttpTarget(new InetSocketAddress(base.getHost(), base.getPort() < 0 ? 80 : base.getPort()));
+    }
+
+    /**
+     * Клиент HTTP/1.1 на сокете: запрос уходит одной записью с TCP_NODELAY,
+     * ответ читается в буфер клиента. Своих потоков, как у клиента JDK,
+     * у него нет, поэтому генератор меряет сервер, а не себя
+     */
+    private static final class HttpTarget implements Target {
+        private final InetSocketAddress address;
+        private final byte[] buffer = new byte[8192];
+        private Socket socket;
+        private InputStream in;
+        private OutputStream out;
+        private int start, end;
+
+        HttpTarget(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        @Override
+        public Target connect() {
+            return new HttpTarget(address);
+        }
+
+        @Override
+        public long create(int size, int winLength) throws IOException {
+            return Json.number(request("POST", "/games",
+                    "{\"size\":" + size + ",\"win\":" + winLength + "}", 201), "id", -1);
+        }
+
+        @Override
+        public void move(long game, int x, int y) throws IOException {
+            request("POST", "/games/" + game + "/moves", "{\"x\":" + x + ",\"y\":" + y + "}", 200);
+        }
+
+        @Override
+        public void remove(long game) throws IOException {
+            request("DELETE", "/games/" + game, null, 204);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (socket != null) {
+                socket.close();
+                socket = null;
+            }
+        }
+
+        private String request(String method, String path, String body, int expected) throws IOException {
+            byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            String head = method + " " + path + " HTTP/1.1\r\nHost: " + address.getHostString() + ":" + address.getPort()
+                    + "\r\nContent-Length: " + content.length + "\r\n\r\n";
+            byte[] request = Arrays.copyOf(head.getBytes(StandardCharsets.US_ASCII), head.length() + content.length);
+            System.arraycopy(content, 0, request, head.length(), content.length);
+            boolean reused = socket != null;
+            if (!reused)
+                open();
+            try {
+                out.write(request);
+                out.flush();
+                return response(expected);
+            } catch (IOException e) {
+                close();
+                // Сервер мог закрыть простаивавшее соединение до запроса: повтор на новом
+                if (!reused || !(e instanceof NoResponseException))
+                    throw e;
+                open();
+                out.write(request);
+                out.flush();
+                return response(expected);
+            }
+        }
+
+        private void open() throws IOException {
+            socket = new Socket();
+            socket.setTcpNoDelay(true);
+            socket.connect(address);
+            in = socket.getInputStream();
+            out = socket.getOutputStream();
+            start = end = 0;
+        }
+
+        private String response(int expected) throws IOException {
+            StringBuilder headers = new StringBuilder();
+            while (headers.length() < 4 || headers.lastIndexOf("\r\n\r\n") != headers.length() - 4) {
+                if (start == end && !fill(headers.length() == 0))
+                    throw new IOException("Соединение закрыто посреди ответа");
+                headers.append((char) (buffer[start++] & 0xFF));
+            }
+            String text = headers.toString();
+            int status = Integer.parseInt(text.substring(9, 12));
+            int length = 0;
+            boolean closeAfter = false;
+            for (String line : text.split("\r\n")) {
+                String lower = line.toLowerCase(Locale.ROOT);
+                if (lower.startsWith("content-length:"))
+                    length = Integer.parseInt(line.substring(15).trim());
+                else if (lower.startsWith("transfer-encoding:"))
+                    throw new IOException("Ответ без длины: " + line);
+                else if (lower.startsWith("connection:") && lower.contains("close"))
+                    closeAfter = true;
+            }
+            byte[] content = new byte[length];
+            for (int read = 0; read < length; ) {
+                if (start == end && !fill(false))
+                    throw new IOException("Соединение закрыто посреди ответа");
+                int chunk = Math.min(length - read, end - start);
+                System.arraycopy(buffer, start, content, read, chunk);
+                start += chunk;
+                read += chunk;
+            }
+            if (closeAfter)
+                close();
+            String body = new String(content, StandardCharsets.UTF_8);
+            if (status != expected)
+                throw new IOException("HTTP " + status + ": " + body);
+            return body;
+        }
+
+        /**
+         * @param first ещё не получено ни одного байта ответа
+         * @return false - конец потока
+         */
+        private boolean fill(boolean first) throws IOException {
+            int read;
+            try {
+                read = in.read(buffer);
+            } catch (SocketException e) {
+                if (first)
+                    throw new NoResponseException(e);
+                throw e;
+            }
+            if (read < 0 && first)
+                throw new NoResponseException(null);
+            start = 0;
+            end = Math.max(read, 0);
+            return read > 0;
+        }
+    }
+
+    /**
+     * Соединение закрылось до первого байта ответа
+     */
+    private static final class NoResponseException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        NoResponseException(Throwable cause) {
+            super("Сервер закрыл соединение без ответа", cause);
+        }
+    }
+
+    private final Target target;
+    private final int clients;
+    private final double rate;
+    private final int size;
+    private final int winLength;
+    private final List<Move> script;
+    private final long seed;
+
+    /**
+     * @param rate   запросов в секунду от всех клиентов вместе
+     * @param script ходы каждой игры (оба игрока) или null - случайные ходы
+     */
+    public LoadGenerator(Target target, int clients, double rate, int size, int winLength,
+                         List<Move> script, long seed) {
+        if (clients < 1 || !(rate > 0))
+            throw new IllegalArgumentException("Нужны хотя бы один клиент и положительная частота");
+        this.target = target;
+        this.clients = clients;
+        this.rate = rate;
+        this.size = size;
+        this.winLength = winLength;
+        this.script = script;
+        this.seed = seed;
+    }
+
+    /**
+     * Итоги нагрузки
+     */
+    public static class Report {
+        /**
+         * Задержка от назначенного момента до ответа, нс
+         */
+        public final Histogram latency = new Histogram();
+        /**
+         * Время от отправки до ответа, нс
+         */
+        public final Histogram service = new Histogram();
+        public long errors;
+        /**
+         * Удалённые игры (оконченные или с ошибкой)
+         */
+        public long games;
+        public long elapsedNanos;
+
+        void add(Report other) {
+            latency.add(other.latency);
+            service.add(other.service);
+            errors += other.errors;
+            games += other.games;
+        }
+
+        public long getRequests() {
+            return latency.getCount();
+        }
+
+        /**
+         * Выполненных запросов в секунду
+         */
+        public double getThroughput() {
+            return getRequests() * 1e9 / Math.max(1, elapsedNanos);
+        }
+
+        private static String micros(Histogram histogram) {
+            return String.format("p50=%.1f p99=%.1f p99.9=%.1f max=%.1f",
+                    histogram.getValueAtPercentile(50) / 1e3, histogram.getValueAtPercentile(99) / 1e3,
+                    histogram.getValueAtPercentile(99.9) / 1e3, histogram.getMax() / 1e3);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Запросов: %d (ошибок: %d), партий: %d, %.3f с, запросов/с: %.0f%n" +
+                            "Задержка с учётом очереди, мкс: %s%n" +
+                            "Время обработки, мкс: %s",
+                    getRequests(), errors, games, elapsedNanos / 1e9, getThroughput(),
+                    micros(latency), micros(service));
+        }
+    }
+
+    /**
+     * Нагрузка в течение durationNanos
+     */
+    public Report run(long durationNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + durationNanos;
+        // Каждый клиент - каждый clients-й запрос общего расписания
+        double interval = clients * 1e9 / rate;
+        Report[] reports = new Report[clients];
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < clients; i++) {
+            Report report = reports[i] = new Report();
+            long first = start + (long) (interval * i / clients);
+            SplittableRandom random = new SplittableRandom(seed + i * 0x9E3779B97F4A7C15L);
+            Thread thread = new Thread(() -> new Client(random, report).run(first, interval, end), "load-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+        Report total = new Report();
+        for (int i = 0; i < clients; i++) {
+            threads.get(i).join();
+            total.add(reports[i]);
+        }
+        total.elapsedNanos = System.nanoTime() - start;
+        return total;
+    }
+
+    /**
+     * Один клиент: играет по одной игре за раз
+     */
+    private class Client {
+        private final SplittableRandom random;
+        private final Report report;
+        private long game = -1;
+        /**
+         * Копия игры на стороне клиента, для выбора ходов
+         */
+        private Game local;
+        /**
+         * Запрос в игре завершился ошибкой: игра удаляется следующим запросом
+         */
+        private boolean failed;
+        private Target connection;
+
+        Client(SplittableRandom random, Report report) {
+            this.random = random;
+            this.report = report;
+        }
+
+        void run(long first, double interval, long end) {
+            try (Target connection = target.connect()) {
+                this.connection = connection;
+                long scheduled = first;
+                for (long i = 1; scheduled < end; i++) {
+                    long delay = scheduled - System.nanoTime();
+                    while (delay > 0) {
+                        LockSupport.parkNanos(delay);
+                        delay = scheduled - System.nanoTime();
+                    }
+                    long begin = System.nanoTime();
+                    request();
+                    long done = System.nanoTime();
+                    report.latency.record(done - scheduled);
+                    report.service.record(done - begin);
+                    scheduled = first + (long) (interval * i);
+                }
+                // Незаконченная игра удаляется вне замера
+                if (game >= 0)
+                    connection.remove(game);
+            } catch (IOException | RuntimeException e) {
+                report.errors++;
+            }
+        }
+
+        private void request() {
+            try {
+                if (game < 0) {
+                    game = connection.create(size, winLength);
+                    local = new Game(size, winLength);
+                    failed = false;
+                } else if (failed || local.isOver() || (script != null && local.getMoveCount() >= script.size())) {
+                    finish();
+                } else {
+                    Move move = script != null ? script.get(local.getMoveCount()) : randomMove();
+                    connection.move(game, move.x, move.y);
+                    local.move(move);
+                }
+            } catch (IOException | UserException | RuntimeException e) {
+                report.errors++;
+                failed = true;
+            }
+        }
+
+        private void finish() throws IOException {
+            long id = game;
+            game = -1;
+            report.games++;
+            connection.remove(id);
+        }
+
+        /**
+         * Случайная пустая клетка; игра не окончена, поэтому она есть
+         */
+        private Move randomMove() {
+            int skip = random.nextInt(size * size - local.getMoveCount());
+            int cell = 0;
+            while (local.getCell(cell % size, cell / size) != Cell.EMPTY || skip-- > 0)
+                cell++;
+            return new Move(cell % size, cell / size);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package server;
+
+import metrics.ConcurrentHistogram;
+import metrics.Histogram;
+import model.Cell;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Подбор соперников: ожидающие игроки объединяются в пары с близким
+ * рейтингом и одинаковыми размерами поля, для пары создаётся игра
+ * в {@link GameServer}.
+ * <p>
+ * Заявка ({@link #join}) только кладётся в неблокирующую очередь корзины
+ * (размеры поля и полоса рейтинга шириной ratingBand), без общих блокировок.
+ * Пары подбираются пачками раз в period одним потоком: он забирает
+ * новые заявки из всех корзин, сортирует ожидающих каждой конфигурации
+ * по рейтингу и объединяет соседей. Допустимая разница рейтингов растёт
+ * с ожиданием от ratingBand до 4 * ratingBand, а после maxWait соперником
+ * может стать любой игрок той же конфигурации - так время подбора
+ * ограничено maxWait + period, если ждёт хотя бы ещё один игрок.
+ */
+public class Matchmaker implements AutoCloseable {
+    private static final int WAITING = 0, MATCHING = 1, MATCHED = 2, CANCELLED = 3;
+
+    /**
+     * Заявка игрока
+     */
+    public final class Ticket {
+        public final String player;
+        public final int rating;
+        public final int size;
+        public final int winLength;
+        final long joinedNanos;
+        private final AtomicInteger status = new AtomicInteger(WAITING);
+        private final CompletableFuture<Match> match = new CompletableFuture<>();
+
+        Ticket(String player, int rating, int size, int winLength, long joinedNanos) {
+            this.player = player;
+            this.rating = rating;
+            this.size = size;
+            this.winLength = winLength;
+            this.joinedNanos = joinedNanos;
+        }
+
+        /**
+         * Игра, которая будет найдена
+         */
+        public CompletableFuture<Match> match() {
+            return match;
+        }
+
+        /**
+         * Отказ от ожидания
+         *
+         * @return false, если соперник уже найден
+         */
+        public boolean cancel() {
+            while (true) {
+                int current = status.get();
+                if (current == CANCELLED)
+                    return true;
+                if (current != WAITING && current != MATCHING)
+                    return false;
+                // Пока подбор рассматривает заявку, отказ ждёт его решения
+                if (current == WAITING && status.compareAndSet(WAITING, CANCELLED)) {
+                    waiting.decrement();
+                    match.cancel(false);
+                    return true;
+                }
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    /**
+     * Найденная игра с точки зрения одного игрока
+     */
+    public static final class Match {
+        public final Session session;
+        /**
+         * Чем играет игрок: X ходит первым
+         */
+        public final Cell cell;
+        public final Ticket opponent;
+
+        Match(Session session, Cell cell, Ticket opponent) {
+            this.session = session;
+            this.cell = cell;
+            this.opponent = opponent;
+        }
+    }
+
+    private final GameServer games;
+    private final int ratingBand;
+    private final long periodNanos;
+    private final long maxWaitNanos;
+    /**
+     * Новые заявки по корзинам: пишут игроки, читает только подбор
+     */
+    private final ConcurrentHashMap<Long, ConcurrentLinkedQueue<Ticket>> buckets = new ConcurrentHashMap<>();
+    /**
+     * Ожидающие по конфигурациям поля; только для потока подбора
+     */
+    private final Map<Long, List<Ticket>> pools = new HashMap<>();
+    private final LongAdder waiting = new LongAdder();
+    private final LongAdder matched = new LongAdder();
+    private final ConcurrentHistogram waitTime = new ConcurrentHistogram();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param ratingBand   ширина полосы рейтинга и начальная допустимая разница
+     * @param periodNanos  период подбора пар
+     * @param maxWaitNanos ожидание, после которого рейтинг не учитывается
+     */
+    public Matchmaker(GameServer games, int ratingBand, long periodNanos, long maxWaitNanos) {
+        if (ratingBand < 1 || periodNanos < 1 || maxWaitNanos < 1)
+            throw new IllegalArgumentException("Параметры подбора должны быть положительными");
+        this.games = games;
+        this.ratingBand = ratingBand;
+        this.periodNanos = periodNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Запуск подбора по расписанию
+     */
+    public synchronized void start() {
+        if (scheduler != null)
+            return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::pairNow, periodNanos, periodNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private static long config(int size, int winLength) {
+        return (long) size << 32 | winLength;
+    }
+
+    /**
+     * Заявка на игру
+     *
+     * @throws IllegalArgumentException недопустимые размеры поля
+     */
+    public Ticket join(String player, int rating, int size, int winLength) {
+        if (size < 1 || size > GameServer.MAX_SIZE || winLength < 1 || winLength > size)
+            throw new IllegalArgumentException("Недопустимое поле " + size + "x" + size + ", линия " + winLength);
+        Ticket ticket = new Ticket(player, rating, size, winLength, System.nanoTime());
+        long band = Math.floorDiv(rating, ratingBand) & 0xFFFFL;
+        buckets.computeIfAbsent(config(size, winLength) << 16 | band, key -> new ConcurrentLinkedQueue<>())
+                .add(ticket);
+        waiting.increment();
+        return ticket;
+    }
+
+    /**
+     * Один подбор пар (вызывается по расписанию)
+     */
+    synchronized void pairNow() {
+        for (Map.Entry<Long, ConcurrentLinkedQueue<Ticket>> bucket : buckets.entrySet()) {
+            List<Ticket> pool = pools.computeIfAbsent(bucket.getKey() >>> 16, key -> new ArrayList<>());
+            for (Ticket ticket; (ticket = bucket.getValue().poll()) != null; )
+                pool.add(ticket);
+        }
+        long now = System.nanoTime();
+        for (Iterator<List<Ticket>> configs = pools.values().iterator(); configs.hasNext(); ) {
+            List<Ticket> pool = configs.next();
+            pool.removeIf(ticket -> ticket.status.get() == CANCELLED);
+            pool.sort((a, b) -> Integer.compare(a.rating, b.rating));
+            List<Ticket> left = new ArrayList<>();
+            int i = 0;
+            for (; i + 1 < pool.size(); i++) {
+                Ticket a = pool.get(i), b = pool.get(i + 1);
+                if (b.rating - a.rating <= allowedGap(now - Math.min(a.joinedNanos, b.joinedNanos))
+                        && pair(a, b, now)) {
+                    i++;
+                } else if (a.status.get() == WAITING) {
+                    left.add(a);
+                }
+            }
+            if (i < pool.size() && pool.get(i).status.get() == WAITING)
+                left.add(pool.get(i));
+            pool.clear();
+            if (left.isEmpty())
+                configs.remove();
+            else
+                pool.addAll(left);
+        }
+    }
+
+    /**
+     * Допустимая разница рейтингов при ожидании waited
+     */
+    long allowedGap(long waited) {
+        if (waited >= maxWaitNanos)
+            return Long.MAX_VALUE;
+        return ratingBand + 3L * ratingBand * waited / maxWaitNanos;
+    }
+
+    /**
+     * Игра для пары; крестики у того, кто ждал дольше
+     *
+     * @return false, если один из игроков отказался
+     */
+    private boolean pair(Ticket a, Ticket b, long now) {
+        if (!a.status.compareAndSet(WAITING, MATCHING))
+            return false;
+        if (!b.status.compareAndSet(WAITING, MATCHING)) {
+            a.status.set(WAITING);
+            return false;
+        }
+        Ticket x = a.joinedNanos <= b.joinedNanos ? a : b, o = x == a ? b : a;
+        Session session = games.create(x.size, x.winLength);
+        x.status.set(MATCHED);
+        o.status.set(MATCHED);
+        waiting.add(-2);
+        matched.add(2);
+        waitTime.record(now - x.joinedNanos);
+        waitTime.record(now - o.joinedNanos);
+        x.match.complete(new Match(session, Cell.X, o));
+        o.match.complete(new Match(session, Cell.O, x));
+        return true;
+    }
+
+    /**
+     * Игроки, ещё ждущие соперника
+     */
+    public long getWaiting() {
+        return waiting.sum();
+    }
+
+    /**
+     * Игроки, для которых найдена игра
+     */
+    public long getMatched() {
+        return matched.sum();
+    }
+
+    /**
+     * Время от заявки до подбора, нс
+     */
+    public Histogram getWaitTimeSnapshot() {
+        return waitTime.snapshot();
+    }
+}
@@ -0,0 +1,110 @@
+package server;
+
+import model.Cell;
+import model.Game;
+import model.UserException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Игра на сервере: ходы из разных потоков выполняются по очереди,
+ * ходы транслируются зрителям ({@link Broadcast}).
+ */
+public class Session {
+    /**
+     * Сколько последних ходов хранит трансляция
+     */
+    static final int BROADCAST_CAPACITY = 64;
+
+    private final long id;
+    private final Game game;
+    private final Broadcast broadcast;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    Session(long id, int size, int winLength) {
+        this.id = id;
+        this.game = new Game(size, winLength);
+        this.broadcast = new Broadcast(game, BROADCAST_CAPACITY);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public Broadcast getBroadcast() {
+        return broadcast;
+    }
+
+    /**
+     * Ход текущего игрока
+     *
+     * @return состояние игры после хода (JSON, как {@link #state()})
+     * @throws UserException недопустимый ход
+     */
+    public byte[] move(int x, int y) throws UserException {
+        lock.lock();
+        try {
+            game.move(x, y);
+            return encode();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Состояние игры: поле (строки через '/', пустая клетка - '.'),
+     * состояние и номер последнего кадра трансляции ({@code seq})
+     */
+    public byte[] state() {
+        lock.lock();
+        try {
+            return encode();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Game.State getState() {
+        lock.lock();
+        try {
+            return game.getState();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private byte[] encode() {
+        int size = game.size;
+        char[] text = new char[size * (size + 1) - 1];
+        for (int y = 0, i = 0; y < size; y++) {
+            if (y > 0)
+                text[i++] = '/';
+            for (int x = 0; x < size; x++) {
+                Cell cell = game.getCell(x, y);
+                text[i++] = cell == Cell.EMPTY ? '.' : cell.name().charAt(0);
+            }
+        }
+        return new Json(128 + text.length).begin()
+                .field("id", id)
+                .field("size", size)
+                .field("win", game.winLength)
+                .field("moves", game.getMoveCount())
+                .field("seq", broadcast.getPublished())
+                .field("board", new String(text))
+                .field("state", game.getState().name())
+                .end().toBytes();
+    }
+
+    /**
+     * Ожидание хода после кадра after (long polling)
+     *
+     * @param after номер последнего известного клиенту кадра
+     * @return кадр трансляции или null, если за timeout ходов не было
+     */
+    public byte[] awaitMove(long after, long timeout, TimeUnit unit) throws InterruptedException {
+        try (Broadcast.Spectator spectator = broadcast.subscribe(after)) {
+            return spectator.poll(timeout, unit);
+        }
+    }
+}
@@ -10,7 +10,8 @@ public interface GameView {
     /**
      * Ввод хода
      *
-     * @return Ход игрока
+     * @return Ход игрока или null, если ход ввести нельзя
+     * (ввод закончился или ходы делаются самим интерфейсом)
      */
     Move inputMove();
 
@@ -5,20 +5,33 @@ import model.Move;
 import model.UserException;
 import view.GameView;
 
-import java.util.InputMismatchException;
-import java.util.Scanner;
+import java.io.PrintStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 
 /**
  * Запуск консольного варианта игры
  */
 public class ConsoleView implements GameView {
     private final Game game;
+    /**
+     * Ввод с клавиатуры, создаётся при первом запросе хода
+     * и сохраняет прочитанное между ходами
+     */
+    private MoveReader in;
+    /**
+     * Выводить ли поле после каждого хода (выключается на время {@link #replay})
+     */
+    private boolean rendering = true;
 
     public ConsoleView(Game game) {
         this.game = game;
         System.out.println(Game.GAME_TITLE);
         System.out.println("====================");
-        game.listeners.add(state -> render());
+        game.listeners.add(state -> {
+            if (rendering)
+                render();
+        });
         render();
     }
 
@@ -26,33 +39,121 @@ public class ConsoleView implements GameView {
         // Вывод поля
         for (int y = 0; y < game.getSize(); y++) {
             for (int x = 0; x < game.getSize(); x++) {
-                System.out.printf("%s", game.field[x][y]);
+                System.out.printf("%s", game.getField()[x][y]);
             }
             System.out.println();
         }
         System.out.println(game.getState().name());
     }
 
+    /**
+     * Ввод хода с клавиатуры
+     *
+     * @return ход или null, если ввод закончился
+     */
     public Move inputMove() {
+        if (in == null)
+            in = new MoveReader(Channels.newChannel(System.in));
         System.out.print("Введите ход: ");
-        Scanner in = new Scanner(System.in);
-        while (true) {
-            try {
-                System.out.print(" столбец = ");
-                int x = in.nextInt();
-                System.out.print(" строка = ");
-                int y = in.nextInt();
-                return new Move(x, y);
-            } catch (InputMismatchException |
-                    NumberFormatException ex) {
-                System.out.println(ex.getMessage());
-                in.next();
-            }
-        }
+        System.out.print(" столбец = ");
+        if (!readInt())
+            return null;
+        int x = in.x;
+        System.out.print(" строка = ");
+        if (!readInt())
+            return null;
+        return new Move(x, in.x);
+    }
+
+    /**
+     * Чтение числа в in.x; слова, не являющиеся числами, пропускаются
+     *
+     * @return false если ввод закончился
+     */
+    private boolean readInt() {
+        int result;
+        while ((result = in.nextInt()) == MoveReader.ERROR)
+            System.out.println(in.error);
+        return result == MoveReader.INT;
     }
 
     public void reportError(UserException e) {
         System.out.println(e.getMessage());
         System.out.println("Повторите ход");
     }
+
+    /**
+     * Итоги проигрывания сценария
+     */
+    public static class ReplayStats {
+        public long games, moves, errors;
+
+        @Override
+        public String toString() {
+            return "Партий: " + games + ", ходов: " + moves + ", ошибок: " + errors;
+        }
+    }
+
+    /**
+     * Проигрывание сценария партий (формат - см. {@link MoveReader#nextLine()})
+     * без вывода поля после каждого хода.
+     * Ошибки печатаются с номером строки и не прерывают чтение,
+     * после каждой партии печатается её итог.
+     *
+     * @param script сценарий
+     * @param out    куда печатать ошибки и итоги
+     * @return итоги
+     */
+    public ReplayStats replay(ReadableByteChannel script, PrintStream out) {
+        ReplayStats stats = new ReplayStats();
+        MoveReader reader = new MoveReader(script);
+        boolean started = false;
+        rendering = false;
+        try {
+            int result;
+            while ((result = reader.nextLine()) != MoveReader.EOF) {
+                switch (result) {
+                    case MoveReader.MOVE:
+                        started = true;
+                        try {
+                            game.move(reader.x, reader.y);
+                            stats.moves++;
+                        } catch (UserException e) {
+                            lineError(out, stats, reader.line, e.getMessage());
+                        }
+                        break;
+                    case MoveReader.NEW_GAME:
+                        if (started)
+                            finishGame(out, stats);
+                        started = false;
+                        game.reset();
+                        break;
+                    default:
+                        lineError(out, stats, reader.line, reader.error);
+                }
+            }
+            if (started)
+                finishGame(out, stats);
+        } finally {
+            rendering = true;
+        }
+        out.println(stats);
+        return stats;
+    }
+
+    private static void lineError(PrintStream out, ReplayStats stats, long line, String message) {
+        stats.errors++;
+        out.print("Строка ");
+        out.print(line);
+        out.print(": ");
+        out.println(message);
+    }
+
+    private void finishGame(PrintStream out, ReplayStats stats) {
+        stats.games++;
+        out.print("Партия ");
+        out.print(stats.games);
+        out.print(": ");
+        out.println(game.getState().name());
+    }
 }
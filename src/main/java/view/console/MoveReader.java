@@ -0,0 +1,229 @@
+package view.console;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Чтение ходов из канала через один буфер.
+ * Числа разбираются по байтам, без регулярных выражений,
+ * строк и упаковки, результат - в полях {@link #x}, {@link #y}.
+ * <p>
+ * Два режима:
+ * <ul>
+ * <li>{@link #nextInt()} - по словам, для интерактивного ввода;</li>
+ * <li>{@link #nextLine()} - по строкам, для сценариев: строка "x y"
+ * (разделители - пробелы, табуляция, запятая, точка с запятой),
+ * строка "-" - начало новой партии, пустые строки и строки,
+ * начинающиеся с '#', пропускаются.</li>
+ * </ul>
+ */
+public class MoveReader {
+    /**
+     * Результаты {@link #nextInt()} и {@link #nextLine()}
+     */
+    public static final int EOF = -1, MOVE = 0, NEW_GAME = 1, ERROR = 2, INT = 3;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private boolean eof;
+    /**
+     * Результат последнего разбора числа
+     */
+    private int parsed;
+
+    /**
+     * Координаты последнего прочитанного хода;
+     * x - также значение последнего числа из {@link #nextInt()}
+     */
+    public int x, y;
+    /**
+     * Номер последней прочитанной строки (с 1)
+     */
+    public long line;
+    /**
+     * Описание ошибки, если результат {@link #ERROR}
+     */
+    public String error;
+
+    public MoveReader(ReadableByteChannel channel) {
+        this(channel, 64 * 1024);
+    }
+
+    public MoveReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+        buffer.flip();
+    }
+
+    /**
+     * Следующий байт без извлечения, -1 в конце потока
+     */
+    private int peek() {
+        if (!buffer.hasRemaining() && !fill())
+            return -1;
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    private int read() {
+        int b = peek();
+        if (b >= 0)
+            buffer.get();
+        return b;
+    }
+
+    private boolean fill() {
+        if (eof)
+            return false;
+        buffer.clear();
+        try {
+            int n;
+            do {
+                n = channel.read(buffer);
+            } while (n == 0);
+            if (n < 0)
+                eof = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.flip();
+        }
+        return buffer.hasRemaining();
+    }
+
+    private static boolean isSpace(int b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isSeparator(int b) {
+        return isSpace(b) || b == ',' || b == ';';
+    }
+
+    /**
+     * Следующее слово как целое число
+     *
+     * @return {@link #INT} (число в {@link #x}), {@link #ERROR}
+     * (слово не число, оно пропущено) или {@link #EOF}
+     */
+    public int nextInt() {
+        int b;
+        while ((b = peek()) >= 0 && (isSpace(b) || b == '\n'))
+            read();
+        if (b < 0)
+            return EOF;
+        boolean ok = parseNumber();
+        if (ok) {
+            x = parsed;
+            b = peek();
+            if (b < 0 || isSpace(b) || b == '\n')
+                return INT;
+        }
+        // Пропускаем остаток слова
+        while ((b = peek()) >= 0 && !isSpace(b) && b != '\n')
+            read();
+        error = "Ожидалось целое число";
+        return ERROR;
+    }
+
+    /**
+     * Разбор числа с необязательным знаком минус
+     *
+     * @return false если цифр нет или число не помещается в int
+     */
+    private boolean parseNumber() {
+        boolean negative = peek() == '-';
+        if (negative)
+            read();
+        return parseDigits(negative);
+    }
+
+    /**
+     * Разбор цифр числа (знак уже прочитан)
+     */
+    private boolean parseDigits(boolean negative) {
+        long value = 0;
+        int digits = 0;
+        int b;
+        while ((b = peek()) >= '0' && b <= '9') {
+            read();
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE + 1L)
+                return false;
+            digits++;
+        }
+        if (negative)
+            value = -value;
+        if (digits == 0 || value > Integer.MAX_VALUE)
+            return false;
+        parsed = (int) value;
+        return true;
+    }
+
+    /**
+     * Пропуск до конца строки включительно
+     */
+    private void skipLine() {
+        int b;
+        while ((b = read()) >= 0 && b != '\n') {
+            // пропускаем
+        }
+    }
+
+    private void skipSeparators() {
+        while (isSeparator(peek()))
+            read();
+    }
+
+    /**
+     * Следующая значимая строка сценария
+     *
+     * @return {@link #MOVE} (ход в {@link #x}, {@link #y}), {@link #NEW_GAME},
+     * {@link #ERROR} (описание в {@link #error}) или {@link #EOF}
+     */
+    public int nextLine() {
+        while (true) {
+            int b = peek();
+            if (b < 0)
+                return EOF;
+            line++;
+            skipSeparators();
+            b = peek();
+            if (b == '\n' || b < 0 || b == '#') {
+                skipLine();
+                continue;
+            }
+            boolean negative = b == '-';
+            if (negative) {
+                read();
+                skipSeparators();
+                b = peek();
+                if (b == '\n' || b < 0) {
+                    skipLine();
+                    return NEW_GAME;
+                }
+            }
+            if (!parseDigits(negative))
+                return lineError("Ожидалось число x");
+            x = parsed;
+            if (!isSeparator(peek()))
+                return lineError("Ожидался разделитель после x");
+            skipSeparators();
+            if (!parseNumber())
+                return lineError("Ожидалось число y");
+            y = parsed;
+            skipSeparators();
+            b = peek();
+            if (b != '\n' && b >= 0)
+                return lineError("Лишние символы после y");
+            skipLine();
+            return MOVE;
+        }
+    }
+
+    private int lineError(String message) {
+        skipLine();
+        error = message;
+        return ERROR;
+    }
+}
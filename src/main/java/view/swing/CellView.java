@@ -1,9 +1,11 @@
 package view.swing;
 
 import model.Game;
+import model.Move;
 import model.UserException;
 
 import javax.swing.*;
+import java.util.function.Predicate;
 
 /**
  * Клетка поля
@@ -13,14 +15,24 @@ public class CellView extends JButton {
     final int x, y;
 
     public CellView(int x, int y, Game game) {
-        super(game.field[x][y].toString());
+        this(x, y, game, move -> false);
+    }
+
+    /**
+     * @param clicks обработчик нажатия; если он принял ход (вернул true),
+     *               ход выполнит контроллер, а не сама кнопка
+     */
+    public CellView(int x, int y, Game game, Predicate<Move> clicks) {
+        super(game.getField()[x][y].toString());
         this.x = x;
         this.y = y;
 
         addActionListener(actionEvent -> {
+            if (clicks.test(new Move(x, y)))
+                return;
             try {
                 game.move(x, y);
-                setText(game.field[x][y].toString());
+                setText(game.getField()[x][y].toString());
             } catch (UserException e) {
                 JOptionPane.showMessageDialog(null, e.getMessage(), "Ошибка",
                         JOptionPane.ERROR_MESSAGE);
@@ -36,7 +48,7 @@ public class CellView extends JButton {
                 CellView.this.setEnabled(false);
         });
 
-        game.field[x][y].addListener(newState -> {
+        game.getField()[x][y].addListener(newState -> {
             setText(newState.toString());
             setEnabled(false);
         });
@@ -1,9 +1,11 @@
 package view.swing;
 
 import model.Game;
+import model.Move;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.function.Predicate;
 
 /**
  * Основная форма игры
@@ -18,6 +20,13 @@ public class MainForm {
     private JPanel fieldPanel;
 
     public MainForm(Game game) {
+        this(game, move -> false);
+    }
+
+    /**
+     * @param clicks обработчик нажатий на клетки, см. {@link CellView}
+     */
+    public MainForm(Game game, Predicate<Move> clicks) {
         super();
         gameStateLabel.setText(game.getState().toString());
         game.listeners.add(state -> gameStateLabel.setText(state.toString()));
@@ -26,7 +35,7 @@ public class MainForm {
         fieldPanel.setLayout(grid);
         for (int y = 0; y < game.getSize(); y++) {
             for (int x = 0; x < game.getSize(); x++) {
-                fieldPanel.add(new CellView(x, y, game));
+                fieldPanel.add(new CellView(x, y, game, clicks));
             }
         }
     }
@@ -2,19 +2,31 @@ package view.swing;
 
 import model.Game;
 import model.Move;
+import model.Player;
 import model.UserException;
 import view.GameView;
 
 import javax.swing.*;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Отображение игры в Swing интерфейсе
+ * Отображение игры в Swing интерфейсе.
+ * Как {@link Player}: пока контроллер ждёт ход,
+ * нажатие на клетку передаёт ход ему, а не выполняет сразу.
  */
-public class SwingView implements GameView {
+public class SwingView implements GameView, Player {
+    /**
+     * Запрос хода от контроллера, ожидающий нажатия
+     */
+    private volatile CompletableFuture<Move> pending;
+    /**
+     * Ходами управляет контроллер: нажатия вне запроса хода игнорируются
+     */
+    private volatile boolean controlled;
 
     public SwingView(Game game) {
         JFrame frame = new JFrame(Game.GAME_TITLE);
-        MainForm mainForm = new MainForm(game);
+        MainForm mainForm = new MainForm(game, this::offer);
         frame.setContentPane(mainForm.panel);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.pack();
@@ -25,6 +37,30 @@ public class SwingView implements GameView {
         return null;
     }
 
+    @Override
+    public CompletableFuture<Move> requestMove(Game game, long deadlineNanos) {
+        CompletableFuture<Move> future = new CompletableFuture<>();
+        controlled = true;
+        pending = future;
+        return future;
+    }
+
+    /**
+     * Нажатие на клетку
+     *
+     * @return true если ходами управляет контроллер
+     * (тогда ход передан ему, если он ждёт хода)
+     */
+    boolean offer(Move move) {
+        if (!controlled)
+            return false;
+        CompletableFuture<Move> future = pending;
+        pending = null;
+        if (future != null)
+            future.complete(move);
+        return true;
+    }
+
     public void reportError(UserException e) {
     }
 }
@@ -0,0 +1,67 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.Move;
+import model.UserException;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for BotPlayer class
+ */
+public class BotPlayerTest {
+
+    @Test
+    public void testRequestMove() throws Exception {
+        Game game = new Game();
+        game.move(0, 0);
+        BotPlayer player = new BotPlayer(new GreedyBot(), 1, Runnable::run);
+        assertTrue(player.getBot() instanceof GreedyBot);
+        Move move = player.requestMove(game, System.nanoTime() + 1_000_000_000L)
+                .get(1, TimeUnit.SECONDS);
+        assertEquals(Cell.EMPTY, game.getCell(move.x, move.y));
+    }
+
+    @Test
+    public void testRejectedMoveIgnored() throws Exception {
+        Game game = new Game();
+        game.move(0, 0);
+        BotPlayer player = new BotPlayer(new GreedyBot(), 1, Runnable::run);
+        try {
+            game.move(0, 0);
+            fail();
+        } catch (UserException e) {
+            player.reportError(e);
+        }
+        // Бот не хранит состояния: следующий запрос - обычный поиск хода
+        Move move = player.requestMove(game, System.nanoTime() + 1_000_000_000L)
+                .get(1, TimeUnit.SECONDS);
+        assertEquals(Cell.EMPTY, game.getCell(move.x, move.y));
+    }
+
+    @Test
+    public void testBotSeesDeadlineAndCopy() throws Exception {
+        Game game = new Game();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        long[] seen = {0};
+        Bot bot = new Bot() {
+            @Override
+            public Move nextMove(Game position, java.util.SplittableRandom random) {
+                throw new AssertionError("deadline version expected");
+            }
+
+            @Override
+            public Move nextMove(Game position, java.util.SplittableRandom random, long deadlineNanos) {
+                assertNotSame(game, position);
+                seen[0] = deadlineNanos;
+                return new Move(1, 1);
+            }
+        };
+        new BotPlayer(bot, 1, Runnable::run).requestMove(game, deadline).get();
+        assertEquals(deadline - BotPlayer.SAFETY_MARGIN_NANOS, seen[0]);
+    }
+}
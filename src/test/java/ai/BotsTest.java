@@ -0,0 +1,103 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.Move;
+import model.UserException;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Bot implementations
+ */
+public class BotsTest {
+
+    @Test
+    public void testByName() {
+        assertTrue(Bots.byName("random") instanceof RandomBot);
+        assertTrue(Bots.byName("greedy") instanceof GreedyBot);
+        assertEquals(3, ((SearchBot) Bots.byName("search:3")).getDepth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadSearchDepth() {
+        Bots.byName("search:deep");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownBot() {
+        Bots.byName("unknown");
+    }
+
+    @Test
+    public void testRandomBotPlaysWholeGame() throws UserException {
+        Game game = new Game();
+        Bot bot = new RandomBot();
+        SplittableRandom random = new SplittableRandom(1);
+        while (!game.isOver()) {
+            Move move = bot.nextMove(game, random);
+            assertEquals(Cell.EMPTY, game.getCell(move.x, move.y));
+            game.move(move);
+        }
+        assertTrue(game.getMoveCount() >= 5);
+    }
+
+    @Test
+    public void testRandomBotIsReproducible() {
+        Game game = new Game(7);
+        Move a = new RandomBot().nextMove(game, new SplittableRandom(42));
+        Move b = new RandomBot().nextMove(game, new SplittableRandom(42));
+        assertEquals(a.toString(), b.toString());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRandomMoveOnFullBoard() {
+        RandomBot.randomMove(new FullGame(), new SplittableRandom(1));
+    }
+
+    /**
+     * Игра, которая сообщает о свободной клетке, хотя их нет
+     */
+    private static class FullGame extends Game {
+        FullGame() {
+            super(1);
+            getField()[0][0].setCell(Cell.X);
+        }
+
+        @Override
+        public int getMoveCount() {
+            return 0;
+        }
+    }
+
+    @Test
+    public void testGreedyBotWins() throws UserException {
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(0, 1); // O
+        game.move(1, 0); // X
+        game.move(1, 1); // O
+        Move move = new GreedyBot().nextMove(game, new SplittableRandom(1));
+        assertEquals("(2; 0)", move.toString());
+    }
+
+    @Test
+    public void testGreedyBotBlocks() throws UserException {
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(2, 2); // O
+        game.move(1, 0); // X
+        Move move = new GreedyBot().nextMove(game, new SplittableRandom(1));
+        assertEquals("(2; 0)", move.toString());
+    }
+
+    @Test
+    public void testGreedyBotRandomOtherwise() {
+        Game game = new Game();
+        Move move = new GreedyBot().nextMove(game, new SplittableRandom(3));
+        assertEquals(Cell.EMPTY, game.getCell(move.x, move.y));
+    }
+}
@@ -0,0 +1,102 @@
+package ai;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for CandidateMoves class
+ */
+public class CandidateMovesTest {
+
+    @Test
+    public void testNeighbourhood() {
+        SearchPosition position = new SearchPosition(100, 5);
+        CandidateMoves candidates = position.candidates;
+        assertEquals(0, candidates.size());
+        position.play(50 * 100 + 50);
+        assertEquals(24, candidates.size());
+        assertFalse(candidates.contains(50 * 100 + 50));
+        assertTrue(candidates.contains(52 * 100 + 52));
+        assertFalse(candidates.contains(53 * 100 + 50));
+        // Соседние клетки важнее дальних
+        assertEquals(2, candidates.hint(51 * 100 + 50));
+        assertEquals(1, candidates.hint(52 * 100 + 50));
+    }
+
+    @Test
+    public void testCorner() {
+        SearchPosition position = new SearchPosition(15, 5);
+        position.play(0);
+        assertEquals(8, position.candidates.size());
+        position.play(1);
+        assertEquals(10, position.candidates.size());
+        position.undo(1);
+        assertEquals(8, position.candidates.size());
+        assertTrue(position.candidates.contains(1));
+        position.undo(0);
+        assertEquals(0, position.candidates.size());
+    }
+
+    @Test
+    public void testFillOrdersByHint() {
+        SearchPosition position = new SearchPosition(15, 5);
+        position.play(7 * 15 + 7);
+        position.play(7 * 15 + 9);
+        int[] moves = new int[position.cells];
+        int n = position.candidates.fill(moves, 1, 7 * 15 + 8);
+        assertEquals(position.candidates.size(), n);
+        // Клетки рядом с обоими символами - первые
+        assertEquals(4, position.candidates.hint(moves[1]));
+        for (int i = 2; i < n; i++) {
+            assertNotEquals("skipped", 7 * 15 + 8, moves[i]);
+            assertTrue(position.candidates.hint(moves[i - 1]) >= position.candidates.hint(moves[i]));
+        }
+    }
+
+    @Test
+    public void testIncrementalMatchesFullScan() {
+        SplittableRandom random = new SplittableRandom(3);
+        SearchPosition position = new SearchPosition(12, 5);
+        int[] played = new int[position.cells];
+        int n = 0;
+        for (int step = 0; step < 3000; step++) {
+            if (n > 0 && (random.nextInt(3) == 0 || n == position.cells)) {
+                position.undo(played[--n]);
+            } else {
+                int cell;
+                do {
+                    cell = random.nextInt(position.cells);
+                } while (position.board[cell] != SearchPosition.EMPTY);
+                position.play(cell);
+                played[n++] = cell;
+            }
+            assertFullScan(position);
+        }
+    }
+
+    private static void assertFullScan(SearchPosition position) {
+        int size = position.size, radius = SearchPosition.CANDIDATE_RADIUS;
+        int expected = 0;
+        for (int cell = 0; cell < position.cells; cell++) {
+            boolean near = false;
+            for (int other = 0; other < position.cells && !near; other++)
+                near = position.board[other] != SearchPosition.EMPTY
+                        && Math.abs(other % size - cell % size) <= radius
+                        && Math.abs(other / size - cell / size) <= radius;
+            boolean candidate = near && position.board[cell] == SearchPosition.EMPTY;
+            assertEquals("cell " + cell, candidate, position.candidates.contains(cell));
+            if (candidate)
+                expected++;
+        }
+        assertEquals(expected, position.candidates.size());
+        boolean[] seen = new boolean[position.cells];
+        for (int i = 0; i < position.candidates.size(); i++) {
+            int cell = position.candidates.get(i);
+            assertFalse("duplicate " + cell, seen[cell]);
+            seen[cell] = true;
+        }
+    }
+}
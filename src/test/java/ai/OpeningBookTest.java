@@ -0,0 +1,291 @@
+package ai;
+
+import model.Game;
+import model.Move;
+import model.UserException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for OpeningBook class
+ */
+public class OpeningBookTest {
+
+    private static List<Move> moves(int... xy) {
+        Move[] moves = new Move[xy.length / 2];
+        for (int i = 0; i < moves.length; i++)
+            moves[i] = new Move(xy[2 * i], xy[2 * i + 1]);
+        return Arrays.asList(moves);
+    }
+
+    private static Game game(List<Move> moves) throws UserException {
+        Game game = new Game();
+        for (Move move : moves)
+            game.move(move);
+        return game;
+    }
+
+    /**
+     * Книга из одной партии: X ходит в угол и выигрывает по диагонали
+     */
+    private static OpeningBook diagonalBook(Path file) throws IOException, UserException {
+        OpeningBook.Builder builder = new OpeningBook.Builder(3, 3, 8);
+        assertTrue(builder.add(moves(0, 0, 1, 0, 1, 1, 2, 0, 2, 2)));
+        assertEquals(1, builder.getGames());
+        // Ходы проигравшего получают вес 0 и в книгу не попадают
+        assertEquals(3, builder.write(file, 1));
+        return OpeningBook.open(file);
+    }
+
+    @Test
+    public void testTransform() {
+        for (int t = 0; t < 8; t++)
+            for (int cell = 0; cell < 16; cell++)
+                assertEquals(cell, OpeningBook.inverse(t, OpeningBook.transform(t, cell, 4), 4));
+        assertEquals(2, OpeningBook.transform(1, 0, 3));
+        assertEquals(6, OpeningBook.transform(4, 2, 3));
+    }
+
+    @Test
+    public void testLookup() throws IOException, UserException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook book = diagonalBook(file);
+            assertEquals(3, book.size());
+            assertEquals(new Move(0, 0).toString(), book.lookup(new Game()).toString());
+            assertEquals(new Move(1, 1).toString(), book.lookup(game(moves(0, 0, 1, 0))).toString());
+            assertNull(book.lookup(game(moves(1, 1))));
+            assertEquals(2, book.getHits());
+            assertEquals(1, book.getMisses());
+            assertNull(book.lookup(new Game(4, 4)));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSymmetricLookup() throws IOException, UserException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook book = diagonalBook(file);
+            // Отражение партии по обеим осям: (0; 0) -> (2; 2), (1; 0) -> (1; 2)
+            assertEquals(new Move(1, 1).toString(), book.lookup(game(moves(2, 2, 1, 2))).toString());
+            // Транспонирование: (1; 0) -> (0; 1)
+            assertEquals(new Move(1, 1).toString(), book.lookup(game(moves(0, 0, 0, 1))).toString());
+            // После (0; 0), (1; 0), (1; 1), (2; 0) - ход (2; 2)
+            assertEquals(new Move(0, 2).toString(),
+                    book.lookup(game(moves(2, 0, 1, 0, 1, 1, 0, 0))).toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testBuilder() throws UserException {
+        OpeningBook.Builder builder = new OpeningBook.Builder(3, 3, 4);
+        assertFalse(builder.add(moves(0, 0, 1, 1)));
+        assertEquals(0, builder.getGames());
+        try {
+            builder.add(moves(0, 0, 0, 0));
+            fail();
+        } catch (UserException e) {
+            // Клетка занята
+        }
+        builder.selfPlay(new GreedyBot(), new RandomBot(), 50, 2, 1);
+        assertEquals(50, builder.getGames());
+        assertTrue(builder.getPositions() > 1);
+    }
+
+    @Test
+    public void testRandomPliesNotRecorded() throws IOException, UserException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook.Builder builder = new OpeningBook.Builder(3, 3, 8);
+            builder.selfPlay(new SearchBot(9), new SearchBot(9), 20, 2, 1);
+            assertTrue(builder.write(file, 1) > 0);
+            OpeningBook book = OpeningBook.open(file);
+            // Первые два хода случайны: ни пустого поля, ни позиций после одного хода
+            assertNull(book.lookup(new Game()));
+            assertNull(book.lookup(game(moves(1, 1))));
+            assertNull(book.lookup(game(moves(0, 0))));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testRanksByScoreRate() throws IOException, UserException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook.Builder builder = new OpeningBook.Builder(3, 3, 1);
+            // Центр - пять ничьих (5 очков), угол - два выигрыша (4 очка)
+            for (int i = 0; i < 5; i++)
+                builder.add(moves(1, 1, 0, 0, 0, 1, 2, 1, 1, 0, 1, 2, 2, 0, 0, 2, 2, 2));
+            for (int i = 0; i < 2; i++)
+                builder.add(moves(0, 0, 1, 0, 1, 1, 2, 0, 2, 2));
+            assertEquals(2, builder.write(file, 1));
+            assertEquals(new Move(0, 0).toString(), OpeningBook.open(file).lookup(new Game()).toString());
+            // Угол сыгран слишком редко
+            assertEquals(1, builder.write(file, 3));
+            assertEquals(new Move(1, 1).toString(), OpeningBook.open(file).lookup(new Game()).toString());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFind() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook.Builder builder = new OpeningBook.Builder(5, 4, 6);
+            builder.selfPlay(new RandomBot(), new RandomBot(), 500, 0, 7);
+            int entries = builder.write(file, 1);
+            OpeningBook book = OpeningBook.open(file);
+            assertEquals(entries, book.size());
+            assertTrue(entries > 1000);
+            for (int i = 0; i < entries; i++) {
+                int found = book.find(book.key(i));
+                assertTrue(found <= i);
+                assertEquals(book.key(i), book.key(found));
+                if (found > 0)
+                    assertNotEquals(book.key(i), book.key(found - 1));
+                // Лучший ход позиции - первым
+                assertTrue(book.score(found) >= book.score(i));
+            }
+            assertEquals(-1, book.find(book.key(0) - 1));
+            assertEquals(-1, book.find(book.key(entries - 1) + 1));
+            // Ключ между соседними записями
+            int gaps = 0;
+            for (int i = 0; i + 1 < entries; i++) {
+                if (book.key(i + 1) - book.key(i) > 1) {
+                    assertEquals(-1, book.find(book.key(i) + 1));
+                    gaps++;
+                }
+            }
+            assertTrue(gaps > 0);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testNotABook() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            Files.write(file, new byte[100]);
+            OpeningBook.open(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testEmptyBook() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            assertEquals(0, new OpeningBook.Builder(3, 3, 8).write(file, 1));
+            OpeningBook book = OpeningBook.open(file);
+            assertEquals(0, book.size());
+            assertEquals(-1, book.find(0));
+            assertNull(book.lookup(new Game()));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testCorruptBook() throws IOException, UserException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            diagonalBook(file);
+            // Лишний байт: количество записей не сходится с размером файла
+            Files.write(file, new byte[1], StandardOpenOption.APPEND);
+            OpeningBook.open(file);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("повреждена"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testHugeFile() throws IOException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            // Разреженный файл: место на диске не занимает
+            try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+                raf.setLength(Integer.MAX_VALUE + 1L);
+            }
+            OpeningBook.open(file);
+            fail();
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("больше 2 Гб"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSelfPlayIllegalMove() {
+        OpeningBook.Builder builder = new OpeningBook.Builder(3, 3, 8);
+        Bot corner = (game, random) -> new Move(0, 0);
+        try {
+            builder.selfPlay(corner, corner, 1, 0, 1);
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getCause() instanceof UserException);
+        }
+        assertEquals(0, builder.getGames());
+    }
+
+    @Test
+    public void testSearchBotUsesBook() throws IOException, UserException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            OpeningBook book = diagonalBook(file);
+            SearchBot bot = new SearchBot(6, new TranspositionTable(1 << 10), book);
+            assertSame(book, bot.getBook());
+            SearchBot.Search search = bot.new Search(new SearchPosition(new Game()));
+            Move move = search.run();
+            assertTrue(search.fromBook);
+            assertEquals(0, search.nodes);
+            assertEquals(new Move(0, 0).toString(), move.toString());
+            search = bot.new Search(new SearchPosition(game(moves(1, 1))));
+            search.run();
+            assertFalse(search.fromBook);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSearchBotBlocksBeforeBook() throws IOException, UserException {
+        Path file = Files.createTempFile("book", ".bin");
+        try {
+            // O не закрыл (2; 0), но X ошибся дальше, и O выиграл:
+            // в книге после (0; 0), (1; 1), (1; 0) ход O - (2; 2)
+            OpeningBook.Builder builder = new OpeningBook.Builder(3, 3, 8);
+            assertTrue(builder.add(moves(0, 0, 1, 1, 1, 0, 2, 2, 2, 1, 2, 0, 0, 1, 0, 2)));
+            builder.write(file, 1);
+            OpeningBook book = OpeningBook.open(file);
+            Game game = game(moves(0, 0, 1, 1, 1, 0));
+            assertEquals(new Move(2, 2).toString(), book.lookup(game).toString());
+            SearchBot.Search search = new SearchBot(9, new TranspositionTable(1 << 10), book)
+                    .new Search(new SearchPosition(game));
+            assertEquals(new Move(2, 0).toString(), search.run().toString());
+            assertFalse(search.fromBook);
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
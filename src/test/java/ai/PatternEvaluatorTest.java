@@ -0,0 +1,95 @@
+package ai;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for PatternEvaluator class
+ */
+public class PatternEvaluatorTest {
+
+    @Test
+    public void testEmptyBoard() {
+        SearchPosition position = new SearchPosition(15, 5);
+        int windows = position.windowCount();
+        assertEquals(2 * 15 * 11 + 2 * 11 * 11, windows);
+        assertEquals(windows, position.patterns.patterns(SearchPosition.X, 0));
+        assertEquals(windows, position.patterns.patterns(SearchPosition.O, 0));
+        assertEquals(0, position.evaluate());
+    }
+
+    @Test
+    public void testOpenPatterns() {
+        SearchPosition position = new SearchPosition(5, 3);
+        position.play(12); // X в центре
+        position.play(0);  // O в углу
+        position.play(13); // X рядом с центром
+        PatternEvaluator patterns = position.patterns;
+        // Открытые двойки X: строка 2 (отрезки 11-13 и 12-14)
+        assertEquals(2, patterns.patterns(SearchPosition.X, 2));
+        assertEquals(0, patterns.patterns(SearchPosition.X, 3));
+        // O в углу: 3 отрезка, диагональ закрыта X в центре
+        assertEquals(2, patterns.patterns(SearchPosition.O, 1));
+    }
+
+    @Test
+    public void testIncrementalMatchesFullScan() {
+        SplittableRandom random = new SplittableRandom(7);
+        SearchPosition position = new SearchPosition(15, 5);
+        int[] played = new int[position.cells];
+        int n = 0;
+        for (int step = 0; step < 2000; step++) {
+            if (n > 0 && (random.nextInt(3) == 0 || n == position.cells)) {
+                position.undo(played[--n]);
+            } else {
+                int cell;
+                do {
+                    cell = random.nextInt(position.cells);
+                } while (position.board[cell] != SearchPosition.EMPTY);
+                position.play(cell);
+                played[n++] = cell;
+            }
+            assertFullScan(position);
+        }
+        while (n > 0)
+            position.undo(played[--n]);
+        assertEquals(0, position.evaluate());
+    }
+
+    /**
+     * Сравнение со счётом по всем отрезкам
+     */
+    private static void assertFullScan(SearchPosition position) {
+        int[] xPatterns = new int[position.winLength + 1];
+        int[] oPatterns = new int[position.winLength + 1];
+        int score = 0;
+        for (int w = 0; w < position.windowCount(); w++) {
+            int xs = 0, os = 0;
+            for (int k = 0; k < position.winLength; k++) {
+                byte cell = position.board[position.windowCell(w, k)];
+                if (cell == SearchPosition.X)
+                    xs++;
+                else if (cell == SearchPosition.O)
+                    os++;
+            }
+            assertEquals(xs, position.count(w, SearchPosition.X));
+            assertEquals(os, position.count(w, SearchPosition.O));
+            if (os == 0) {
+                xPatterns[xs]++;
+                score += xs == 0 ? 0 : 1 << 2 * (xs - 1);
+            }
+            if (xs == 0) {
+                oPatterns[os]++;
+                score -= os == 0 ? 0 : 1 << 2 * (os - 1);
+            }
+        }
+        for (int k = 0; k <= position.winLength; k++) {
+            assertEquals(xPatterns[k], position.patterns.patterns(SearchPosition.X, k));
+            assertEquals(oPatterns[k], position.patterns.patterns(SearchPosition.O, k));
+        }
+        assertEquals(position.toMove == SearchPosition.X ? score : -score, position.evaluate());
+    }
+}
@@ -0,0 +1,92 @@
+package ai;
+
+import model.Game;
+import model.UserException;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Perft class
+ */
+public class PerftTest {
+
+    @Test
+    public void testAllGames3x3() {
+        Perft perft = new Perft(2);
+        for (Perft.Result result : new Perft.Result[]{perft.run(new Game(), 9), perft.runModel(new Game(), 9)}) {
+            assertEquals(Perft.GAMES_3X3, result.getLeaves());
+            assertEquals(Perft.X_WINS_3X3, result.xWins);
+            assertEquals(Perft.O_WINS_3X3, result.oWins);
+            assertEquals(Perft.DRAWS_3X3, result.draws);
+            assertEquals(0, result.unfinished);
+            // Все последовательности ходов до конца игры и сама пустая позиция
+            assertEquals(549_946, result.nodes);
+            assertTrue(result.getNodesPerSecond() > 0);
+        }
+    }
+
+    @Test
+    public void testShallow() {
+        Perft perft = new Perft(1);
+        assertEquals(1, perft.run(new Game(), 0).unfinished);
+        assertEquals(9, perft.run(new Game(), 1).getLeaves());
+        assertEquals(72, perft.run(new Game(), 2).getLeaves());
+        Perft.Result five = perft.run(new Game(), 5);
+        assertEquals(15_120, five.getLeaves());
+        assertEquals(1_440, five.xWins);
+    }
+
+    @Test
+    public void testEnginesAgree() throws UserException {
+        Perft perft = new Perft(3);
+        Game game = new Game(4, 3);
+        game.move(1, 1);
+        game.move(2, 2);
+        Perft.Result search = perft.run(game, 6);
+        Perft.Result model = perft.runModel(game, 6);
+        assertTrue(search + "\n" + model, search.sameCounts(model));
+        assertTrue(search.xWins > 0);
+        assertTrue(search.unfinished > 0);
+    }
+
+    @Test
+    public void testGameOver() throws UserException {
+        Game game = new Game();
+        game.move(0, 0);
+        game.move(0, 1);
+        game.move(1, 0);
+        game.move(1, 1);
+        game.move(2, 0);
+        Perft.Result result = new Perft(1).run(game, 4);
+        assertEquals(1, result.getLeaves());
+        assertEquals(1, result.xWins);
+    }
+
+    /**
+     * Игра, которая отклоняет любой ход
+     */
+    private static class RejectingGame extends Game {
+        @Override
+        public Game copy() {
+            return new RejectingGame();
+        }
+
+        @Override
+        public void move(int x, int y) throws UserException {
+            throw new UserException(UserException.Reason.GAME_OVER, "Ход невозможен!");
+        }
+    }
+
+    @Test
+    public void testRejectedMove() {
+        try {
+            new Perft(1).runModel(new RejectingGame(), 1);
+            fail();
+        } catch (IllegalStateException e) {
+            Throwable error = e.getCause() instanceof IllegalStateException ? e.getCause() : e;
+            assertTrue(error.getMessage(), error.getMessage().contains("(0; 0) отклонён"));
+            assertTrue(error.getCause() instanceof UserException);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ai;
+
+import model.Game;
+import model.Move;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for PonderingPlayer class
+ */
+public class PonderingPlayerTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void testPonderedReplyIsTakenFromTable() throws Exception {
+        // Размышление выполняется сразу в том же потоке
+        PonderingPlayer player = new PonderingPlayer(new SearchBot(3), Runnable::run);
+        Game game = new Game(4);
+        game.move(1, 1); // X
+        Move own = player.requestMove(game, System.nanoTime() + 10 * SECOND).get();
+        game.move(own);  // O
+        assertEquals(0, player.getPonderHits());
+
+        game.move(2, 2); // X - любой ответ обдуман
+        Move reply = player.requestMove(game, System.nanoTime() + 10 * SECOND).get();
+        assertEquals(1, player.getPonderHits());
+        assertEquals(2, player.getRequests());
+
+        SearchBot fresh = new SearchBot(3);
+        assertEquals(fresh.nextMove(game, null).toString(), reply.toString());
+        assertSame(player.getBot(), player.getBot());
+    }
+
+    @Test
+    public void testWinningMoveEndsPondering() throws Exception {
+        PonderingPlayer player = new PonderingPlayer(new SearchBot(2), Runnable::run);
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(0, 1); // O
+        game.move(1, 0); // X
+        game.move(1, 1); // O
+        assertEquals("(2; 0)", player.requestMove(game, System.nanoTime() + SECOND).get().toString());
+    }
+
+    @Test
+    public void testFinalReplyIsPondered() throws Exception {
+        // После хода бота соперник может закончить игру ничьей или выигрышем
+        PonderingPlayer player = new PonderingPlayer(new SearchBot(9), Runnable::run);
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(1, 1); // O
+        game.move(2, 2); // X
+        game.move(0, 2); // O
+        game.move(2, 0); // X
+        assertNotNull(player.requestMove(game, System.nanoTime() + SECOND).get());
+    }
+
+    @Test
+    public void testRequestStopsPondering() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        PonderingPlayer player = new PonderingPlayer(new SearchBot(20), executor);
+        try {
+            Game game = new Game(7, 4);
+            long start = System.nanoTime();
+            game.move(player.requestMove(game, start + SECOND / 20).get(5, TimeUnit.SECONDS));
+            // Поток занят размышлением, пока не придёт следующий запрос
+            game.move(0, 0);
+            long second = System.nanoTime();
+            Move reply = player.requestMove(game, second + SECOND / 20).get(5, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - second < SECOND);
+            game.move(reply);
+        } finally {
+            // Поиск не реагирует на прерывание потока, только на остановку
+            player.stopPondering();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Таблица, которая останавливает размышление, когда корень поиска
+     * с ходами сверх начальной позиции записан на полную глубину.
+     * Так корень ищет только сам поиск: внутри других поисков эти
+     * позиции записываются на меньшую глубину
+     */
+    private static class StoppingTable extends TranspositionTable {
+        private final Set<Long> roots = new HashSet<>();
+        private final int depth;
+        PonderingPlayer player;
+
+        StoppingTable(Game game, int extraMoves, int depth) {
+            super(1 << 16);
+            this.depth = depth;
+            collect(new SearchPosition(game), extraMoves);
+        }
+
+        private void collect(SearchPosition position, int extraMoves) {
+            if (extraMoves == 0) {
+                roots.add(position.hash);
+                return;
+            }
+            for (int cell = 0; cell < position.cells; cell++) {
+                if (position.board[cell] != SearchPosition.EMPTY)
+                    continue;
+                position.play(cell);
+                collect(position, extraMoves - 1);
+                position.undo(cell);
+            }
+        }
+
+        @Override
+        void store(long hash, int depth, int flag, int score, int move) {
+            super.store(hash, depth, flag, score, move);
+            if (depth == this.depth && roots.contains(hash))
+                player.stopPondering();
+        }
+    }
+
+    /**
+     * Ход бота с размышлением, остановленным после поиска с корнем
+     * на extraMoves ходов дальше позиции запроса
+     *
+     * @return количество поисков ответа соперника
+     */
+    private static long ponderUntil(int extraMoves) throws Exception {
+        Game game = new Game(7, 4);
+        game.move(3, 3);
+        StoppingTable table = new StoppingTable(game, extraMoves, 2);
+        PonderingPlayer player = new PonderingPlayer(new SearchBot(2, table), Runnable::run);
+        table.player = player;
+        player.requestMove(game, System.nanoTime() + 10 * SECOND).get();
+        return table.getProbes();
+    }
+
+    @Test
+    public void testCancelledWhilePondering() throws Exception {
+        // Остановка сразу после предсказания ответа: ответы не ищутся
+        long predicted = ponderUntil(1);
+        // Остановка после поиска на предсказанный ответ: следующий не ищется
+        long firstReply = ponderUntil(2);
+        assertTrue(firstReply > predicted);
+    }
+}
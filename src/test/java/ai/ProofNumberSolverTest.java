@@ -0,0 +1,118 @@
+package ai;
+
+import model.Game;
+import model.UserException;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static ai.ProofNumberSolver.Result.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ProofNumberSolver class
+ */
+public class ProofNumberSolverTest {
+
+    private static Game game(int size, int winLength, int... xy) throws UserException {
+        Game game = new Game(size, winLength);
+        for (int i = 0; i < xy.length; i += 2)
+            game.move(xy[i], xy[i + 1]);
+        return game;
+    }
+
+    @Test
+    public void testEmptyBoardIsDraw() {
+        ProofNumberSolver solver = new ProofNumberSolver(1 << 12, 1_000_000);
+        assertEquals(DRAW, solver.solve(new Game()));
+        assertTrue(solver.getNodes() > 0);
+        assertTrue(solver.getElapsedNanos() > 0);
+        assertTrue(solver.getNodesPerSecond() > 0);
+        assertTrue(solver.getTableSize() > 0);
+        assertEquals(1 << 12, solver.getTableCapacity());
+        assertTrue(solver.toString().startsWith("Позиций: "));
+    }
+
+    @Test
+    public void testFirstPlayerWins() {
+        assertEquals(WIN, new ProofNumberSolver(1 << 12, 1_000_000).solve(new Game(4, 3)));
+    }
+
+    @Test
+    public void testImmediateWin() throws UserException {
+        assertEquals(WIN, new ProofNumberSolver(64, 100).solve(game(3, 3, 0, 0, 0, 1, 1, 0, 1, 1)));
+    }
+
+    @Test
+    public void testLoss() throws UserException {
+        // O должен закрыть (2; 2), после чего X ставит вилку (0; 2)
+        assertEquals(LOSS, new ProofNumberSolver(1024, 10_000).solve(game(3, 3, 1, 1, 1, 0, 0, 0)));
+    }
+
+    @Test
+    public void testNodeLimit() {
+        assertEquals(UNKNOWN, new ProofNumberSolver(1024, 10).solve(new Game(4, 4)));
+    }
+
+    @Test
+    public void testNodeLimitInSecondPass() {
+        // Выигрыш опровергнут, а на доказательство ничьей позиций не хватило
+        ProofNumberSolver full = new ProofNumberSolver(1 << 12, 1_000_000);
+        assertEquals(DRAW, full.solve(new Game()));
+        ProofNumberSolver limited = new ProofNumberSolver(1 << 12, full.getNodes() - 1);
+        assertEquals(UNKNOWN, limited.solve(new Game()));
+        assertEquals(full.getNodes(), limited.getNodes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGameOver() throws UserException {
+        new ProofNumberSolver(64, 100).solve(game(3, 3, 0, 0, 0, 1, 1, 0, 1, 1, 2, 0));
+    }
+
+    @Test
+    public void testSmallTable() {
+        // Таблица намного меньше дерева: записи вытесняются, результат тот же
+        ProofNumberSolver solver = new ProofNumberSolver(64, 10_000_000);
+        assertEquals(DRAW, solver.solve(new Game()));
+        assertTrue(solver.getCollections() > 0);
+    }
+
+    /**
+     * Полный перебор: 1 - выигрыш, 0 - ничья, -1 - проигрыш того, кто ходит
+     */
+    private static int negamax(SearchPosition p) {
+        int best = -1;
+        for (int cell = 0; cell < p.cells && best < 1; cell++) {
+            if (p.board[cell] != SearchPosition.EMPTY)
+                continue;
+            p.play(cell);
+            int score = p.isWin(cell) ? 1 : p.isFull() ? 0 : -negamax(p);
+            p.undo(cell);
+            best = Math.max(best, score);
+        }
+        return best;
+    }
+
+    @Test
+    public void testMatchesFullSearch() throws UserException {
+        SplittableRandom random = new SplittableRandom(7);
+        ProofNumberSolver solver = new ProofNumberSolver(1 << 12, 1_000_000);
+        for (int i = 0; i < 100; i++) {
+            Game game = new Game(4, 4);
+            int moves = 8 + random.nextInt(4);
+            for (int m = 0; m < moves && !game.isOver(); m++) {
+                int x, y;
+                do {
+                    x = random.nextInt(4);
+                    y = random.nextInt(4);
+                } while (game.getCell(x, y) != model.Cell.EMPTY);
+                game.move(x, y);
+            }
+            if (game.isOver())
+                continue;
+            int expected = negamax(new SearchPosition(game));
+            assertEquals(game.toString(), expected > 0 ? WIN : expected < 0 ? LOSS : DRAW,
+                    solver.solve(game));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ai;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ProofTable class
+ */
+public class ProofTableTest {
+
+    @Test
+    public void testCapacity() {
+        assertEquals(ProofTable.WAYS, new ProofTable(0).getCapacity());
+        assertEquals(8, new ProofTable(5).getCapacity());
+        assertEquals(1024, new ProofTable(1024).getCapacity());
+    }
+
+    @Test
+    public void testStoreAndFind() {
+        ProofTable table = new ProofTable(16);
+        assertEquals(-1, table.find(42));
+        table.store(42, 3, 5, 10);
+        int entry = table.find(42);
+        assertTrue(entry >= 0);
+        assertEquals(3, table.pn(entry));
+        assertEquals(5, table.dn(entry));
+        table.store(42, 0, ProofNumberSolver.INF, 1);
+        entry = table.find(42);
+        assertEquals(0, table.pn(entry));
+        assertEquals(ProofNumberSolver.INF, table.dn(entry));
+        assertEquals(1, table.size());
+        // Хэш 0 - тоже обычная позиция
+        table.store(0, 7, 7, 1);
+        assertEquals(7, table.pn(table.find(0)));
+        assertEquals(2, table.size());
+    }
+
+    @Test
+    public void testEvictsLeastWork() {
+        // 16 записей - 4 корзины по 4: хэши 4, 8, 12, 16, 20 в одной корзине
+        ProofTable table = new ProofTable(16);
+        table.store(4, 1, 1, 5);
+        table.store(8, 1, 1, 1);
+        table.store(12, 1, 1, 7);
+        table.store(16, 1, 1, 3);
+        // Работа накапливается при обновлении: у 8 теперь 1 + 9
+        table.store(8, 2, 2, 9);
+        table.store(20, 1, 1, 2);
+        assertEquals(1, table.getEvictions());
+        assertEquals(-1, table.find(16));
+        assertTrue(table.find(8) >= 0);
+        assertTrue(table.find(20) >= 0);
+        assertEquals(4, table.size());
+    }
+
+    @Test
+    public void testCollectKeepsMostWork() {
+        ProofTable table = new ProofTable(64);
+        for (int i = 1; i <= 50; i++)
+            table.store(i, 1, 1, i);
+        assertEquals(50, table.size());
+        assertEquals(0, table.getCollections());
+        table.collect();
+        assertEquals(1, table.getCollections());
+        assertTrue(table.size() <= 25);
+        for (int i = 1; i <= 50; i++) {
+            if (table.find(i) >= 0)
+                assertTrue(i >= 16);
+        }
+        assertTrue(table.find(50) >= 0);
+    }
+
+    @Test
+    public void testCollectWhenFull() {
+        ProofTable table = new ProofTable(64);
+        for (int i = 1; i <= 64; i++)
+            table.store(i, 1, 1, i);
+        assertTrue(table.getCollections() > 0);
+        assertTrue(table.size() < 64 * ProofTable.GC_LOAD);
+        assertTrue(table.find(64) >= 0);
+    }
+
+    @Test
+    public void testClear() {
+        ProofTable table = new ProofTable(16);
+        table.store(1, 1, 1, 1);
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(-1, table.find(1));
+    }
+}
@@ -0,0 +1,187 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.UserException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import static ai.ProofNumberSolver.Result.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for RetrogradeSolver class
+ */
+public class RetrogradeSolverTest {
+    private static final PrintStream NO_LOG = new PrintStream(OutputStream.nullOutputStream());
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testCount() {
+        RetrogradeSolver solver = new RetrogradeSolver(3, 3, Path.of("unused"), 1);
+        assertEquals(1, solver.count(0));
+        assertEquals(9, solver.count(1));
+        assertEquals(72, solver.count(2));
+        assertEquals(126, solver.count(9));
+    }
+
+    @Test
+    public void testIndexIsDense() {
+        // Номера всех позиций слоя различны и лежат в [0, count)
+        RetrogradeSolver solver = new RetrogradeSolver(3, 3, Path.of("unused"), 1);
+        int n = 4;
+        boolean[] seen = new boolean[(int) solver.count(n)];
+        for (long occupied = 0; occupied < 1 << 9; occupied++) {
+            if (Long.bitCount(occupied) != n)
+                continue;
+            for (long xs = occupied; ; xs = (xs - 1) & occupied) {
+                if (Long.bitCount(xs) == n / 2) {
+                    long index = solver.index(occupied, xs);
+                    assertFalse(seen[(int) index]);
+                    seen[(int) index] = true;
+                }
+                if (xs == 0)
+                    break;
+            }
+        }
+        for (boolean b : seen)
+            assertTrue(b);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        new RetrogradeSolver(7, 4, Path.of("unused"), 1);
+    }
+
+    @Test
+    public void testSolve() throws IOException, UserException {
+        Path directory = Files.createTempDirectory("tablebase");
+        try {
+            RetrogradeSolver solver = new RetrogradeSolver(3, 3, directory, 2);
+            solver.solve(NO_LOG);
+            assertEquals(10, solver.getLayersComputed());
+            assertEquals(6046, solver.getPositions());
+            assertEquals(LayerFile.bytes(solver.count(4)), Files.size(solver.layerPath(4)));
+            assertEquals(DRAW, solver.lookup(new Game()));
+            Game game = new Game();
+            game.move(1, 1);
+            game.move(1, 0);
+            assertEquals(WIN, solver.lookup(game));
+            game.move(0, 0);
+            assertEquals(LOSS, solver.lookup(game));
+            game.move(2, 2);
+            game.move(0, 2);
+            game.move(0, 1);
+            game.move(2, 0);
+            assertTrue(game.isOver());
+            assertEquals(LOSS, solver.lookup(game));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testMatchesProofNumberSolver() throws IOException, UserException {
+        Path directory = Files.createTempDirectory("tablebase");
+        try {
+            RetrogradeSolver solver = new RetrogradeSolver(4, 3, directory, 4);
+            solver.solve(NO_LOG);
+            assertEquals(WIN, solver.lookup(new Game(4, 3)));
+            ProofNumberSolver pn = new ProofNumberSolver(1 << 14, 10_000_000);
+            SplittableRandom random = new SplittableRandom(3);
+            for (int i = 0; i < 200; i++) {
+                Game game = new Game(4, 3);
+                int moves = 1 + random.nextInt(8);
+                for (int m = 0; m < moves && !game.isOver(); m++) {
+                    int x, y;
+                    do {
+                        x = random.nextInt(4);
+                        y = random.nextInt(4);
+                    } while (game.getCell(x, y) != Cell.EMPTY);
+                    game.move(x, y);
+                }
+                if (!game.isOver())
+                    assertEquals(game.toString(), pn.solve(game), solver.lookup(game));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testResume() throws IOException {
+        Path directory = Files.createTempDirectory("tablebase");
+        try {
+            new RetrogradeSolver(3, 3, directory, 1).solve(NO_LOG);
+            // Прерванный расчёт: слои 0 и 1 не отмечены готовыми, файл слоя 1 испорчен
+            Files.delete(directory.resolve("3x3-k3-00.done"));
+            Files.delete(directory.resolve("3x3-k3-01.done"));
+            Files.write(directory.resolve("3x3-k3-01.bin"), new byte[]{1});
+            RetrogradeSolver solver = new RetrogradeSolver(3, 3, directory, 1);
+            assertFalse(solver.isComplete(0));
+            assertTrue(solver.isComplete(2));
+            solver.solve(NO_LOG);
+            assertEquals(2, solver.getLayersComputed());
+            assertEquals(8, solver.getLayersResumed());
+            assertEquals(10, solver.getPositions());
+            assertEquals(DRAW, solver.lookup(new Game()));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLayerNotComputed() throws IOException {
+        new RetrogradeSolver(3, 3, Path.of("unused"), 1).lookup(new Game());
+    }
+
+    @Test
+    public void testLookupErrors() throws IOException {
+        Path directory = Files.createTempDirectory("tablebase");
+        try {
+            RetrogradeSolver solver = new RetrogradeSolver(3, 3, directory, 1);
+            solver.solve(NO_LOG);
+            try {
+                solver.lookup(new Game(4, 3));
+                fail();
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("3x3"));
+            }
+            // Линии есть у обоих игроков - такой позиции в партии не бывает
+            Game both = new Game();
+            for (int x = 0; x < 3; x++) {
+                both.getField()[x][0].setCell(Cell.X);
+                both.getField()[x][1].setCell(Cell.O);
+            }
+            try {
+                solver.lookup(both);
+                fail();
+            } catch (IllegalStateException e) {
+                assertTrue(e.getMessage().startsWith("Недостижимая позиция"));
+            }
+            // Файл готового слоя обрезан
+            Files.write(solver.layerPath(0), new byte[0]);
+            try {
+                solver.lookup(new Game());
+                fail();
+            } catch (IOException e) {
+                assertTrue(e.getMessage().contains("ожидалось 1"));
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+}
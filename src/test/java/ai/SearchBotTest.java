@@ -0,0 +1,279 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.Move;
+import model.UserException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import metrics.SearchEvent;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SearchBot class
+ */
+public class SearchBotTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadDepth() {
+        new SearchBot(0);
+    }
+
+    @Test
+    public void testByName() {
+        SearchBot bot = (SearchBot) Bots.byName("search");
+        assertEquals(Bots.SEARCH_DEPTH, bot.getDepth());
+        assertNotNull(bot.getTable());
+    }
+
+    @Test
+    public void testWins() throws UserException {
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(0, 1); // O
+        game.move(1, 0); // X
+        game.move(1, 1); // O
+        assertEquals("(2; 0)", new SearchBot(1).nextMove(game, null).toString());
+    }
+
+    @Test
+    public void testBlocks() throws UserException {
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(2, 2); // O
+        game.move(1, 0); // X
+        assertEquals("(2; 0)", new SearchBot(2).nextMove(game, null).toString());
+    }
+
+    @Test
+    public void testPrefersCenter() {
+        assertEquals("(2; 2)", new SearchBot(1).nextMove(new Game(5, 4), null).toString());
+        assertEquals("(1; 1)", new SearchBot(1).nextMove(new Game(4), null).toString());
+    }
+
+    @Test
+    public void testPerfectPlayDraws() throws UserException {
+        Game game = new Game();
+        SearchBot bot = new SearchBot(9);
+        while (!game.isOver())
+            game.move(bot.nextMove(game, null));
+        assertEquals(Game.State.DRAW, game.getState());
+        assertTrue(bot.getTable().getHits() > 0);
+    }
+
+    @Test
+    public void testNeverLosesToRandom() throws UserException {
+        SearchBot bot = new SearchBot(9);
+        for (int seed = 0; seed < 20; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Game game = new Game();
+            Cell searcher = seed % 2 == 0 ? Cell.X : Cell.O;
+            while (!game.isOver()) {
+                Move move = game.getCurrentPlayer() == searcher
+                        ? bot.nextMove(game, random)
+                        : RandomBot.randomMove(game, random);
+                game.move(move);
+            }
+            assertNotEquals("seed " + seed,
+                    searcher == Cell.X ? Game.State.O_WINS : Game.State.X_WINS, game.getState());
+        }
+    }
+
+    @Test
+    public void testRepeatedSearchUsesTable() throws UserException {
+        Game game = new Game(4);
+        game.move(1, 1);
+        SearchBot bot = new SearchBot(3);
+        SearchBot.Search first = bot.new Search(new SearchPosition(game));
+        Move move = first.run();
+        assertFalse(first.fromTable);
+        assertTrue(first.nodes > 0);
+        SearchBot.Search second = bot.new Search(new SearchPosition(game));
+        assertEquals(move.toString(), second.run().toString());
+        assertTrue(second.fromTable);
+        assertEquals(0, second.nodes);
+    }
+
+    @Test
+    public void testDeepensToFullDepth() throws UserException {
+        Game game = new Game(4);
+        game.move(0, 0);
+        SearchBot.Search search = new SearchBot(4).new Search(new SearchPosition(game));
+        search.run();
+        assertEquals(4, search.completedDepth);
+        assertFalse(search.isStopped());
+    }
+
+    @Test
+    public void testStopsDeepeningOnForcedLoss() throws UserException {
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(2, 2); // O
+        game.move(0, 2); // X
+        game.move(0, 1); // O
+        game.move(2, 0); // X - две угрозы: (1; 0) и (1; 1)
+        SearchBot.Search search = new SearchBot(9).new Search(new SearchPosition(game));
+        search.run();
+        assertFalse(search.fromThreats);
+        assertEquals(2, search.completedDepth);
+        assertEquals(-(SearchBot.WIN - 2), search.score);
+    }
+
+    @Test
+    public void testThreatsBeforeSearch() throws UserException {
+        Game game = new Game();
+        game.move(0, 0); // X
+        game.move(0, 1); // O
+        game.move(1, 0); // X
+        game.move(1, 1); // O
+        SearchBot.Search search = new SearchBot(9).new Search(new SearchPosition(game));
+        assertEquals("(2; 0)", search.run().toString());
+        assertTrue(search.fromThreats);
+        assertEquals(0, search.nodes);
+    }
+
+    @Test
+    public void testThreesAreSearched() throws UserException {
+        // Выигрыш через тройки (2; 2) здесь ложный: после него выигрывают O.
+        // Он только перебирается первым, а доказанным выигрышем не считается
+        Game game = new Game(6, 4);
+        game.move(5, 2);
+        game.move(1, 2);
+        game.move(5, 5);
+        game.move(0, 2);
+        game.move(0, 4);
+        game.move(4, 2);
+        ThreatSolver threats = new ThreatSolver(20_000, 2);
+        assertEquals("(2; 2)", threats.solve(game).toString());
+        assertFalse(threats.isExact());
+        SearchBot.Search search = new SearchBot(4).new Search(new SearchPosition(game));
+        assertNotEquals("(2; 2)", search.run().toString());
+        assertFalse(search.fromThreats);
+        assertTrue(search.nodes > 0);
+        assertEquals(4, search.completedDepth);
+        assertTrue(Math.abs(search.score) < SearchBot.WIN / 2);
+    }
+
+    @Test
+    public void testAspirationKeepsPlayStrength() throws UserException {
+        // Партия переборных ботов на 4x4 проходит через повторные
+        // поиски с расширенным окном и заканчивается ничьей
+        Game game = new Game(4);
+        SearchBot x = new SearchBot(5), o = new SearchBot(5);
+        while (!game.isOver())
+            game.move((game.getCurrentPlayer() == Cell.X ? x : o).nextMove(game, null));
+        assertEquals(Game.State.DRAW, game.getState());
+    }
+
+    @Test
+    public void testSearchEvent() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable(SearchEvent.class);
+            recording.start();
+            new SearchBot(3).nextMove(new Game(4), null);
+            recording.stop();
+            Path file = Files.createTempFile("tictactoe", ".jfr");
+            try {
+                recording.dump(file);
+                List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                        .filter(e -> e.getEventType().getName().equals("tictactoe.Search"))
+                        .collect(Collectors.toList());
+                assertEquals(1, events.size());
+                assertEquals("SearchBot", events.get(0).getString("searcher"));
+                assertEquals(3, events.get(0).getInt("depth"));
+                assertTrue(events.get(0).getLong("nodes") > 0);
+                assertTrue(events.get(0).getDouble("ttHitRate") > 0);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void testLargeBoardSearchesNearStones() throws UserException {
+        Game game = new Game(100, 5);
+        game.move(50, 50);
+        game.move(51, 51);
+        SearchBot.Search search = new SearchBot(3).new Search(new SearchPosition(game));
+        Move move = search.run();
+        assertEquals(3, search.completedDepth);
+        assertTrue(Math.abs(move.x - 50) <= 2 && Math.abs(move.y - 50) <= 2);
+        assertTrue("Branching is limited to the neighbourhood", search.nodes < 100_000);
+    }
+
+    @Test
+    public void testExpiredDeadlineStillGivesMove() {
+        Game game = new Game(7, 4);
+        Move move = new SearchBot(8).nextMove(game, null, System.nanoTime() - 1);
+        assertEquals("(3; 3)", move.toString());
+    }
+
+    @Test
+    public void testDeadlineStopsSearch() {
+        Game game = new Game(7, 4);
+        long start = System.nanoTime();
+        SearchBot.Search search = new SearchBot(20).new Search(new SearchPosition(game));
+        search.deadline(start + 100_000_000L);
+        Move move = search.run();
+        assertTrue(System.nanoTime() - start < 2_000_000_000L);
+        assertEquals(Cell.EMPTY, game.getCell(move.x, move.y));
+        assertTrue(search.completedDepth >= 1);
+        assertTrue(search.completedDepth < 20);
+    }
+
+    @Test
+    public void testLargeBoardMeetsDeadline() throws UserException {
+        // Разбросанные камни: сотни кандидатов у каждой позиции и много
+        // угроз, так что и поиск угроз, и первая итерация дольше срока
+        long budget = 200_000_000L;
+        for (int seed = 0; seed < 3; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Game game = new Game(60, 5);
+            while (game.getMoveCount() < 80) {
+                Move move = new Move(random.nextInt(60), random.nextInt(60));
+                if (game.getCell(move.x, move.y) == Cell.EMPTY)
+                    game.move(move);
+            }
+            assertFalse(game.isOver());
+            SearchBot bot = new SearchBot(6);
+            long start = System.nanoTime();
+            Move move = bot.nextMove(game, null, start + budget);
+            long elapsed = System.nanoTime() - start;
+            assertTrue("Move took " + elapsed / 1_000_000 + " ms", elapsed < budget);
+            assertEquals(Cell.EMPTY, game.getCell(move.x, move.y));
+        }
+    }
+
+    @Test
+    public void testCancel() {
+        SearchBot bot = new SearchBot(20);
+        SearchBot.Search search = bot.new Search(new SearchPosition(new Game(7, 4)));
+        search.cancel();
+        assertNotNull(search.run());
+        assertTrue(search.isStopped());
+    }
+
+    @Test
+    public void testEvaluate() {
+        SearchPosition position = new SearchPosition(3, 3);
+        assertEquals(0, position.evaluate());
+        position.play(4); // X в центре: 4 отрезка
+        assertEquals(-4, position.evaluate());
+        position.play(0); // O в углу закрывает 2 отрезка X
+        assertEquals(3 - 2, position.evaluate());
+        position.undo(0);
+        position.undo(4);
+        assertEquals(0, position.moves);
+        assertEquals(new SearchPosition(3, 3).hash, position.hash);
+    }
+}
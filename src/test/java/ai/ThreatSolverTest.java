@@ -0,0 +1,155 @@
+package ai;
+
+import model.Cell;
+import model.Game;
+import model.Move;
+import model.UserException;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ThreatSolver class
+ */
+public class ThreatSolverTest {
+
+    /**
+     * Игра 15x15, пять в ряд: ходы крестиков и ноликов по очереди
+     */
+    private static Game gomoku(int[][] xs, int[][] os) throws UserException {
+        Game game = new Game(15, 5);
+        for (int i = 0; i < Math.max(xs.length, os.length); i++) {
+            if (i < xs.length)
+                game.move(xs[i][0], xs[i][1]);
+            if (i < os.length)
+                game.move(os[i][0], os[i][1]);
+        }
+        return game;
+    }
+
+    @Test
+    public void testImmediateWin() throws UserException {
+        Game game = gomoku(new int[][]{{3, 3}, {4, 3}, {5, 3}, {6, 3}},
+                new int[][]{{2, 3}, {0, 0}, {0, 1}, {0, 2}});
+        ThreatSolver solver = new ThreatSolver(1000, 0);
+        assertEquals("(7; 3)", solver.solve(game).toString());
+        assertTrue(solver.isExact());
+    }
+
+    @Test
+    public void testOpenFourFromOpenThree() throws UserException {
+        Game game = gomoku(new int[][]{{6, 7}, {7, 7}, {8, 7}},
+                new int[][]{{0, 0}, {14, 14}, {0, 14}});
+        ThreatSolver solver = new ThreatSolver(1000, 0);
+        Move move = solver.solve(game);
+        assertNotNull(move);
+        assertEquals(7, move.y);
+        assertTrue(solver.getNodes() < 100);
+    }
+
+    @Test
+    public void testDefenderFourMustBeBlocked() throws UserException {
+        // У X открытая тройка, но у O четвёрка: X должен закрыть её
+        Game game = gomoku(new int[][]{{6, 7}, {7, 7}, {8, 7}, {0, 14}},
+                new int[][]{{0, 0}, {1, 0}, {2, 0}, {3, 0}});
+        assertNull(new ThreatSolver(1000, 2).solve(game));
+    }
+
+    @Test
+    public void testDoubleThree() throws UserException {
+        Game game = gomoku(new int[][]{{5, 7}, {6, 7}, {7, 5}, {7, 6}},
+                new int[][]{{0, 0}, {14, 0}, {0, 14}, {14, 14}});
+        assertNull("No fours available", new ThreatSolver(10_000, 0).solve(game));
+        ThreatSolver solver = new ThreatSolver(100_000, 1);
+        Move move = solver.solve(game);
+        assertNotNull(move);
+        assertFalse("Threes are not an exact proof", solver.isExact());
+        playOut(game, move);
+    }
+
+    @Test
+    public void testNodeLimit() throws UserException {
+        Game game = gomoku(new int[][]{{5, 7}, {6, 7}, {7, 5}, {7, 6}},
+                new int[][]{{0, 0}, {14, 0}, {0, 14}, {14, 14}});
+        ThreatSolver solver = new ThreatSolver(3, 2);
+        assertNull(solver.solve(game));
+        assertTrue(solver.getNodes() > 3);
+        assertEquals(Cell.EMPTY, game.getCell(7, 7));
+    }
+
+    @Test
+    public void testStop() throws UserException {
+        Game game = gomoku(new int[][]{{5, 7}, {6, 7}, {7, 5}, {7, 6}},
+                new int[][]{{0, 0}, {14, 0}, {0, 14}, {14, 14}});
+        ThreatSolver solver = new ThreatSolver(100_000, 1);
+        SearchPosition position = new SearchPosition(game);
+        int[] polls = {0};
+        assertEquals(-1, solver.solve(position, () -> ++polls[0] > 0));
+        // Остановка проверяется в каждой позиции
+        assertEquals(1, polls[0]);
+        assertEquals(1, solver.getNodes());
+        assertEquals(game.getMoveCount(), position.moves);
+        // После остановки тот же решатель снова ищет до конца
+        assertTrue(solver.solve(position, () -> false) >= 0);
+    }
+
+    @Test
+    public void testNoWinOnEmptyBoard() {
+        assertNull(new ThreatSolver(10_000, 2).solve(new Game(15, 5)));
+    }
+
+    @Test
+    public void testVcfIsSound() throws UserException {
+        // Случайные позиции 7x7, четыре в ряд: каждый найденный VCF
+        // доигрывается против защитника, который закрывает четвёрки
+        int found = 0, forcing = 0;
+        for (int seed = 0; seed < 300; seed++) {
+            SplittableRandom random = new SplittableRandom(seed);
+            Game game = new Game(7, 4);
+            for (int i = 0; i < 16 && !game.isOver(); i++)
+                game.move(RandomBot.randomMove(game, random));
+            if (game.isOver())
+                continue;
+            Move move = new ThreatSolver(100_000, 0).solve(game);
+            if (move != null) {
+                found++;
+                if (playOut(game, move) > 2)
+                    forcing++;
+            }
+        }
+        assertTrue(found > 10);
+        assertTrue("Some wins need several forcing moves", forcing > 0);
+    }
+
+    /**
+     * Доигрывание выигрыша: нападающий каждый раз ходит по решателю,
+     * защитник выигрывает, если может, иначе закрывает четвёрку
+     * или ходит в первую пустую клетку
+     *
+     * @return количество ходов нападающего
+     */
+    private static int playOut(Game game, Move first) throws UserException {
+        Cell attacker = game.getCurrentPlayer();
+        Cell defender = attacker == Cell.X ? Cell.O : Cell.X;
+        Move move = first;
+        int moves = 0;
+        while (!game.isOver()) {
+            assertNotNull("Attacker lost the thread", move);
+            game.move(move);
+            moves++;
+            if (game.isOver())
+                break;
+            Move reply = GreedyBot.findWinningMove(game, defender);
+            if (reply == null)
+                reply = GreedyBot.findWinningMove(game, attacker);
+            if (reply == null)
+                reply = RandomBot.randomMove(game, new SplittableRandom(0));
+            game.move(reply);
+            move = new ThreatSolver(100_000, 2).solve(game);
+        }
+        assertEquals(attacker == Cell.X ? Game.State.X_WINS : Game.State.O_WINS, game.getState());
+        return moves;
+    }
+}
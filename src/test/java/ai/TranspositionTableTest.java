@@ -0,0 +1,78 @@
+package ai;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for TranspositionTable class
+ */
+public class TranspositionTableTest {
+
+    @Test
+    public void testCapacity() {
+        assertEquals(1, new TranspositionTable(0).getCapacity());
+        assertEquals(1, new TranspositionTable(1).getCapacity());
+        assertEquals(8, new TranspositionTable(5).getCapacity());
+        assertEquals(1024, new TranspositionTable(1024).getCapacity());
+    }
+
+    @Test
+    public void testStoreAndProbe() {
+        TranspositionTable table = new TranspositionTable(16);
+        long hash = 0x1234_5678_9ABC_DEF0L;
+        assertEquals(0, table.probe(hash));
+        table.store(hash, 7, TranspositionTable.LOWER, -123456, 300);
+        long entry = table.probe(hash);
+        assertNotEquals(0, entry);
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.LOWER, TranspositionTable.flag(entry));
+        assertEquals(-123456, TranspositionTable.score(entry));
+        assertEquals(300, TranspositionTable.move(entry));
+        assertEquals(2, table.getProbes());
+        assertEquals(1, table.getHits());
+        assertEquals(0.5, table.getHitRate(), 1e-9);
+    }
+
+    @Test
+    public void testNoMove() {
+        TranspositionTable table = new TranspositionTable(16);
+        table.store(5, 1, TranspositionTable.EXACT, SearchBot.WIN, -1);
+        long entry = table.probe(5);
+        assertEquals(-1, TranspositionTable.move(entry));
+        assertEquals(SearchBot.WIN, TranspositionTable.score(entry));
+    }
+
+    @Test
+    public void testOtherPositionWithSameIndexIsNotFound() {
+        TranspositionTable table = new TranspositionTable(16);
+        table.store(3, 1, TranspositionTable.EXACT, 10, 1);
+        assertEquals(0, table.probe(3 + 16));
+        // Новая позиция вытесняет старую
+        table.store(3 + 16, 1, TranspositionTable.EXACT, 20, 2);
+        assertEquals(0, table.probe(3));
+        assertEquals(20, TranspositionTable.score(table.probe(3 + 16)));
+    }
+
+    @Test
+    public void testDeeperEntryIsKept() {
+        TranspositionTable table = new TranspositionTable(16);
+        table.store(9, 5, TranspositionTable.EXACT, 10, 1);
+        table.store(9, 3, TranspositionTable.UPPER, 20, 2);
+        assertEquals(5, TranspositionTable.depth(table.probe(9)));
+        table.store(9, 5, TranspositionTable.UPPER, 30, 3);
+        assertEquals(30, TranspositionTable.score(table.probe(9)));
+    }
+
+    @Test
+    public void testClear() {
+        TranspositionTable table = new TranspositionTable(16);
+        assertEquals(0, table.getHitRate(), 0);
+        table.store(9, 5, TranspositionTable.EXACT, 10, 1);
+        table.probe(9);
+        table.clear();
+        assertEquals(0, table.getProbes());
+        assertEquals(0, table.getHits());
+        assertEquals(0, table.probe(9));
+    }
+}
@@ -138,15 +138,15 @@ public class GameSteps {
 
         // Заполняем горизонтальную линию
         for (int x = 0; x < 3; x++) {
-            game.field[x][row] = new CellState(cell);
+            game.getField()[x][row].setCell(cell);
         }
 
         // Заполняем одну клетку противника, чтобы был правильный ход
         if (cell == Cell.X) {
-            game.field[0][(row + 1) % 3] = new CellState(opponent);
+            game.getField()[0][(row + 1) % 3].setCell(opponent);
             game.state = Game.State.X_MOVE;
         } else {
-            game.field[0][(row + 1) % 3] = new CellState(Cell.X);
+            game.getField()[0][(row + 1) % 3].setCell(Cell.X);
             game.state = Game.State.O_MOVE;
         }
 
@@ -160,12 +160,12 @@ public class GameSteps {
 
         // Заполняем вертикальную линию
         for (int y = 0; y < 3; y++) {
-            game.field[col][y] = new CellState(cell);
+            game.getField()[col][y].setCell(cell);
         }
 
         // Заполняем одну клетку противника
         if (cell == Cell.O) {
-            game.field[(col + 1) % 3][0] = new CellState(Cell.X);
+            game.getField()[(col + 1) % 3][0].setCell(Cell.X);
             game.state = Game.State.O_MOVE;
         }
 
@@ -231,7 +231,7 @@ public class GameSteps {
     @Тогда("клетка {int}, {int} содержит {}")
     public void checkCell(int x, int y, String cellValue) {
         Cell expected = Cell.valueOf(cellValue);
-        assertEquals(expected, game.field[x][y].getCell());
+        assertEquals(expected, game.getField()[x][y].getCell());
     }
 
     @Тогда("игра не завершена")
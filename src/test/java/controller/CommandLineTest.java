@@ -0,0 +1,19 @@
+package controller;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for CommandLine class
+ */
+public class CommandLineTest {
+
+    @Test
+    public void testArg() {
+        String[] args = {"simulate", "games=5", "x=greedy"};
+        assertEquals("5", CommandLine.arg(args, "games", "1"));
+        assertEquals("greedy", CommandLine.arg(args, "x", "random"));
+        assertEquals("random", CommandLine.arg(args, "o", "random"));
+    }
+}
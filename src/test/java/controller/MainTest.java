@@ -2,7 +2,28 @@ package controller;
 
 import org.junit.Test;
 
+import ai.BotPlayer;
+import ai.GreedyBot;
+import ai.OpeningBook;
+import ai.PonderingPlayer;
+import ai.RandomBot;
+import metrics.EngineMetrics;
+import model.Cell;
+import model.Game;
+import model.Move;
+import model.Player;
+import model.UserException;
+import view.GameView;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
 import java.lang.reflect.Method;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
 import java.lang.reflect.Modifier;
 
 import static org.junit.Assert.*;
@@ -62,4 +83,125 @@ public class MainTest {
         assertEquals("Main should be in controller package",
                      "controller", packageName);
     }
+
+    @Test
+    public void testHasFlag() {
+        assertTrue(Main.hasFlag(new String[]{"size=4", "gui"}, "gui"));
+        assertFalse(Main.hasFlag(new String[]{"guilty"}, "gui"));
+    }
+
+    @Test
+    public void testBot() {
+        assertNull(Main.bot("human"));
+        assertTrue(Main.bot("greedy") instanceof GreedyBot);
+    }
+
+    @Test
+    public void testAddRecorded() throws Exception {
+        OpeningBook.Builder builder = new OpeningBook.Builder(3, 3, 8);
+        String games = "0 0\n1 0\n1 1\n2 0\n2 2\n-\n# неоконченная\n0 0\n-\n0 0\n0 0\n-\nx\n";
+        assertEquals(3, Main.addRecorded(builder, Channels.newChannel(
+                new ByteArrayInputStream(games.getBytes(StandardCharsets.UTF_8)))));
+        assertEquals(1, builder.getGames());
+    }
+
+    @Test
+    public void testPlayer() {
+        Player human = (game, deadline) -> null;
+        assertSame(human, Main.player("human", human, 1, Runnable::run));
+        assertTrue(Main.player("greedy", human, 1, Runnable::run) instanceof BotPlayer);
+        assertTrue(Main.player("search", human, 1, Runnable::run) instanceof PonderingPlayer);
+    }
+
+    @Test
+    public void testMetricsOptIn() throws Exception {
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(new ByteArrayOutputStream()));
+        Game.setProbe(null);
+        try {
+            long moves = EngineMetrics.GLOBAL.getMoves();
+            Main.main(new String[]{"moves=0,0"});
+            assertEquals("Moves are not counted by default", moves, EngineMetrics.GLOBAL.getMoves());
+            Main.main(new String[]{"moves=0,0", "metrics=true"});
+            assertEquals(moves + 1, EngineMetrics.GLOBAL.getMoves());
+        } finally {
+            Game.setProbe(null);
+            System.setOut(stdout);
+        }
+    }
+
+    @Test
+    public void testPlayScript() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Main.playScript(new Game(), "0,0; 1,0;0,1;9,9;1,1;x;a,b;0,2", new PrintStream(out));
+        String text = out.toString();
+        assertTrue(text.contains("Ход 9,9"));
+        assertTrue(text.contains("Ход x"));
+        assertTrue(text.contains("Ход a,b"));
+        assertTrue(text.endsWith("XO_\nXO_\nX__\nX_WINS\n"));
+    }
+
+    @Test
+    public void testParseMoves() throws UserException {
+        List<Move> moves = Main.parseMoves("0,0; 1, 2 ;2,1");
+        assertEquals(3, moves.size());
+        assertEquals("(1; 2)", moves.get(1).toString());
+        for (String bad : new String[]{"0,0;x", "0,0;1,2,3", "a,b", "1;"}) {
+            try {
+                Main.parseMoves(bad);
+                fail(bad);
+            } catch (UserException e) {
+                assertTrue(e.getMessage(), e.getMessage().startsWith("Ход должен быть в виде x,y: "));
+            }
+        }
+    }
+
+    @Test
+    public void testPlayBotAgainstScriptedHuman() {
+        Game game = new Game();
+        List<UserException> errors = new ArrayList<>();
+        GameView human = new GameView() {
+            @Override
+            public Move inputMove() {
+                // Первый ход - за пределы поля, дальше первая пустая клетка
+                if (errors.isEmpty())
+                    return new Move(3, 3);
+                for (int i = 0; ; i++)
+                    if (game.getCell(i % 3, i / 3) == Cell.EMPTY)
+                        return new Move(i % 3, i / 3);
+            }
+
+            @Override
+            public void reportError(UserException e) {
+                errors.add(e);
+            }
+        };
+        Main.play(game, human, null, new RandomBot(), new SplittableRandom(1));
+        assertTrue(game.isOver());
+        assertEquals(1, errors.size());
+    }
+
+    @Test
+    public void testPlayBots() {
+        Game game = new Game(4, 3);
+        Main.play(game, null, new GreedyBot(), new GreedyBot(), new SplittableRandom(2));
+        assertTrue(game.isOver());
+    }
+
+    @Test
+    public void testAwaitGameOver() {
+        Game game = new Game();
+        Main.awaitGameOver(game, () -> new Thread(() -> {
+            try {
+                game.move(0, 0);
+                game.move(1, 0);
+                game.move(0, 1);
+                game.move(1, 1);
+                game.move(0, 2);
+            } catch (UserException e) {
+                throw new IllegalStateException(e);
+            }
+        }).start());
+        assertEquals(Game.State.X_WINS, game.getState());
+    }
 }
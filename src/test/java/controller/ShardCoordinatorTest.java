@@ -0,0 +1,106 @@
+package controller;
+
+import ai.ProofNumberSolver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ShardCoordinator class
+ */
+public class ShardCoordinatorTest {
+    private static final long LEASE = 300_000_000;
+
+    @Test
+    public void testWorkerProcesses() throws Exception {
+        Path directory = ShardFilesTest.directory();
+        try {
+            ShardCoordinator coordinator = new ShardCoordinator(directory, 3, 3, 2, 2, 12, LEASE);
+            assertEquals(ProofNumberSolver.Result.DRAW, coordinator.run());
+            assertEquals(72, coordinator.getShards());
+            assertEquals(0, coordinator.getRestarts());
+            List<String> table = Files.readAllLines(directory.resolve("table.txt"));
+            assertEquals(1 + 9 + 72, table.size());
+            assertEquals("......... DRAW", table.get(0));
+            assertTrue(table.contains("X..O..... WIN"));
+            // Повторный запуск продолжает готовое задание
+            assertEquals(ProofNumberSolver.Result.DRAW,
+                    new ShardCoordinator(directory, 3, 3, 2, 1, 12, LEASE).run());
+        } finally {
+            ShardFilesTest.delete(directory);
+        }
+    }
+
+    @Test
+    public void testDeadWorkerRestarted() throws Exception {
+        Path directory = ShardFilesTest.directory();
+        try {
+            ShardCoordinator coordinator = new ShardCoordinator(directory, 4, 3, 1, 1, 12, LEASE) {
+                private boolean started;
+
+                @Override
+                Process startWorker(int slot) throws IOException {
+                    if (started)
+                        return super.startWorker(slot);
+                    started = true;
+                    // Первый исполнитель сразу завершается
+                    return new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                            "-version").start();
+                }
+            };
+            assertEquals(ProofNumberSolver.Result.WIN, coordinator.run());
+            assertEquals(1, coordinator.getRestarts());
+        } finally {
+            ShardFilesTest.delete(directory);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOtherJob() throws Exception {
+        Path directory = ShardFilesTest.directory();
+        try {
+            new ShardCoordinator(directory, 3, 3, 1, 1, 12, LEASE).run();
+            new ShardCoordinator(directory, 3, 3, 2, 1, 12, LEASE).run();
+        } finally {
+            ShardFilesTest.delete(directory);
+        }
+    }
+
+    @Test
+    public void testExternalWorkers() throws Exception {
+        // Исполнители "других машин" в этом процессе, координатор без своих исполнителей
+        Path directory = ShardFilesTest.directory();
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            ShardFiles files = new ShardFiles(directory);
+            Future<ProofNumberSolver.Result> result =
+                    executor.submit(() -> new ShardCoordinator(directory, 3, 3, 1, 0, 12, LEASE).run());
+            while (files.readJob() == null)
+                Thread.sleep(10);
+            // Аренда умершего исполнителя перехватывается по истечении срока
+            files.tryAcquire(0, "1@dead");
+            ShardWorker a = new ShardWorker(directory, "2@a", 1 << 12, LEASE);
+            ShardWorker b = new ShardWorker(directory, "3@b", 1 << 12, LEASE);
+            Future<?> runA = executor.submit(() -> {
+                a.run();
+                return null;
+            });
+            b.run();
+            runA.get();
+            assertEquals(ProofNumberSolver.Result.DRAW, result.get());
+            assertEquals(9, a.getSolved() + b.getSolved());
+            assertNull(files.owner(0));
+        } finally {
+            executor.shutdownNow();
+            ShardFilesTest.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package controller;
+
+import ai.ProofNumberSolver;
+import model.Game;
+import model.UserException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ShardFiles class
+ */
+public class ShardFilesTest {
+
+    static Path directory() throws IOException {
+        return Files.createTempDirectory("shards");
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private static ShardFiles job(Path directory, String... boards) throws IOException {
+        ShardFiles files = new ShardFiles(directory);
+        Properties job = new Properties();
+        job.setProperty("size", "3");
+        files.writeJob(job, Arrays.asList(boards));
+        return files;
+    }
+
+    @Test
+    public void testBoard() throws UserException {
+        Game game = new Game();
+        game.move(1, 1);
+        game.move(2, 0);
+        game.move(0, 2);
+        assertEquals("..O.X.X..", ShardFiles.board(game));
+        Game copy = ShardFiles.game("..O.X.X..", 3, 3);
+        assertEquals(ShardFiles.board(game), ShardFiles.board(copy));
+        assertEquals(Game.State.O_MOVE, copy.getState());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidBoard() {
+        ShardFiles.game("OO.X.....", 3, 3);
+    }
+
+    @Test
+    public void testJob() throws IOException {
+        Path directory = directory();
+        try {
+            ShardFiles files = new ShardFiles(directory);
+            assertNull(files.readJob());
+            job(directory, "X........", ".X.......");
+            assertEquals("3", files.readJob().getProperty("size"));
+            assertEquals(Arrays.asList("X........", ".X......."), files.readShards());
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testLease() throws IOException {
+        Path directory = directory();
+        try {
+            ShardFiles files = job(directory, "X........");
+            assertNull(files.owner(0));
+            assertTrue(files.tryAcquire(0, "1@a"));
+            assertFalse(files.tryAcquire(0, "2@b"));
+            assertEquals("1@a", files.owner(0));
+            assertTrue(files.renew(0, "1@a"));
+            assertFalse(files.renew(0, "2@b"));
+            files.release(0);
+            assertFalse(files.renew(0, "1@a"));
+            assertTrue(files.tryAcquire(0, "2@b"));
+            assertEquals(1, files.releaseAll("2@b", 1));
+            assertEquals(0, files.releaseAll("2@b", 1));
+            assertNull(files.owner(0));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testStale() throws IOException, InterruptedException {
+        Path directory = directory();
+        try {
+            ShardFiles files = job(directory, "X........");
+            long timeout = 200_000_000;
+            assertFalse(files.isStale(0, timeout));
+            files.tryAcquire(0, "1@a");
+            assertFalse(files.isStale(0, timeout));
+            Thread.sleep(300);
+            assertTrue(files.isStale(0, timeout));
+            // Продление - время изменения другое, срок считается заново
+            Files.setLastModifiedTime(files.lease(0), FileTime.fromMillis(12345));
+            assertFalse(files.isStale(0, timeout));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testTakeOver() throws IOException {
+        Path directory = directory();
+        try {
+            ShardFiles a = job(directory, "X........");
+            ShardFiles b = new ShardFiles(directory);
+            a.tryAcquire(0, "1@dead");
+            Files.setLastModifiedTime(a.lease(0), FileTime.fromMillis(12345));
+            // Оба видят одну и ту же просроченную аренду
+            for (ShardFiles files : new ShardFiles[]{a, b}) {
+                assertFalse(files.isStale(0, 0));
+                assertTrue(files.isStale(0, 0));
+            }
+            assertTrue(a.takeOver(0, "2@a"));
+            assertEquals("2@a", a.owner(0));
+            // Второй перехватчик переносит уже свежую аренду и возвращает её
+            assertFalse(b.takeOver(0, "3@b"));
+            assertEquals("2@a", b.owner(0));
+            assertTrue(a.renew(0, "2@a"));
+            // Аренды нет - перехватывать нечего
+            a.release(0);
+            assertFalse(b.takeOver(0, "3@b"));
+            try (Stream<Path> leases = Files.list(directory.resolve("leases"))) {
+                assertEquals(0, leases.count());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    public void testResult() throws IOException {
+        Path directory = directory();
+        try {
+            ShardFiles files = job(directory, "X........");
+            assertNull(files.readResult(0));
+            files.writeResult(0, ProofNumberSolver.Result.DRAW);
+            assertEquals(ProofNumberSolver.Result.DRAW, files.readResult(0));
+            files.writeResult(0, ProofNumberSolver.Result.WIN);
+            assertEquals(ProofNumberSolver.Result.WIN, files.readResult(0));
+        } finally {
+            delete(directory);
+        }
+    }
+}
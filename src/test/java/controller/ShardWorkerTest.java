@@ -0,0 +1,47 @@
+package controller;
+
+import ai.ProofNumberSolver;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ShardWorker class
+ */
+public class ShardWorkerTest {
+    private static final long LEASE = 300_000_000;
+
+    @Test
+    public void testShardSolvedBeforeAcquire() throws IOException, InterruptedException {
+        Path directory = ShardFilesTest.directory();
+        try {
+            // Другой исполнитель решает шард и освобождает его
+            // между проверкой результата и захватом
+            ShardFiles files = new ShardFiles(directory) {
+                @Override
+                boolean tryAcquire(int shard, String owner) throws IOException {
+                    if (shard == 0 && readResult(0) == null)
+                        writeResult(0, ProofNumberSolver.Result.WIN);
+                    return super.tryAcquire(shard, owner);
+                }
+            };
+            Properties job = new Properties();
+            job.setProperty("size", "3");
+            job.setProperty("win", "3");
+            files.writeJob(job, Arrays.asList("X........", ".X......."));
+            ShardWorker worker = new ShardWorker(files, "1@a", 1 << 12, LEASE);
+            worker.run();
+            assertEquals(1, worker.getSolved());
+            assertEquals(ProofNumberSolver.Result.WIN, files.readResult(0));
+            assertNull(files.owner(0));
+            assertNull(files.owner(1));
+        } finally {
+            ShardFilesTest.delete(directory);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package controller;
+
+import ai.GreedyBot;
+import ai.RandomBot;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Simulation class
+ */
+public class SimulationTest {
+
+    @Test
+    public void testAllGamesPlayed() {
+        Simulation.Result result = new Simulation(3, 3, RandomBot::new, RandomBot::new, 1, 2).run(1000);
+        assertEquals(1000, result.getGames());
+        assertEquals(result.moves, result.moveLatency.getCount());
+        assertTrue(result.moves >= 5 * 1000);
+        assertTrue(result.moves <= 9 * 1000);
+        assertTrue(result.getGamesPerSecond() > 0);
+        assertTrue(result.getMovesPerSecond() > 0);
+    }
+
+    @Test
+    public void testReproducibleAcrossThreadCounts() {
+        Simulation.Result one = new Simulation(4, 3, GreedyBot::new, RandomBot::new, 7, 1).run(2000);
+        Simulation.Result four = new Simulation(4, 3, GreedyBot::new, RandomBot::new, 7, 4).run(2000);
+        assertEquals(one.xWins, four.xWins);
+        assertEquals(one.oWins, four.oWins);
+        assertEquals(one.draws, four.draws);
+        assertEquals(one.moves, four.moves);
+    }
+
+    @Test
+    public void testGreedyBeatsRandom() {
+        Simulation.Result result = new Simulation(3, 3, GreedyBot::new, RandomBot::new, 3, 2).run(2000);
+        assertTrue(result.xWins > result.oWins * 3);
+    }
+
+    @Test
+    public void testReport() {
+        Simulation.Result result = new Simulation(3, 3, RandomBot::new, RandomBot::new, 1, 1).run(10);
+        String report = result.toString();
+        assertTrue(report.contains("Игр: 10"));
+        assertTrue(report.contains("p99="));
+    }
+}
@@ -0,0 +1,142 @@
+package controller;
+
+import ai.GreedyBot;
+import ai.RandomBot;
+import model.Cell;
+import model.Game;
+import model.Move;
+import model.Player;
+import model.UserException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for TimedGame class
+ */
+public class TimedGameTest {
+    private static final long SECOND = 1_000_000_000L;
+
+    /**
+     * Мгновенно ходит в первую пустую клетку
+     */
+    private static final Player FIRST_EMPTY = (game, deadline) -> {
+        for (int i = 0; ; i++)
+            if (game.getCell(i % game.size, i / game.size) == Cell.EMPTY)
+                return CompletableFuture.completedFuture(new Move(i % game.size, i / game.size));
+    };
+
+    /**
+     * Никогда не ходит
+     */
+    private static final Player SILENT = (game, deadline) -> new CompletableFuture<>();
+
+    @Test
+    public void testInstantPlayers() {
+        Game game = new Game();
+        TimedGame.Clock x = new TimedGame.Clock(SECOND, SECOND / 10);
+        TimedGame.Clock o = new TimedGame.Clock(SECOND, SECOND / 10);
+        TimedGame timed = new TimedGame(game, FIRST_EMPTY, FIRST_EMPTY, x, o, new RandomBot(), 1);
+        assertEquals(Game.State.X_WINS, timed.play());
+        assertSame(x, timed.getXClock());
+        assertSame(o, timed.getOClock());
+        assertEquals(0, x.getTimeouts());
+        // Ход занимает меньше добавки - время только растёт
+        assertTrue(x.getRemainingNanos() > SECOND);
+    }
+
+    @Test
+    public void testTimeoutForcesMove() {
+        Game game = new Game();
+        TimedGame.Clock x = new TimedGame.Clock(SECOND / 100, SECOND / 100);
+        TimedGame.Clock o = new TimedGame.Clock(SECOND, 0);
+        long start = System.nanoTime();
+        new TimedGame(game, SILENT, FIRST_EMPTY, x, o, new GreedyBot(), 1).play();
+        assertTrue(game.isOver());
+        assertTrue(x.getTimeouts() >= 3);
+        assertEquals(0, o.getTimeouts());
+        assertTrue("Each wait is bounded by the clock",
+                System.nanoTime() - start < SECOND);
+    }
+
+    @Test
+    public void testRejectedMoveIsRequestedAgain() {
+        Game game = new Game();
+        List<UserException> errors = new ArrayList<>();
+        Player clumsy = new Player() {
+            private int calls;
+
+            @Override
+            public CompletableFuture<Move> requestMove(Game game, long deadlineNanos) {
+                // Каждый второй запрос - ход за пределы поля
+                if (calls++ % 2 == 0)
+                    return CompletableFuture.completedFuture(new Move(-1, 0));
+                return FIRST_EMPTY.requestMove(game, deadlineNanos);
+            }
+
+            @Override
+            public void reportError(UserException e) {
+                errors.add(e);
+            }
+        };
+        TimedGame.Clock x = new TimedGame.Clock(SECOND, 0);
+        new TimedGame(game, clumsy, FIRST_EMPTY, x, new TimedGame.Clock(SECOND, 0),
+                new RandomBot(), 1).play();
+        assertEquals("One rejected request per X move", 4, errors.size());
+        assertEquals(0, x.getTimeouts());
+    }
+
+    @Test
+    public void testRefusedOrFailedMoveIsForced() {
+        Player refusing = (game, deadline) -> CompletableFuture.completedFuture(null);
+        Player failing = (game, deadline) -> CompletableFuture.failedFuture(new RuntimeException("boom"));
+        Game game = new Game();
+        TimedGame.Clock x = new TimedGame.Clock(SECOND, 0);
+        TimedGame.Clock o = new TimedGame.Clock(SECOND, 0);
+        new TimedGame(game, refusing, failing, x, o, new RandomBot(), 1).play();
+        assertTrue(game.isOver());
+        assertEquals(0, x.getTimeouts());
+        assertEquals(0, o.getTimeouts());
+    }
+
+    @Test
+    public void testLateMoveIsNotAccepted() {
+        Player late = (game, deadline) -> CompletableFuture.supplyAsync(() -> {
+            while (System.nanoTime() - deadline < 0) {
+                Thread.onSpinWait();
+            }
+            return new Move(0, 0);
+        });
+        Game game = new Game();
+        TimedGame.Clock x = new TimedGame.Clock(SECOND / 100, 0);
+        new TimedGame(game, late, FIRST_EMPTY, x, new TimedGame.Clock(SECOND, 0),
+                new RandomBot(), 1).play();
+        assertTrue(x.getTimeouts() > 0);
+    }
+
+    @Test
+    public void testInterruptedWaitForcesMove() {
+        Game game = new Game(1);
+        Thread.currentThread().interrupt();
+        new TimedGame(game, SILENT, SILENT, new TimedGame.Clock(SECOND, 0),
+                new TimedGame.Clock(SECOND, 0), new RandomBot(), 1).play();
+        assertTrue(Thread.interrupted());
+        assertTrue(game.isOver());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testBrokenFallback() {
+        Game game = new Game();
+        new TimedGame(game, SILENT, SILENT, new TimedGame.Clock(0, 0),
+                new TimedGame.Clock(0, 0), (g, random) -> new Move(9, 9), 1).play();
+    }
+
+    @Test
+    public void testClockToString() {
+        assertEquals("1:05.250", new TimedGame.Clock(65_250_000_000L, 0).toString());
+    }
+}
@@ -0,0 +1,109 @@
+package controller;
+
+import ai.Bot;
+import ai.GreedyBot;
+import ai.RandomBot;
+import model.Game;
+import model.Move;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Tournament class
+ */
+public class TournamentTest {
+    private static final List<String> NAMES = List.of("random", "greedy");
+
+    private static Tournament.Standings play(int threads, List<Tournament.GameResult> results)
+            throws InterruptedException {
+        Tournament tournament = new Tournament(NAMES, Tournament.bots(NAMES), 20, 3, 3, 0, 7, threads);
+        return tournament.run((result, standings) -> results.add(result));
+    }
+
+    @Test
+    public void testEveryPairingBothColors() throws InterruptedException {
+        List<Tournament.GameResult> results = new ArrayList<>();
+        Tournament.Standings standings = play(4, results);
+        assertEquals(40, results.size());
+        assertEquals(40, standings.getGames());
+        int greedyAsX = 0;
+        for (Tournament.GameResult result : results) {
+            assertNotEquals(result.x, result.o);
+            assertTrue(result.moves >= 5);
+            if (result.x == 1)
+                greedyAsX++;
+        }
+        assertEquals(20, greedyAsX);
+        for (int player = 0; player < 2; player++)
+            assertEquals(40, standings.getWins(player) + standings.getDraws(player) + standings.getLosses(player));
+        assertEquals(standings.getWins(0), standings.getLosses(1));
+    }
+
+    @Test
+    public void testStrongerBotRatedHigher() throws InterruptedException {
+        Tournament.Standings standings = play(2, new ArrayList<>());
+        double[] elo = standings.elo(), errors = standings.errors();
+        assertTrue(standings.getPoints(1) > standings.getPoints(0));
+        assertTrue(elo[1] > elo[0]);
+        assertEquals(0, elo[0] + elo[1], 1e-6);
+        assertTrue(errors[0] > 0 && errors[1] > 0);
+        assertTrue(standings.toString().contains("greedy"));
+    }
+
+    @Test
+    public void testIndependentOfThreads() throws InterruptedException {
+        Tournament.Standings one = play(1, new ArrayList<>()), four = play(4, new ArrayList<>());
+        for (int player = 0; player < 2; player++) {
+            assertEquals(one.getWins(player), four.getWins(player));
+            assertEquals(one.getDraws(player), four.getDraws(player));
+        }
+    }
+
+    @Test
+    public void testEloOfKnownScore() {
+        Tournament.Standings standings = new Tournament.Standings(List.of("a", "b"));
+        // 75% очков: без условных партий разница 191 Эло, с ними немного меньше
+        for (int i = 0; i < 150; i++)
+            standings.record(0, 1, Game.State.X_WINS);
+        for (int i = 0; i < 50; i++)
+            standings.record(1, 0, Game.State.X_WINS);
+        double[] elo = standings.elo(), errors = standings.errors();
+        assertEquals(189, elo[0] - elo[1], 2);
+        assertTrue(errors[0] > 30 && errors[0] < 70);
+    }
+
+    @Test
+    public void testPerfectScoreFinite() {
+        Tournament.Standings standings = new Tournament.Standings(List.of("a", "b", "c"));
+        standings.record(0, 1, Game.State.X_WINS);
+        standings.record(2, 0, Game.State.O_WINS);
+        standings.record(1, 2, Game.State.DRAW);
+        double[] elo = standings.elo();
+        for (double rating : elo)
+            assertTrue(Double.isFinite(rating));
+        assertTrue(elo[0] > elo[1]);
+        assertEquals(elo[1], elo[2], 1e-6);
+    }
+
+    @Test
+    public void testIllegalMoveForfeits() throws InterruptedException {
+        Supplier<Bot> cheater = () -> (game, random) -> new Move(0, 0);
+        Tournament tournament = new Tournament(List.of("cheater", "greedy"),
+                List.of(cheater, GreedyBot::new), 2, 3, 3, 0, 1, 2);
+        Tournament.Standings standings = tournament.run((result, s) -> {
+        });
+        assertEquals(4, standings.getLosses(0));
+        assertEquals(4, standings.getForfeits(0));
+        assertEquals(0, standings.getForfeits(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSinglePlayer() {
+        new Tournament(List.of("random"), List.of(RandomBot::new), 1, 3, 3, 0, 1, 1);
+    }
+}
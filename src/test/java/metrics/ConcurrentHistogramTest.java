@@ -0,0 +1,57 @@
+package metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ConcurrentHistogram class
+ */
+public class ConcurrentHistogramTest {
+
+    @Test
+    public void testSnapshot() {
+        ConcurrentHistogram h = new ConcurrentHistogram();
+        h.record(5);
+        h.record(-1);
+        h.record(1_000_000);
+        Histogram snapshot = h.snapshot();
+        assertEquals(3, snapshot.getCount());
+        assertEquals(1_000_000, snapshot.getMax());
+        assertEquals(5, snapshot.getValueAtPercentile(50));
+        assertEquals((5 + 1_000_000) / 3.0, snapshot.getMean(), 1e-9);
+        h.clear();
+        assertEquals(0, h.snapshot().getCount());
+        assertEquals(0, h.snapshot().getMax());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        // 3 полосы округляются до 4
+        ConcurrentHistogram h = new ConcurrentHistogram(3);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int id = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++)
+                    h.record(i * (id + 1));
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        Histogram snapshot = h.snapshot();
+        assertEquals(40_000, snapshot.getCount());
+        assertEquals(9_999 * 4, snapshot.getMax());
+        // Сумма 0..9999 для каждого множителя 1..4
+        assertEquals(9_999 * 10_000 / 2 * 10 / 40_000.0, snapshot.getMean(), 1e-9);
+        Histogram expected = new Histogram();
+        for (int id = 1; id <= 4; id++)
+            for (int i = 0; i < 10_000; i++)
+                expected.record(i * id);
+        assertEquals(expected.getValueAtPercentile(50), snapshot.getValueAtPercentile(50));
+        assertEquals(expected.getValueAtPercentile(99), snapshot.getValueAtPercentile(99));
+        h.clear();
+        assertEquals(0, h.snapshot().getCount());
+    }
+}
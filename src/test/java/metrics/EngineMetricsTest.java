@@ -0,0 +1,148 @@
+package metrics;
+
+import model.Game;
+import model.ListenerExecutor;
+import model.UserException;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for EngineMetrics class
+ */
+public class EngineMetricsTest {
+
+    @Test
+    public void testCounters() {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.moveCompleted(Game.State.O_MOVE, 100);
+        metrics.moveCompleted(Game.State.X_WINS, 200);
+        metrics.moveCompleted(Game.State.O_WINS, 300);
+        metrics.moveCompleted(Game.State.DRAW, 400);
+        metrics.moveRejected(UserException.Reason.CELL_OCCUPIED);
+        metrics.moveRejected(UserException.Reason.CELL_OCCUPIED);
+        metrics.listenersNotified(50);
+        metrics.listenerQueued(0);
+        metrics.listenerQueued(7);
+        assertEquals(4, metrics.getMoves());
+        assertEquals(1, metrics.getXWins());
+        assertEquals(1, metrics.getOWins());
+        assertEquals(1, metrics.getDraws());
+        assertEquals(2, metrics.getRejectedMoves(UserException.Reason.CELL_OCCUPIED));
+        assertEquals(Long.valueOf(0), metrics.getRejectedMoves().get("GAME_OVER"));
+        assertEquals(Long.valueOf(2), metrics.getRejectedMoves().get("CELL_OCCUPIED"));
+        assertEquals(Long.valueOf(4), metrics.getMoveLatency().get("count"));
+        assertEquals(Long.valueOf(400), metrics.getMoveLatency().get("max"));
+        assertEquals(Long.valueOf(50), metrics.getListenerLatency().get("p50"));
+        assertEquals(Long.valueOf(2), metrics.getListenerQueueDepth().get("count"));
+        assertEquals(Long.valueOf(7), metrics.getListenerQueueDepth().get("max"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getMoves());
+        assertEquals(0, metrics.getXWins());
+        assertEquals(0, metrics.getOWins());
+        assertEquals(0, metrics.getDraws());
+        assertEquals(0, metrics.getRejectedMoves(UserException.Reason.CELL_OCCUPIED));
+        assertEquals(0, metrics.getMoveLatencySnapshot().getCount());
+        assertEquals(0, metrics.getListenerLatencySnapshot().getCount());
+        assertEquals(0, metrics.getListenerQueueDepthSnapshot().getCount());
+    }
+
+    @Test
+    public void testSessions() {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.sessionOpened();
+        metrics.sessionOpened();
+        metrics.sessionClosed();
+        assertEquals(1, metrics.getActiveSessions());
+        metrics.reset();
+        assertEquals("Reset keeps the gauge", 1, metrics.getActiveSessions());
+    }
+
+    @Test
+    public void testDump() {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.moveCompleted(Game.State.X_MOVE, 10);
+        String dump = metrics.getDump();
+        assertTrue(dump.contains("moves 1\n"));
+        assertTrue(dump.contains("rejected_moves{reason=OUT_OF_BOUNDS} 0\n"));
+        assertTrue(dump.contains("move_latency_ns p50=10"));
+    }
+
+    @Test
+    public void testGameReportsToProbe() throws UserException {
+        EngineMetrics metrics = new EngineMetrics();
+        Game.setProbe(metrics);
+        try {
+            playWithErrors();
+        } finally {
+            Game.setProbe(null);
+        }
+        assertEquals(5, metrics.getMoves());
+        assertEquals(1, metrics.getXWins());
+        assertEquals(1, metrics.getRejectedMoves(UserException.Reason.CELL_OCCUPIED));
+        assertEquals(1, metrics.getRejectedMoves(UserException.Reason.OUT_OF_BOUNDS));
+        assertEquals(1, metrics.getRejectedMoves(UserException.Reason.GAME_OVER));
+        assertEquals(5, metrics.getListenerLatencySnapshot().getCount());
+        assertEquals(5, metrics.getListenerQueueDepthSnapshot().getCount());
+
+        // Без наблюдателя игры ничего не сообщают
+        playWithErrors();
+        assertEquals(5, metrics.getMoves());
+    }
+
+    /**
+     * Партия до победы X с тремя отклонёнными ходами
+     */
+    private static void playWithErrors() throws UserException {
+        Game game = new Game();
+        game.listeners.add(state -> { });
+        game.setListenerExecutor(new ListenerExecutor(Runnable::run));
+        game.move(0, 0);
+        try {
+            game.move(0, 0);
+            fail();
+        } catch (UserException e) {
+            assertEquals(UserException.Reason.CELL_OCCUPIED, e.getReason());
+        }
+        try {
+            game.move(5, 0);
+            fail();
+        } catch (UserException e) {
+            assertEquals(UserException.Reason.OUT_OF_BOUNDS, e.getReason());
+        }
+        game.move(1, 0);
+        game.move(0, 1);
+        game.move(1, 1);
+        game.move(0, 2);
+        try {
+            game.move(2, 2);
+            fail();
+        } catch (UserException e) {
+            assertEquals(UserException.Reason.GAME_OVER, e.getReason());
+        }
+
+    }
+
+    @Test
+    public void testRegisterMBean() throws Exception {
+        EngineMetrics.registerMBean();
+        EngineMetrics.registerMBean();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(EngineMetrics.OBJECT_NAME);
+        assertTrue(server.isRegistered(name));
+        assertTrue(server.getAttribute(name, "Moves") instanceof Long);
+        assertNotNull(server.getAttribute(name, "ListenerQueueDepth"));
+        assertTrue(((String) server.getAttribute(name, "Dump")).contains("moves "));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterMBeanBadName() {
+        EngineMetrics.registerMBean(ManagementFactory.getPlatformMBeanServer(), "no domain");
+    }
+}
@@ -0,0 +1,89 @@
+package metrics;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Histogram class
+ */
+public class HistogramTest {
+
+    @Test
+    public void testEmpty() {
+        Histogram h = new Histogram();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getValueAtPercentile(99));
+        assertEquals(0.0, h.getMean(), 0.0);
+    }
+
+    @Test
+    public void testSmallValuesAreExact() {
+        Histogram h = new Histogram();
+        for (int i = 1; i <= 10; i++)
+            h.record(i);
+        assertEquals(10, h.getCount());
+        assertEquals(5, h.getValueAtPercentile(50));
+        assertEquals(9, h.getValueAtPercentile(90));
+        assertEquals(10, h.getValueAtPercentile(100));
+        assertEquals(1, h.getValueAtPercentile(0));
+        assertEquals(5.5, h.getMean(), 1e-9);
+        assertEquals(10, h.getMax());
+    }
+
+    @Test
+    public void testLargeValuesWithinPrecision() {
+        Histogram h = new Histogram();
+        for (long v = 1000; v <= 1_000_000; v += 1000)
+            h.record(v);
+        long p50 = h.getValueAtPercentile(50);
+        assertTrue("p50 = " + p50, Math.abs(p50 - 500_000) <= 500_000 / 32);
+        long p99 = h.getValueAtPercentile(99);
+        assertTrue("p99 = " + p99, Math.abs(p99 - 990_000) <= 990_000 / 32);
+        assertEquals(1_000_000, h.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void testBucketBounds() {
+        for (long v : new long[]{0, 63, 64, 65, 127, 128, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            int bucket = Histogram.bucket(v);
+            assertTrue(bucket < Histogram.BUCKETS);
+            assertTrue(v + " <= upper bound", v <= Histogram.highestValue(bucket));
+            if (bucket > 0)
+                assertTrue(v + " > previous bound", v > Histogram.highestValue(bucket - 1));
+        }
+    }
+
+    @Test
+    public void testNegativeIsZero() {
+        Histogram h = new Histogram();
+        h.record(-5);
+        assertEquals(0, h.getMax());
+        assertEquals(0, h.getValueAtPercentile(50));
+    }
+
+    @Test
+    public void testAddAndClear() {
+        Histogram a = new Histogram();
+        Histogram b = new Histogram();
+        a.record(10);
+        b.record(20);
+        b.record(30);
+        a.add(b);
+        assertEquals(3, a.getCount());
+        assertEquals(30, a.getMax());
+        assertEquals(20.0, a.getMean(), 1e-9);
+        b.add(new Histogram());
+        assertEquals(30, b.getMax());
+        a.clear();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.getMax());
+    }
+
+    @Test
+    public void testToString() {
+        Histogram h = new Histogram();
+        h.record(7);
+        assertEquals("p50=7 p90=7 p99=7 p99.9=7 max=7", h.toString());
+    }
+}
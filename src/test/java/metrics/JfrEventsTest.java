@@ -0,0 +1,104 @@
+package metrics;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.Game;
+import model.ListenerDispatchEvent;
+import model.MoveEvent;
+import model.UserException;
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for JFR events: MoveEvent, ListenerDispatchEvent, SearchEvent
+ */
+public class JfrEventsTest {
+
+    private static List<RecordedEvent> events(Recording recording, String name) throws Exception {
+        Path file = Files.createTempFile("tictactoe", ".jfr");
+        try {
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals(name))
+                    .collect(Collectors.toList());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void testMoveEvents() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable(MoveEvent.class);
+            recording.start();
+            Game game = new Game(4);
+            game.move(0, 0);
+            game.move(1, 1);
+            recording.stop();
+            List<RecordedEvent> moves = events(recording, "tictactoe.Move");
+            assertEquals(2, moves.size());
+            assertEquals(4, moves.get(1).getInt("size"));
+            assertEquals(2, moves.get(1).getInt("ply"));
+            assertEquals("X_MOVE", moves.get(1).getString("state"));
+        }
+    }
+
+    @Test
+    public void testSlowListenerEvent() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable(ListenerDispatchEvent.class).withThreshold(Duration.ofMillis(5));
+            recording.start();
+            Game game = new Game();
+            game.listeners.add(state -> { });
+            game.move(0, 0);
+            game.listeners.add(state -> {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            game.move(1, 1);
+            recording.stop();
+            List<RecordedEvent> slow = events(recording, "tictactoe.ListenerDispatch");
+            assertEquals("Only the slow dispatch is recorded", 1, slow.size());
+            assertEquals(2, slow.get(0).getInt("listeners"));
+            assertEquals(3, slow.get(0).getInt("size"));
+        }
+    }
+
+    @Test
+    public void testSearchEvent() throws Exception {
+        try (Recording recording = new Recording()) {
+            recording.enable(SearchEvent.class);
+            recording.start();
+            SearchEvent event = new SearchEvent();
+            event.begin();
+            event.searcher = "test";
+            event.nodes = 42;
+            event.depth = 3;
+            event.ttHitRate = 0.5;
+            event.commit();
+            recording.stop();
+            List<RecordedEvent> searches = events(recording, "tictactoe.Search");
+            assertEquals(1, searches.size());
+            assertEquals(42, searches.get(0).getLong("nodes"));
+            assertEquals(0.5, searches.get(0).getDouble("ttHitRate"), 0.0);
+        }
+    }
+
+    @Test
+    public void testNoRecordingNoCommit() throws UserException {
+        MoveEvent event = new MoveEvent();
+        assertFalse(event.shouldCommit());
+        new Game().move(0, 0);
+    }
+}
@@ -0,0 +1,124 @@
+package model;
+
+import ai.RandomBot;
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for BoardBatch class
+ */
+public class BoardBatchTest {
+
+    /**
+     * Случайные партии, оборванные на случайном ходу:
+     * результат пакета должен совпадать с Game
+     */
+    private void checkAgainstGame(int size, int winLength, int games) throws UserException {
+        BoardBatch batch = new BoardBatch(size, winLength, games);
+        Game.State[] expected = new Game.State[games];
+        SplittableRandom random = new SplittableRandom(size * 31 + winLength);
+        RandomBot bot = new RandomBot();
+        for (int i = 0; i < games; i++) {
+            Game game = new Game(size, winLength);
+            int stop = random.nextInt(size * size + 1);
+            while (!game.isOver() && game.getMoveCount() < stop)
+                game.move(bot.nextMove(game, random));
+            expected[i] = game.getState();
+            assertEquals(i, batch.add(game));
+        }
+        batch.evaluate();
+        for (int i = 0; i < games; i++)
+            assertEquals("board " + i, expected[i], batch.getState(i));
+    }
+
+    @Test
+    public void testMatchesGame3x3() throws UserException {
+        checkAgainstGame(3, 3, 500);
+    }
+
+    @Test
+    public void testMatchesGame5x5() throws UserException {
+        checkAgainstGame(5, 4, 500);
+    }
+
+    @Test
+    public void testMatchesGameMultiWord() throws UserException {
+        // 10x10 = 100 клеток, два слова на доску
+        checkAgainstGame(10, 5, 200);
+    }
+
+    @Test
+    public void testSetAndClear() {
+        BoardBatch batch = new BoardBatch(3, 3, 2);
+        int b = batch.addEmpty();
+        batch.set(b, 0, 0, Cell.O);
+        batch.set(b, 1, 1, Cell.O);
+        batch.set(b, 2, 2, Cell.X);
+        batch.set(b, 2, 2, Cell.O);
+        batch.evaluate();
+        assertEquals(Game.State.O_WINS, batch.getState(b));
+        batch.set(b, 2, 2, Cell.EMPTY);
+        batch.evaluate();
+        assertEquals(Game.State.X_MOVE, batch.getState(b));
+
+        batch.clear();
+        assertEquals(0, batch.getCount());
+        assertEquals(2, batch.getCapacity());
+        b = batch.addEmpty();
+        batch.evaluate();
+        assertEquals(Game.State.X_MOVE, batch.getState(b));
+    }
+
+    @Test
+    public void testBothLinesLastMoverWins() {
+        BoardBatch batch = new BoardBatch(10, 2, 2);
+        int b = batch.addEmpty();
+        batch.set(b, 0, 0, Cell.O);
+        batch.set(b, 1, 0, Cell.O);
+        batch.set(b, 9, 9, Cell.X);
+        batch.set(b, 8, 9, Cell.X);
+        int c = batch.addEmpty();
+        batch.set(c, 0, 0, Cell.O);
+        batch.set(c, 0, 1, Cell.O);
+        batch.set(c, 4, 4, Cell.X);
+        batch.set(c, 5, 5, Cell.X);
+        batch.set(c, 7, 0, Cell.X);
+        batch.evaluate();
+        // Поровну символов - последним ходил O
+        assertEquals(Game.State.O_WINS, batch.getState(b));
+        assertEquals(Game.State.X_WINS, batch.getState(c));
+    }
+
+    @Test
+    public void testBothLinesSingleWord() {
+        BoardBatch batch = new BoardBatch(4, 2, 1);
+        int b = batch.addEmpty();
+        batch.set(b, 0, 0, Cell.X);
+        batch.set(b, 1, 0, Cell.X);
+        batch.set(b, 3, 3, Cell.X);
+        batch.set(b, 0, 3, Cell.O);
+        batch.set(b, 1, 3, Cell.O);
+        batch.evaluate();
+        assertEquals(Game.State.X_WINS, batch.getState(b));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFull() {
+        BoardBatch batch = new BoardBatch(3, 3, 1);
+        batch.addEmpty();
+        batch.addEmpty();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongSize() {
+        new BoardBatch(3, 3, 1).add(new Game(4));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongWinLength() {
+        new BoardBatch(3, 4, 1);
+    }
+}
@@ -0,0 +1,106 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for GamePool class
+ */
+public class GamePoolTest {
+
+    @Test
+    public void testAcquireCreatesNewGame() {
+        GamePool pool = new GamePool(2);
+        Game game = pool.acquire(5, 4);
+        assertEquals(5, game.size);
+        assertEquals(4, game.winLength);
+        assertEquals(Game.State.X_MOVE, game.state);
+        assertEquals(0, pool.available(5, 4));
+    }
+
+    @Test
+    public void testReleaseAndReuse() throws UserException {
+        GamePool pool = new GamePool(2);
+        Game game = pool.acquire(3, 3);
+        final int[] calls = {0};
+        game.listeners.add(state -> calls[0]++);
+        game.getField()[0][0].addListener(newState -> calls[0]++);
+        game.move(0, 0);
+        assertEquals(2, calls[0]);
+
+        pool.release(game);
+        assertEquals(1, pool.available(3, 3));
+        assertEquals("Listeners are removed on release", 2, calls[0]);
+
+        Game reused = pool.acquire(3, 3);
+        assertSame(game, reused);
+        assertEquals(Cell.EMPTY, reused.getCell(0, 0));
+        assertEquals(Game.State.X_MOVE, reused.state);
+        reused.move(0, 0);
+        assertEquals(2, calls[0]);
+    }
+
+    @Test
+    public void testKeyedBySizeAndWinLength() {
+        GamePool pool = new GamePool(2);
+        pool.release(new Game(5, 4));
+        assertEquals(0, pool.available(5, 5));
+        assertEquals(5, pool.acquire(5, 5).winLength);
+        assertEquals(1, pool.available(5, 4));
+    }
+
+    @Test
+    public void testBounded() {
+        GamePool pool = new GamePool(2);
+        pool.release(new Game());
+        pool.release(new Game());
+        pool.release(new Game());
+        assertEquals(2, pool.available(3, 3));
+    }
+
+    @Test
+    public void testDoubleRelease() {
+        GamePool pool = new GamePool(2);
+        Game game = pool.acquire(3, 3);
+        pool.release(game);
+        try {
+            pool.release(game);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(1, pool.available(3, 3));
+        }
+        // Полученную снова игру можно вернуть
+        assertSame(game, pool.acquire(3, 3));
+        pool.release(game);
+        assertEquals(1, pool.available(3, 3));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDoubleReleaseWhenFull() {
+        GamePool pool = new GamePool(1);
+        pool.release(new Game());
+        Game discarded = new Game();
+        pool.release(discarded);
+        pool.release(discarded);
+    }
+
+    @Test
+    public void testThreadLocal() throws InterruptedException {
+        GamePool pool = new GamePool(2);
+        pool.release(new Game());
+        AtomicReference<Integer> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(pool.available(3, 3)));
+        thread.start();
+        thread.join();
+        assertEquals(Integer.valueOf(0), other.get());
+        assertEquals(1, pool.available(3, 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new GamePool(0);
+    }
+}
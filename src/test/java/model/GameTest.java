@@ -21,7 +21,7 @@ public class GameTest {
 
         // Ходим в верхний левый угол
         game.move(0, 0);
-        assertEquals(X, game.field[0][0].getCell());
+        assertEquals(X, game.getField()[0][0].getCell());
         assertEquals("Теперь ход ноликов", O_MOVE, game.state);
         assertEquals(O_MOVE, game.getState());
         assertFalse(game.isOver());
@@ -38,7 +38,9 @@ public class GameTest {
     public void testWinX() throws UserException {
         Game game = new Game();
         assertEquals(X_MOVE, game.state);
-        game.field[0] = new CellState[]{new CellState(X), new CellState(X), new CellState(X)};
+        for (CellState cell : game.getField()[0]) {
+            cell.setCell(X);
+        }
         assertEquals(X_MOVE, game.state);
         game.updateGameState(X);
         assertEquals(X_WINS, game.state);
@@ -51,7 +53,9 @@ public class GameTest {
         assertEquals(X_MOVE, game.state);
         game.move(1, 1);
         assertEquals(O_MOVE, game.state);
-        game.field[0] = new CellState[]{new CellState(O), new CellState(O), new CellState(O)};
+        for (CellState cell : game.getField()[0]) {
+            cell.setCell(O);
+        }
         assertEquals(O_MOVE, game.state);
         game.updateGameState(O);
         assertEquals(O_WINS, game.state);
@@ -197,7 +201,7 @@ public class GameTest {
         Game g = new Game();
         Move m = new Move(0, 0);
         g.move(m);
-        assertEquals(X, g.field[0][0].getCell());
+        assertEquals(X, g.getField()[0][0].getCell());
     }
 
     @Test
@@ -240,4 +244,255 @@ public class GameTest {
         // Manually call updateGameState with EMPTY which should never happen
         g.updateGameState(Cell.EMPTY);
     }
+
+    @Test
+    public void testGetCell() throws UserException {
+        Game g = new Game();
+        assertEquals(Cell.EMPTY, g.getCell(2, 1));
+        g.move(2, 1);
+        assertEquals(X, g.getCell(2, 1));
+        g.move(0, 2);
+        assertEquals(O, g.getCell(0, 2));
+        assertEquals(O, g.getField()[0][2].getCell());
+    }
+
+    @Test
+    public void testPackedBoardSpansSeveralWords() throws UserException {
+        // 7x7 = 49 клеток, больше 32 клеток одного long
+        Game g = new Game(7);
+        g.move(6, 6);
+        g.move(0, 5);
+        g.move(3, 4);
+        assertEquals(X, g.getCell(6, 6));
+        assertEquals(O, g.getCell(0, 5));
+        assertEquals(X, g.getCell(3, 4));
+        assertEquals(Cell.EMPTY, g.getCell(5, 6));
+        assertFalse(g.isOver());
+    }
+
+    @Test
+    public void testFieldViewClearsCell() {
+        Game g = new Game();
+        g.getField()[1][1].setCell(X);
+        assertEquals(X, g.getCell(1, 1));
+        g.getField()[1][1].setCell(O);
+        assertEquals(O, g.getCell(1, 1));
+        g.getField()[1][1].setCell(Cell.EMPTY);
+        assertEquals(Cell.EMPTY, g.getCell(1, 1));
+        assertEquals("_", g.getField()[1][1].toString());
+    }
+
+    @Test
+    public void testCellListenerOnField() throws UserException {
+        Game g = new Game();
+        final Cell[] lastCell = {null};
+        final int[] otherCalls = {0};
+        g.getField()[1][0].addListener(newState -> lastCell[0] = newState);
+        g.getField()[2][2].addListener(newState -> otherCalls[0]++);
+        g.move(0, 0);
+        assertNull("Listener of another cell is not called", lastCell[0]);
+        g.move(1, 0);
+        assertEquals(O, lastCell[0]);
+        g.getField()[1][0].setCell(O);
+        assertEquals(0, otherCalls[0]);
+    }
+
+    @Test
+    public void testDrawOnFullBoardViaField() {
+        Game g = new Game(1);
+        g.getField()[0][0].setCell(O);
+        g.updateGameState(X);
+        assertEquals(DRAW, g.state);
+    }
+
+    @Test
+    public void testWinLengthDefaultsToSize() {
+        assertEquals(3, new Game().getWinLength());
+        assertEquals(5, new Game(5).winLength);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWinLengthTooLong() {
+        new Game(3, 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWinLengthTooShort() {
+        new Game(3, 0);
+    }
+
+    @Test
+    public void testWinLengthHorizontal() throws UserException {
+        Game g = new Game(5, 4);
+        g.move(1, 2); // X
+        g.move(0, 0); // O
+        g.move(2, 2); // X
+        g.move(0, 1); // O
+        g.move(4, 2); // X
+        g.move(0, 3); // O
+        assertFalse(g.isOver());
+        g.move(3, 2); // X: 1..4 в строке 2
+        assertEquals(X_WINS, g.state);
+    }
+
+    @Test
+    public void testWinLengthAntiDiagonal() throws UserException {
+        Game g = new Game(5, 4);
+        g.move(0, 0); // X
+        g.move(4, 1); // O
+        g.move(1, 0); // X
+        g.move(3, 2); // O
+        g.move(2, 0); // X
+        g.move(1, 4); // O
+        g.move(4, 4); // X
+        g.move(2, 3); // O: (4,1) (3,2) (2,3) (1,4)
+        assertEquals(O_WINS, g.state);
+    }
+
+    @Test
+    public void testUpdateGameStateFindsShortLines() {
+        Game g = new Game(5, 3);
+        // Вертикаль
+        for (int y = 2; y < 5; y++)
+            g.getField()[4][y].setCell(O);
+        g.updateGameState(O);
+        assertEquals(O_WINS, g.state);
+
+        // Диагональ ниже главной
+        g = new Game(5, 3);
+        for (int i = 0; i < 3; i++)
+            g.getField()[i][i + 2].setCell(X);
+        g.updateGameState(X);
+        assertEquals(X_WINS, g.state);
+
+        // Обратная диагональ, начинающаяся в правом столбце
+        g = new Game(5, 3);
+        for (int i = 0; i < 3; i++)
+            g.getField()[4 - i][1 + i].setCell(X);
+        g.updateGameState(X);
+        assertEquals(X_WINS, g.state);
+
+        // Прерванная линия не считается
+        g = new Game(5, 3);
+        g.getField()[0][0].setCell(X);
+        g.getField()[1][0].setCell(X);
+        g.getField()[2][0].setCell(O);
+        g.getField()[3][0].setCell(X);
+        g.updateGameState(X);
+        assertEquals(X_MOVE, g.state);
+    }
+
+    @Test
+    public void testReset() throws UserException {
+        Game g = new Game();
+        final Cell[] lastCell = {null};
+        final Game.State[] lastState = {null};
+        final int[] emptyCalls = {0};
+        g.getField()[0][0].addListener(newState -> lastCell[0] = newState);
+        g.getField()[2][2].addListener(newState -> emptyCalls[0]++);
+        g.listeners.add(state -> lastState[0] = state);
+        g.move(0, 0);
+        g.move(1, 0);
+        g.move(0, 1);
+        g.move(1, 1);
+        g.move(0, 2);
+        assertTrue(g.isOver());
+
+        g.reset();
+        assertEquals(X_MOVE, g.state);
+        assertEquals(X_MOVE, lastState[0]);
+        assertEquals(Cell.EMPTY, lastCell[0]);
+        assertEquals("Empty cell is not notified", 0, emptyCalls[0]);
+        assertEquals("___\n___\n___\n", g.toString());
+
+        // Игру можно сыграть заново
+        g.move(1, 1);
+        assertEquals(X, g.getCell(1, 1));
+        assertEquals(O_MOVE, lastState[0]);
+    }
+
+    @Test
+    public void testResetWonGame() throws UserException {
+        Game g = new Game(1);
+        g.move(0, 0);
+        assertEquals(X_WINS, g.state);
+        g.reset();
+        assertFalse(g.isOver());
+        g.move(0, 0);
+        assertEquals(X_WINS, g.state);
+    }
+
+    @Test
+    public void testResetDrawnGame() throws UserException {
+        Game g = new Game();
+        int[][] moves = {{0, 0}, {1, 1}, {2, 2}, {0, 2}, {2, 0}, {1, 0}, {1, 2}, {2, 1}, {0, 1}};
+        for (int[] move : moves)
+            g.move(move[0], move[1]);
+        assertEquals(DRAW, g.state);
+        g.reset();
+        assertEquals(X_MOVE, g.state);
+        assertEquals(0, g.getMoveCount());
+        // Та же партия снова заканчивается ничьей
+        for (int[] move : moves)
+            g.move(move[0], move[1]);
+        assertEquals(DRAW, g.state);
+    }
+
+    @Test
+    public void testMoveCountAndCurrentPlayer() throws UserException {
+        Game g = new Game();
+        assertEquals(0, g.getMoveCount());
+        assertEquals(X, g.getCurrentPlayer());
+        g.move(0, 0);
+        assertEquals(1, g.getMoveCount());
+        assertEquals(O, g.getCurrentPlayer());
+        g.move(1, 0);
+        g.move(0, 1);
+        g.move(1, 1);
+        g.move(0, 2);
+        assertEquals(Cell.EMPTY, g.getCurrentPlayer());
+    }
+
+    @Test
+    public void testIsWinningMove() throws UserException {
+        Game g = new Game();
+        g.move(0, 0); // X
+        g.move(1, 0); // O
+        g.move(1, 1); // X
+        assertTrue(g.isWinningMove(2, 2, X));
+        assertFalse(g.isWinningMove(2, 2, O));
+        assertFalse(g.isWinningMove(2, 1, X));
+        assertEquals("Board is not changed", Cell.EMPTY, g.getCell(2, 2));
+    }
+
+    @Test
+    public void testCopy() throws UserException {
+        Game g = new Game(4, 3);
+        g.listeners.add(state -> fail("Listeners are not copied"));
+        g.listeners.clear();
+        g.move(1, 1);
+        Game copy = g.copy();
+        assertEquals(4, copy.size);
+        assertEquals(3, copy.winLength);
+        assertEquals(X, copy.getCell(1, 1));
+        assertEquals(O_MOVE, copy.state);
+        assertEquals(1, copy.getMoveCount());
+        copy.move(2, 2);
+        assertEquals(Cell.EMPTY, g.getCell(2, 2));
+        assertEquals(O_MOVE, g.state);
+    }
+
+    @Test
+    public void testFieldViewCreatedOnce() throws UserException {
+        Game g = new Game(4, 3);
+        g.move(1, 2);
+        CellState[][] field = g.getField();
+        assertSame(field, g.getField());
+        assertEquals(X, field[1][2].getCell());
+        // У копии своё представление поверх своего поля
+        Game copy = g.copy();
+        copy.getField()[0][0].setCell(O);
+        assertNotSame(field, copy.getField());
+        assertEquals(Cell.EMPTY, field[0][0].getCell());
+    }
 }
@@ -0,0 +1,209 @@
+package model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for ListenerExecutor class
+ */
+public class ListenerExecutorTest {
+
+    @Test
+    public void testOrderPerGame() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            ListenerExecutor executor = new ListenerExecutor(pool);
+            List<List<String>> logs = new ArrayList<>();
+            List<Game> games = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                Game game = new Game(5, 4);
+                List<String> log = Collections.synchronizedList(new ArrayList<>());
+                game.setListenerExecutor(executor);
+                game.getField()[0][0].addListener(cell -> log.add("cell " + cell));
+                game.listeners.add(state -> log.add(state.name()));
+                games.add(game);
+                logs.add(log);
+            }
+            for (Game game : games) {
+                game.move(0, 0);
+                game.move(1, 0);
+                game.reset();
+            }
+            awaitDelivered(executor);
+            for (List<String> log : logs)
+                assertEquals(List.of("cell X", "O_MOVE", "X_MOVE", "cell _", "X_MOVE"), log);
+            assertEquals(0, executor.getPending());
+            // Оповещения клеток и игры выполняются отдельно: по одному на запись журнала
+            assertEquals(8 * 5, executor.getDelivered());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSlowListenerBatched() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        AtomicInteger maxDepth = new AtomicInteger();
+        Game.setProbe(new GameProbe() {
+            @Override
+            public void listenerQueued(int depth) {
+                maxDepth.accumulateAndGet(depth, Math::max);
+            }
+        });
+        try {
+            ListenerExecutor executor = new ListenerExecutor(pool);
+            CountDownLatch release = new CountDownLatch(1);
+            Game game = new Game(15, 5);
+            game.setListenerExecutor(executor);
+            List<Game.State> states = Collections.synchronizedList(new ArrayList<>());
+            game.listeners.add(state -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                states.add(state);
+            });
+            long start = System.nanoTime();
+            for (int i = 0; i < 100; i++)
+                game.move(i % 15, i / 15 * 2);
+            // Ходы не ждут наблюдателя
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            assertEquals(100, executor.getPending());
+            release.countDown();
+            awaitDelivered(executor);
+            assertEquals(100, states.size());
+            assertEquals(Game.State.O_MOVE, states.get(0));
+            assertEquals(Game.State.X_MOVE, states.get(99));
+            assertEquals(100, executor.getDelivered());
+            assertTrue(executor.getBatches() <= 3);
+            assertEquals(99, maxDepth.get());
+        } finally {
+            Game.setProbe(null);
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testFailingListenerDoesNotStopQueue() throws Exception {
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setUncaughtExceptionHandler((t, e) -> errors.add(e));
+            return thread;
+        });
+        try {
+            ListenerExecutor executor = new ListenerExecutor(pool);
+            Game game = new Game();
+            game.setListenerExecutor(executor);
+            List<Game.State> states = Collections.synchronizedList(new ArrayList<>());
+            game.listeners.add(state -> {
+                if (state == Game.State.O_MOVE)
+                    throw new IllegalStateException("отказ");
+                states.add(state);
+            });
+            game.move(0, 0);
+            game.move(1, 1);
+            awaitDelivered(executor);
+            assertEquals(List.of(Game.State.X_MOVE), states);
+            assertEquals(1, errors.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testErrorDoesNotStopQueue() throws Exception {
+        List<Runnable> tasks = new ArrayList<>();
+        ListenerExecutor executor = new ListenerExecutor(tasks::add);
+        Game game = new Game();
+        game.setListenerExecutor(executor);
+        List<Game.State> states = new ArrayList<>();
+        game.listeners.add(state -> {
+            if (state == Game.State.O_MOVE)
+                throw new StackOverflowError();
+            states.add(state);
+        });
+        game.move(0, 0);
+        game.move(1, 1);
+        assertEquals(1, tasks.size());
+        // Обработчик ошибок сам выбрасывает ошибку и прерывает задачу
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        Thread thread = new Thread(tasks.remove(0));
+        thread.setUncaughtExceptionHandler((t, e) -> {
+            errors.add(e);
+            if (errors.size() == 1)
+                throw (Error) e;
+        });
+        thread.start();
+        thread.join();
+        // Второй раз ошибку, вышедшую из задачи, получает сам поток
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(1) instanceof StackOverflowError);
+        assertEquals(1, executor.getPending());
+        // Оставшееся оповещение - в новой задаче
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(List.of(Game.State.X_MOVE), states);
+        assertEquals(0, executor.getPending());
+        assertEquals(2, executor.getDelivered());
+        assertEquals(0, tasks.size());
+    }
+
+    @Test
+    public void testRejectedTaskIsUndone() throws UserException {
+        List<Runnable> tasks = new ArrayList<>();
+        boolean[] reject = {true};
+        ListenerExecutor executor = new ListenerExecutor(task -> {
+            if (reject[0])
+                throw new RejectedExecutionException("остановлен");
+            tasks.add(task);
+        });
+        Game game = new Game();
+        game.setListenerExecutor(executor);
+        List<Game.State> states = new ArrayList<>();
+        game.listeners.add(states::add);
+        try {
+            game.move(0, 0);
+            fail();
+        } catch (RejectedExecutionException e) {
+            assertEquals(0, executor.getPending());
+        }
+        // Очередь не осталась занятой: следующий ход снова запускает задачу
+        reject[0] = false;
+        game.move(1, 1);
+        assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        assertEquals(List.of(Game.State.X_MOVE), states);
+        assertEquals(0, executor.getPending());
+    }
+
+    @Test
+    public void testInlineByDefault() throws UserException {
+        Game game = new Game();
+        List<Game.State> states = new ArrayList<>();
+        game.listeners.add(states::add);
+        game.setListenerExecutor(new ListenerExecutor(Runnable::run));
+        game.setListenerExecutor(null);
+        game.move(0, 0);
+        assertEquals(List.of(Game.State.O_MOVE), states);
+    }
+
+    private static void awaitDelivered(ListenerExecutor executor) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (executor.getPending() > 0 && System.nanoTime() < deadline)
+            Thread.sleep(1);
+        assertEquals(0, executor.getPending());
+    }
+}
@@ -34,4 +34,12 @@ public class UserExceptionTest {
         UserException ex = new UserException("Test");
         assertTrue(ex instanceof Exception);
     }
+
+    @Test
+    public void testUserExceptionReason() {
+        assertEquals(UserException.Reason.OTHER, new UserException("Test").getReason());
+        UserException ex = new UserException(UserException.Reason.GAME_OVER, "Over");
+        assertEquals(UserException.Reason.GAME_OVER, ex.getReason());
+        assertEquals("Over", ex.getMessage());
+    }
 }
@@ -0,0 +1,176 @@
+package server;
+
+import model.Game;
+import model.ListenerExecutor;
+import model.UserException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Broadcast class
+ */
+public class BroadcastTest {
+    private static String text(byte[] frame) {
+        return frame == null ? null : new String(frame, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSnapshotThenMoves() throws UserException {
+        Game game = new Game();
+        Broadcast broadcast = new Broadcast(game, 8);
+        game.move(1, 1);
+        Broadcast.Spectator spectator = broadcast.subscribe();
+        assertEquals("{\"seq\":0,\"size\":3,\"win\":3,\"board\":\".../.../...\",\"state\":\"X_MOVE\"}\n",
+                text(spectator.next()));
+        assertEquals("{\"seq\":1,\"x\":1,\"y\":1,\"cell\":\"X\",\"state\":\"O_MOVE\"}\n", text(spectator.next()));
+        assertNull(spectator.next());
+        game.move(0, 2);
+        assertEquals("{\"seq\":2,\"x\":0,\"y\":2,\"cell\":\"O\",\"state\":\"X_MOVE\"}\n", text(spectator.next()));
+        assertEquals(0, spectator.getDropped());
+    }
+
+    @Test
+    public void testFramesSharedBetweenSpectators() throws UserException {
+        Game game = new Game();
+        Broadcast broadcast = new Broadcast(game, 4);
+        Broadcast.Spectator a = broadcast.subscribe(), b = broadcast.subscribe();
+        a.next();
+        b.next();
+        game.move(0, 0);
+        assertSame(a.next(), b.next());
+        assertEquals(2, broadcast.getSpectators());
+        a.close();
+        a.close();
+        assertEquals(1, broadcast.getSpectators());
+    }
+
+    @Test
+    public void testLaggingSpectatorGetsSnapshot() throws UserException {
+        Game game = new Game(5, 4);
+        Broadcast broadcast = new Broadcast(game, 4);
+        Broadcast.Spectator spectator = broadcast.subscribe();
+        spectator.next();
+        for (int i = 0; i < 11; i++)
+            game.move(i % 5, i / 5);
+        String frame = text(spectator.next());
+        assertTrue(frame, frame.startsWith("{\"seq\":10,"));
+        assertTrue(frame, frame.contains("\"board\":\"XOXOX/OXOXO/....."));
+        assertEquals(9, spectator.getDropped());
+        assertTrue(text(spectator.next()).startsWith("{\"seq\":11,\"x\":0,\"y\":2,"));
+        assertNull(spectator.next());
+        assertEquals(11, broadcast.getPublished());
+    }
+
+    @Test
+    public void testFramesNeverGoBack() throws UserException {
+        // Отставшие зрители получают снимки, но номер кадра всегда растёт
+        for (int capacity : new int[]{2, 4, 8}) {
+            Game game = new Game(7, 7);
+            Broadcast broadcast = new Broadcast(game, capacity);
+            List<Broadcast.Spectator> spectators = new ArrayList<>();
+            long[] last = new long[4];
+            for (int i = 0; i < last.length; i++) {
+                spectators.add(broadcast.subscribe());
+                last[i] = -1;
+            }
+            for (int move = 0; move < 49; move++) {
+                if (move % 20 == 19)
+                    game.reset();
+                game.move(move % 7, move / 7);
+                // Зритель i читает кадр после каждого (i + 1)-го хода
+                for (int i = 0; i < last.length; i++) {
+                    if (move % (i + 1) != 0)
+                        continue;
+                    byte[] frame = spectators.get(i).next();
+                    long seq = Json.number(text(frame), "seq", -1);
+                    assertTrue(seq > last[i]);
+                    last[i] = seq;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testResetIsSnapshot() throws UserException {
+        Game game = new Game();
+        Broadcast broadcast = new Broadcast(game, 8);
+        Broadcast.Spectator spectator = broadcast.subscribe();
+        spectator.next();
+        game.move(0, 0);
+        game.move(1, 1);
+        game.reset();
+        spectator.next();
+        spectator.next();
+        assertEquals("{\"seq\":3,\"size\":3,\"win\":3,\"board\":\".../.../...\",\"state\":\"X_MOVE\"}\n",
+                text(spectator.next()));
+    }
+
+    @Test
+    public void testPollWaitsForMove() throws Exception {
+        Game game = new Game();
+        Broadcast broadcast = new Broadcast(game, 8);
+        Broadcast.Spectator spectator = broadcast.subscribe();
+        spectator.next();
+        assertNull(spectator.poll(10, TimeUnit.MILLISECONDS));
+        Thread mover = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                game.move(2, 2);
+            } catch (InterruptedException | UserException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        mover.start();
+        String frame = text(spectator.poll(10, TimeUnit.SECONDS));
+        mover.join();
+        assertTrue(frame, frame.startsWith("{\"seq\":1,\"x\":2,\"y\":2,"));
+    }
+
+    @Test
+    public void testManySpectatorsCostNothingPerMove() throws UserException {
+        Game game = new Game(15, 5);
+        Broadcast broadcast = new Broadcast(game, 64);
+        List<Broadcast.Spectator> spectators = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++)
+            spectators.add(broadcast.subscribe());
+        for (int i = 0; i < 20; i++)
+            game.move(i % 15, i / 15 * 2);
+        for (Broadcast.Spectator spectator : spectators) {
+            spectator.next();
+            assertTrue(text(spectator.next()).startsWith("{\"seq\":1,"));
+        }
+    }
+
+    @Test
+    public void testEncodedOnListenerThread() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Game game = new Game();
+            game.setListenerExecutor(new ListenerExecutor(pool));
+            Broadcast broadcast = new Broadcast(game, 16);
+            Broadcast.Spectator spectator = broadcast.subscribe();
+            spectator.next();
+            game.move(0, 0);
+            game.move(1, 1);
+            game.move(2, 2);
+            assertTrue(text(spectator.poll(10, TimeUnit.SECONDS)).endsWith("\"cell\":\"X\",\"state\":\"O_MOVE\"}\n"));
+            assertTrue(text(spectator.poll(10, TimeUnit.SECONDS)).endsWith("\"cell\":\"O\",\"state\":\"X_MOVE\"}\n"));
+            assertTrue(text(spectator.poll(10, TimeUnit.SECONDS)).startsWith("{\"seq\":3,\"x\":2,\"y\":2,"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityPowerOfTwo() {
+        new Broadcast(new Game(), 6);
+    }
+}
@@ -0,0 +1,68 @@
+package server;
+
+import metrics.EngineMetrics;
+import model.Game;
+import model.UserException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for GameServer and Session classes
+ */
+public class GameServerTest {
+    private static String text(byte[] bytes) {
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testCreateMoveRemove() throws UserException {
+        GameServer server = new GameServer();
+        long sessions = EngineMetrics.GLOBAL.getActiveSessions();
+        Session session = server.create(3, 3);
+        assertSame(session, server.get(session.getId()));
+        assertEquals(sessions + 1, EngineMetrics.GLOBAL.getActiveSessions());
+        assertEquals("{\"id\":" + session.getId() + ",\"size\":3,\"win\":3,\"moves\":1,\"seq\":1,"
+                + "\"board\":\".../.X./...\",\"state\":\"O_MOVE\"}", text(session.move(1, 1)));
+        assertEquals(Game.State.O_MOVE, session.getState());
+        assertTrue(server.remove(session.getId()));
+        assertFalse(server.remove(session.getId()));
+        assertNull(server.get(session.getId()));
+        assertEquals(sessions, EngineMetrics.GLOBAL.getActiveSessions());
+    }
+
+    @Test
+    public void testDistinctIds() {
+        GameServer server = new GameServer();
+        assertNotEquals(server.create(3, 3).getId(), server.create(3, 3).getId());
+        assertEquals(2, server.getSessionCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooLarge() {
+        new GameServer().create(GameServer.MAX_SIZE + 1, 5);
+    }
+
+    @Test
+    public void testAwaitMove() throws Exception {
+        Session session = new GameServer().create(3, 3);
+        session.move(0, 0);
+        assertTrue(text(session.awaitMove(0, 0, TimeUnit.MILLISECONDS)).startsWith("{\"seq\":1,\"x\":0,\"y\":0,"));
+        assertNull(session.awaitMove(1, 20, TimeUnit.MILLISECONDS));
+        Thread mover = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+                session.move(2, 2);
+            } catch (InterruptedException | UserException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        mover.start();
+        assertTrue(text(session.awaitMove(1, 10, TimeUnit.SECONDS)).startsWith("{\"seq\":2,\"x\":2,\"y\":2,"));
+        mover.join();
+        assertEquals(0, session.getBroadcast().getSpectators());
+    }
+}
@@ -0,0 +1,185 @@
+package server;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for HttpApi class
+ */
+public class HttpApiTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private GameServer games;
+    private HttpApi api;
+
+    @Before
+    public void start() throws Exception {
+        games = new GameServer();
+        api = new HttpApi(games, new InetSocketAddress("127.0.0.1", 0));
+        api.start();
+    }
+
+    @After
+    public void stop() {
+        api.stop();
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + api.getPort() + path));
+    }
+
+    private HttpResponse<String> send(HttpRequest.Builder request) throws Exception {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String body) throws Exception {
+        return send(request(path).POST(HttpRequest.BodyPublishers.ofString(body)));
+    }
+
+    @Test
+    public void testPlayGame() throws Exception {
+        HttpResponse<String> created = post("/games", "{\"size\":3,\"win\":3}");
+        assertEquals(201, created.statusCode());
+        long id = Json.number(created.body(), "id", -1);
+        assertEquals(1, games.getSessionCount());
+        assertEquals("application/json; charset=utf-8", created.headers().firstValue("Content-Type").orElse(""));
+
+        String moves = "/games/" + id + "/moves";
+        assertEquals(200, post(moves, "{\"x\":0,\"y\":0}").statusCode());
+        post(moves, "{\"x\":0,\"y\":1}");
+        post(moves, "{\"x\":1,\"y\":0}");
+        post(moves, "{\"x\":1,\"y\":1}");
+        HttpResponse<String> last = post(moves, "{\"x\":2,\"y\":0}");
+        assertTrue(last.body(), last.body().contains("\"board\":\"XXX/OO./...\",\"state\":\"X_WINS\""));
+
+        HttpResponse<String> state = send(request("/games/" + id));
+        assertEquals(last.body(), state.body());
+
+        HttpResponse<String> over = post(moves, "{\"x\":2,\"y\":2}");
+        assertEquals(409, over.statusCode());
+        assertTrue(over.body().startsWith("{\"error\":\"GAME_OVER\""));
+
+        assertEquals(204, send(request("/games/" + id).DELETE()).statusCode());
+        assertEquals(404, send(request("/games/" + id)).statusCode());
+    }
+
+    @Test
+    public void testBadRequests() throws Exception {
+        long id = Json.number(post("/games", "{}").body(), "id", -1);
+        assertEquals(200, post("/games/" + id + "/moves", "{\"x\":0,\"y\":0}").statusCode());
+        HttpResponse<String> occupied = post("/games/" + id + "/moves", "{\"x\":0,\"y\":0}");
+        assertEquals(409, occupied.statusCode());
+        assertTrue(occupied.body().startsWith("{\"error\":\"CELL_OCCUPIED\",\"message\":\"Ячейка занята"));
+        assertEquals(400, post("/games/" + id + "/moves", "{\"x\":5,\"y\":0}").statusCode());
+        assertEquals(400, post("/games/" + id + "/moves", "{\"x\":\"a\"}").statusCode());
+        assertEquals(400, post("/games", "{\"size\":3,\"win\":4}").statusCode());
+        // Значения вне int не усекаются
+        assertEquals(400, post("/games/" + id + "/moves", "{\"x\":4294967296,\"y\":0}").statusCode());
+        assertEquals(400, post("/games", "{\"size\":4294967299}").statusCode());
+        assertEquals(400, post("/games", "{\"win\":-4294967293}").statusCode());
+        assertEquals(404, send(request("/games/abc")).statusCode());
+        assertEquals(405, send(request("/games")).statusCode());
+        assertEquals(405, send(request("/games/" + id + "/other")).statusCode());
+        assertEquals(404, send(request("/gamesx")).statusCode());
+        assertEquals(400, post("/games/" + id + "/moves", "{\"x\" 1}").statusCode());
+        assertEquals(400, post("/games", "{\"size\":3," + " ".repeat(5000) + "}").statusCode());
+        HttpResponse<String> query = send(request("/games/" + id + "/moves?after=one"));
+        assertEquals(400, query.statusCode());
+        assertTrue(query.body().contains("after"));
+    }
+
+    @Test
+    public void testStopInterruptsLongPoll() throws Exception {
+        long id = Json.number(post("/games", "{}").body(), "id", -1);
+        CompletableFuture<HttpResponse<String>> poll = client.sendAsync(
+                request("/games/" + id + "/moves?after=0&timeout=10000").build(), HttpResponse.BodyHandlers.ofString());
+        Thread.sleep(100);
+        assertFalse(poll.isDone());
+        api.stop();
+        HttpResponse<String> response = poll.get(5, TimeUnit.SECONDS);
+        assertEquals(503, response.statusCode());
+        assertTrue(response.body().startsWith("{\"error\":\"SHUTDOWN\""));
+        // Для остановки после теста
+        api = new HttpApi(games, new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @Test
+    public void testStopFromInterruptedThread() throws Exception {
+        // Запрос занимает поток и не реагирует на прерывание, пока его не отпустят
+        CountDownLatch entered = new CountDownLatch(1);
+        AtomicBoolean release = new AtomicBoolean();
+        api.stop();
+        api = new HttpApi(new GameServer() {
+            @Override
+            public Session create(int size, int winLength) {
+                entered.countDown();
+                while (!release.get())
+                    Thread.onSpinWait();
+                return super.create(size, winLength);
+            }
+        }, new InetSocketAddress("127.0.0.1", 0));
+        api.start();
+        CompletableFuture<HttpResponse<String>> create = client.sendAsync(
+                request("/games").POST(HttpRequest.BodyPublishers.ofString("{}")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        Thread.currentThread().interrupt();
+        try {
+            api.stop();
+            // Остановка не ждёт запросов, но прерывание сохраняется
+            assertTrue(Thread.interrupted());
+        } finally {
+            release.set(true);
+        }
+        create.handle((response, error) -> null).get(5, TimeUnit.SECONDS);
+        api = new HttpApi(games, new InetSocketAddress("127.0.0.1", 0));
+    }
+
+    @Test
+    public void testExecutor() throws Exception {
+        ExecutorService fallback = HttpApi.newExecutor("noSuchFactory");
+        try {
+            assertTrue(fallback.submit(() -> Thread.currentThread().isDaemon()).get());
+        } finally {
+            fallback.shutdown();
+        }
+        ExecutorService factory = HttpApi.newExecutor("newSingleThreadExecutor");
+        try {
+            assertFalse(factory.submit(() -> Thread.currentThread().isDaemon()).get());
+        } finally {
+            factory.shutdown();
+        }
+    }
+
+    @Test
+    public void testLongPoll() throws Exception {
+        long id = Json.number(post("/games", "{\"size\":5,\"win\":4}").body(), "id", -1);
+        String moves = "/games/" + id + "/moves";
+        assertEquals(204, send(request(moves + "?after=0&timeout=20")).statusCode());
+        CompletableFuture<HttpResponse<String>> poll = client.sendAsync(
+                request(moves + "?after=0&timeout=10000").build(), HttpResponse.BodyHandlers.ofString());
+        Thread.sleep(50);
+        assertFalse(poll.isDone());
+        post(moves, "{\"x\":3,\"y\":4}");
+        HttpResponse<String> frame = poll.get();
+        assertEquals(200, frame.statusCode());
+        assertEquals("{\"seq\":1,\"x\":3,\"y\":4,\"cell\":\"X\",\"state\":\"O_MOVE\"}\n", frame.body());
+        // Без after - снимок поля, после которого идут ходы
+        HttpResponse<String> snapshot = send(request(moves + "?timeout=0"));
+        assertTrue(snapshot.body(), snapshot.body().startsWith("{\"seq\":0,\"size\":5,\"win\":4,"));
+        assertEquals(snapshot.body(), send(request(moves)).body());
+    }
+}
@@ -0,0 +1,104 @@
+package server;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Json class
+ */
+public class JsonTest {
+    private static String text(Json json) {
+        return new String(json.toBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testNumbersAndStrings() {
+        Json json = new Json(4).begin()
+                .field("a", 0)
+                .field("b", -1234567890123L)
+                .field("c", Long.MIN_VALUE)
+                .field("d", "X_MOVE")
+                .end();
+        assertEquals("{\"a\":0,\"b\":-1234567890123,\"c\":-9223372036854775808,\"d\":\"X_MOVE\"}", text(json));
+    }
+
+    @Test
+    public void testEscapesAndUtf8() {
+        String value = "Ячейка \"занята\"\\\n😀";
+        String text = text(new Json(8).begin().field("message", value).end());
+        assertEquals("{\"message\":\"Ячейка \\\"занята\\\"\\\\\\u000a😀\"}", text);
+    }
+
+    @Test
+    public void testThreeByteAndLoneSurrogates() {
+        String text = text(new Json(4).begin().field("m", "€ \uD83D x \uDE00").end());
+        assertEquals("{\"m\":\"€ ? x ?\"}", text);
+        assertEquals(3, "€".getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    public void testExactSize() {
+        byte[] bytes = new Json(100).begin().field("x", 1).end().newline().toBytes();
+        assertEquals(8, bytes.length);
+    }
+
+    @Test
+    public void testReadNumber() {
+        String json = "{ \"size\" : 15, \"win\":-5,\"x\":7}";
+        assertEquals(15, Json.number(json, "size", 3));
+        assertEquals(-5, Json.number(json, "win", 3));
+        assertEquals(7, Json.number(json, "x", 0));
+        assertEquals(3, Json.number(json, "y", 3));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadNoColon() {
+        Json.number("{\"x\" 1}", "x", 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReadNotNumber() {
+        Json.number("{\"x\":\"one\"}", "x", 0);
+    }
+
+    @Test
+    public void testReadKeyPositionOnly() {
+        // Имя поля внутри строкового значения и во вложенном объекте - не ключ
+        String json = "{\"m\":\"\\\"x\\\":1, \\\"x\\\"\",\"n\":{\"x\":2},\"a\":[{\"x\":3},\"x\"],\"x\":4}";
+        assertEquals(4, Json.number(json, "x", 0));
+        assertEquals(0, Json.number("{\"m\":\"x\",\"n\":{\"x\":2}}", "x", 0));
+        assertEquals(0, Json.number("{\"m\":\"\"x\":1", "x", 0));
+        assertEquals(0, Json.number("{\"m\":\"x", "x", 0));
+    }
+
+    @Test
+    public void testReadNotInteger() {
+        for (String json : new String[]{"{\"x\":1.5}", "{\"x\":1e3}", "{\"x\":1", "{\"x\":12345678901234567890}"}) {
+            try {
+                Json.number(json, "x", 0);
+                fail(json);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("x"));
+            }
+        }
+        assertEquals(1, Json.number("{\"x\":1 }", "x", 0));
+    }
+
+    @Test
+    public void testReadInt() {
+        assertEquals(Integer.MAX_VALUE, Json.intNumber("{\"x\":2147483647}", "x", 0));
+        assertEquals(Integer.MIN_VALUE, Json.intNumber("{\"x\":-2147483648}", "x", 0));
+        assertEquals(7, Json.intNumber("{}", "x", 7));
+        for (String json : new String[]{"{\"x\":2147483648}", "{\"x\":-2147483649}", "{\"x\":4294967296}"}) {
+            try {
+                Json.intNumber(json, "x", 0);
+                fail(json);
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("диапазона"));
+            }
+        }
+    }
+}
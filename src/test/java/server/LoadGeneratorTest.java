@@ -0,0 +1,304 @@
+package server;
+
+import model.Move;
+import model.UserException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for LoadGenerator class
+ */
+public class LoadGeneratorTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testRandomMovesInProcess() throws InterruptedException {
+        GameServer server = new GameServer();
+        LoadGenerator generator = new LoadGenerator(LoadGenerator.inProcess(server), 4, 2000, 3, 3, null, 1);
+        LoadGenerator.Report report = generator.run(SECOND / 2);
+        assertEquals(0, report.errors);
+        // Открытая нагрузка: количество запросов задаёт расписание
+        assertEquals(1000, report.getRequests(), 10);
+        assertTrue(report.games > 50);
+        assertEquals(0, server.getSessionCount());
+        assertTrue(report.toString().contains("запросов/с"));
+    }
+
+    @Test
+    public void testScriptedGame() throws InterruptedException {
+        List<Move> script = List.of(new Move(0, 0), new Move(0, 1), new Move(1, 0), new Move(1, 1), new Move(2, 0));
+        LoadGenerator generator = new LoadGenerator(LoadGenerator.inProcess(new GameServer()), 1, 700, 3, 3, script, 1);
+        LoadGenerator.Report report = generator.run(SECOND / 10);
+        assertEquals(0, report.errors);
+        // Игра: создание, 5 ходов, удаление
+        assertEquals(70, report.getRequests(), 2);
+        assertEquals(10, report.games, 1);
+    }
+
+    @Test
+    public void testStallCountedForQueuedRequests() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        LoadGenerator.Target stalling = new LoadGenerator.Target() {
+            private final LoadGenerator.Target server = LoadGenerator.inProcess(new GameServer());
+
+            @Override
+            public long create(int size, int winLength) throws IOException {
+                return server.create(size, winLength);
+            }
+
+            @Override
+            public void move(long game, int x, int y) throws IOException, UserException {
+                if (calls.incrementAndGet() == 10) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                server.move(game, x, y);
+            }
+
+            @Override
+            public void remove(long game) throws IOException {
+                server.remove(game);
+            }
+        };
+        LoadGenerator.Report report = new LoadGenerator(stalling, 1, 500, 3, 3, null, 1).run(SECOND / 2);
+        // Одна медленная обработка, но все назначенные на её время запросы ждали
+        assertTrue(report.service.getValueAtPercentile(90) < TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(report.latency.getValueAtPercentile(90) > TimeUnit.MILLISECONDS.toNanos(10));
+        assertTrue(report.latency.getMax() >= TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    public void testOverHttp() throws Exception {
+        GameServer server = new GameServer();
+        HttpApi api = new HttpApi(server, new InetSocketAddress("127.0.0.1", 0));
+        api.start();
+        try {
+            LoadGenerator generator = new LoadGenerator(
+                    LoadGenerator.http(URI.create("http://127.0.0.1:" + api.getPort())), 2, 200, 4, 3, null, 1);
+            LoadGenerator.Report report = generator.run(SECOND / 2);
+            assertEquals(0, report.errors);
+            assertTrue(report.getRequests() >= 90);
+            assertEquals(0, server.getSessionCount());
+        } finally {
+            api.stop();
+        }
+    }
+
+    @Test
+    public void testErrorsCounted() throws InterruptedException {
+        GameServer server = new GameServer();
+        LoadGenerator.Target inProcess = LoadGenerator.inProcess(server);
+        // Игры пропадают сразу после создания, а удаление не работает
+        LoadGenerator.Target broken = new LoadGenerator.Target() {
+            @Override
+            public long create(int size, int winLength) throws IOException {
+                long game = inProcess.create(size, winLength);
+                inProcess.remove(game);
+                return game;
+            }
+
+            @Override
+            public void move(long game, int x, int y) throws IOException, UserException {
+                inProcess.move(game, x, y);
+            }
+
+            @Override
+            public void remove(long game) throws IOException {
+                throw new IOException("Удаление не работает");
+            }
+        };
+        LoadGenerator.Report report = new LoadGenerator(broken, 1, 300, 3, 3, null, 1).run(SECOND / 10);
+        // Ход в пропавшую игру, её удаление и удаление последней игры в конце
+        assertEquals(30, report.getRequests(), 2);
+        assertTrue(report.errors >= report.getRequests() / 3);
+        assertEquals(0, server.getSessionCount());
+
+        LoadGenerator.Target unreachable = new LoadGenerator.Target() {
+            @Override
+            public LoadGenerator.Target connect() throws IOException {
+                throw new IOException("Нет соединения");
+            }
+
+            @Override
+            public long create(int size, int winLength) {
+                throw new AssertionError();
+            }
+
+            @Override
+            public void move(long game, int x, int y) {
+                throw new AssertionError();
+            }
+
+            @Override
+            public void remove(long game) {
+                throw new AssertionError();
+            }
+        };
+        report = new LoadGenerator(unreachable, 2, 100, 3, 3, null, 1).run(SECOND / 100);
+        assertEquals(2, report.errors);
+        assertEquals(0, report.getRequests());
+    }
+
+    /**
+     * Сервер HTTP для проверки клиента: на каждый запрос
+     * выполняет следующее действие из очереди
+     */
+    private static class FakeServer implements AutoCloseable {
+        /**
+         * Закрыть соединение без ответа
+         */
+        static final String CLOSE = "close";
+        /**
+         * Сбросить соединение (RST) без ответа
+         */
+        static final String RESET = "reset";
+        /**
+         * Начало действия: отправить остаток и закрыть соединение
+         */
+        static final String CUT = "cut:";
+        /**
+         * Начало действия: отправить остаток и сбросить соединение
+         */
+        static final String CUT_RESET = "cut-reset:";
+
+        final BlockingQueue<String> actions = new LinkedBlockingQueue<>();
+        final AtomicInteger connections = new AtomicInteger();
+        private final ServerSocket server = new ServerSocket(0);
+        private final Thread thread = new Thread(this::serve, "fake-http");
+
+        FakeServer() throws IOException {
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        URI uri() {
+            return URI.create("http://127.0.0.1:" + server.getLocalPort());
+        }
+
+        private void serve() {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    connections.incrementAndGet();
+                    InputStream in = socket.getInputStream();
+                    while (readRequest(in)) {
+                        String action = actions.take();
+                        if (action.equals(RESET))
+                            socket.setSoLinger(true, 0);
+                        if (action.equals(CLOSE) || action.equals(RESET))
+                            break;
+                        String prefix = action.startsWith(CUT) ? CUT : action.startsWith(CUT_RESET) ? CUT_RESET : "";
+                        socket.getOutputStream().write(action.substring(prefix.length())
+                                .getBytes(StandardCharsets.UTF_8));
+                        if (prefix.equals(CUT_RESET)) {
+                            // Сброс после того, как клиент получил начало ответа
+                            Thread.sleep(50);
+                            socket.setSoLinger(true, 0);
+                        }
+                        if (!prefix.isEmpty() || action.contains("Connection: close"))
+                            break;
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // Сервер закрыт
+                }
+            }
+        }
+
+        /**
+         * Чтение заголовков и тела запроса
+         *
+         * @return false - соединение закрыто клиентом
+         */
+        private static boolean readRequest(InputStream in) throws IOException {
+            StringBuilder head = new StringBuilder();
+            while (head.indexOf("\r\n\r\n") < 0) {
+                int b = in.read();
+                if (b < 0)
+                    return false;
+                head.append((char) b);
+            }
+            int at = head.indexOf("Content-Length: ") + 16;
+            int length = Integer.parseInt(head.substring(at, head.indexOf("\r\n", at)));
+            return in.readNBytes(length).length == length;
+        }
+
+        static String reply(int status, String headers, String body) {
+            return "HTTP/1.1 " + status + " X\r\n" + headers + "Content-Length: " + body.length()
+                    + "\r\n\r\n" + body;
+        }
+
+        @Override
+        public void close() throws IOException {
+            server.close();
+        }
+    }
+
+    private static void assertFails(String message, Callable call) throws UserException {
+        try {
+            call.call();
+            fail(message);
+        } catch (IOException e) {
+            // Ожидаемая ошибка
+        }
+    }
+
+    private interface Callable {
+        void call() throws IOException, UserException;
+    }
+
+    @Test
+    public void testHttpClientEdgeCases() throws Exception {
+        try (FakeServer server = new FakeServer();
+             LoadGenerator.Target target = LoadGenerator.http(server.uri()).connect()) {
+            server.actions.add(FakeServer.reply(201, "", "{\"id\":7}"));
+            assertEquals(7, target.create(3, 3));
+            // Сервер закрыл простаивавшее соединение: повтор на новом
+            server.actions.add(FakeServer.CLOSE);
+            server.actions.add(FakeServer.reply(200, "", "{}"));
+            target.move(7, 0, 0);
+            assertEquals(2, server.connections.get());
+            // Ответ с закрытием соединения: следующий запрос - на новом
+            server.actions.add(FakeServer.reply(204, "Connection: close\r\n", ""));
+            target.remove(7);
+            // На новом соединении без ответа повтора нет
+            server.actions.add(FakeServer.CLOSE);
+            assertFails("No response on a fresh connection", () -> target.move(7, 1, 1));
+            server.actions.add(FakeServer.RESET);
+            assertFails("Reset on a fresh connection", () -> target.move(7, 1, 1));
+            server.actions.add(FakeServer.reply(409, "", "{\"error\":\"OCCUPIED\"}"));
+            assertFails("Unexpected status", () -> target.move(7, 1, 1));
+            server.actions.add("HTTP/1.1 200 X\r\nTransfer-Encoding: chunked\r\n\r\n");
+            assertFails("Chunked response", () -> target.move(7, 1, 1));
+            server.actions.add(FakeServer.reply(200, "Connection: close\r\n", "{}"));
+            target.move(7, 1, 1);
+            // Обрыв посреди заголовков и посреди тела
+            server.actions.add(FakeServer.CUT + "HTTP/1.1 200 X\r\nContent-Le");
+            assertFails("Headers cut", () -> target.move(7, 1, 1));
+            server.actions.add(FakeServer.CUT + "HTTP/1.1 200 X\r\nContent-Length: 10\r\n\r\n{}");
+            assertFails("Body cut", () -> target.move(7, 1, 1));
+            server.actions.add(FakeServer.CUT_RESET + "HTTP/1.1 200 X\r\n");
+            assertFails("Reset mid-response", () -> target.move(7, 1, 1));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroRate() {
+        new LoadGenerator(LoadGenerator.inProcess(new GameServer()), 1, 0, 3, 3, null, 1);
+    }
+}
@@ -0,0 +1,242 @@
+package server;
+
+import metrics.Histogram;
+import model.Cell;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for Matchmaker class
+ */
+public class MatchmakerTest {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testPairsClosestRatings() throws Exception {
+        GameServer server = new GameServer();
+        Matchmaker matchmaker = new Matchmaker(server, 100, 10 * MILLIS, 60_000 * MILLIS);
+        Matchmaker.Ticket a = matchmaker.join("a", 1500, 3, 3);
+        Matchmaker.Ticket b = matchmaker.join("b", 1900, 3, 3);
+        Matchmaker.Ticket c = matchmaker.join("c", 1550, 3, 3);
+        Matchmaker.Ticket d = matchmaker.join("d", 1950, 3, 3);
+        assertEquals(4, matchmaker.getWaiting());
+        matchmaker.pairNow();
+        Matchmaker.Match ma = a.match().getNow(null), mc = c.match().getNow(null);
+        assertSame(ma.session, mc.session);
+        assertSame(c, ma.opponent);
+        // Крестики у того, кто ждал дольше
+        assertEquals(Cell.X, ma.cell);
+        assertEquals(Cell.O, mc.cell);
+        assertSame(b.match().getNow(null).session, d.match().getNow(null).session);
+        assertNotSame(ma.session, b.match().getNow(null).session);
+        assertEquals(2, server.getSessionCount());
+        assertEquals(0, matchmaker.getWaiting());
+        assertEquals(4, matchmaker.getMatched());
+        assertEquals(4, matchmaker.getWaitTimeSnapshot().getCount());
+    }
+
+    @Test
+    public void testSeparateBoardConfigs() {
+        Matchmaker matchmaker = new Matchmaker(new GameServer(), 100, 10 * MILLIS, 60_000 * MILLIS);
+        Matchmaker.Ticket a = matchmaker.join("a", 1500, 3, 3);
+        Matchmaker.Ticket b = matchmaker.join("b", 1500, 4, 3);
+        matchmaker.pairNow();
+        assertFalse(a.match().isDone());
+        assertFalse(b.match().isDone());
+        Matchmaker.Ticket c = matchmaker.join("c", 1510, 4, 3);
+        matchmaker.pairNow();
+        assertFalse(a.match().isDone());
+        Matchmaker.Match match = c.match().getNow(null);
+        assertSame(b, match.opponent);
+        assertEquals(4, Json.number(new String(match.session.state(), StandardCharsets.UTF_8), "size", -1));
+    }
+
+    @Test
+    public void testGapWidensWithWait() throws Exception {
+        Matchmaker matchmaker = new Matchmaker(new GameServer(), 100, 10 * MILLIS, 200 * MILLIS);
+        assertEquals(100, matchmaker.allowedGap(0));
+        assertEquals(250, matchmaker.allowedGap(100 * MILLIS));
+        assertEquals(Long.MAX_VALUE, matchmaker.allowedGap(200 * MILLIS));
+
+        Matchmaker.Ticket a = matchmaker.join("a", 1000, 3, 3);
+        Matchmaker.Ticket b = matchmaker.join("b", 2000, 3, 3);
+        matchmaker.pairNow();
+        assertFalse(a.match().isDone());
+        // После наибольшего ожидания рейтинг не учитывается
+        Thread.sleep(210);
+        matchmaker.pairNow();
+        assertSame(b, a.match().getNow(null).opponent);
+    }
+
+    @Test
+    public void testCancel() {
+        Matchmaker matchmaker = new Matchmaker(new GameServer(), 100, 10 * MILLIS, 60_000 * MILLIS);
+        Matchmaker.Ticket a = matchmaker.join("a", 1500, 3, 3);
+        Matchmaker.Ticket b = matchmaker.join("b", 1500, 3, 3);
+        assertTrue(a.cancel());
+        assertTrue(a.match().isCancelled());
+        assertEquals(1, matchmaker.getWaiting());
+        matchmaker.pairNow();
+        assertFalse(b.match().isDone());
+        Matchmaker.Ticket c = matchmaker.join("c", 1500, 3, 3);
+        matchmaker.pairNow();
+        assertSame(c, b.match().getNow(null).opponent);
+        // Соперник уже найден
+        assertFalse(b.cancel());
+        assertEquals(0, matchmaker.getWaiting());
+    }
+
+    @Test
+    public void testCancelTwice() {
+        Matchmaker matchmaker = new Matchmaker(new GameServer(), 100, 10 * MILLIS, 60_000 * MILLIS);
+        Matchmaker.Ticket a = matchmaker.join("a", 1500, 3, 3);
+        assertTrue(a.cancel());
+        assertTrue(a.cancel());
+        assertEquals(0, matchmaker.getWaiting());
+    }
+
+    /**
+     * Сервер, который при создании игры выполняет действие
+     * (игроки пары в это время уже заняты подбором)
+     */
+    private static GameServer onCreate(Runnable action) {
+        return new GameServer() {
+            @Override
+            public Session create(int size, int winLength) {
+                action.run();
+                return super.create(size, winLength);
+            }
+        };
+    }
+
+    @Test
+    public void testCancelWaitsForPairing() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Matchmaker.Ticket> first = new AtomicReference<>();
+        AtomicBoolean cancelled = new AtomicBoolean(true);
+        Thread canceller = new Thread(() -> {
+            started.countDown();
+            cancelled.set(first.get().cancel());
+        });
+        Matchmaker matchmaker = new Matchmaker(onCreate(() -> {
+            canceller.start();
+            try {
+                started.await();
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            // Отказ ждёт решения подбора
+            assertTrue(canceller.isAlive());
+        }), 100, 10 * MILLIS, 60_000 * MILLIS);
+        first.set(matchmaker.join("a", 1500, 3, 3));
+        Matchmaker.Ticket b = matchmaker.join("b", 1500, 3, 3);
+        matchmaker.pairNow();
+        canceller.join();
+        assertFalse("Already matched", cancelled.get());
+        assertSame(b, first.get().match().getNow(null).opponent);
+    }
+
+    @Test
+    public void testCancelDuringBatch() {
+        // Пока создаётся игра первой пары, игроки второй отказываются
+        List<Matchmaker.Ticket> tickets = new ArrayList<>();
+        AtomicInteger cancel = new AtomicInteger(-1);
+        Matchmaker matchmaker = new Matchmaker(onCreate(() -> {
+            if (cancel.get() >= 0)
+                assertTrue(tickets.get(cancel.getAndSet(-1)).cancel());
+        }), 100, 10 * MILLIS, 60_000 * MILLIS);
+        for (int i = 0; i < 6; i++)
+            tickets.add(matchmaker.join("p" + i, 1000 + i, 3, 3));
+        // p3 отказался: пара (p2, p3) не создаётся, p2 ждёт дальше,
+        // а следующая пара (p3, p4) не создаётся из-за первого игрока
+        cancel.set(3);
+        matchmaker.pairNow();
+        assertSame(tickets.get(1), tickets.get(0).match().getNow(null).opponent);
+        assertFalse(tickets.get(2).match().isDone());
+        assertSame(tickets.get(5), tickets.get(4).match().getNow(null).opponent);
+        assertEquals(1, matchmaker.getWaiting());
+
+        // Ожидающий с прошлого подбора отказывается посреди подбора
+        Matchmaker.Ticket late = matchmaker.join("late", 1000, 3, 3);
+        tickets.add(late);
+        tickets.add(matchmaker.join("later", 1000, 3, 3));
+        cancel.set(2);
+        matchmaker.pairNow();
+        assertTrue(tickets.get(2).match().isCancelled());
+        assertSame(tickets.get(7), late.match().getNow(null).opponent);
+        assertEquals(0, matchmaker.getWaiting());
+    }
+
+    @Test
+    public void testStartTwice() throws Exception {
+        Matchmaker matchmaker = new Matchmaker(new GameServer(), 100, MILLIS, 60_000 * MILLIS);
+        matchmaker.start();
+        matchmaker.start();
+        try {
+            Matchmaker.Ticket a = matchmaker.join("a", 1500, 3, 3);
+            matchmaker.join("b", 1500, 3, 3);
+            assertNotNull(a.match().get(5, TimeUnit.SECONDS));
+        } finally {
+            matchmaker.close();
+            matchmaker.close();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadParameters() {
+        new Matchmaker(new GameServer(), 0, MILLIS, MILLIS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadBoard() {
+        new Matchmaker(new GameServer(), 100, MILLIS, MILLIS).join("a", 1500, 3, 4);
+    }
+
+    @Test
+    public void testConcurrentJoinsMatchedInBoundedTime()
+            throws InterruptedException, ExecutionException, TimeoutException {
+        GameServer server = new GameServer();
+        Matchmaker matchmaker = new Matchmaker(server, 50, 20 * MILLIS, 200 * MILLIS);
+        matchmaker.start();
+        try {
+            int threads = 4, perThread = 2500;
+            List<List<Matchmaker.Ticket>> tickets = new ArrayList<>();
+            List<Thread> joiners = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                List<Matchmaker.Ticket> own = new ArrayList<>();
+                tickets.add(own);
+                int seed = t;
+                Thread thread = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++)
+                        own.add(matchmaker.join("p" + seed + "-" + i, 1000 + (i * 7919 + seed * 31) % 1000, 3, 3));
+                });
+                joiners.add(thread);
+                thread.start();
+            }
+            for (Thread thread : joiners)
+                thread.join();
+            for (List<Matchmaker.Ticket> own : tickets)
+                for (Matchmaker.Ticket ticket : own)
+                    ticket.match().get(5, TimeUnit.SECONDS);
+            assertEquals(threads * perThread, matchmaker.getMatched());
+            assertEquals(threads * perThread / 2, server.getSessionCount());
+            Histogram wait = matchmaker.getWaitTimeSnapshot();
+            assertTrue(wait.toString(), wait.getMax() < TimeUnit.SECONDS.toNanos(2));
+        } finally {
+            matchmaker.close();
+        }
+    }
+}
@@ -11,6 +11,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.channels.Channels;
 
 import static org.junit.Assert.*;
 
@@ -134,4 +135,62 @@ public class ConsoleViewTest {
         assertTrue("Should use Game.GAME_TITLE constant",
                    output.contains("Игра Крестики-нолики"));
     }
+
+    @Test
+    public void testInputMoveKeepsBufferedInput() {
+        System.setIn(new ByteArrayInputStream("1 2 0 1\n".getBytes()));
+        ConsoleView view = new ConsoleView(game);
+
+        Move first = view.inputMove();
+        Move second = view.inputMove();
+        assertEquals("(1; 2)", first.toString());
+        assertEquals("(0; 1)", second.toString());
+    }
+
+    @Test
+    public void testInputMoveAtEndOfInput() {
+        System.setIn(new ByteArrayInputStream("1".getBytes()));
+        ConsoleView view = new ConsoleView(game);
+        assertNull(view.inputMove());
+        assertNull(view.inputMove());
+    }
+
+    @Test
+    public void testReplay() {
+        ConsoleView view = new ConsoleView(game);
+        outContent.reset();
+        String script = "0 0\n1 0\n0 1\n1 1\n0 2\n2 2\n-\n" +
+                "1 1\n1 1\nzz\n0 0\n-\n-\n";
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        ConsoleView.ReplayStats stats = view.replay(
+                Channels.newChannel(new ByteArrayInputStream(script.getBytes())),
+                new PrintStream(report));
+
+        assertEquals(2, stats.games);
+        assertEquals(7, stats.moves);
+        assertEquals(3, stats.errors);
+        String text = report.toString();
+        assertTrue(text.contains("Строка 6: Ход невозможен!"));
+        assertTrue(text.contains("Партия 1: X_WINS"));
+        assertTrue(text.contains("Строка 9: Ячейка занята"));
+        assertTrue(text.contains("Строка 10: Ожидалось число x"));
+        assertTrue(text.contains("Партия 2: X_MOVE"));
+        assertTrue(text.contains("Партий: 2, ходов: 7, ошибок: 3"));
+        assertEquals("Board is not rendered during replay", "", outContent.toString());
+
+        // После проигрывания поле снова выводится
+        game.reset();
+        assertTrue(outContent.toString().contains("X_MOVE"));
+    }
+
+    @Test
+    public void testReplayLastGameWithoutSeparator() {
+        ConsoleView view = new ConsoleView(game);
+        ByteArrayOutputStream report = new ByteArrayOutputStream();
+        ConsoleView.ReplayStats stats = view.replay(
+                Channels.newChannel(new ByteArrayInputStream("1,1\n".getBytes())),
+                new PrintStream(report));
+        assertEquals(1, stats.games);
+        assertTrue(report.toString().contains("Партия 1: O_MOVE"));
+    }
 }
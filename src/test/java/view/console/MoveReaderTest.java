@@ -0,0 +1,100 @@
+package view.console;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for MoveReader class
+ */
+public class MoveReaderTest {
+
+    private static MoveReader reader(String text, int bufferSize) {
+        return new MoveReader(Channels.newChannel(new ByteArrayInputStream(text.getBytes())), bufferSize);
+    }
+
+    private static MoveReader reader(String text) {
+        return reader(text, 4);
+    }
+
+    @Test
+    public void testNextInt() {
+        MoveReader r = reader("12  -3\n\tabc 4x 2147483648 7");
+        assertEquals(MoveReader.INT, r.nextInt());
+        assertEquals(12, r.x);
+        assertEquals(MoveReader.INT, r.nextInt());
+        assertEquals(-3, r.x);
+        assertEquals(MoveReader.ERROR, r.nextInt());
+        assertEquals(MoveReader.ERROR, r.nextInt());
+        assertEquals(MoveReader.ERROR, r.nextInt());
+        assertEquals(MoveReader.INT, r.nextInt());
+        assertEquals(7, r.x);
+        assertEquals(MoveReader.EOF, r.nextInt());
+        assertEquals(MoveReader.EOF, r.nextInt());
+    }
+
+    @Test
+    public void testNextLineMoves() {
+        MoveReader r = reader("1 2\n 3,4\r\n5;6\n\n# comment 7 8\n-\n-1 9\n10\t11");
+        assertEquals(MoveReader.MOVE, r.nextLine());
+        assertEquals(1, r.x);
+        assertEquals(2, r.y);
+        assertEquals(1, r.line);
+        assertEquals(MoveReader.MOVE, r.nextLine());
+        assertEquals(3, r.x);
+        assertEquals(4, r.y);
+        assertEquals(MoveReader.MOVE, r.nextLine());
+        assertEquals(5, r.x);
+        assertEquals(6, r.y);
+        assertEquals(MoveReader.NEW_GAME, r.nextLine());
+        assertEquals(6, r.line);
+        assertEquals(MoveReader.MOVE, r.nextLine());
+        assertEquals(-1, r.x);
+        assertEquals(9, r.y);
+        assertEquals(MoveReader.MOVE, r.nextLine());
+        assertEquals(10, r.x);
+        assertEquals(11, r.y);
+        assertEquals(8, r.line);
+        assertEquals(MoveReader.EOF, r.nextLine());
+    }
+
+    @Test
+    public void testNextLineErrors() {
+        MoveReader r = reader("a 1\n1\n1 b\n1 2 3\n12x 3\n4 5", 64);
+        assertEquals(MoveReader.ERROR, r.nextLine());
+        assertEquals("Ожидалось число x", r.error);
+        assertEquals(MoveReader.ERROR, r.nextLine());
+        assertEquals("Ожидался разделитель после x", r.error);
+        assertEquals(MoveReader.ERROR, r.nextLine());
+        assertEquals("Ожидалось число y", r.error);
+        assertEquals(MoveReader.ERROR, r.nextLine());
+        assertEquals("Лишние символы после y", r.error);
+        assertEquals(MoveReader.ERROR, r.nextLine());
+        assertEquals(5, r.line);
+        assertEquals(MoveReader.MOVE, r.nextLine());
+        assertEquals(4, r.x);
+        assertEquals(6, r.line);
+    }
+
+    @Test
+    public void testNewGameAtEnd() {
+        MoveReader r = reader("1 1\n-");
+        assertEquals(MoveReader.MOVE, r.nextLine());
+        assertEquals(MoveReader.NEW_GAME, r.nextLine());
+        assertEquals(MoveReader.EOF, r.nextLine());
+    }
+
+    @Test(expected = java.io.UncheckedIOException.class)
+    public void testIOException() {
+        MoveReader r = new MoveReader(Channels.newChannel(new java.io.InputStream() {
+            @Override
+            public int read() throws java.io.IOException {
+                throw new java.io.IOException("broken");
+            }
+        }));
+        r.nextLine();
+    }
+}
@@ -44,7 +44,7 @@ public class CellViewTest {
         CellView cellView = new CellView(0, 0, game);
 
         // Simulate state change via listener
-        game.field[0][0].setCell(Cell.X);
+        game.getField()[0][0].setCell(Cell.X);
 
         assertEquals("Text should update to X",
                      Cell.X.toString(), cellView.getText());
@@ -102,10 +102,10 @@ public class CellViewTest {
 
         // Initially should match model
         assertEquals("Text should match model state",
-                     game.field[1][1].toString(), cellView.getText());
+                     game.getField()[1][1].toString(), cellView.getText());
 
         // Change model state
-        game.field[1][1].setCell(Cell.O);
+        game.getField()[1][1].setCell(Cell.O);
 
         // Text should update
         assertEquals("Text should update when model changes",
@@ -122,4 +122,17 @@ public class CellViewTest {
         assertEquals(4, cellView.y);
         assertEquals(Cell.EMPTY.toString(), cellView.getText());
     }
+
+    @Test
+    public void testClickHandlerTakesMove() {
+        final model.Move[] offered = {null};
+        CellView cellView = new CellView(1, 2, game, move -> {
+            offered[0] = move;
+            return true;
+        });
+        cellView.doClick(0);
+        assertEquals("(1; 2)", offered[0].toString());
+        assertEquals("Handled click does not move", Cell.EMPTY, game.getCell(1, 2));
+        assertTrue(cellView.isEnabled());
+    }
 }